@@ -10,6 +10,7 @@ dependencies {
     implementation(libs.vineflower)
     implementation(libs.javaparser)
     implementation(libs.gson)
+    implementation(libs.asm)
 
     testImplementation(libs.junit.jupiter)
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
@@ -37,3 +38,137 @@ tasks.register<JavaExec>("classify") {
     mainClass = "com.hytale.indexer.SurfaceClassifier"
     jvmArgs = listOf("-Xmx4g")
 }
+
+tasks.register<JavaExec>("attribution") {
+    group = "application"
+    description = "Explain which seeds reach a surface type, or what removing seeds would drop"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.hytale.indexer.SurfaceAttribution"
+    workingDir = rootProject.projectDir.parentFile
+}
+
+tasks.register<JavaExec>("lazyDecompile") {
+    group = "application"
+    description = "Decompile classes on demand after a lazy Phase 1 (by FQCN, or --surface)"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.hytale.indexer.LazyDecompiler"
+    workingDir = rootProject.projectDir.parentFile
+}
+
+tasks.register<JavaExec>("unpack") {
+    group = "application"
+    description = "Export artifacts/decompiled.pack back to a loose source tree"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.hytale.indexer.PackedSourceStore"
+}
+
+tasks.register<JavaExec>("benchParse") {
+    group = "verification"
+    description = "Compare full vs signature-only parse throughput on a synthetic source tree"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.hytale.indexer.ParseBenchmark"
+    jvmArgs = listOf("-Xmx4g")
+}
+
+tasks.register<JavaExec>("syntheticJar") {
+    group = "application"
+    description = "Generate a synthetic HytaleServer.jar look-alike with a given class count"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.hytale.indexer.SyntheticJarGenerator"
+    workingDir = rootProject.projectDir.parentFile
+    jvmArgs = listOf("-Xmx2g")
+}
+
+tasks.register<JavaExec>("benchScaling") {
+    group = "verification"
+    description = "Run Phases 1-2 on synthetic JARs of increasing size and report scaling"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.hytale.indexer.ScalingBenchmark"
+    workingDir = rootProject.projectDir.parentFile
+    jvmArgs = listOf("-Xmx2g")
+}
+
+tasks.register<JavaExec>("diff") {
+    group = "application"
+    description = "Structural API diff between two class-index.json files"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.hytale.indexer.ApiDiff"
+    jvmArgs = listOf("-Xmx4g")
+}
+
+tasks.register<JavaExec>("docPlan") {
+    group = "application"
+    description = "Record page input fingerprints or plan incremental doc regeneration"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.hytale.indexer.DocPlanner"
+    workingDir = rootProject.projectDir.parentFile
+}
+
+tasks.register<JavaExec>("versions") {
+    group = "application"
+    description = "Add pipeline runs to the multi-version store, or query since which version a type or member exists"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.hytale.indexer.VersionedIndexStore"
+    workingDir = rootProject.projectDir.parentFile
+    jvmArgs = listOf("-Xmx4g")
+}
+
+tasks.register<JavaExec>("rag") {
+    group = "application"
+    description = "Build, query or evaluate the local BM25 index over output/docs"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.hytale.indexer.RagIndex"
+    workingDir = rootProject.projectDir.parentFile
+    standardInput = System.`in`
+}
+
+tasks.register<JavaExec>("renderStructure") {
+    group = "application"
+    description = "Render structural sections of type pages from class-index.json and surface.json"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.hytale.indexer.StructuralRenderer"
+    workingDir = rootProject.projectDir.parentFile
+    jvmArgs = listOf("-Xmx4g")
+}
+
+tasks.register<JavaExec>("codecSchemas") {
+    group = "application"
+    description = "Extract JSON Schemas from BuilderCodec definitions into artifacts/schemas"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.hytale.indexer.CodecSchemaExtractor"
+    workingDir = rootProject.projectDir.parentFile
+    jvmArgs = listOf("-Xmx4g")
+}
+
+tasks.register<JavaExec>("resourceIndex") {
+    group = "application"
+    description = "Index JSON and other data files bundled in the JAR into artifacts/resource-index.json"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.hytale.indexer.ResourceIndexer"
+    workingDir = rootProject.projectDir.parentFile
+}
+
+tasks.register<JavaExec>("mapSystems") {
+    group = "application"
+    description = "Map events, ECS components and systems into artifacts/systems-mapped.json"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.hytale.indexer.SystemsMapper"
+    workingDir = rootProject.projectDir.parentFile
+    jvmArgs = listOf("-Xmx4g")
+}
+
+tasks.register<JavaExec>("auditLinks") {
+    group = "application"
+    description = "Phase 4.1: audit and fix .md links in output/docs, write link-audit.json"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.hytale.indexer.LinkAuditor"
+    workingDir = rootProject.projectDir.parentFile
+}
+
+// -Pjfr=<file> runs any of the tools under a flight recording, including the
+// pipeline's own events (category "Hytale Indexer"); relative to tools/
+tasks.withType<JavaExec>().configureEach {
+    providers.gradleProperty("jfr").orNull?.let {
+        jvmArgs("-XX:StartFlightRecording=filename=${rootProject.file(it)}")
+    }
+}
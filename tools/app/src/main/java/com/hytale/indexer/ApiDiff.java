@@ -0,0 +1,354 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Structural API diff between two pipeline runs (spec section 8, "diff" mode).
+ *
+ * Usage: api-diff <old-class-index.json> <new-class-index.json> [output.json]
+ *
+ * Each side's surface.json is read from next to its class index when present.
+ * Types are hash-joined on FQCN. A type whose digest (header plus member
+ * signatures, see {@link ApiSignatures}) matches on both sides is unchanged
+ * and never compared member by member. Changed types are joined again on
+ * member keys. Removed and added types are finally joined on their shape
+ * hash, which leaves the FQCN out, to detect types that moved package or
+ * were renamed without changing their API. A shape alone is only trusted
+ * when it has members and pairs exactly one removed with one added type;
+ * otherwise (empty marker interfaces, exceptions, ...) a move needs the same
+ * simple name. Every step is a hash lookup, so
+ * the diff runs in time linear in the size of the two indexes.
+ *
+ * The changeset (default: api-diff.json next to the new index) lists every
+ * changed type and member, plus the surface types whose docs need
+ * regenerating or removing.
+ */
+public class ApiDiff {
+
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: api-diff <old-class-index.json> <new-class-index.json> [output.json]");
+            System.exit(1);
+        }
+
+        Path oldIndex = ArtifactIO.find(Path.of(args[0]).toAbsolutePath());
+        Path newIndex = ArtifactIO.find(Path.of(args[1]).toAbsolutePath());
+        for (Path p : List.of(oldIndex, newIndex)) {
+            if (!Files.isRegularFile(p)) {
+                System.err.println("ERROR: File not found: " + p);
+                System.exit(1);
+            }
+        }
+        Path outputPath = args.length > 2
+            ? Path.of(args[2]).toAbsolutePath()
+            : newIndex.resolveSibling("api-diff.json");
+
+        try {
+            new ApiDiff().run(oldIndex, newIndex, outputPath);
+        } catch (Exception e) {
+            System.err.println("FATAL: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    /** One side of the diff: hashed types plus surface membership. */
+    private static final class Side {
+        final String jarHash;
+        final Map<String, HashedType> types = new HashMap<>();
+        final Map<String, String> surface = new HashMap<>(); // fqcn -> category
+
+        Side(String jarHash) {
+            this.jarHash = jarHash;
+        }
+    }
+
+    private record HashedType(ClassIndexer.ClassEntry entry, String header,
+                              Map<String, String> members, long shapeHash, long typeHash) {}
+
+    public void run(Path oldIndex, Path newIndex, Path outputPath) throws IOException {
+        System.out.println("=== API Diff ===");
+        long start = System.currentTimeMillis();
+        Side before = load(oldIndex);
+        Side after = load(newIndex);
+        System.out.println("Old: " + before.types.size() + " types, " + before.surface.size() + " in surface");
+        System.out.println("New: " + after.types.size() + " types, " + after.surface.size() + " in surface");
+
+        DiffOutput output = new DiffOutput();
+        output.version = "1.0.0";
+        output.generated_at = DateTimeFormatter.ISO_INSTANT.format(Instant.now().atOffset(ZoneOffset.UTC));
+        output.old_index = new IndexRef(oldIndex.toString(), before.jarHash);
+        output.new_index = new IndexRef(newIndex.toString(), after.jarHash);
+        Summary summary = new Summary();
+        output.summary = summary;
+
+        // Join 1: FQCN -> type digest
+        List<HashedType> added = new ArrayList<>();
+        Map<Long, List<HashedType>> removedByShape = new HashMap<>();
+        List<TypeChange> changes = new ArrayList<>();
+        for (HashedType now : after.types.values()) {
+            HashedType was = before.types.get(now.entry().fqcn);
+            if (was == null) {
+                added.add(now);
+            } else if (was.typeHash() == now.typeHash()) {
+                summary.types_unchanged++;
+            } else {
+                changes.add(changedType(was, now, summary));
+            }
+        }
+        for (HashedType was : before.types.values()) {
+            if (!after.types.containsKey(was.entry().fqcn)) {
+                removedByShape.computeIfAbsent(was.shapeHash(), k -> new ArrayList<>()).add(was);
+            }
+        }
+
+        // Join 3: added vs removed on the FQCN-free shape hash
+        Map<Long, Integer> addedPerShape = new HashMap<>();
+        for (HashedType now : added) addedPerShape.merge(now.shapeHash(), 1, Integer::sum);
+        for (HashedType now : added) {
+            List<HashedType> candidates = removedByShape.get(now.shapeHash());
+            HashedType was = candidates == null ? null
+                : pickMoveSource(candidates, now, addedPerShape.get(now.shapeHash()));
+            TypeChange change = new TypeChange();
+            change.fqcn = now.entry().fqcn;
+            change.source_file = now.entry().source_file;
+            change.type_hash = ApiSignatures.hex(now.typeHash());
+            if (was != null) {
+                candidates.remove(was);
+                change.change = "moved";
+                change.moved_from = was.entry().fqcn;
+                summary.types_moved++;
+            } else {
+                change.change = "added";
+                change.members = new ArrayList<>();
+                for (Map.Entry<String, String> m : now.members().entrySet()) {
+                    change.members.add(memberChange(m.getKey(), "added", null, m.getValue()));
+                }
+                summary.types_added++;
+            }
+            changes.add(change);
+        }
+        for (List<HashedType> leftovers : removedByShape.values()) {
+            for (HashedType was : leftovers) {
+                TypeChange change = new TypeChange();
+                change.fqcn = was.entry().fqcn;
+                change.change = "removed";
+                change.source_file = was.entry().source_file;
+                changes.add(change);
+                summary.types_removed++;
+            }
+        }
+
+        // Surface membership and doc actions
+        TreeSet<String> regenerate = new TreeSet<>();
+        TreeSet<String> removeDocs = new TreeSet<>();
+        for (TypeChange change : changes) {
+            change.in_surface_old = before.surface.containsKey(change.moved_from != null ? change.moved_from : change.fqcn);
+            change.in_surface_new = after.surface.containsKey(change.fqcn);
+            if (change.in_surface_new) regenerate.add(change.fqcn);
+            if (change.change.equals("removed") && change.in_surface_old) removeDocs.add(change.fqcn);
+            if (change.moved_from != null && change.in_surface_old) removeDocs.add(change.moved_from);
+        }
+        for (String fqcn : after.surface.keySet()) {
+            if (!before.surface.containsKey(fqcn) && before.types.containsKey(fqcn)) {
+                summary.surface_entered++;
+                regenerate.add(fqcn);
+            } else if (before.surface.containsKey(fqcn)
+                    && !before.surface.get(fqcn).equals(after.surface.get(fqcn))) {
+                summary.surface_recategorized++;
+                regenerate.add(fqcn); // page moves to another category directory
+                removeDocs.add(fqcn);
+            }
+        }
+        for (String fqcn : before.surface.keySet()) {
+            if (!after.surface.containsKey(fqcn) && after.types.containsKey(fqcn)) {
+                summary.surface_left++;
+                removeDocs.add(fqcn);
+            }
+        }
+
+        changes.sort(Comparator.comparing(c -> c.fqcn));
+        output.types = changes;
+        output.regenerate_docs = new ArrayList<>(regenerate);
+        output.remove_docs = new ArrayList<>(removeDocs);
+
+        Files.createDirectories(outputPath.getParent());
+        Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+        Files.writeString(outputPath, gson.toJson(output));
+
+        System.out.printf("Types: %d added, %d removed, %d changed, %d moved, %d unchanged%n",
+            summary.types_added, summary.types_removed, summary.types_changed,
+            summary.types_moved, summary.types_unchanged);
+        System.out.printf("Members: %d added, %d removed, %d changed%n",
+            summary.members_added, summary.members_removed, summary.members_changed);
+        System.out.printf("Surface: %d entered, %d left, %d recategorized%n",
+            summary.surface_entered, summary.surface_left, summary.surface_recategorized);
+        System.out.println("Docs to regenerate: " + regenerate.size() + ", to remove: " + removeDocs.size());
+        System.out.printf("Done in %.1f s. Written to: %s%n",
+            (System.currentTimeMillis() - start) / 1000.0, outputPath);
+    }
+
+    /** Join 2: member keys of a type present on both sides. */
+    private static TypeChange changedType(HashedType was, HashedType now, Summary summary) {
+        TypeChange change = new TypeChange();
+        change.fqcn = now.entry().fqcn;
+        change.change = "changed";
+        change.source_file = now.entry().source_file;
+        change.type_hash = ApiSignatures.hex(now.typeHash());
+        if (!was.header().equals(now.header())) {
+            change.old_header = was.header();
+            change.new_header = now.header();
+        }
+
+        change.members = new ArrayList<>();
+        for (Map.Entry<String, String> m : now.members().entrySet()) {
+            String old = was.members().get(m.getKey());
+            if (old == null) {
+                change.members.add(memberChange(m.getKey(), "added", null, m.getValue()));
+                summary.members_added++;
+            } else if (!old.equals(m.getValue())) {
+                change.members.add(memberChange(m.getKey(), "changed", old, m.getValue()));
+                summary.members_changed++;
+            }
+        }
+        for (Map.Entry<String, String> m : was.members().entrySet()) {
+            if (!now.members().containsKey(m.getKey())) {
+                change.members.add(memberChange(m.getKey(), "removed", m.getValue(), null));
+                summary.members_removed++;
+            }
+        }
+        summary.types_changed++;
+        return change;
+    }
+
+    /**
+     * The removed type an added type of the same shape moved from: one with the
+     * same simple name, else the only candidate if the shape has members and no
+     * other added type shares it. Null if the shape alone says nothing, as for
+     * every empty marker interface or exception.
+     */
+    private static HashedType pickMoveSource(List<HashedType> candidates, HashedType now, int addedWithShape) {
+        for (HashedType c : candidates) {
+            if (c.entry().name.equals(now.entry().name)) return c;
+        }
+        if (candidates.size() == 1 && addedWithShape == 1 && !now.members().isEmpty()) {
+            return candidates.get(0);
+        }
+        return null;
+    }
+
+    private static MemberChange memberChange(String key, String change, String oldSig, String newSig) {
+        MemberChange mc = new MemberChange();
+        int colon = key.indexOf(':');
+        mc.kind = key.substring(0, colon);
+        mc.key = key.substring(colon + 1);
+        mc.change = change;
+        mc.old_signature = oldSig;
+        mc.new_signature = newSig;
+        return mc;
+    }
+
+    private static Side load(Path indexPath) throws IOException {
+        Gson gson = new GsonBuilder().create();
+        ClassIndexer.ClassIndex index;
+        try (Reader reader = ArtifactIO.newReader(indexPath)) {
+            index = gson.fromJson(reader, ClassIndexer.ClassIndex.class);
+        }
+
+        Side side = new Side(index.jar_hash);
+        for (ClassIndexer.ClassEntry entry : index.classes) {
+            String header = ApiSignatures.typeHeader(entry);
+            Map<String, String> members = ApiSignatures.members(entry);
+            long shape = ApiSignatures.shapeHash(header, members);
+            side.types.put(entry.fqcn, new HashedType(entry, header, members, shape,
+                ApiSignatures.typeHash(entry.fqcn, shape)));
+        }
+
+        Path surfacePath = ArtifactIO.find(indexPath.resolveSibling("surface.json"));
+        if (Files.isRegularFile(surfacePath)) {
+            SurfaceClassifier.SurfaceOutput surface;
+            try (Reader reader = ArtifactIO.newReader(surfacePath)) {
+                surface = gson.fromJson(reader, SurfaceClassifier.SurfaceOutput.class);
+            }
+            for (SurfaceClassifier.SurfaceType t : surface.types) {
+                side.surface.put(t.fqcn, t.category == null ? "" : t.category);
+            }
+        } else {
+            System.err.println("WARN: No surface.json next to " + indexPath + "; surface changes not reported");
+        }
+        return side;
+    }
+
+    // --- JSON output model classes ---
+
+    static class DiffOutput {
+        String version;
+        String generated_at;
+        IndexRef old_index;
+        IndexRef new_index;
+        Summary summary;
+        List<String> regenerate_docs;
+        List<String> remove_docs;
+        List<TypeChange> types;
+    }
+
+    static class IndexRef {
+        String path;
+        String jar_hash;
+
+        IndexRef(String path, String jarHash) {
+            this.path = path;
+            this.jar_hash = jarHash;
+        }
+    }
+
+    static class Summary {
+        int types_added;
+        int types_removed;
+        int types_changed;
+        int types_moved;
+        int types_unchanged;
+        int members_added;
+        int members_removed;
+        int members_changed;
+        int surface_entered;
+        int surface_left;
+        int surface_recategorized;
+    }
+
+    static class TypeChange {
+        String fqcn;
+        String change;
+        String moved_from;
+        boolean in_surface_old;
+        boolean in_surface_new;
+        String source_file;
+        String type_hash;
+        String old_header;
+        String new_header;
+        List<MemberChange> members;
+    }
+
+    static class MemberChange {
+        String kind;
+        String key;
+        String change;
+        String old_signature;
+        String new_signature;
+    }
+}
@@ -0,0 +1,153 @@
+package com.hytale.indexer;
+
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Canonical signature strings and 64-bit hashes for class-index entries.
+ *
+ * Everything that compares API across runs (the diff engine, doc staleness
+ * checks) goes through here, so two tools never disagree on whether a type or
+ * member "changed". Private members are not API and are left out. Parameter
+ * names are left out too: Vineflower's var1/var2 naming shifts between builds
+ * without any change a caller could observe.
+ */
+final class ApiSignatures {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ApiSignatures() {}
+
+    /** Type header: annotations, modifiers, kind, type parameters and supertypes. */
+    static String typeHeader(ClassIndexer.ClassEntry entry) {
+        StringBuilder sb = new StringBuilder();
+        appendAnnotations(sb, entry.annotations);
+        appendWords(sb, entry.modifiers);
+        sb.append(entry.kind);
+        if (entry.type_parameters != null && !entry.type_parameters.isEmpty()) {
+            sb.append(" <").append(String.join(", ", entry.type_parameters)).append('>');
+        }
+        if (entry.superclass != null) sb.append(" extends ").append(entry.superclass);
+        if (entry.interfaces != null && !entry.interfaces.isEmpty()) {
+            sb.append(" implements ").append(String.join(", ", entry.interfaces));
+        }
+        return sb.toString();
+    }
+
+    /** Identity of a method within its type: name and parameter types. */
+    static String methodKey(ClassIndexer.MethodEntry method) {
+        StringBuilder sb = new StringBuilder(method.name).append('(');
+        if (method.parameters != null) {
+            for (int i = 0; i < method.parameters.size(); i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(method.parameters.get(i).type);
+            }
+        }
+        return sb.append(')').toString();
+    }
+
+    /** Full method signature as shown in the docs, minus parameter names. */
+    static String methodSignature(ClassIndexer.MethodEntry method) {
+        StringBuilder sb = new StringBuilder();
+        appendAnnotations(sb, method.annotations);
+        appendWords(sb, method.modifiers);
+        sb.append(method.return_type).append(' ').append(methodKey(method));
+        if (method.throws_ != null && !method.throws_.isEmpty()) {
+            sb.append(" throws ").append(String.join(", ", method.throws_));
+        }
+        return sb.toString();
+    }
+
+    static String fieldKey(ClassIndexer.FieldEntry field) {
+        return field.name;
+    }
+
+    static String fieldSignature(ClassIndexer.FieldEntry field) {
+        StringBuilder sb = new StringBuilder();
+        appendAnnotations(sb, field.annotations);
+        appendWords(sb, field.modifiers);
+        return sb.append(field.type).append(' ').append(field.name).toString();
+    }
+
+    static boolean isApi(List<String> modifiers) {
+        return modifiers == null || !modifiers.contains("private");
+    }
+
+    /**
+     * API members of a type keyed by "method:" + methodKey or "field:" + fieldKey,
+     * mapped to their signature. Insertion order follows the index.
+     */
+    static Map<String, String> members(ClassIndexer.ClassEntry entry) {
+        Map<String, String> members = new LinkedHashMap<>();
+        if (entry.fields != null) {
+            for (ClassIndexer.FieldEntry f : entry.fields) {
+                if (isApi(f.modifiers)) members.put("field:" + fieldKey(f), fieldSignature(f));
+            }
+        }
+        if (entry.methods != null) {
+            for (ClassIndexer.MethodEntry m : entry.methods) {
+                if (isApi(m.modifiers)) members.put("method:" + methodKey(m), methodSignature(m));
+            }
+        }
+        return members;
+    }
+
+    /** Hash of one signature string (64-bit FNV-1a over its UTF-16 code units). */
+    static long hash(String s) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            h ^= c & 0xff;
+            h *= FNV_PRIME;
+            h ^= c >>> 8;
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
+    /**
+     * Digest of a type's API shape: its header and the set of member
+     * signatures, independent of member order. The FQCN is not part of the
+     * shape, so a type moved to another package keeps its shape hash.
+     */
+    static long shapeHash(String header, Map<String, String> members) {
+        long[] memberHashes = new long[members.size()];
+        int i = 0;
+        for (String signature : members.values()) {
+            memberHashes[i++] = hash(signature);
+        }
+        Arrays.sort(memberHashes);
+        long h = hash(header);
+        for (long m : memberHashes) {
+            h = (h ^ m) * FNV_PRIME;
+        }
+        return h;
+    }
+
+    /** Digest of a type including its FQCN. */
+    static long typeHash(ClassIndexer.ClassEntry entry) {
+        return typeHash(entry.fqcn, shapeHash(typeHeader(entry), members(entry)));
+    }
+
+    static long typeHash(String fqcn, long shapeHash) {
+        return (hash(fqcn) ^ shapeHash) * FNV_PRIME;
+    }
+
+    static String hex(long hash) {
+        return HexFormat.of().toHexDigits(hash);
+    }
+
+    private static void appendAnnotations(StringBuilder sb, List<String> annotations) {
+        if (annotations == null) return;
+        for (String a : annotations) sb.append('@').append(a).append(' ');
+    }
+
+    private static void appendWords(StringBuilder sb, List<String> words) {
+        if (words == null) return;
+        for (String w : words) sb.append(w).append(' ');
+    }
+}
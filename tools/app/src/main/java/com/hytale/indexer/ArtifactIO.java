@@ -0,0 +1,124 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming reads and writes of artifact files, gzip-compressed or not.
+ *
+ * Compression is chosen by extension: "class-index.json.gz" is the gzipped
+ * "class-index.json", with identical content once decompressed. Readers ask
+ * for the plain name and get whichever variant exists ({@link #find}), so
+ * every tool accepts compressed artifacts without a flag. Writing one variant
+ * deletes the other, so a stale copy is never picked up instead.
+ *
+ * The JSON artifacts are repetitive enough that gzip at its fastest level
+ * still shrinks them 10-15x while costing less than writing the plain file.
+ */
+final class ArtifactIO {
+
+    static final String GZ = ".gz";
+
+    private static final int BUFFER = 1 << 16;
+
+    private ArtifactIO() {}
+
+    static boolean isCompressed(Path path) {
+        return path.getFileName().toString().endsWith(GZ);
+    }
+
+    /** The name to write: the plain name, or with .gz appended when compressing. */
+    static Path target(Path plain, boolean compress) {
+        return compress ? plain.resolveSibling(plain.getFileName() + GZ) : plain;
+    }
+
+    /**
+     * The existing variant of an artifact given by its plain (or .gz) name.
+     * If both exist the newer one wins; if neither does, the path as given.
+     */
+    static Path find(Path path) {
+        Path plain = isCompressed(path) ? plain(path) : path;
+        Path gz = target(plain, true);
+        boolean hasPlain = Files.isRegularFile(plain);
+        boolean hasGz = Files.isRegularFile(gz);
+        if (hasPlain && hasGz) {
+            try {
+                return Files.getLastModifiedTime(gz).compareTo(Files.getLastModifiedTime(plain)) > 0 ? gz : plain;
+            } catch (IOException e) {
+                return path;
+            }
+        }
+        if (hasGz) return gz;
+        if (hasPlain) return plain;
+        return path;
+    }
+
+    /** True if either variant of the artifact exists. */
+    static boolean exists(Path path) {
+        return Files.isRegularFile(find(path));
+    }
+
+    /** UTF-8 reader for the file, decompressing if it ends in .gz. */
+    static BufferedReader newReader(Path path) throws IOException {
+        InputStream in = Files.newInputStream(path);
+        if (isCompressed(path)) {
+            in = new GZIPInputStream(in, BUFFER);
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER);
+    }
+
+    /**
+     * UTF-8 writer for the file, compressing if it ends in .gz. The other
+     * variant of the artifact is deleted.
+     */
+    static BufferedWriter newWriter(Path path) throws IOException {
+        Files.deleteIfExists(isCompressed(path) ? plain(path) : target(path, true));
+        OutputStream out = Files.newOutputStream(path);
+        if (isCompressed(path)) {
+            out = new GZIPOutputStream(out, BUFFER) {
+                {
+                    def.setLevel(Deflater.BEST_SPEED);
+                }
+            };
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER);
+    }
+
+    /** Serialize straight to the file, without building the JSON string first. */
+    static void writeJson(Gson gson, Object value, Path path) throws IOException {
+        try (Writer writer = newWriter(path)) {
+            gson.toJson(value, writer);
+        }
+    }
+
+    /**
+     * Replace the file's content in one step: the text is written to a .tmp
+     * sibling first, so readers never see a half-written file.
+     */
+    static void writeAtomically(Path file, String content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, content);
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** The plain name of a .gz artifact. */
+    static Path plain(Path gz) {
+        String name = gz.getFileName().toString();
+        return gz.resolveSibling(name.substring(0, name.length() - GZ.length()));
+    }
+}
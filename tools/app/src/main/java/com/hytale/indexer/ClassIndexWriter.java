@@ -0,0 +1,93 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Streams class-index.json one entry at a time, so the full class list never
+ * has to be held in memory. The output is identical to serializing a
+ * {@link ClassIndexer.ClassIndex} with the pretty-printing Gson used elsewhere.
+ * An output path ending in .gz is gzip-compressed (see {@link ArtifactIO}).
+ */
+public class ClassIndexWriter implements AutoCloseable {
+
+    private final Gson gson;
+    private final Writer out;
+    private final JsonWriter json;
+    private int count;
+
+    /**
+     * Open the output file and write the index header.
+     *
+     * @param outputPath target class-index.json
+     * @param jarHash    hash recorded in the header
+     */
+    public ClassIndexWriter(Path outputPath, String jarHash) throws IOException {
+        this(outputPath, jarHash, null);
+    }
+
+    /**
+     * Open the output file and write the index header, listing the JARs a
+     * combined index was built from.
+     *
+     * @param jars source JARs recorded in the header, or null for a single-JAR index
+     */
+    public ClassIndexWriter(Path outputPath, String jarHash, List<ClassIndexer.SourceJar> jars) throws IOException {
+        this.gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+        Files.createDirectories(outputPath.getParent());
+        this.out = ArtifactIO.newWriter(outputPath);
+        this.json = gson.newJsonWriter(out);
+
+        json.beginObject();
+        json.name("version").value("1.0.0");
+        json.name("jar_hash").value(jarHash);
+        if (jars != null) {
+            json.name("jars");
+            gson.toJson(jars, new TypeToken<List<ClassIndexer.SourceJar>>() {}.getType(), json);
+        }
+        json.name("generated_at").value(
+            DateTimeFormatter.ISO_INSTANT.format(Instant.now().atOffset(ZoneOffset.UTC)));
+        json.name("classes");
+        json.beginArray();
+    }
+
+    /** Append one type entry. Not thread-safe; call from a single writer thread. */
+    public void write(ClassIndexer.ClassEntry entry) throws IOException {
+        gson.toJson(entry, ClassIndexer.ClassEntry.class, json);
+        count++;
+    }
+
+    public void writeAll(List<ClassIndexer.ClassEntry> entries) throws IOException {
+        for (ClassIndexer.ClassEntry entry : entries) {
+            write(entry);
+        }
+    }
+
+    /** Number of entries written so far. */
+    public int count() {
+        return count;
+    }
+
+    /** Close the classes array and the file. */
+    @Override
+    public void close() throws IOException {
+        try {
+            json.endArray();
+            json.endObject();
+            json.flush();
+        } finally {
+            out.close();
+        }
+    }
+}
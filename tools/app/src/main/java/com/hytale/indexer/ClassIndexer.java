@@ -11,15 +11,10 @@ import com.github.javaparser.ast.expr.AnnotationExpr;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
 import com.github.javaparser.ast.type.ReferenceType;
 import com.github.javaparser.ast.type.TypeParameter;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.time.Instant;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -28,24 +23,39 @@ import java.util.stream.Collectors;
 /**
  * Walks a directory of decompiled .java files, parses each with JavaParser,
  * and produces a structured class-index.json per the spec schema.
+ *
+ * In signature-only mode, method bodies and other blocks are stripped before
+ * parsing (see {@link MethodBodyStripper}) and parser features the index never
+ * reads are turned off. The resulting entries are identical to full mode.
  */
 public class ClassIndexer {
 
     private final JavaParser parser;
-    private final Gson gson;
+    private final boolean signatureOnly;
     private final AtomicInteger successCount = new AtomicInteger(0);
     private final AtomicInteger errorCount = new AtomicInteger(0);
 
     public ClassIndexer() {
+        this(false);
+    }
+
+    public ClassIndexer(boolean signatureOnly) {
         ParserConfiguration config = new ParserConfiguration();
         config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21);
+        if (signatureOnly) {
+            // Declarations only: no comment attribution, token lists or line-separator detection
+            config.setAttributeComments(false);
+            config.setStoreTokens(false);
+            config.setDetectOriginalLineSeparator(false);
+        }
         this.parser = new JavaParser(config);
-        this.gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+        this.signatureOnly = signatureOnly;
     }
 
     /**
      * Parse all .java files under decompiledDir and write class-index.json.
      */
+    @SuppressWarnings("try")
     public void index(Path decompiledDir, Path outputPath, String jarHash) throws IOException {
         if (!Files.isDirectory(decompiledDir)) {
             throw new IOException("Decompiled directory not found: " + decompiledDir);
@@ -67,26 +77,53 @@ public class ClassIndexer {
 
         System.out.println("Found " + javaFiles.size() + " .java files to parse");
 
-        for (Path javaFile : javaFiles) {
-            try {
-                parseFile(javaFile, decompiledDir, classes);
-                successCount.incrementAndGet();
-            } catch (Exception e) {
-                errorCount.incrementAndGet();
-                System.err.println("WARN: Failed to parse " + javaFile + ": " + e.getMessage());
+        try (PipelineMetrics.Stage stage = PipelineMetrics.get().stage("parse")) {
+            for (Path javaFile : javaFiles) {
+                try {
+                    parseFile(javaFile, decompiledDir, classes);
+                    successCount.incrementAndGet();
+                } catch (Exception e) {
+                    errorCount.incrementAndGet();
+                    System.err.println("WARN: Failed to parse " + javaFile + ": " + e.getMessage());
+                }
             }
         }
 
-        // Build the index
-        ClassIndex index = new ClassIndex();
-        index.version = "1.0.0";
-        index.jar_hash = jarHash;
-        index.generated_at = DateTimeFormatter.ISO_INSTANT.format(Instant.now().atOffset(ZoneOffset.UTC));
-        index.classes = classes;
+        writeIndex(classes, outputPath, jarHash);
+    }
 
-        // Write JSON
-        Files.createDirectories(outputPath.getParent());
-        Files.writeString(outputPath, gson.toJson(index));
+    /**
+     * Parse every class in a packed source store and write class-index.json.
+     * source_file values are identical to indexing the equivalent loose tree.
+     */
+    @SuppressWarnings("try")
+    public void index(PackedSourceStore store, Path outputPath, String jarHash) throws IOException {
+        List<ClassEntry> classes = new ArrayList<>();
+
+        System.out.println("Found " + store.size() + " packed classes to parse");
+
+        try (PipelineMetrics.Stage stage = PipelineMetrics.get().stage("parse")) {
+            store.forEach((fqcn, source) -> {
+                String sourceFile = "decompiled/" + SourceSaver.sourcePathFor(fqcn);
+                try {
+                    parseSource(source, sourceFile, classes);
+                    successCount.incrementAndGet();
+                } catch (Exception e) {
+                    errorCount.incrementAndGet();
+                    System.err.println("WARN: Failed to parse " + sourceFile + ": " + e.getMessage());
+                }
+            });
+        }
+
+        writeIndex(classes, outputPath, jarHash);
+    }
+
+    @SuppressWarnings("try")
+    private void writeIndex(List<ClassEntry> classes, Path outputPath, String jarHash) throws IOException {
+        try (PipelineMetrics.Stage stage = PipelineMetrics.get().stage("write-index");
+             ClassIndexWriter writer = new ClassIndexWriter(outputPath, jarHash)) {
+            writer.writeAll(classes);
+        }
 
         System.out.println("Parsed " + successCount.get() + " files successfully, "
             + errorCount.get() + " errors");
@@ -95,13 +132,47 @@ public class ClassIndexer {
     }
 
     private void parseFile(Path javaFile, Path decompiledDir, List<ClassEntry> classes) {
-        ParseResult<CompilationUnit> result;
+        String source;
         try {
-            result = parser.parse(javaFile);
+            source = Files.readString(javaFile);
         } catch (IOException e) {
             throw new RuntimeException("Cannot read file: " + e.getMessage(), e);
         }
 
+        String sourceFile = decompiledDir.getParent().relativize(javaFile).toString();
+        parseSource(source, sourceFile, classes);
+    }
+
+    /**
+     * Parse one compilation unit and return an entry per declared type
+     * (inner types included). Each ClassIndexer owns a single JavaParser, so
+     * concurrent callers need their own instance.
+     *
+     * @throws RuntimeException if the source does not parse
+     */
+    List<ClassEntry> parseSource(String source, String sourceFile) {
+        List<ClassEntry> classes = new ArrayList<>();
+        parseSource(source, sourceFile, classes);
+        return classes;
+    }
+
+    private void parseSource(String source, String sourceFile, List<ClassEntry> classes) {
+        long start = System.nanoTime();
+        int before = classes.size();
+        boolean parsed = false;
+        try {
+            parseTypes(source, sourceFile, classes);
+            parsed = true;
+        } finally {
+            PipelineMetrics.get().recordParse(sourceFile, System.nanoTime() - start, source.length(),
+                classes.size() - before, parsed);
+        }
+    }
+
+    private void parseTypes(String source, String sourceFile, List<ClassEntry> classes) {
+        ParseResult<CompilationUnit> result = parser.parse(
+            signatureOnly ? MethodBodyStripper.strip(source) : source);
+
         if (!result.isSuccessful() || result.getResult().isEmpty()) {
             String problems = result.getProblems().stream()
                 .map(p -> p.getVerboseMessage())
@@ -114,8 +185,6 @@ public class ClassIndexer {
             .map(pd -> pd.getNameAsString())
             .orElse("");
 
-        String sourceFile = decompiledDir.getParent().relativize(javaFile).toString();
-
         // Process all type declarations in the file
         for (TypeDeclaration<?> type : cu.getTypes()) {
             processType(type, packageName, sourceFile, classes, null);
@@ -261,10 +330,19 @@ public class ClassIndexer {
     static class ClassIndex {
         String version;
         String jar_hash;
+        // Only when several JARs were indexed together
+        List<SourceJar> jars;
         String generated_at;
         List<ClassEntry> classes;
     }
 
+    static class SourceJar {
+        String name;
+        String sha256;
+        List<String> include;
+        int class_files;
+    }
+
     static class ClassEntry {
         String fqcn;
         @com.google.gson.annotations.SerializedName("package")
@@ -280,6 +358,8 @@ public class ClassIndexer {
         List<MethodEntry> methods;
         List<String> inner_classes;
         String source_file;
+        // File name of the JAR the type came from, when several JARs were indexed together
+        String jar;
     }
 
     static class FieldEntry {
@@ -0,0 +1,235 @@
+package com.hytale.indexer;
+
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Seeds and package rules for Phase 2, loadable from JSON with
+ * {@code surface-classifier --config <file>}.
+ *
+ * Any field left out of the file keeps its built-in default, so a config
+ * only needs to list what it changes. The effective config of every run is
+ * saved with the reference graph (surface-graph.json), which is also a
+ * convenient starting point for a custom config.
+ */
+public class ClassifierConfig {
+
+    /** Types here are NOT API even if reachable. */
+    List<String> excluded_packages;
+    /** External package prefixes skipped entirely. */
+    List<String> external_prefixes;
+    /** Excluded package prefix -> tag in internal-index.json. */
+    Map<String, String> excluded_tags;
+    List<String> tier1_seeds;
+    List<String> tier2_seeds;
+    List<String> tier3_seeds;
+    /** Packages whose types are all seeds ("seed:tier4"), including subpackages. */
+    List<String> tier4_packages;
+    /** Category by package prefix, first match wins (more specific first). */
+    List<CategoryRule> category_rules;
+    String default_category;
+
+    static class CategoryRule {
+        String prefix;
+        String category;
+
+        CategoryRule(String prefix, String category) {
+            this.prefix = prefix;
+            this.category = category;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CategoryRule r && prefix.equals(r.prefix) && category.equals(r.category);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(prefix, category);
+        }
+    }
+
+    static ClassifierConfig defaults() {
+        ClassifierConfig c = new ClassifierConfig();
+        // Note: protocol.packets.* and protocol.io.* are excluded (network internals),
+        // but protocol root types (GameMode, BlockPosition, etc.) are allowed through
+        // because many are the ONLY definition of fundamental game concepts.
+        c.excluded_packages = List.of(
+            "com.hypixel.hytale.builtin.",
+            "com.hypixel.hytale.protocol.packets.",
+            "com.hypixel.hytale.protocol.io.",
+            "com.hypixel.hytale.procedurallib."
+        );
+        c.external_prefixes = List.of(
+            "java.", "javax.", "org.slf4j.", "org.bson.", "io.netty.",
+            "org.jetbrains.", "org.intellij."
+        );
+        c.excluded_tags = new LinkedHashMap<>();
+        c.excluded_tags.put("com.hypixel.hytale.builtin.", "builtin");
+        c.excluded_tags.put("com.hypixel.hytale.protocol.packets.", "protocol");
+        c.excluded_tags.put("com.hypixel.hytale.protocol.io.", "protocol");
+        c.excluded_tags.put("com.hypixel.hytale.procedurallib.", "procedural");
+
+        c.tier1_seeds = List.of(
+            "com.hypixel.hytale.server.core.plugin.JavaPlugin",
+            "com.hypixel.hytale.server.core.plugin.JavaPluginInit",
+            "com.hypixel.hytale.server.core.plugin.PluginBase",
+            "com.hypixel.hytale.common.plugin.PluginManifest",
+            "com.hypixel.hytale.server.core.plugin.PluginManager",
+            "com.hypixel.hytale.server.core.plugin.PluginState",
+            "com.hypixel.hytale.common.plugin.PluginIdentifier"
+        );
+        c.tier2_seeds = List.of(
+            "com.hypixel.hytale.server.core.command.system.CommandRegistry",
+            "com.hypixel.hytale.server.core.plugin.registry.AssetRegistry",
+            "com.hypixel.hytale.server.core.plugin.registry.CodecMapRegistry",
+            "com.hypixel.hytale.server.core.plugin.registry.MapKeyMapRegistry",
+            "com.hypixel.hytale.server.core.command.system.CommandManager",
+            "com.hypixel.hytale.event.EventRegistry",
+            "com.hypixel.hytale.event.IEventBus",
+            "com.hypixel.hytale.server.core.universe.world.meta.BlockStateRegistry",
+            "com.hypixel.hytale.server.core.modules.entity.EntityRegistry",
+            "com.hypixel.hytale.server.core.task.TaskRegistry",
+            "com.hypixel.hytale.server.core.registry.ClientFeatureRegistry",
+            "com.hypixel.hytale.server.core.plugin.registry.IRegistry",
+            "com.hypixel.hytale.server.core.plugin.registry.CodecMapRegistry.Assets"
+        );
+        c.tier3_seeds = List.of(
+            "com.hypixel.hytale.event.IEvent",
+            "com.hypixel.hytale.event.IAsyncEvent",
+            "com.hypixel.hytale.event.IBaseEvent",
+            "com.hypixel.hytale.event.ICancellable",
+            "com.hypixel.hytale.event.EventPriority",
+            "com.hypixel.hytale.event.EventRegistration",
+            "com.hypixel.hytale.component.ComponentType",
+            "com.hypixel.hytale.component.ComponentAccessor",
+            "com.hypixel.hytale.component.SystemType",
+            "com.hypixel.hytale.component.SystemGroup",
+            "com.hypixel.hytale.component.Resource",
+            "com.hypixel.hytale.registry.Registry",
+            "com.hypixel.hytale.registry.Registration",
+            "com.hypixel.hytale.server.core.command.system.CommandContext",
+            "com.hypixel.hytale.server.core.command.system.CommandOwner",
+            "com.hypixel.hytale.server.core.command.system.CommandSender",
+            "com.hypixel.hytale.component.ComponentRegistryProxy"
+        );
+        c.tier4_packages = List.of(
+            "com.hypixel.hytale.server.core.event",
+            "com.hypixel.hytale.event"
+        );
+
+        c.category_rules = new ArrayList<>();
+        String[][] rules = {
+            {"com.hypixel.hytale.server.core.plugin", "plugin"},
+            {"com.hypixel.hytale.common.plugin", "plugin"},
+            {"com.hypixel.hytale.server.core.event", "event"},
+            {"com.hypixel.hytale.event", "event"},
+            {"com.hypixel.hytale.server.core.command", "command"},
+            {"com.hypixel.hytale.component", "component"},
+            {"com.hypixel.hytale.server.core.modules.entity", "entity"},
+            {"com.hypixel.hytale.server.core.entity", "entity"},
+            {"com.hypixel.hytale.server.npc", "npc"},
+            {"com.hypixel.hytale.registry", "registry"},
+            {"com.hypixel.hytale.server.core.registry", "registry"},
+            {"com.hypixel.hytale.server.core.asset", "asset"},
+            {"com.hypixel.hytale.assetstore", "asset"},
+            {"com.hypixel.hytale.codec", "codec"},
+            {"com.hypixel.hytale.server.core.inventory", "inventory"},
+            {"com.hypixel.hytale.server.core.universe", "universe"},
+            {"com.hypixel.hytale.server.worldgen", "worldgen"},
+            {"com.hypixel.hytale.server.core.prefab", "prefab"},
+            {"com.hypixel.hytale.server.core.permissions", "permissions"},
+            {"com.hypixel.hytale.server.core.ui", "ui"},
+            {"com.hypixel.hytale.server.core.task", "task"},
+            {"com.hypixel.hytale.server.core.modules", "modules"},
+            {"com.hypixel.hytale.server.core.meta", "meta"},
+            {"com.hypixel.hytale.math", "math"},
+            {"com.hypixel.hytale.function", "util"},
+            {"com.hypixel.hytale.common", "util"},
+            {"com.hypixel.hytale.metrics", "metrics"},
+            {"com.hypixel.hytale.logger", "logging"},
+            {"com.hypixel.hytale.server.core.util", "util"},
+            {"com.hypixel.hytale.server.core.io", "io"},
+            {"com.hypixel.hytale.protocol", "protocol"},
+            {"com.hypixel.hytale.server.core", "core"}
+        };
+        for (String[] rule : rules) c.category_rules.add(new CategoryRule(rule[0], rule[1]));
+        c.default_category = "core";
+        return c;
+    }
+
+    /** Read a config file; fields it leaves out keep their defaults. */
+    static ClassifierConfig load(Path path) throws IOException {
+        ClassifierConfig loaded;
+        try (Reader reader = Files.newBufferedReader(path)) {
+            loaded = new GsonBuilder().create().fromJson(reader, ClassifierConfig.class);
+        }
+        return withDefaults(loaded);
+    }
+
+    static ClassifierConfig withDefaults(ClassifierConfig c) {
+        ClassifierConfig d = defaults();
+        if (c == null) return d;
+        if (c.excluded_packages == null) c.excluded_packages = d.excluded_packages;
+        if (c.external_prefixes == null) c.external_prefixes = d.external_prefixes;
+        if (c.excluded_tags == null) c.excluded_tags = d.excluded_tags;
+        if (c.tier1_seeds == null) c.tier1_seeds = d.tier1_seeds;
+        if (c.tier2_seeds == null) c.tier2_seeds = d.tier2_seeds;
+        if (c.tier3_seeds == null) c.tier3_seeds = d.tier3_seeds;
+        if (c.tier4_packages == null) c.tier4_packages = d.tier4_packages;
+        if (c.category_rules == null) c.category_rules = d.category_rules;
+        if (c.default_category == null) c.default_category = d.default_category;
+        return c;
+    }
+
+    /** Tier 1-3 seeds in tier order, FQCN -> inclusion reason. */
+    Map<String, String> explicitSeeds() {
+        Map<String, String> seeds = new LinkedHashMap<>();
+        for (String s : tier1_seeds) seeds.putIfAbsent(s, "seed:tier1");
+        for (String s : tier2_seeds) seeds.putIfAbsent(s, "seed:tier2");
+        for (String s : tier3_seeds) seeds.putIfAbsent(s, "seed:tier3");
+        return seeds;
+    }
+
+    boolean isTier4Package(String pkg) {
+        if (pkg == null) return false;
+        for (String p : tier4_packages) {
+            if (pkg.equals(p) || pkg.startsWith(p + ".")) return true;
+        }
+        return false;
+    }
+
+    /**
+     * True if the two configs resolve and expand references the same way.
+     * Exclusions and externals decide both which types are expanded and how
+     * ambiguous simple names resolve, so changing them invalidates the graph edges.
+     */
+    boolean sameExpansionRules(ClassifierConfig other) {
+        return excluded_packages.equals(other.excluded_packages)
+            && external_prefixes.equals(other.external_prefixes);
+    }
+
+    /** Human-readable list of the fields that differ, for surface-delta.json. */
+    List<String> changedFields(ClassifierConfig other) {
+        List<String> changed = new ArrayList<>();
+        if (!excluded_packages.equals(other.excluded_packages)) changed.add("excluded_packages");
+        if (!external_prefixes.equals(other.external_prefixes)) changed.add("external_prefixes");
+        if (!excluded_tags.equals(other.excluded_tags)) changed.add("excluded_tags");
+        if (!tier1_seeds.equals(other.tier1_seeds)) changed.add("tier1_seeds");
+        if (!tier2_seeds.equals(other.tier2_seeds)) changed.add("tier2_seeds");
+        if (!tier3_seeds.equals(other.tier3_seeds)) changed.add("tier3_seeds");
+        if (!tier4_packages.equals(other.tier4_packages)) changed.add("tier4_packages");
+        if (!category_rules.equals(other.category_rules)) changed.add("category_rules");
+        if (!default_category.equals(other.default_category)) changed.add("default_category");
+        return changed;
+    }
+}
@@ -0,0 +1,831 @@
+package com.hytale.indexer;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.EnumConstantDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.BooleanLiteralExpr;
+import com.github.javaparser.ast.expr.CastExpr;
+import com.github.javaparser.ast.expr.CharLiteralExpr;
+import com.github.javaparser.ast.expr.ClassExpr;
+import com.github.javaparser.ast.expr.DoubleLiteralExpr;
+import com.github.javaparser.ast.expr.EnclosedExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.IntegerLiteralExpr;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.LongLiteralExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.NullLiteralExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.StringLiteralExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.hytale.indexer.TypeNameResolver.Scope;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Phase 3e helper: JSON Schema for every codec-defined asset and config type,
+ * read straight from the decompiled source.
+ *
+ * Usage: codec-schemas [--artifacts dir] [--out dir]
+ *
+ * Types declare their JSON shape as a builder chain on a static codec field:
+ * <pre>
+ *   BuilderCodec.builder(Foo.class, Foo::new, Parent.CODEC)
+ *       .append(new KeyedCodec&lt;&gt;("Key", Codec.STRING, true), (o, v) -&gt; o.key = v, o -&gt; o.key)
+ *       .addValidator(Validators.nonNull()).documentation("...").add()
+ *       ...
+ *       .build();
+ * </pre>
+ * (the decompiler wraps each step in casts, which are ignored). Every appended
+ * KeyedCodec becomes a property with the schema of its value codec; it is
+ * required when the KeyedCodec says so or a nonNull validator is attached,
+ * range/min/max validators become bounds, and the default is the initializer
+ * of the field the setter lambda assigns. References to other builder codecs
+ * become $refs and a parent codec becomes allOf. Anything not understood is
+ * kept as source text in x-codec / x-default-expression rather than dropped.
+ *
+ * Files containing a KeyedCodec are parsed in parallel; enums and superclasses
+ * needed for enum values and inherited defaults are parsed on demand. Writes
+ * one {@code <fqcn>.schema.json} per codec plus index.json to artifacts/schemas/.
+ */
+public class CodecSchemaExtractor {
+
+    static final String SCHEMA_DIALECT = "https://json-schema.org/draft/2020-12/schema";
+
+    /** Schemas of the {@code Codec.X} constants for primitive values. */
+    private static final Map<String, String> PRIMITIVE_CODECS = Map.ofEntries(
+        Map.entry("STRING", "{\"type\":\"string\"}"),
+        Map.entry("BOOLEAN", "{\"type\":\"boolean\"}"),
+        Map.entry("BYTE", "{\"type\":\"integer\"}"),
+        Map.entry("SHORT", "{\"type\":\"integer\"}"),
+        Map.entry("INTEGER", "{\"type\":\"integer\"}"),
+        Map.entry("INT", "{\"type\":\"integer\"}"),
+        Map.entry("LONG", "{\"type\":\"integer\"}"),
+        Map.entry("FLOAT", "{\"type\":\"number\"}"),
+        Map.entry("DOUBLE", "{\"type\":\"number\"}"),
+        Map.entry("STRING_ARRAY", "{\"type\":\"array\",\"items\":{\"type\":\"string\"}}"),
+        Map.entry("INT_ARRAY", "{\"type\":\"array\",\"items\":{\"type\":\"integer\"}}"),
+        Map.entry("LONG_ARRAY", "{\"type\":\"array\",\"items\":{\"type\":\"integer\"}}"),
+        Map.entry("FLOAT_ARRAY", "{\"type\":\"array\",\"items\":{\"type\":\"number\"}}"),
+        Map.entry("DOUBLE_ARRAY", "{\"type\":\"array\",\"items\":{\"type\":\"number\"}}"),
+        Map.entry("UUID_STRING", "{\"type\":\"string\",\"format\":\"uuid\"}"),
+        Map.entry("UUID_BINARY", "{\"type\":\"string\",\"format\":\"uuid\"}"),
+        Map.entry("BSON_DOCUMENT", "{\"type\":\"object\"}")
+    );
+
+    private final Path artifactsDir;
+    private final Path outDir;
+    private final Map<String, ClassIndexer.ClassEntry> types = new HashMap<>();
+    private final Map<String, String> topLevelBySourceFile = new HashMap<>();
+    private final Map<String, FileSummary> summaries = new ConcurrentHashMap<>();
+    private final Map<String, CodecDef> codecs = new ConcurrentHashMap<>();
+    private final ThreadLocal<JavaParser> parsers = ThreadLocal.withInitial(() -> {
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21);
+        config.setAttributeComments(false);
+        config.setStoreTokens(false);
+        return new JavaParser(config);
+    });
+    private TypeNameResolver resolver;
+    private PackedSourceStore store;
+
+    CodecSchemaExtractor(Path artifactsDir, Path outDir) {
+        this.artifactsDir = artifactsDir;
+        this.outDir = outDir;
+    }
+
+    public static void main(String[] args) {
+        Path artifactsDir = Path.of("artifacts");
+        Path outDir = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--artifacts") && i + 1 < args.length) {
+                artifactsDir = Path.of(args[++i]);
+            } else if (args[i].equals("--out") && i + 1 < args.length) {
+                outDir = Path.of(args[++i]);
+            } else {
+                System.err.println("ERROR: Unexpected argument: " + args[i]);
+                System.err.println("Usage: codec-schemas [--artifacts dir] [--out dir]");
+                System.exit(1);
+            }
+        }
+        artifactsDir = artifactsDir.toAbsolutePath().normalize();
+        outDir = outDir == null ? artifactsDir.resolve("schemas") : outDir.toAbsolutePath().normalize();
+        if (!ArtifactIO.exists(artifactsDir.resolve("class-index.json"))) {
+            System.err.println("ERROR: File not found: " + artifactsDir.resolve("class-index.json") + " (run Phase 1 first)");
+            System.exit(1);
+        }
+
+        try {
+            new CodecSchemaExtractor(artifactsDir, outDir).run();
+        } catch (Exception e) {
+            System.err.println("FATAL: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    void run() throws IOException {
+        System.out.println("=== Codec schema extraction ===");
+        long start = System.nanoTime();
+        ClassIndexer.ClassIndex index;
+        try (Reader reader = ArtifactIO.newReader(ArtifactIO.find(artifactsDir.resolve("class-index.json")))) {
+            index = new GsonBuilder().create().fromJson(reader, ClassIndexer.ClassIndex.class);
+        }
+        for (ClassIndexer.ClassEntry entry : index.classes) {
+            types.put(entry.fqcn, entry);
+            if (entry.source_file != null) {
+                // The outermost type of a file has the shortest FQCN
+                topLevelBySourceFile.merge(entry.source_file, entry.fqcn,
+                    (a, b) -> a.length() <= b.length() ? a : b);
+            }
+        }
+        resolver = new TypeNameResolver(index.classes);
+        if (!Files.isDirectory(artifactsDir.resolve("decompiled")) && PackedSourceStore.exists(artifactsDir)) {
+            store = PackedSourceStore.open(artifactsDir);
+        }
+
+        try {
+            // Pass 1: parse every file that declares a keyed codec
+            List<String> files = topLevelBySourceFile.keySet().stream().sorted().toList();
+            AtomicInteger parsed = new AtomicInteger();
+            files.parallelStream().forEach(file -> {
+                String source = readSource(file);
+                if (source == null || !source.contains("KeyedCodec")) return;
+                FileSummary summary = summarize(file, source);
+                summaries.put(file, summary);
+                summary.codecs.forEach(def -> codecs.put(def.key(), def));
+                parsed.incrementAndGet();
+            });
+            System.out.println("Parsed " + parsed.get() + " of " + files.size() + " source files; "
+                + codecs.size() + " builder codecs");
+
+            // Pass 2: resolve codecs, enums and defaults into schemas
+            Files.createDirectories(outDir);
+            Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+            List<SchemaEntry> entries = codecs.values().parallelStream()
+                .map(def -> {
+                    Stats stats = new Stats();
+                    JsonObject schema = buildSchema(def, stats);
+                    try {
+                        Files.writeString(outDir.resolve(fileName(def)), gson.toJson(schema) + "\n");
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return entryFor(def, stats);
+                })
+                .sorted(Comparator.comparing(e -> e.file))
+                .toList();
+
+            writeIndex(gson, entries);
+            int fields = entries.stream().mapToInt(e -> e.field_count).sum();
+            int unresolved = entries.stream().mapToInt(e -> e.unresolved_codecs).sum();
+            System.out.printf("Wrote %d schemas (%d fields, %d unresolved codecs) to %s in %d ms%n",
+                entries.size(), fields, unresolved, outDir, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            if (store != null) store.close();
+        }
+    }
+
+    // --- Pass 1: parsing ---
+
+    private String readSource(String sourceFile) {
+        try {
+            if (store != null) return store.read(topLevelBySourceFile.get(sourceFile));
+            Path file = artifactsDir.resolve(sourceFile);
+            return Files.isRegularFile(file) ? Files.readString(file) : null;
+        } catch (IOException e) {
+            System.err.println("WARN: Cannot read " + sourceFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private FileSummary summarize(String sourceFile, String source) {
+        FileSummary summary = new FileSummary();
+        if (source == null) return summary;
+        ParseResult<CompilationUnit> result = parsers.get().parse(source);
+        if (result.getResult().isEmpty()) {
+            System.err.println("WARN: Cannot parse " + sourceFile);
+            return summary;
+        }
+        CompilationUnit cu = result.getResult().get();
+        Scope fileScope = Scope.of(cu, null);
+        for (TypeDeclaration<?> type : cu.getTypes()) {
+            String fqcn = fileScope.pkg().isEmpty() ? type.getNameAsString() : fileScope.pkg() + "." + type.getNameAsString();
+            summarizeType(type, fqcn, fileScope.in(fqcn), summary);
+        }
+        return summary;
+    }
+
+    private void summarizeType(TypeDeclaration<?> type, String fqcn, Scope scope, FileSummary summary) {
+        TypeSummary ts = new TypeSummary();
+        ts.scope = scope;
+        if (type instanceof EnumDeclaration ed) {
+            for (EnumConstantDeclaration c : ed.getEntries()) ts.enumConstants.add(c.getNameAsString());
+        }
+        if (type instanceof ClassOrInterfaceDeclaration cid && !cid.isInterface() && !cid.getExtendedTypes().isEmpty()) {
+            ts.superclass = cid.getExtendedTypes().get(0).getNameWithScope();
+        }
+        summary.types.put(fqcn, ts);
+
+        for (BodyDeclaration<?> member : type.getMembers()) {
+            if (member instanceof FieldDeclaration field) {
+                for (VariableDeclarator var : field.getVariables()) {
+                    if (var.getInitializer().isEmpty()) continue;
+                    Expression init = var.getInitializer().get();
+                    ts.defaults.put(var.getNameAsString(), DefaultValue.of(init));
+                    if (field.isStatic()) {
+                        CodecDef def = parseCodec(fqcn, var, init, scope);
+                        if (def != null) summary.codecs.add(def);
+                    }
+                }
+            } else if (member instanceof TypeDeclaration<?> nested) {
+                String nestedFqcn = fqcn + "." + nested.getNameAsString();
+                summarizeType(nested, nestedFqcn, scope.in(nestedFqcn), summary);
+            }
+        }
+    }
+
+    /** The builder chain on a codec field, or null if the initializer is not one. */
+    private CodecDef parseCodec(String owner, VariableDeclarator var, Expression init, Scope scope) {
+        List<MethodCallExpr> calls = new ArrayList<>();
+        flattenCalls(init, calls);
+        if (calls.isEmpty()) return null;
+        MethodCallExpr builder = calls.get(0);
+        String builderName = builder.getNameAsString();
+        if (!builderName.equals("builder") && !builderName.equals("abstractBuilder")) return null;
+        if (!calls.get(calls.size() - 1).getNameAsString().equals("build")) return null;
+
+        CodecDef def = new CodecDef();
+        def.owner = owner;
+        def.field = var.getNameAsString();
+        def.codecType = var.getTypeAsString();
+        def.abstract_ = builderName.equals("abstractBuilder");
+        def.scope = scope;
+        for (Expression arg : builder.getArguments()) {
+            Expression a = unwrap(arg);
+            if (a instanceof ClassExpr ce && def.target == null) {
+                def.target = resolveType(ce.getType().asString(), scope);
+            } else if (a instanceof FieldAccessExpr || a instanceof NameExpr) {
+                def.parentCandidates.add((CodecConstant) codecExpr(a));
+            }
+        }
+        if (def.target == null) def.target = owner;
+
+        FieldDef current = null;
+        for (MethodCallExpr call : calls.subList(1, calls.size())) {
+            String name = call.getNameAsString();
+            List<Expression> args = call.getArguments();
+            if (name.startsWith("append") && !args.isEmpty()
+                    && unwrap(args.get(0)) instanceof ObjectCreationExpr keyed
+                    && keyed.getType().getNameAsString().equals("KeyedCodec")
+                    && keyed.getArguments().size() >= 2
+                    && unwrap(keyed.getArgument(0)) instanceof StringLiteralExpr key) {
+                if (current != null) def.fields.add(current);
+                current = new FieldDef();
+                current.key = key.asString();
+                current.codec = codecExpr(keyed.getArgument(1));
+                current.required = keyed.getArguments().size() > 2
+                    && unwrap(keyed.getArgument(2)) instanceof BooleanLiteralExpr b && b.getValue();
+                current.inherited = name.equals("appendInherited");
+                current.javaField = args.size() > 1 ? assignedField(args.get(1)) : null;
+            } else if (name.equals("addValidator") && current != null && !args.isEmpty()) {
+                Validator validator = Validator.of(args.get(0));
+                if (validator.name().equals("nonNull")) current.required = true;
+                else current.validators.add(validator);
+            } else if (name.equals("documentation") && !args.isEmpty()) {
+                String text = stringValue(args.get(0));
+                if (current != null) current.description = text;
+                else def.description = text;
+            } else if (name.equals("add") && current != null) {
+                def.fields.add(current);
+                current = null;
+            }
+        }
+        if (current != null) def.fields.add(current);
+        return def;
+    }
+
+    /** Method calls of a chain, innermost first, looking through casts and parentheses. */
+    private static void flattenCalls(Expression expr, List<MethodCallExpr> out) {
+        Expression e = unwrap(expr);
+        if (e instanceof MethodCallExpr call) {
+            call.getScope().ifPresent(scope -> flattenCalls(scope, out));
+            out.add(call);
+        }
+    }
+
+    private static Expression unwrap(Expression expr) {
+        Expression e = expr;
+        while (true) {
+            if (e instanceof CastExpr cast) e = cast.getExpression();
+            else if (e instanceof EnclosedExpr enclosed) e = enclosed.getInner();
+            else return e;
+        }
+    }
+
+    /** The parts of a codec expression that pass 2 resolves; no AST nodes are kept. */
+    private static CodecExpr codecExpr(Expression expr) {
+        Expression e = unwrap(expr);
+        if (e instanceof FieldAccessExpr fa) {
+            return new CodecConstant(fa.getScope().toString(), fa.getNameAsString(), e.toString());
+        }
+        if (e instanceof NameExpr ne) {
+            return new CodecConstant(null, ne.getNameAsString(), e.toString());
+        }
+        if (e instanceof ObjectCreationExpr oc) {
+            List<Expression> args = oc.getArguments();
+            String classArg = !args.isEmpty() && unwrap(args.get(0)) instanceof ClassExpr ce
+                ? ce.getType().asString() : null;
+            Expression valueCodec = args.stream()
+                .filter(a -> !(unwrap(a) instanceof ClassExpr) && !unwrap(a).isMethodReferenceExpr()
+                    && !unwrap(a).isLambdaExpr())
+                .findFirst().orElse(null);
+            return new CodecConstruction(oc.getType().getNameAsString(), classArg,
+                valueCodec == null ? null : codecExpr(valueCodec), e.toString());
+        }
+        return new OtherCodec(e.toString());
+    }
+
+    /** Field set by a setter: {@code (o, v) -> o.field = v} or {@code (o, v) -> o.setField(v)}. */
+    private static String assignedField(Expression setter) {
+        if (!(unwrap(setter) instanceof LambdaExpr lambda)) return null;
+        Expression body = null;
+        if (lambda.getBody() instanceof ExpressionStmt es) {
+            body = es.getExpression();
+        } else if (lambda.getBody() instanceof BlockStmt block && block.getStatements().size() == 1
+                && block.getStatement(0) instanceof ExpressionStmt es) {
+            body = es.getExpression();
+        }
+        if (body instanceof AssignExpr assign) {
+            Expression target = assign.getTarget();
+            if (target instanceof FieldAccessExpr fa) return fa.getNameAsString();
+            if (target instanceof NameExpr ne) return ne.getNameAsString();
+        } else if (body instanceof MethodCallExpr call && call.getNameAsString().startsWith("set")
+                && call.getNameAsString().length() > 3) {
+            String property = call.getNameAsString().substring(3);
+            return Character.toLowerCase(property.charAt(0)) + property.substring(1);
+        }
+        return null;
+    }
+
+    /** Value of a string literal or a concatenation of them. */
+    private static String stringValue(Expression expr) {
+        Expression e = unwrap(expr);
+        if (e instanceof StringLiteralExpr s) return s.asString();
+        if (e instanceof BinaryExpr b && b.getOperator() == BinaryExpr.Operator.PLUS) {
+            String left = stringValue(b.getLeft());
+            String right = stringValue(b.getRight());
+            if (left != null && right != null) return left + right;
+        }
+        return null;
+    }
+
+    // --- Pass 2: schemas ---
+
+    private JsonObject buildSchema(CodecDef def, Stats stats) {
+        JsonObject schema = new JsonObject();
+        schema.addProperty("$schema", SCHEMA_DIALECT);
+        schema.addProperty("$id", fileName(def));
+        schema.addProperty("title", TypeNameResolver.simpleName(def.target));
+        if (def.description != null) schema.addProperty("description", def.description);
+        schema.addProperty("type", "object");
+        schema.addProperty("x-java-type", def.target);
+        schema.addProperty("x-codec", def.owner + "." + def.field);
+        schema.addProperty("x-codec-type", def.codecType);
+        if (isAsset(def)) schema.addProperty("x-asset", true);
+        if (def.abstract_) schema.addProperty("x-abstract", true);
+
+        CodecDef parent = parentOf(def);
+        if (parent != null) {
+            JsonArray allOf = new JsonArray();
+            JsonObject ref = new JsonObject();
+            ref.addProperty("$ref", fileName(parent));
+            allOf.add(ref);
+            schema.add("allOf", allOf);
+        }
+
+        JsonObject properties = new JsonObject();
+        JsonArray required = new JsonArray();
+        for (FieldDef field : def.fields) {
+            JsonObject property = codecSchema(field.codec, def.scope, stats);
+            if (field.description != null) property.addProperty("description", field.description);
+            applyValidators(field, property, stats);
+            DefaultValue dv = field.javaField == null ? null : findDefault(def.target, field.javaField);
+            if (dv != null) {
+                JsonElement value = dv.value;
+                if (value == null && dv.enumType != null) {
+                    String enumFqcn = resolveType(dv.enumType, summaryOf(def.target).scope);
+                    TypeSummary enumType = enumFqcn == null ? null : summaryOf(enumFqcn);
+                    if (enumType != null && enumType.enumConstants.contains(dv.enumConstant)) {
+                        value = new JsonPrimitive(dv.enumConstant);
+                    }
+                }
+                if (value != null) property.add("default", value.deepCopy());
+                else if (dv.expression != null) property.addProperty("x-default-expression", dv.expression);
+            }
+            if (field.javaField != null) property.addProperty("x-java-field", field.javaField);
+            if (field.inherited) property.addProperty("x-inherited", true);
+            properties.add(field.key, property);
+            if (field.required) required.add(field.key);
+            stats.fields++;
+        }
+        schema.add("properties", properties);
+        if (!required.isEmpty()) schema.add("required", required);
+        return schema;
+    }
+
+    private JsonObject codecSchema(CodecExpr expr, Scope scope, Stats stats) {
+        if (expr instanceof CodecConstant c && c.owner() != null) {
+            if (c.owner().equals("Codec") && PRIMITIVE_CODECS.containsKey(c.field())) {
+                return JsonParser.parseString(PRIMITIVE_CODECS.get(c.field())).getAsJsonObject();
+            }
+            return codecReference(resolveType(c.owner(), scope), c.field(), expr, stats);
+        }
+        if (expr instanceof CodecConstant c) {
+            // Unqualified: a codec field of the declaring type or one enclosing it
+            for (String owner = scope.owner(); owner != null; owner = resolver.enclosing(owner)) {
+                if (codecs.containsKey(owner + "#" + c.field()) || hasField(owner, c.field())) {
+                    return codecReference(owner, c.field(), expr, stats);
+                }
+            }
+            return unresolved(expr, stats);
+        }
+        if (expr instanceof CodecConstruction oc) {
+            String codec = oc.type();
+            if (codec.equals("EnumCodec") && oc.classArg() != null) {
+                return enumSchema(resolveType(oc.classArg(), scope), oc.classArg());
+            }
+            CodecExpr valueCodec = oc.value();
+            if (valueCodec != null && (codec.equals("ArrayCodec") || codec.endsWith("ListCodec") || codec.endsWith("SetCodec"))) {
+                JsonObject schema = new JsonObject();
+                schema.addProperty("type", "array");
+                schema.add("items", codecSchema(valueCodec, scope, stats));
+                if (codec.endsWith("SetCodec")) schema.addProperty("uniqueItems", true);
+                return schema;
+            }
+            if (valueCodec != null && codec.endsWith("MapCodec") && !codec.contains("CodecMap") && !codec.contains("KeyMap")) {
+                JsonObject schema = new JsonObject();
+                schema.addProperty("type", "object");
+                if (codec.startsWith("Enum") && oc.classArg() != null) {
+                    schema.add("propertyNames", enumSchema(resolveType(oc.classArg(), scope), oc.classArg()));
+                }
+                schema.add("additionalProperties", codecSchema(valueCodec, scope, stats));
+                return schema;
+            }
+        }
+        return unresolved(expr, stats);
+    }
+
+    /** A named codec constant: a $ref to another builder codec, or what its declared type tells. */
+    private JsonObject codecReference(String owner, String field, CodecExpr e, Stats stats) {
+        if (owner == null) return unresolved(e, stats);
+        CodecDef def = codecs.get(owner + "#" + field);
+        if (def != null) {
+            JsonObject ref = new JsonObject();
+            ref.addProperty("$ref", fileName(def));
+            return ref;
+        }
+        String declared = fieldType(owner, field);
+        if (declared != null && declared.startsWith("EnumCodec<")) {
+            String enumName = declared.substring("EnumCodec<".length(), declared.length() - 1);
+            return enumSchema(resolveType(enumName, summaryOf(owner) != null ? summaryOf(owner).scope : null), enumName);
+        }
+        JsonObject schema = new JsonObject();
+        if (declared != null && (declared.contains("CodecMapCodec") || declared.contains("MapKeyMapCodec"))) {
+            // Polymorphic: the concrete shape depends on the registered subtype
+            schema.addProperty("type", "object");
+            schema.addProperty("x-polymorphic", true);
+        } else {
+            stats.unresolved++;
+        }
+        schema.addProperty("x-codec", owner + "." + field);
+        if (declared != null) schema.addProperty("x-codec-type", declared);
+        return schema;
+    }
+
+    private JsonObject enumSchema(String fqcn, String written) {
+        JsonObject schema = new JsonObject();
+        schema.addProperty("type", "string");
+        TypeSummary summary = fqcn == null ? null : summaryOf(fqcn);
+        if (summary != null && !summary.enumConstants.isEmpty()) {
+            JsonArray values = new JsonArray();
+            summary.enumConstants.forEach(values::add);
+            schema.add("enum", values);
+        }
+        schema.addProperty("x-java-type", fqcn != null ? fqcn : written);
+        return schema;
+    }
+
+    private static JsonObject unresolved(CodecExpr e, Stats stats) {
+        stats.unresolved++;
+        JsonObject schema = new JsonObject();
+        schema.addProperty("x-codec", e.text());
+        return schema;
+    }
+
+    private static void applyValidators(FieldDef field, JsonObject property, Stats stats) {
+        JsonArray other = new JsonArray();
+        for (Validator v : field.validators) {
+            JsonElement first = v.first();
+            JsonElement second = v.second();
+            boolean numeric = first != null && first.isJsonPrimitive() && first.getAsJsonPrimitive().isNumber();
+            switch (v.name()) {
+                case "range" -> {
+                    if (numeric && second != null) {
+                        property.add("minimum", first.deepCopy());
+                        property.add("maximum", second.deepCopy());
+                    } else other.add(v.text());
+                }
+                case "min" -> { if (numeric) property.add("minimum", first.deepCopy()); else other.add(v.text()); }
+                case "max" -> { if (numeric) property.add("maximum", first.deepCopy()); else other.add(v.text()); }
+                case "greaterThan" -> { if (numeric) property.add("exclusiveMinimum", first.deepCopy()); else other.add(v.text()); }
+                case "lessThan" -> { if (numeric) property.add("exclusiveMaximum", first.deepCopy()); else other.add(v.text()); }
+                default -> other.add(v.text());
+            }
+        }
+        if (!other.isEmpty()) property.add("x-validators", other);
+    }
+
+    /** Initializer of a field on the type or its superclasses. */
+    private DefaultValue findDefault(String fqcn, String field) {
+        String type = fqcn;
+        for (int depth = 0; type != null && depth < 16; depth++) {
+            TypeSummary summary = summaryOf(type);
+            if (summary == null) return null;
+            DefaultValue dv = summary.defaults.get(field);
+            if (dv != null) return dv;
+            type = summary.superclass == null ? null : resolveType(summary.superclass, summary.scope);
+        }
+        return null;
+    }
+
+    private CodecDef parentOf(CodecDef def) {
+        for (CodecConstant candidate : def.parentCandidates) {
+            String owner = candidate.owner() == null ? def.owner : resolveType(candidate.owner(), def.scope);
+            CodecDef parent = owner == null ? null : codecs.get(owner + "#" + candidate.field());
+            if (parent != null && parent != def) return parent;
+        }
+        return null;
+    }
+
+    /**
+     * Parsed summary of a type, parsing its source file on first use. The file
+     * is parsed outside the map, so threads never block on each other's parses;
+     * if two parse the same file, the first summary stored wins.
+     */
+    private TypeSummary summaryOf(String fqcn) {
+        ClassIndexer.ClassEntry entry = types.get(fqcn);
+        if (entry == null || entry.source_file == null) return null;
+        FileSummary summary = summaries.get(entry.source_file);
+        if (summary == null) {
+            FileSummary parsed = summarize(entry.source_file, readSource(entry.source_file));
+            summary = summaries.putIfAbsent(entry.source_file, parsed);
+            if (summary == null) summary = parsed;
+        }
+        return summary.types.get(fqcn);
+    }
+
+    // --- Name resolution ---
+
+    private String resolveType(String written, Scope scope) {
+        return resolver.resolve(written, scope);
+    }
+
+    private boolean hasField(String owner, String field) {
+        return fieldType(owner, field) != null;
+    }
+
+    private String fieldType(String owner, String field) {
+        ClassIndexer.ClassEntry entry = types.get(owner);
+        if (entry == null || entry.fields == null) return null;
+        for (ClassIndexer.FieldEntry f : entry.fields) {
+            if (f.name.equals(field)) return f.type;
+        }
+        return null;
+    }
+
+    private static boolean isAsset(CodecDef def) {
+        return def.codecType.startsWith("AssetBuilderCodec");
+    }
+
+    /** {@code <owner>.schema.json} for the usual CODEC field, {@code <owner>.<FIELD>.schema.json} otherwise. */
+    private static String fileName(CodecDef def) {
+        return (def.field.equals("CODEC") ? def.owner : def.owner + "." + def.field) + ".schema.json";
+    }
+
+    // --- Output ---
+
+    private SchemaEntry entryFor(CodecDef def, Stats stats) {
+        SchemaEntry e = new SchemaEntry();
+        e.fqcn = def.target;
+        e.codec = def.owner + "." + def.field;
+        e.codec_type = def.codecType;
+        e.asset = isAsset(def);
+        CodecDef parent = parentOf(def);
+        e.parent = parent == null ? null : parent.owner + "." + parent.field;
+        e.file = fileName(def);
+        e.field_count = stats.fields;
+        e.unresolved_codecs = stats.unresolved;
+        return e;
+    }
+
+    private void writeIndex(Gson gson, List<SchemaEntry> entries) throws IOException {
+        SchemaIndex output = new SchemaIndex();
+        output.version = "1.0.0";
+        output.generated_at = DateTimeFormatter.ISO_INSTANT.format(Instant.now().atOffset(ZoneOffset.UTC));
+        output.total_schemas = entries.size();
+        output.total_assets = (int) entries.stream().filter(e -> e.asset).count();
+        output.schemas = entries;
+        Files.writeString(outDir.resolve("index.json"), gson.toJson(output));
+
+        // Drop schemas of codecs that no longer exist
+        Set<String> current = new HashSet<>();
+        entries.forEach(e -> current.add(e.file));
+        try (Stream<Path> files = Files.list(outDir)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".schema.json") && !current.contains(name)) Files.delete(file);
+            }
+        }
+    }
+
+    // --- Model ---
+
+    private static class FileSummary {
+        final Map<String, TypeSummary> types = new LinkedHashMap<>();
+        final List<CodecDef> codecs = new ArrayList<>();
+    }
+
+    private static class TypeSummary {
+        Scope scope;
+        String superclass;
+        final List<String> enumConstants = new ArrayList<>();
+        final Map<String, DefaultValue> defaults = new HashMap<>();
+    }
+
+    /**
+     * A field initializer as a JSON value, kept as plain data so summaries can
+     * be shared between threads. {@code Type.CONSTANT} is remembered as a
+     * possible enum constant and checked against the enum when used.
+     */
+    private record DefaultValue(JsonElement value, String expression, String enumType, String enumConstant) {
+        static DefaultValue of(Expression expr) {
+            Expression e = unwrap(expr);
+            if (e instanceof StringLiteralExpr s) return literal(new JsonPrimitive(s.asString()));
+            if (e instanceof CharLiteralExpr c) return literal(new JsonPrimitive(c.asChar()));
+            if (e instanceof BooleanLiteralExpr b) return literal(new JsonPrimitive(b.getValue()));
+            if (e instanceof IntegerLiteralExpr i) return number(i.getValue(), false);
+            if (e instanceof LongLiteralExpr l) return number(l.getValue(), false);
+            if (e instanceof DoubleLiteralExpr d) return number(d.getValue(), false);
+            if (e instanceof UnaryExpr u && u.getOperator() == UnaryExpr.Operator.MINUS
+                    && (u.getExpression().isIntegerLiteralExpr() || u.getExpression().isLongLiteralExpr()
+                        || u.getExpression().isDoubleLiteralExpr())) {
+                return number(u.getExpression().toString(), true);
+            }
+            if (e instanceof NullLiteralExpr) return new DefaultValue(null, null, null, null);
+            if (e instanceof FieldAccessExpr fa && fa.getScope() instanceof NameExpr scope) {
+                return new DefaultValue(null, e.toString(), scope.getNameAsString(), fa.getNameAsString());
+            }
+            return new DefaultValue(null, e.toString(), null, null);
+        }
+
+        private static DefaultValue literal(JsonElement value) {
+            return new DefaultValue(value, null, null, null);
+        }
+
+        private static DefaultValue number(String text, boolean negate) {
+            String t = text.replace("_", "");
+            try {
+                if (t.startsWith("0x") || t.startsWith("0X")) {
+                    long v = Long.parseLong(t.substring(2).replaceAll("[lL]$", ""), 16);
+                    return literal(new JsonPrimitive(negate ? -v : v));
+                }
+                if (t.matches("-?\\d+[lL]?")) {
+                    long v = Long.parseLong(t.replaceAll("[lL]$", ""));
+                    return literal(new JsonPrimitive(negate ? -v : v));
+                }
+                double v = Double.parseDouble(t.replaceAll("[fFdD]$", ""));
+                return literal(new JsonPrimitive(negate ? -v : v));
+            } catch (NumberFormatException e) {
+                return new DefaultValue(null, (negate ? "-" : "") + text, null, null);
+            }
+        }
+    }
+
+    private static class CodecDef {
+        String owner;
+        String field;
+        String codecType;
+        String target;
+        boolean abstract_;
+        String description;
+        Scope scope;
+        final List<CodecConstant> parentCandidates = new ArrayList<>();
+        final List<FieldDef> fields = new ArrayList<>();
+
+        String key() {
+            return owner + "#" + field;
+        }
+    }
+
+    private static class FieldDef {
+        String key;
+        CodecExpr codec;
+        boolean required;
+        boolean inherited;
+        String javaField;
+        String description;
+        final List<Validator> validators = new ArrayList<>();
+    }
+
+    /**
+     * A codec expression as pass 2 needs it, with its source text for the
+     * schema when it cannot be resolved.
+     */
+    private sealed interface CodecExpr permits CodecConstant, CodecConstruction, OtherCodec {
+        String text();
+    }
+
+    /** {@code Owner.FIELD}, or a bare {@code FIELD} with a null owner. */
+    private record CodecConstant(String owner, String field, String text) implements CodecExpr {}
+
+    /** {@code new Type<>(...)}: the first argument if it is a class literal, and the first value codec. */
+    private record CodecConstruction(String type, String classArg, CodecExpr value, String text) implements CodecExpr {}
+
+    private record OtherCodec(String text) implements CodecExpr {}
+
+    /** A validator call with its first two arguments as JSON values, where they are literals. */
+    private record Validator(String name, JsonElement first, JsonElement second, String text) {
+        static Validator of(Expression expr) {
+            Expression v = unwrap(expr);
+            String name = v instanceof MethodCallExpr call ? call.getNameAsString() : "";
+            List<Expression> args = v instanceof MethodCallExpr call ? call.getArguments() : List.of();
+            JsonElement first = args.isEmpty() ? null : DefaultValue.of(args.get(0)).value;
+            JsonElement second = args.size() < 2 ? null : DefaultValue.of(args.get(1)).value;
+            return new Validator(name, first, second, v.toString());
+        }
+    }
+
+    private static class Stats {
+        int fields;
+        int unresolved;
+    }
+
+    static class SchemaIndex {
+        String version;
+        String generated_at;
+        int total_schemas;
+        int total_assets;
+        List<SchemaEntry> schemas;
+    }
+
+    static class SchemaEntry {
+        String fqcn;
+        String codec;
+        String codec_type;
+        boolean asset;
+        String parent;
+        String file;
+        int field_count;
+        int unresolved_codecs;
+    }
+}
@@ -0,0 +1,503 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.jetbrains.java.decompiler.main.decompiler.BaseDecompiler;
+import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+
+/**
+ * Straggler-resistant alternative to {@link Decompiler}.
+ *
+ * One Vineflower run over the whole JAR is at the mercy of its worst class: a
+ * single giant or pathological class can stall the run for hours or take the
+ * JVM down with an OutOfMemoryError, losing everything. The scheduler instead:
+ *
+ * 1. Groups class files into units (a top-level class plus its nested classes)
+ *    and orders them largest-first, so the long poles start immediately and the
+ *    small classes fill in around them.
+ * 2. Runs units in child JVMs, each with a fixed heap budget and a wall-clock
+ *    budget. Large units get a worker of their own; small ones are batched to
+ *    amortise JVM startup.
+ * 3. When a batch fails (timeout, OOM, crash, or classes missing from its
+ *    output), the units it did not finish are bisected and retried. A unit that
+ *    still fails on its own is replaced by a signature-only stub generated from
+ *    its bytecode ({@link StubGenerator}), so Phase 1 always produces a complete
+ *    tree and index.
+ *
+ * Every stubbed class is listed in artifacts/decompile-report.json.
+ */
+public class DecompileScheduler {
+
+    /** Units with more class bytes than this are decompiled in a worker of their own. */
+    private static final long ISOLATE_BYTES = 128 * 1024;
+    /** Upper bounds for a batch of small units. */
+    private static final long BATCH_BYTES = 2 * 1024 * 1024;
+    private static final int BATCH_UNITS = 200;
+    /** Time for a worker JVM to start and load the library context. */
+    private static final long STARTUP_SECONDS = 60;
+    /** Per-unit allowance inside a batch; a batch that overruns it is split. */
+    private static final long BATCH_SECONDS_PER_UNIT = 5;
+
+    private final int workers;
+    private final int threadsPerWorker;
+    private final int workerHeapMb;
+    private final int classTimeoutSeconds;
+    private final Decompiler filter;
+
+    /**
+     * @param workers             number of concurrent worker JVMs
+     * @param threadsPerWorker    Vineflower threads inside each worker
+     * @param workerHeapMb        -Xmx of each worker JVM
+     * @param classTimeoutSeconds wall-clock budget for a unit decompiled on its own
+     */
+    public DecompileScheduler(int workers, int threadsPerWorker, int workerHeapMb, int classTimeoutSeconds) {
+        this(workers, threadsPerWorker, workerHeapMb, classTimeoutSeconds, new Decompiler());
+    }
+
+    /**
+     * @param filter decides which JAR entries are decompiled
+     */
+    public DecompileScheduler(int workers, int threadsPerWorker, int workerHeapMb, int classTimeoutSeconds,
+                              Decompiler filter) {
+        this.filter = filter;
+        this.workers = Math.max(1, workers);
+        this.threadsPerWorker = Math.max(1, threadsPerWorker);
+        this.workerHeapMb = workerHeapMb;
+        this.classTimeoutSeconds = classTimeoutSeconds;
+    }
+
+    /** Defaults sized from the machine: two Vineflower threads per worker, 2 GB heap each. */
+    public static DecompileScheduler withDefaults() {
+        return withDefaults(new Decompiler());
+    }
+
+    /** Defaults as above, decompiling the entries the given decompiler includes. */
+    public static DecompileScheduler withDefaults(Decompiler filter) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return new DecompileScheduler(Math.max(1, cores / 2), 2, 2048, 300, filter);
+    }
+
+    /** Top-level class and the class files that make up its source file. */
+    private record Unit(String name, Map<String, byte[]> classes, long bytes) {}
+
+    /**
+     * Decompile all included classes of the JAR, handing each top-level class
+     * (decompiled or stubbed) to the sink.
+     *
+     * @param jarPath    JAR to decompile
+     * @param sink       receives the source of every top-level class
+     * @param reportPath decompile-report.json to write
+     */
+    public void decompile(Path jarPath, SourceSaver sink, Path reportPath) throws IOException {
+        decompile(jarPath, sink, reportPath, Set.of());
+    }
+
+    /**
+     * Like {@link #decompile(Path, SourceSaver, Path)}, skipping units a
+     * previous run already completed.
+     *
+     * @param completedUnits dotted FQCNs of top-level classes to skip
+     */
+    public void decompile(Path jarPath, SourceSaver sink, Path reportPath,
+                          Set<String> completedUnits) throws IOException {
+        try (PipelineMetrics.Stage stage = PipelineMetrics.get().stage("decompile")) {
+            List<Unit> units = readUnits(jarPath);
+            if (!completedUnits.isEmpty()) {
+                int before = units.size();
+                units.removeIf(u -> completedUnits.contains(u.name().replace('/', '.')));
+                System.out.println("Skipping " + (before - units.size()) + " units completed by an earlier run");
+            }
+            units.sort(Comparator.comparingLong(Unit::bytes).reversed());
+
+            List<List<Unit>> batches = planBatches(units);
+            long isolated = batches.stream().filter(b -> b.size() == 1 && b.get(0).bytes() > ISOLATE_BYTES).count();
+            System.out.println("Input JAR: " + jarPath);
+            System.out.println("Scheduled " + units.size() + " units in " + batches.size() + " batches ("
+                + isolated + " isolated), " + workers + " workers x " + threadsPerWorker + " threads, "
+                + workerHeapMb + " MB heap each");
+            if (!units.isEmpty()) {
+                System.out.printf("Largest unit: %s (%.1f KB)%n", units.get(0).name(), units.get(0).bytes() / 1024.0);
+            }
+
+            Path workDir = Files.createTempDirectory("hytale-decompile-");
+            DecompileReport report = new DecompileReport();
+            AtomicInteger decompiled = new AtomicInteger();
+            AtomicInteger retried = new AtomicInteger();
+            try {
+                // Every worker sees the full filtered JAR as library context, so types
+                // outside its batch still resolve
+                Path contextJar = workDir.resolve("context.jar");
+                filter.filterJar(jarPath, contextJar);
+
+                ExecutorService pool = Executors.newFixedThreadPool(workers);
+                try {
+                    AtomicInteger batchIds = new AtomicInteger();
+                    List<Future<?>> pending = new ArrayList<>();
+                    for (List<Unit> batch : batches) {
+                        pending.add(pool.submit(() -> {
+                            runWithRetry(batch, contextJar, workDir, batchIds, sink, report, decompiled, retried);
+                            return null;
+                        }));
+                    }
+                    for (Future<?> f : pending) {
+                        f.get();
+                    }
+                } catch (Exception e) {
+                    throw new IOException("Scheduled decompilation failed: " + e.getMessage(), e);
+                } finally {
+                    pool.shutdownNow();
+                }
+            } finally {
+                deleteRecursively(workDir);
+            }
+
+            long elapsed = stage.elapsedMillis();
+            report.version = "1.0.0";
+            report.generated_at = DateTimeFormatter.ISO_INSTANT.format(Instant.now().atOffset(ZoneOffset.UTC));
+            report.total_units = units.size();
+            report.batches = batches.size();
+            report.decompiled = decompiled.get();
+            report.stubbed = report.stubs.size();
+            report.retried_batches = retried.get();
+            report.worker_heap_mb = workerHeapMb;
+            report.class_timeout_seconds = classTimeoutSeconds;
+            report.elapsed_seconds = elapsed / 1000.0;
+            report.stubs.sort(Comparator.comparing(s -> s.fqcn));
+            Files.createDirectories(reportPath.getParent());
+            Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+            Files.writeString(reportPath, gson.toJson(report));
+
+            System.out.printf("Decompilation completed in %.1f seconds: %d decompiled, %d stubbed, %d batches retried%n",
+                elapsed / 1000.0, report.decompiled, report.stubbed, report.retried_batches);
+            System.out.println("Report: " + reportPath);
+        }
+    }
+
+    // --- Planning ---
+
+    private List<Unit> readUnits(Path jarPath) throws IOException {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        try (JarFile jf = new JarFile(jarPath.toFile())) {
+            var entries = jf.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory() || !name.endsWith(".class") || name.startsWith("META-INF/")
+                        || !filter.shouldInclude(name)) {
+                    continue;
+                }
+                try (InputStream is = jf.getInputStream(entry)) {
+                    classes.put(name.substring(0, name.length() - ".class".length()), is.readAllBytes());
+                }
+            }
+        }
+
+        // Nested classes travel with their top-level class; a '$' name whose
+        // outer class is not in the JAR is a unit of its own
+        Map<String, Map<String, byte[]>> grouped = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> e : classes.entrySet()) {
+            String name = e.getKey();
+            String top = topLevelName(name);
+            if (!classes.containsKey(top)) top = name;
+            grouped.computeIfAbsent(top, k -> new LinkedHashMap<>()).put(name, e.getValue());
+        }
+
+        List<Unit> units = new ArrayList<>();
+        for (Map.Entry<String, Map<String, byte[]>> e : grouped.entrySet()) {
+            long bytes = e.getValue().values().stream().mapToLong(b -> b.length).sum();
+            units.add(new Unit(e.getKey(), e.getValue(), bytes));
+        }
+        return units;
+    }
+
+    /** Internal name of the top-level class for a (possibly nested) class name. */
+    static String topLevelName(String internalName) {
+        int slash = internalName.lastIndexOf('/');
+        int dollar = internalName.indexOf('$', slash + 1);
+        return dollar > slash + 1 ? internalName.substring(0, dollar) : internalName;
+    }
+
+    /**
+     * Split the (largest-first) units into batches: oversized units alone,
+     * the rest packed greedily up to the batch limits. Batch order follows
+     * unit order, so the biggest work is dispatched first.
+     */
+    private List<List<Unit>> planBatches(List<Unit> units) {
+        List<List<Unit>> batches = new ArrayList<>();
+        List<Unit> current = new ArrayList<>();
+        long currentBytes = 0;
+        for (Unit unit : units) {
+            if (unit.bytes() > ISOLATE_BYTES) {
+                batches.add(List.of(unit));
+                continue;
+            }
+            if (!current.isEmpty() && (currentBytes + unit.bytes() > BATCH_BYTES || current.size() >= BATCH_UNITS)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentBytes = 0;
+            }
+            current.add(unit);
+            currentBytes += unit.bytes();
+        }
+        if (!current.isEmpty()) batches.add(current);
+        return batches;
+    }
+
+    // --- Execution ---
+
+    /**
+     * Run one batch; bisect whatever it did not finish and retry, down to
+     * single units, which are stubbed if they fail on their own.
+     */
+    private void runWithRetry(List<Unit> batch, Path contextJar, Path workDir, AtomicInteger batchIds,
+                              SourceSaver sink, DecompileReport report,
+                              AtomicInteger decompiled, AtomicInteger retried) throws IOException {
+        Path batchDir = workDir.resolve("batch-" + batchIds.incrementAndGet());
+        String failure;
+        try {
+            failure = runWorker(batch, contextJar, batchDir);
+        } catch (IOException e) {
+            failure = "worker could not run: " + e.getMessage();
+        }
+
+        List<Unit> missing = new ArrayList<>();
+        for (Unit unit : batch) {
+            Path produced = batchDir.resolve("out").resolve(unit.name() + ".java");
+            if (Files.isRegularFile(produced)) {
+                sink.saveSource(unit.name().replace('/', '.'), Files.readString(produced));
+                decompiled.incrementAndGet();
+            } else {
+                missing.add(unit);
+            }
+        }
+        deleteRecursively(batchDir);
+        if (missing.isEmpty()) return;
+
+        String reason = failure != null ? failure : "no output from decompiler";
+        if (missing.size() == 1 && batch.size() == 1) {
+            stub(missing.get(0), reason, sink, report);
+            return;
+        }
+
+        retried.incrementAndGet();
+        System.err.println("WARN: Batch of " + batch.size() + " units left " + missing.size()
+            + " unfinished (" + reason + "), retrying in smaller batches");
+        if (missing.size() == 1) {
+            runWithRetry(missing, contextJar, workDir, batchIds, sink, report, decompiled, retried);
+        } else {
+            int half = missing.size() / 2;
+            runWithRetry(List.copyOf(missing.subList(0, half)), contextJar, workDir, batchIds,
+                sink, report, decompiled, retried);
+            runWithRetry(List.copyOf(missing.subList(half, missing.size())), contextJar, workDir, batchIds,
+                sink, report, decompiled, retried);
+        }
+    }
+
+    /**
+     * Decompile a batch in a child JVM.
+     *
+     * @return null if the worker exited normally, otherwise why it failed
+     */
+    private String runWorker(List<Unit> batch, Path contextJar, Path batchDir) throws IOException {
+        Path batchJar = batchDir.resolve("batch.jar");
+        Path outDir = batchDir.resolve("out");
+        Path log = batchDir.resolve("worker.log");
+        Files.createDirectories(outDir);
+        writeBatchJar(batch, batchJar);
+
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = List.of(
+            java,
+            "-Xmx" + workerHeapMb + "m",
+            "-XX:+ExitOnOutOfMemoryError",
+            "-cp", System.getProperty("java.class.path"),
+            DecompileScheduler.class.getName(),
+            contextJar.toString(), batchJar.toString(), outDir.toString(),
+            String.valueOf(threadsPerWorker), String.valueOf(classTimeoutSeconds));
+
+        long budget = batch.size() == 1
+            ? STARTUP_SECONDS + classTimeoutSeconds
+            : STARTUP_SECONDS + BATCH_SECONDS_PER_UNIT * batch.size();
+
+        Process process = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(log.toFile())
+            .start();
+        try {
+            if (!process.waitFor(budget, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+                return "exceeded " + budget + " s time budget";
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for worker", e);
+        }
+
+        int exit = process.exitValue();
+        if (exit == 0) return null;
+        String output = Files.readString(log);
+        if (output.contains("OutOfMemoryError")) {
+            return "exceeded " + workerHeapMb + " MB heap budget";
+        }
+        return "worker exited with code " + exit;
+    }
+
+    private static void writeBatchJar(List<Unit> batch, Path batchJar) throws IOException {
+        try (OutputStream os = Files.newOutputStream(batchJar);
+             JarOutputStream jos = new JarOutputStream(os, new Manifest())) {
+            for (Unit unit : batch) {
+                for (Map.Entry<String, byte[]> cls : unit.classes().entrySet()) {
+                    jos.putNextEntry(new JarEntry(cls.getKey() + ".class"));
+                    jos.write(cls.getValue());
+                    jos.closeEntry();
+                }
+            }
+        }
+    }
+
+    private static void stub(Unit unit, String reason, SourceSaver sink, DecompileReport report) {
+        StubEntry entry = new StubEntry();
+        entry.fqcn = unit.name().replace('/', '.');
+        entry.class_bytes = unit.bytes();
+        entry.reason = reason;
+
+        String simpleName = unit.name().substring(unit.name().lastIndexOf('/') + 1);
+        if (simpleName.equals("package-info") || simpleName.equals("module-info")) {
+            entry.reason = reason + "; no stub for " + simpleName;
+        } else {
+            try {
+                sink.saveSource(entry.fqcn, StubGenerator.generate(unit.name(), unit.classes(), reason));
+            } catch (RuntimeException e) {
+                entry.reason = reason + "; stub generation failed: " + e.getMessage();
+            }
+        }
+        System.err.println("WARN: Stubbed " + entry.fqcn + ": " + entry.reason);
+        synchronized (report) {
+            report.stubs.add(entry);
+        }
+    }
+
+    /** Delete a directory tree; a missing root is fine. */
+    static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root)) return;
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path p : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    // --- Worker JVM ---
+
+    /**
+     * Worker entry point, started by the scheduler in a child JVM.
+     *
+     * Usage: DecompileScheduler <context-jar> <batch-jar> <out-dir> <threads> <class-timeout-seconds>
+     *
+     * Exits with 2 on failure; OutOfMemoryError terminates the JVM via
+     * -XX:+ExitOnOutOfMemoryError.
+     */
+    public static void main(String[] args) {
+        if (args.length != 5) {
+            System.err.println("Usage: DecompileScheduler <context-jar> <batch-jar> <out-dir> <threads> <class-timeout-seconds>");
+            System.exit(1);
+        }
+        Path contextJar = Path.of(args[0]);
+        Path batchJar = Path.of(args[1]);
+        Path outDir = Path.of(args[2]);
+
+        try {
+            Map<String, Object> options = Decompiler.vineflowerOptions(args[3]);
+            // Cap time spent on any single method so one method degrades to a
+            // "couldn't be decompiled" body instead of consuming the class budget
+            options.put("mpm", args[4]);
+
+            BaseDecompiler decompiler = new BaseDecompiler(new AtomicFileSaver(outDir), options,
+                new PrintStreamLogger(System.out));
+            // Library first: classes of the batch are also in the context JAR, and
+            // the later source registration must take precedence
+            decompiler.addLibrary(contextJar.toFile());
+            decompiler.addSource(batchJar.toFile());
+            decompiler.decompileContext();
+        } catch (Exception e) {
+            System.err.println("FATAL: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Writes each class to a temp file and renames it into place, so a worker
+     * killed mid-write never leaves a truncated source behind.
+     */
+    private static final class AtomicFileSaver extends SourceSaver {
+        private final Path outputDir;
+
+        AtomicFileSaver(Path outputDir) {
+            this.outputDir = outputDir;
+        }
+
+        @Override
+        protected void saveSource(String fqcn, String content) {
+            Path target = outputDir.resolve(sourcePathFor(fqcn));
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try {
+                Files.createDirectories(target.getParent());
+                Files.writeString(temp, content);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write " + target, e);
+            }
+        }
+    }
+
+    // --- JSON output model classes ---
+
+    static class DecompileReport {
+        String version;
+        String generated_at;
+        int total_units;
+        int batches;
+        int decompiled;
+        int stubbed;
+        int retried_batches;
+        int worker_heap_mb;
+        int class_timeout_seconds;
+        double elapsed_seconds;
+        List<StubEntry> stubs = new ArrayList<>();
+    }
+
+    static class StubEntry {
+        String fqcn;
+        long class_bytes;
+        String reason;
+    }
+}
@@ -1,13 +1,19 @@
 package com.hytale.indexer;
 
+import org.jetbrains.java.decompiler.main.decompiler.BaseDecompiler;
 import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
@@ -16,17 +22,31 @@ import java.util.jar.Manifest;
 /**
  * Decompiles a JAR file using Vineflower (modern Fernflower fork).
  *
- * Only Hytale's own packages are decompiled. Third-party dependencies
+ * By default only Hytale's own packages are decompiled. Third-party dependencies
  * (fastutil, Netty, Gson, Guava, etc.) are excluded to avoid OOM errors
  * on massive generated classes and to keep the index focused.
  */
 public class Decompiler {
 
-    /** Package prefixes to include in decompilation. */
-    private static final List<String> INCLUDE_PREFIXES = List.of(
+    /** Package prefixes included by default. */
+    static final List<String> INCLUDE_PREFIXES = List.of(
         "com/hypixel/hytale/"
     );
 
+    /** Internal-name prefixes of the entries to decompile; "" includes everything. */
+    private final List<String> includePrefixes;
+
+    public Decompiler() {
+        this(INCLUDE_PREFIXES);
+    }
+
+    /**
+     * @param includePrefixes internal-name package prefixes to decompile, e.g. "com/example/"
+     */
+    public Decompiler(List<String> includePrefixes) {
+        this.includePrefixes = List.copyOf(includePrefixes);
+    }
+
     /**
      * Decompile a JAR file to a target directory.
      * Only classes under the included package prefixes are decompiled.
@@ -43,53 +63,151 @@ public class Decompiler {
         try {
             long originalCount = filterJar(jarPath, filteredJar);
             System.out.println("Input JAR: " + jarPath);
-            System.out.println("Filtered to " + originalCount + " entries (packages: " +
-                String.join(", ", INCLUDE_PREFIXES) + ")");
+            System.out.println("Filtered to " + originalCount + " entries (packages: " + describeIncludes() + ")");
             System.out.println("Output:    " + outputDir);
 
-            // Vineflower CLI arguments:
-            //   -dgs=1  : decompile generic signatures
-            //   -asc=1  : allow synthetic class access (for inner classes)
-            //   -rsy=1  : remove synthetic methods/fields
-            //   -ind=    : use spaces for indentation
-            //   -log=WARN : reduce noise, only show warnings and errors
-            //   -thr=N  : use available processors for parallel decompilation
             String threads = String.valueOf(Runtime.getRuntime().availableProcessors());
-
-            String[] args = {
-                "-dgs=1",
-                "-asc=1",
-                "-rsy=1",
-                "-ind=    ",
-                "-log=WARN",
-                "-thr=" + threads,
-                filteredJar.toString(),
-                outputDir.toString()
-            };
+            List<String> args = new ArrayList<>();
+            for (Map.Entry<String, Object> option : vineflowerOptions(threads).entrySet()) {
+                args.add("-" + option.getKey() + "=" + option.getValue());
+            }
+            args.add(filteredJar.toString());
+            args.add(outputDir.toString());
 
             System.out.println("Starting Vineflower with " + threads + " threads...");
-            long start = System.currentTimeMillis();
-
-            try {
-                ConsoleDecompiler.main(args);
+            PipelineMetrics.Stage stage = PipelineMetrics.get().stage("decompile");
+            try (stage) {
+                ConsoleDecompiler.main(args.toArray(String[]::new));
             } catch (Exception e) {
                 throw new RuntimeException("Vineflower decompilation failed: " + e.getMessage(), e);
             }
+            System.out.printf("Decompilation completed in %.1f seconds%n", stage.elapsedMillis() / 1000.0);
+        } finally {
+            Files.deleteIfExists(filteredJar);
+        }
+    }
 
-            long elapsed = System.currentTimeMillis() - start;
-            System.out.printf("Decompilation completed in %.1f seconds%n", elapsed / 1000.0);
+    /**
+     * Decompile a JAR file, handing each decompiled top-level class to the given
+     * saver instead of writing a loose source tree.
+     *
+     * @param jarPath       Path to the JAR file to decompile
+     * @param saver         Receives the source of every decompiled class
+     * @throws IOException  if the JAR cannot be filtered
+     */
+    public void decompile(Path jarPath, SourceSaver saver) throws IOException {
+        Path filteredJar = Files.createTempFile("hytale-filtered-", ".jar");
+        try {
+            long originalCount = filterJar(jarPath, filteredJar);
+            System.out.println("Input JAR: " + jarPath);
+            System.out.println("Filtered to " + originalCount + " entries (packages: " + describeIncludes() + ")");
+
+            String threads = String.valueOf(Runtime.getRuntime().availableProcessors());
+            System.out.println("Starting Vineflower with " + threads + " threads...");
+            PipelineMetrics.Stage stage = PipelineMetrics.get().stage("decompile");
+            try (stage) {
+                BaseDecompiler decompiler = new BaseDecompiler(saver, vineflowerOptions(threads),
+                    new PrintStreamLogger(System.out));
+                decompiler.addSource(filteredJar.toFile());
+                decompiler.decompileContext();
+            } catch (Exception e) {
+                throw new RuntimeException("Vineflower decompilation failed: " + e.getMessage(), e);
+            }
+            System.out.printf("Decompilation completed in %.1f seconds%n", stage.elapsedMillis() / 1000.0);
         } finally {
             Files.deleteIfExists(filteredJar);
         }
     }
 
+    /**
+     * Decompile what an interrupted run left over. Units already completed are
+     * left out of the sources, but the whole filtered JAR is loaded as library
+     * context so references to them still resolve.
+     *
+     * @param filteredJar     JAR already reduced to the included packages
+     * @param completedUnits  dotted FQCNs of top-level classes to skip
+     * @param saver           Receives the source of every decompiled class
+     * @throws IOException  if the remaining classes cannot be extracted
+     */
+    public void decompileRemaining(Path filteredJar, Set<String> completedUnits, SourceSaver saver)
+            throws IOException {
+        Path remainingJar = Files.createTempFile("hytale-remaining-", ".jar");
+        try {
+            long remaining = 0;
+            try (JarFile jf = new JarFile(filteredJar.toFile());
+                 OutputStream os = Files.newOutputStream(remainingJar);
+                 JarOutputStream jos = new JarOutputStream(os, new Manifest())) {
+                var entries = jf.entries();
+                while (entries.hasMoreElements()) {
+                    JarEntry entry = entries.nextElement();
+                    String name = entry.getName();
+                    if (entry.isDirectory() || !name.endsWith(".class")) continue;
+                    String className = name.substring(0, name.length() - ".class".length());
+                    String unit = DecompileScheduler.topLevelName(className);
+                    if (completedUnits.contains(unit.replace('/', '.'))
+                            || completedUnits.contains(className.replace('/', '.'))) {
+                        continue;
+                    }
+                    jos.putNextEntry(new JarEntry(name));
+                    try (InputStream is = jf.getInputStream(entry)) {
+                        is.transferTo(jos);
+                    }
+                    jos.closeEntry();
+                    remaining++;
+                }
+            }
+            System.out.println("Resuming: " + remaining + " class files left, "
+                + completedUnits.size() + " units already done");
+            if (remaining == 0) return;
+
+            String threads = String.valueOf(Runtime.getRuntime().availableProcessors());
+            System.out.println("Starting Vineflower with " + threads + " threads...");
+            PipelineMetrics.Stage stage = PipelineMetrics.get().stage("decompile");
+            try (stage) {
+                BaseDecompiler decompiler = new BaseDecompiler(saver, vineflowerOptions(threads),
+                    new PrintStreamLogger(System.out));
+                if (!completedUnits.isEmpty()) {
+                    // Library first, so the source registration of the remaining classes wins
+                    decompiler.addLibrary(filteredJar.toFile());
+                }
+                decompiler.addSource(remainingJar.toFile());
+                decompiler.decompileContext();
+            } catch (Exception e) {
+                throw new RuntimeException("Vineflower decompilation failed: " + e.getMessage(), e);
+            }
+            System.out.printf("Decompilation completed in %.1f seconds%n", stage.elapsedMillis() / 1000.0);
+        } finally {
+            Files.deleteIfExists(remainingJar);
+        }
+    }
+
+    /**
+     * Vineflower options shared by both output modes:
+     *   dgs=1  : decompile generic signatures
+     *   asc=1  : allow synthetic class access (for inner classes)
+     *   rsy=1  : remove synthetic methods/fields
+     *   ind=    : use spaces for indentation
+     *   log=WARN : reduce noise, only show warnings and errors
+     *   thr=N  : use available processors for parallel decompilation
+     */
+    static Map<String, Object> vineflowerOptions(String threads) {
+        Map<String, Object> options = new LinkedHashMap<>();
+        options.put("dgs", "1");
+        options.put("asc", "1");
+        options.put("rsy", "1");
+        options.put("ind", "    ");
+        options.put("log", "WARN");
+        options.put("thr", threads);
+        return options;
+    }
+
     /**
      * Create a filtered copy of the JAR containing only entries that match
      * the included package prefixes.
      *
      * @return the number of entries written to the filtered JAR
      */
-    private long filterJar(Path sourceJar, Path targetJar) throws IOException {
+    long filterJar(Path sourceJar, Path targetJar) throws IOException {
         long count = 0;
 
         try (JarFile jf = new JarFile(sourceJar.toFile());
@@ -118,7 +236,12 @@ public class Decompiler {
         return count;
     }
 
-    private boolean shouldInclude(String entryName) {
+    /** The include prefixes for log output. */
+    String describeIncludes() {
+        return includePrefixes.contains("") ? "all" : String.join(", ", includePrefixes);
+    }
+
+    boolean shouldInclude(String entryName) {
         // Skip manifest — JarOutputStream already writes one
         if (entryName.equals("META-INF/MANIFEST.MF")) {
             return false;
@@ -128,7 +251,7 @@ public class Decompiler {
             return true;
         }
         // Include entries matching our target packages
-        for (String prefix : INCLUDE_PREFIXES) {
+        for (String prefix : includePrefixes) {
             if (entryName.startsWith(prefix)) {
                 return true;
             }
@@ -0,0 +1,99 @@
+package com.hytale.indexer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * A generated markdown page split into its YAML frontmatter and body.
+ *
+ * Only the subset of YAML the generator writes is understood: top-level
+ * {@code key: value} scalars, optionally quoted. Nested lists and maps (tags,
+ * related, implements) are skipped; the raw frontmatter text is kept for
+ * callers that need them.
+ */
+final class DocPage {
+
+    final Path path;
+    final String relativePath;   // forward slashes, relative to the docs root
+    final String frontmatter;    // without the --- fences; empty if none
+    final String body;
+    final Map<String, String> fields;
+
+    private DocPage(Path path, String relativePath, String frontmatter, String body, Map<String, String> fields) {
+        this.path = path;
+        this.relativePath = relativePath;
+        this.frontmatter = frontmatter;
+        this.body = body;
+        this.fields = fields;
+    }
+
+    static DocPage read(Path docsRoot, Path file) throws IOException {
+        return parse(docsRoot, file, Files.readString(file));
+    }
+
+    static DocPage parse(Path docsRoot, Path file, String content) {
+        String relative = docsRoot.relativize(file).toString().replace('\\', '/');
+        if (!content.startsWith("---")) {
+            return new DocPage(file, relative, "", content, Map.of());
+        }
+        int firstLineEnd = content.indexOf('\n');
+        int close = content.indexOf("\n---", firstLineEnd);
+        if (firstLineEnd < 0 || close < 0) {
+            return new DocPage(file, relative, "", content, Map.of());
+        }
+        String frontmatter = content.substring(firstLineEnd + 1, close + 1);
+        int bodyStart = content.indexOf('\n', close + 4);
+        String body = bodyStart < 0 ? "" : content.substring(bodyStart + 1);
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (String line : frontmatter.split("\n")) {
+            if (line.isEmpty() || Character.isWhitespace(line.charAt(0)) || line.startsWith("#")) continue;
+            int colon = line.indexOf(':');
+            if (colon <= 0) continue;
+            fields.put(line.substring(0, colon).trim(), scalar(line.substring(colon + 1).trim()));
+        }
+        return new DocPage(file, relative, frontmatter, body, fields);
+    }
+
+    String field(String key) {
+        String value = fields.get(key);
+        return value == null || value.isEmpty() || value.equals("~") ? null : value;
+    }
+
+    /**
+     * FQCN of the type the page documents: the fqcn field, or package + title
+     * for pages that only carry those.
+     */
+    String documentedFqcn() {
+        String fqcn = field("fqcn");
+        if (fqcn != null) return fqcn;
+        String pkg = field("package");
+        String title = field("title");
+        if (pkg != null && title != null && title.matches("[A-Za-z_$][\\w$]*")) {
+            return pkg + "." + title;
+        }
+        return null;
+    }
+
+    /** All .md files under the docs root, sorted by path. */
+    static List<Path> listPages(Path docsRoot) throws IOException {
+        try (Stream<Path> walk = Files.walk(docsRoot)) {
+            return walk.filter(p -> Files.isRegularFile(p) && p.toString().endsWith(".md")).sorted().toList();
+        }
+    }
+
+    /** Value of a YAML scalar: quotes removed, trailing comment dropped. */
+    private static String scalar(String raw) {
+        if (raw.startsWith("\"") || raw.startsWith("'")) {
+            int close = raw.indexOf(raw.charAt(0), 1);
+            return close < 0 ? raw.substring(1) : raw.substring(1, close);
+        }
+        int hash = raw.indexOf(" #");
+        return hash < 0 ? raw : raw.substring(0, hash).trim();
+    }
+}
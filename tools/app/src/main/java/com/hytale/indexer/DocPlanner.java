@@ -0,0 +1,435 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Incremental Phase 4: tracks which artifact inputs every generated page was
+ * built from, and plans regeneration of only the pages whose inputs changed.
+ *
+ * Usage: doc-planner <plan|record> [--artifacts dir] [--docs dir] [page ...]
+ *
+ *   record  Fingerprint the inputs of the given pages (default: all pages) as
+ *           they are now and store them in output/docs/page-manifest.json.
+ *           Run after (re)generating pages.
+ *   plan    Fingerprint every page again, compare with the manifest and write
+ *           output/docs/doc-plan.json: stale pages with the inputs that changed,
+ *           pages not in the manifest yet, and pages whose type no longer exists.
+ *
+ * Inputs per page:
+ *   Type, event and schema pages: the API signatures of the documented type and
+ *   its nested types, its surface.json entry, the cross-refs.json relationships
+ *   it takes part in, and the systems.json entries that mention it.
+ *   Overview pages: surface membership of the categories their directory covers,
+ *   and the matching systems.json section. The landing pages only quote type
+ *   counts, so those are their input. Any other overview page depends on the
+ *   whole surface and systems.json until its directory is listed.
+ */
+public class DocPlanner {
+
+    static final String MANIFEST_FILE = "page-manifest.json";
+    static final String PLAN_FILE = "doc-plan.json";
+
+    /** Surface categories and systems.json section summarised by each overview directory. */
+    private static final Map<String, DirectoryInputs> DIRECTORY_INPUTS = Map.of(
+        "api/events", new DirectoryInputs(Set.of("event"), "events"),
+        "api/commands", new DirectoryInputs(Set.of("command"), "commands"),
+        "api/components", new DirectoryInputs(Set.of("component"), "ecs"),
+        "api/systems", new DirectoryInputs(Set.of("component"), "ecs"),
+        "api/registries", new DirectoryInputs(Set.of("registry"), "registries"),
+        "schemas", new DirectoryInputs(Set.of("asset", "codec"), "codecs")
+    );
+
+    private record DirectoryInputs(Set<String> categories, String systemsSection) {}
+
+    /** Landing pages whose only artifact input is the number of API and internal types. */
+    private static final Set<String> COUNT_PAGES = Set.of("index.md", "api/index.md", "internals/index.md");
+
+    public static void main(String[] args) {
+        if (args.length < 1 || !(args[0].equals("plan") || args[0].equals("record"))) {
+            System.err.println("Usage: doc-planner <plan|record> [--artifacts dir] [--docs dir] [page ...]");
+            System.exit(1);
+        }
+        String command = args[0];
+        Path artifactsDir = Path.of("artifacts");
+        Path docsDir = Path.of("output", "docs");
+        List<String> pages = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--artifacts") && i + 1 < args.length) {
+                artifactsDir = Path.of(args[++i]);
+            } else if (args[i].equals("--docs") && i + 1 < args.length) {
+                docsDir = Path.of(args[++i]);
+            } else if (args[i].startsWith("--")) {
+                System.err.println("ERROR: Unexpected argument: " + args[i]);
+                System.exit(1);
+            } else {
+                pages.add(args[i].replace('\\', '/'));
+            }
+        }
+        artifactsDir = artifactsDir.toAbsolutePath();
+        docsDir = docsDir.toAbsolutePath();
+        if (!Files.isDirectory(docsDir)) {
+            System.err.println("ERROR: Docs directory not found: " + docsDir);
+            System.exit(1);
+        }
+
+        try {
+            DocPlanner planner = new DocPlanner(artifactsDir, docsDir);
+            if (command.equals("record")) {
+                planner.record(pages);
+            } else {
+                planner.plan();
+            }
+        } catch (Exception e) {
+            System.err.println("FATAL: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    private final Path docsDir;
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+    private final String jarHash;
+    private final Map<String, ClassIndexer.ClassEntry> types = new HashMap<>();
+    private final Map<String, List<String>> nestedTypes = new HashMap<>(); // outer fqcn -> nested fqcns
+    private final Map<String, SurfaceClassifier.SurfaceType> surface = new HashMap<>();
+    private final Map<String, List<String>> crossRefs = new HashMap<>();  // fqcn -> relationship json
+    private final Map<String, List<String>> mentions = new HashMap<>();   // name -> systems.json fragments
+    private final JsonObject systems;
+
+    public DocPlanner(Path artifactsDir, Path docsDir) throws IOException {
+        this.docsDir = docsDir;
+        Gson plain = new GsonBuilder().create();
+
+        Path indexPath = ArtifactIO.find(artifactsDir.resolve("class-index.json"));
+        if (!Files.isRegularFile(indexPath)) {
+            throw new IOException("class-index.json not found in " + artifactsDir + "; run Phase 1 first");
+        }
+        ClassIndexer.ClassIndex index;
+        try (Reader reader = ArtifactIO.newReader(indexPath)) {
+            index = plain.fromJson(reader, ClassIndexer.ClassIndex.class);
+        }
+        this.jarHash = index.jar_hash;
+        for (ClassIndexer.ClassEntry entry : index.classes) {
+            types.put(entry.fqcn, entry);
+        }
+        for (String fqcn : types.keySet()) {
+            int dot = fqcn.lastIndexOf('.');
+            if (dot > 0 && types.containsKey(fqcn.substring(0, dot))) {
+                nestedTypes.computeIfAbsent(fqcn.substring(0, dot), k -> new ArrayList<>()).add(fqcn);
+            }
+        }
+
+        Path surfacePath = ArtifactIO.find(artifactsDir.resolve("surface.json"));
+        if (Files.isRegularFile(surfacePath)) {
+            try (Reader reader = ArtifactIO.newReader(surfacePath)) {
+                for (SurfaceClassifier.SurfaceType t : plain.fromJson(reader, SurfaceClassifier.SurfaceOutput.class).types) {
+                    surface.put(t.fqcn, t);
+                }
+            }
+        }
+
+        Path crossRefsPath = artifactsDir.resolve("cross-refs.json");
+        if (Files.isRegularFile(crossRefsPath)) {
+            JsonObject root = JsonParser.parseString(Files.readString(crossRefsPath)).getAsJsonObject();
+            JsonArray relationships = root.getAsJsonArray("relationships");
+            if (relationships != null) {
+                for (JsonElement rel : relationships) {
+                    String json = rel.toString();
+                    for (String end : List.of("source", "target")) {
+                        JsonElement side = rel.getAsJsonObject().get(end);
+                        if (side != null && side.isJsonObject() && side.getAsJsonObject().has("fqcn")) {
+                            String fqcn = side.getAsJsonObject().get("fqcn").getAsString();
+                            crossRefs.computeIfAbsent(fqcn, k -> new ArrayList<>()).add(json);
+                        }
+                    }
+                }
+            }
+        }
+
+        Path systemsPath = artifactsDir.resolve("systems.json");
+        if (Files.isRegularFile(systemsPath)) {
+            JsonObject root = JsonParser.parseString(Files.readString(systemsPath)).getAsJsonObject();
+            this.systems = root.has("systems") ? root.getAsJsonObject("systems") : root;
+            collectMentions(systems);
+        } else {
+            this.systems = new JsonObject();
+        }
+    }
+
+    // --- Commands ---
+
+    /** Fingerprint the given pages (or all) and store them in the manifest. */
+    public void record(List<String> only) throws IOException {
+        PageManifest manifest = loadManifest();
+        Map<String, PageRecord> byPath = new TreeMap<>();
+        if (manifest != null && !only.isEmpty()) {
+            for (PageRecord rec : manifest.pages) byPath.put(rec.path, rec);
+        }
+
+        int recorded = 0;
+        for (Path file : DocPage.listPages(docsDir)) {
+            DocPage page = DocPage.read(docsDir, file);
+            if (!only.isEmpty() && !only.contains(page.relativePath)) continue;
+            byPath.put(page.relativePath, fingerprint(page));
+            recorded++;
+        }
+        // Pages deleted since the last record drop out of the manifest
+        byPath.keySet().removeIf(path -> !Files.isRegularFile(docsDir.resolve(path)));
+
+        PageManifest updated = new PageManifest();
+        updated.version = "1.0.0";
+        updated.generated_at = timestamp();
+        updated.jar_hash = jarHash;
+        updated.pages = new ArrayList<>(byPath.values());
+        Files.writeString(docsDir.resolve(MANIFEST_FILE), gson.toJson(updated));
+        System.out.println("Recorded " + recorded + " pages (" + updated.pages.size() + " in manifest)");
+        System.out.println("Written to: " + docsDir.resolve(MANIFEST_FILE));
+    }
+
+    /** Compare current fingerprints with the manifest and write the regeneration plan. */
+    public void plan() throws IOException {
+        PageManifest manifest = loadManifest();
+        Map<String, PageRecord> recorded = new HashMap<>();
+        if (manifest != null) {
+            for (PageRecord rec : manifest.pages) recorded.put(rec.path, rec);
+        } else {
+            System.err.println("WARN: No " + MANIFEST_FILE + " yet; every page is untracked. Run 'record' first.");
+        }
+
+        DocPlan plan = new DocPlan();
+        plan.version = "1.0.0";
+        plan.generated_at = timestamp();
+        plan.jar_hash = jarHash;
+        plan.manifest_jar_hash = manifest == null ? null : manifest.jar_hash;
+
+        int total = 0;
+        int unchanged = 0;
+        for (Path file : DocPage.listPages(docsDir)) {
+            DocPage page = DocPage.read(docsDir, file);
+            PageRecord now = fingerprint(page);
+            total++;
+            PageRecord before = recorded.remove(page.relativePath);
+            if (now.fqcn != null && !types.containsKey(now.fqcn)) {
+                plan.orphaned.add(new OrphanedPage(now.path, now.fqcn, "type no longer in class-index.json"));
+                continue;
+            }
+            if (before == null) {
+                plan.untracked.add(now.path);
+            } else if (before.fingerprint.equals(now.fingerprint)) {
+                unchanged++;
+            } else {
+                StalePage stale = new StalePage();
+                stale.path = now.path;
+                stale.fqcn = now.fqcn;
+                stale.changed_inputs = new ArrayList<>();
+                for (Map.Entry<String, String> input : now.inputs.entrySet()) {
+                    if (!input.getValue().equals(before.inputs.get(input.getKey()))) {
+                        stale.changed_inputs.add(input.getKey());
+                    }
+                }
+                plan.stale.add(stale);
+            }
+        }
+        plan.deleted = new ArrayList<>(new TreeMap<>(recorded).keySet());
+
+        Summary summary = new Summary();
+        summary.pages = total;
+        summary.unchanged = unchanged;
+        summary.stale = plan.stale.size();
+        summary.untracked = plan.untracked.size();
+        summary.orphaned = plan.orphaned.size();
+        summary.deleted = plan.deleted.size();
+        plan.summary = summary;
+
+        Files.writeString(docsDir.resolve(PLAN_FILE), gson.toJson(plan));
+        System.out.printf("Pages: %d total, %d unchanged, %d stale, %d untracked, %d orphaned, %d deleted%n",
+            total, unchanged, summary.stale, summary.untracked, summary.orphaned, summary.deleted);
+        for (StalePage stale : plan.stale) {
+            System.out.println("  stale " + stale.path + " " + stale.changed_inputs);
+        }
+        System.out.println("Written to: " + docsDir.resolve(PLAN_FILE));
+    }
+
+    // --- Fingerprinting ---
+
+    PageRecord fingerprint(DocPage page) {
+        PageRecord rec = new PageRecord();
+        rec.path = page.relativePath;
+        rec.kind = page.field("kind");
+        rec.inputs = new LinkedHashMap<>();
+
+        String fqcn = page.documentedFqcn();
+        if ("schema".equals(rec.kind) && page.field("asset_type") != null && page.field("package") != null) {
+            fqcn = page.field("package") + "." + page.field("asset_type");
+        }
+
+        if (fqcn != null && !"overview".equals(rec.kind)) {
+            rec.fqcn = fqcn;
+            rec.inputs.put("signatures", signatureHash(fqcn));
+            SurfaceClassifier.SurfaceType st = surface.get(fqcn);
+            rec.inputs.put("surface", hashOf(st == null ? List.of("internal")
+                : List.of(st.category, st.inclusion_reason)));
+            rec.inputs.put("cross_refs", hashOf(crossRefs.getOrDefault(fqcn, List.of())));
+            List<String> found = new ArrayList<>(mentions.getOrDefault(fqcn, List.of()));
+            found.addAll(mentions.getOrDefault(fqcn.substring(fqcn.lastIndexOf('.') + 1), List.of()));
+            rec.inputs.put("systems", hashOf(found));
+        } else if (COUNT_PAGES.contains(page.relativePath)) {
+            rec.inputs.put("type_counts", hashOf(List.of(
+                "surface=" + surface.size(), "internal=" + (types.size() - surface.size()))));
+        } else {
+            String dir = page.relativePath.contains("/")
+                ? page.relativePath.substring(0, page.relativePath.lastIndexOf('/'))
+                : "";
+            DirectoryInputs scope = DIRECTORY_INPUTS.get(dir);
+            List<String> members = new ArrayList<>();
+            for (SurfaceClassifier.SurfaceType st : surface.values()) {
+                if (scope == null || scope.categories().contains(st.category)) {
+                    members.add(st.fqcn + "|" + st.category);
+                }
+            }
+            rec.inputs.put("surface_membership", hashOf(members));
+            JsonElement section = scope == null ? systems : systems.get(scope.systemsSection());
+            rec.inputs.put("systems", hashOf(List.of(section == null ? "" : section.toString())));
+        }
+
+        rec.fingerprint = hashOf(new ArrayList<>(rec.inputs.values()));
+        return rec;
+    }
+
+    /** Hash over the type digests of the type and its nested types. */
+    private String signatureHash(String fqcn) {
+        ClassIndexer.ClassEntry entry = types.get(fqcn);
+        if (entry == null) return "missing";
+        List<String> parts = new ArrayList<>();
+        parts.add(ApiSignatures.hex(ApiSignatures.typeHash(entry)));
+        List<String> pending = new ArrayList<>(nestedTypes.getOrDefault(fqcn, List.of()));
+        while (!pending.isEmpty()) {
+            String nested = pending.remove(pending.size() - 1);
+            parts.add(ApiSignatures.hex(ApiSignatures.typeHash(types.get(nested))));
+            pending.addAll(nestedTypes.getOrDefault(nested, List.of()));
+        }
+        return hashOf(parts);
+    }
+
+    /** Order-independent hash of a list of strings. */
+    private static String hashOf(List<String> parts) {
+        long[] hashes = new long[parts.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = ApiSignatures.hash(parts.get(i) == null ? "" : parts.get(i));
+        }
+        Arrays.sort(hashes);
+        long h = ApiSignatures.hash(String.valueOf(hashes.length));
+        for (long part : hashes) {
+            h = (h ^ part) * 0x100000001b3L;
+        }
+        return ApiSignatures.hex(h);
+    }
+
+    /**
+     * Index systems.json by the names it mentions: every object key maps to
+     * its value, and every string value maps to the object containing it.
+     */
+    private void collectMentions(JsonElement element) {
+        if (element.isJsonArray()) {
+            for (JsonElement child : element.getAsJsonArray()) collectMentions(child);
+        } else if (element.isJsonObject()) {
+            JsonObject object = element.getAsJsonObject();
+            String json = object.toString();
+            for (Map.Entry<String, JsonElement> member : object.entrySet()) {
+                mentions.computeIfAbsent(member.getKey(), k -> new ArrayList<>()).add(member.getValue().toString());
+                JsonElement value = member.getValue();
+                if (value.isJsonPrimitive() && value.getAsJsonPrimitive().isString()) {
+                    mentions.computeIfAbsent(value.getAsString(), k -> new ArrayList<>()).add(json);
+                }
+                collectMentions(value);
+            }
+        }
+    }
+
+    private PageManifest loadManifest() throws IOException {
+        Path manifestPath = docsDir.resolve(MANIFEST_FILE);
+        if (!Files.isRegularFile(manifestPath)) return null;
+        return gson.fromJson(Files.readString(manifestPath), PageManifest.class);
+    }
+
+    private static String timestamp() {
+        return DateTimeFormatter.ISO_INSTANT.format(Instant.now().atOffset(ZoneOffset.UTC));
+    }
+
+    // --- JSON model classes ---
+
+    static class PageManifest {
+        String version;
+        String generated_at;
+        String jar_hash;
+        List<PageRecord> pages;
+    }
+
+    static class PageRecord {
+        String path;
+        String kind;
+        String fqcn;
+        String fingerprint;
+        Map<String, String> inputs;
+    }
+
+    static class DocPlan {
+        String version;
+        String generated_at;
+        String jar_hash;
+        String manifest_jar_hash;
+        Summary summary;
+        List<StalePage> stale = new ArrayList<>();
+        List<String> untracked = new ArrayList<>();
+        List<OrphanedPage> orphaned = new ArrayList<>();
+        List<String> deleted;
+    }
+
+    static class Summary {
+        int pages;
+        int unchanged;
+        int stale;
+        int untracked;
+        int orphaned;
+        int deleted;
+    }
+
+    static class StalePage {
+        String path;
+        String fqcn;
+        List<String> changed_inputs;
+    }
+
+    static class OrphanedPage {
+        String path;
+        String fqcn;
+        String reason;
+
+        OrphanedPage(String path, String fqcn, String reason) {
+            this.path = path;
+            this.fqcn = fqcn;
+            this.reason = reason;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * The JARs one Phase 1 run indexes together: the server JAR plus any companion
+ * and plugin JARs, each with the packages it contributes.
+ *
+ * A JAR is given as {@code path[=prefix,prefix...]}; prefixes may use dots or
+ * slashes ("com.example" or "com/example/"), and "*" includes everything. The
+ * first JAR defaults to Hytale's own packages ({@link Decompiler#INCLUDE_PREFIXES}),
+ * further JARs to all of their classes.
+ *
+ * Several JARs are merged into one filtered JAR before decompiling, so every
+ * Phase 1 mode sees them as a single program: Vineflower resolves references
+ * across them and decompiles the classes of all JARs in the same thread pool.
+ * Where JARs overlap the first one listed wins, as on a classpath. The finished
+ * class index is then tagged with each type's JAR of origin.
+ */
+final class InputJars {
+
+    /** One input JAR; name is its file name and appears in the index. */
+    record Input(Path jar, String name, List<String> includes) {}
+
+    private final List<Input> inputs;
+    /** Per-JAR SHA-256, filled by {@link #hash()}. */
+    private final Map<String, String> hashes = new HashMap<>();
+    /** Class files taken from each JAR, filled by {@link #combine(Path)}. */
+    private final Map<String, Integer> classFiles = new HashMap<>();
+
+    private InputJars(List<Input> inputs) {
+        this.inputs = List.copyOf(inputs);
+    }
+
+    /**
+     * @param specs JAR arguments in classpath order
+     * @throws IllegalArgumentException if a JAR is missing, not a .jar or given twice
+     */
+    static InputJars parse(List<String> specs) {
+        List<Input> inputs = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (String spec : specs) {
+            int eq = spec.lastIndexOf('=');
+            if (eq < 0 || Files.isRegularFile(Path.of(spec))) eq = spec.length();
+            Path jar = Path.of(spec.substring(0, eq)).toAbsolutePath();
+            if (!Files.isRegularFile(jar)) {
+                throw new IllegalArgumentException("File not found: " + jar);
+            }
+            if (!jar.toString().endsWith(".jar")) {
+                throw new IllegalArgumentException("Expected a .jar file, got: " + jar.getFileName());
+            }
+            List<String> includes = eq < spec.length()
+                ? parseIncludes(spec.substring(eq + 1))
+                : inputs.isEmpty() ? Decompiler.INCLUDE_PREFIXES : List.of("");
+            String name = jar.getFileName().toString();
+            if (!names.add(name)) {
+                throw new IllegalArgumentException("Two input JARs are named " + name);
+            }
+            inputs.add(new Input(jar, name, includes));
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("No input JAR given");
+        }
+        return new InputJars(inputs);
+    }
+
+    /** "com.example, org/foo" -> ["com/example/", "org/foo/"]; "*" -> [""]. */
+    private static List<String> parseIncludes(String list) {
+        List<String> includes = new ArrayList<>();
+        for (String raw : list.split(",")) {
+            String prefix = raw.trim().replace('.', '/');
+            if (prefix.isEmpty()) continue;
+            if (prefix.equals("*")) return List.of("");
+            if (prefix.startsWith("/")) prefix = prefix.substring(1);
+            if (!prefix.endsWith("/")) prefix += "/";
+            includes.add(prefix);
+        }
+        if (includes.isEmpty()) {
+            throw new IllegalArgumentException("Empty include filter: " + list);
+        }
+        return includes;
+    }
+
+    List<Input> inputs() {
+        return inputs;
+    }
+
+    /** The first JAR; the project root is resolved from it. */
+    Path primary() {
+        return inputs.get(0).jar();
+    }
+
+    /** Whether there are several JARs, which are merged and tagged. */
+    boolean isCombined() {
+        return inputs.size() > 1;
+    }
+
+    /**
+     * The decompiler filter for the JAR Phase 1 runs on: the single JAR's own
+     * filter, or for a combined JAR the union of all filters.
+     */
+    Decompiler decompiler() {
+        Set<String> union = new LinkedHashSet<>();
+        for (Input input : inputs) {
+            union.addAll(input.includes());
+        }
+        return new Decompiler(union.contains("") ? List.of("") : List.copyOf(union));
+    }
+
+    /**
+     * Hash identifying the run's input. A single JAR keeps its plain SHA-256;
+     * several JARs hash their names, filters and hashes in order. The JARs
+     * are hashed in parallel.
+     */
+    String hash() throws IOException {
+        try {
+            inputs.parallelStream().forEach(input -> {
+                try {
+                    String sha = Main.computeSha256(input.jar());
+                    synchronized (hashes) {
+                        hashes.put(input.name(), sha);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (!isCombined()) {
+            return hashes.get(inputs.get(0).name());
+        }
+        StringBuilder manifest = new StringBuilder();
+        for (Input input : inputs) {
+            manifest.append(input.name()).append(' ').append(hashes.get(input.name())).append(' ')
+                .append(String.join(",", input.includes())).append('\n');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(manifest.toString().getBytes(StandardCharsets.UTF_8));
+            return "sha256:" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Write the included entries of all JARs into one JAR, first JAR first.
+     * An entry an earlier JAR already provided is skipped.
+     *
+     * @return JAR name per class, keyed by dotted internal name and by
+     *         dotted top-level name (e.g. "com.example.Outer")
+     */
+    Map<String, String> combine(Path target) throws IOException {
+        Map<String, String> origins = new HashMap<>();
+        Set<String> written = new HashSet<>();
+        try (OutputStream os = Files.newOutputStream(target);
+             JarOutputStream jos = new JarOutputStream(os, new Manifest())) {
+            for (Input input : inputs) {
+                Decompiler filter = new Decompiler(input.includes());
+                int classes = 0;
+                int shadowed = 0;
+                try (JarFile jf = new JarFile(input.jar().toFile())) {
+                    var entries = jf.entries();
+                    while (entries.hasMoreElements()) {
+                        JarEntry entry = entries.nextElement();
+                        String name = entry.getName();
+                        if (entry.isDirectory() || !filter.shouldInclude(name)) continue;
+                        boolean isClass = name.endsWith(".class") && !name.startsWith("META-INF/");
+                        if (!written.add(name)) {
+                            if (isClass) shadowed++;
+                            continue;
+                        }
+                        jos.putNextEntry(new JarEntry(name));
+                        try (InputStream is = jf.getInputStream(entry)) {
+                            is.transferTo(jos);
+                        }
+                        jos.closeEntry();
+                        if (isClass) {
+                            String className = name.substring(0, name.length() - ".class".length());
+                            origins.put(className.replace('/', '.'), input.name());
+                            origins.putIfAbsent(DecompileScheduler.topLevelName(className).replace('/', '.'),
+                                input.name());
+                            classes++;
+                        }
+                    }
+                }
+                classFiles.put(input.name(), classes);
+                System.out.println("  " + input.name() + ": " + classes + " classes (packages: "
+                    + filter.describeIncludes() + ")");
+                if (shadowed > 0) {
+                    System.err.println("WARN: " + shadowed + " classes in " + input.name()
+                        + " are also in an earlier JAR; the earlier copy is indexed");
+                }
+            }
+        }
+        return origins;
+    }
+
+    /**
+     * Rewrite class-index.json with the JAR of origin on every type and the
+     * input JARs in the header. Streams the index, like {@link ClassIndexWriter}.
+     *
+     * @param origins what {@link #combine(Path)} returned
+     * @return number of types per JAR
+     */
+    Map<String, Integer> tag(Path classIndexPath, String jarHash, Map<String, String> origins) throws IOException {
+        List<ClassIndexer.SourceJar> jars = new ArrayList<>();
+        for (Input input : inputs) {
+            ClassIndexer.SourceJar jar = new ClassIndexer.SourceJar();
+            jar.name = input.name();
+            jar.sha256 = hashes.get(input.name());
+            jar.include = input.includes();
+            jar.class_files = classFiles.getOrDefault(input.name(), 0);
+            jars.add(jar);
+        }
+
+        Map<String, Integer> types = new LinkedHashMap<>();
+        for (Input input : inputs) types.put(input.name(), 0);
+        int untagged = 0;
+        Gson gson = new GsonBuilder().create();
+        Path temp = classIndexPath.resolveSibling(".tmp-" + classIndexPath.getFileName());
+        try (Reader in = ArtifactIO.newReader(classIndexPath);
+             JsonReader json = new JsonReader(in);
+             ClassIndexWriter writer = new ClassIndexWriter(temp, jarHash, jars)) {
+            json.beginObject();
+            while (json.hasNext()) {
+                if (!json.nextName().equals("classes") || json.peek() != JsonToken.BEGIN_ARRAY) {
+                    json.skipValue();
+                    continue;
+                }
+                json.beginArray();
+                while (json.hasNext()) {
+                    ClassIndexer.ClassEntry entry = gson.fromJson(json, ClassIndexer.ClassEntry.class);
+                    entry.jar = originOf(entry, origins);
+                    if (entry.jar == null) untagged++;
+                    else types.merge(entry.jar, 1, Integer::sum);
+                    writer.write(entry);
+                }
+                json.endArray();
+            }
+            json.endObject();
+        }
+        Files.move(temp, classIndexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (untagged > 0) {
+            System.err.println("WARN: " + untagged + " types could not be traced to an input JAR");
+        }
+        return types;
+    }
+
+    /** The JAR of the type's top-level class, found from the FQCN and package alone. */
+    private static String originOf(ClassIndexer.ClassEntry entry, Map<String, String> origins) {
+        String fqcn = entry.fqcn;
+        String pkg = entry.package_;
+        int start = pkg != null && !pkg.isEmpty() && fqcn.startsWith(pkg + ".") ? pkg.length() + 1 : 0;
+        int dot = fqcn.indexOf('.', start);
+        String origin = origins.get(dot < 0 ? fqcn : fqcn.substring(0, dot));
+        return origin != null ? origin : origins.get(fqcn);
+    }
+}
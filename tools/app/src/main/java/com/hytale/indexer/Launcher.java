@@ -0,0 +1,127 @@
+package com.hytale.indexer;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Single entry point for every indexer tool, used by tools/launch.sh.
+ *
+ * Usage: hytale-tools <command> [args ...]
+ *        hytale-tools train
+ *
+ * Commands are named after the Gradle tasks and take the same arguments. All
+ * tools share one classpath and one main class, so a single AOT cache (JDK
+ * 25+) or AppCDS archive covers all of them. "train" is the workload that
+ * cache is recorded from: it runs Phase 1 on a small synthetic JAR, then
+ * Phase 2, the diff, attribution, systems mapping and (if output/docs exists)
+ * the RAG index, all in a temporary directory, so Gson, JavaParser, Vineflower
+ * and the pipeline's own classes are loaded and linked the way real runs do.
+ */
+public class Launcher {
+
+    private static final Map<String, String> COMMANDS = new LinkedHashMap<>();
+
+    static {
+        COMMANDS.put("index", "Main");
+        COMMANDS.put("classify", "SurfaceClassifier");
+        COMMANDS.put("attribution", "SurfaceAttribution");
+        COMMANDS.put("diff", "ApiDiff");
+        COMMANDS.put("unpack", "PackedSourceStore");
+        COMMANDS.put("lazyDecompile", "LazyDecompiler");
+        COMMANDS.put("codecSchemas", "CodecSchemaExtractor");
+        COMMANDS.put("resourceIndex", "ResourceIndexer");
+        COMMANDS.put("mapSystems", "SystemsMapper");
+        COMMANDS.put("docPlan", "DocPlanner");
+        COMMANDS.put("renderStructure", "StructuralRenderer");
+        COMMANDS.put("auditLinks", "LinkAuditor");
+        COMMANDS.put("versions", "VersionedIndexStore");
+        COMMANDS.put("rag", "RagIndex");
+        COMMANDS.put("syntheticJar", "SyntheticJarGenerator");
+        COMMANDS.put("benchParse", "ParseBenchmark");
+        COMMANDS.put("benchScaling", "ScalingBenchmark");
+    }
+
+    public static void main(String[] args) {
+        String command = args.length > 0 ? args[0] : "";
+        if (command.equals("train")) {
+            try {
+                train();
+            } catch (Throwable e) {
+                System.err.println("FATAL: " + e.getMessage());
+                e.printStackTrace();
+                System.exit(2);
+            }
+            return;
+        }
+        String mainClass = COMMANDS.get(command);
+        if (mainClass == null) {
+            System.err.println("Usage: hytale-tools <command> [args ...]");
+            System.err.println("Commands: " + String.join(", ", COMMANDS.keySet()) + ", train");
+            System.exit(1);
+        }
+        String[] rest = new String[args.length - 1];
+        System.arraycopy(args, 1, rest, 0, rest.length);
+        try {
+            run(mainClass, rest);
+        } catch (Throwable e) {
+            System.err.println("FATAL: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    private static void run(String mainClass, String[] args) throws Throwable {
+        try {
+            Class.forName(Launcher.class.getPackageName() + "." + mainClass)
+                .getMethod("main", String[].class)
+                .invoke(null, (Object) args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // --- Training workload ---
+
+    private static void train() throws Throwable {
+        Path workDir = Files.createTempDirectory("hytale-tools-train-");
+        try {
+            Path jar = workDir.resolve("input").resolve("HytaleServer.jar");
+            Path artifacts = workDir.resolve("artifacts");
+            Path index = artifacts.resolve("class-index.json");
+            step("syntheticJar", "SyntheticJarGenerator", "400", jar.toString());
+            step("index", "Main", jar.toString());
+            step("classify", "SurfaceClassifier", index.toString());
+            step("attribution", "SurfaceAttribution", "--artifacts", artifacts.toString(), "seeds");
+            step("diff", "ApiDiff", index.toString(), index.toString(), workDir.resolve("api-diff.json").toString());
+            step("mapSystems", "SystemsMapper", "--artifacts", artifacts.toString());
+            step("versions", "VersionedIndexStore", "--store", workDir.resolve("versions").toString(),
+                "add", "train", artifacts.toString());
+            Path docs = Path.of("output", "docs");
+            if (Files.isDirectory(docs)) {
+                Path rag = workDir.resolve("rag");
+                step("rag build", "RagIndex", "build", "--docs", docs.toString(), "--index", rag.toString());
+                step("rag query", "RagIndex", "query", "--index", rag.toString(), "register", "event", "listener");
+            }
+        } finally {
+            DecompileScheduler.deleteRecursively(workDir);
+        }
+    }
+
+    /** Run one tool with its stdout suppressed, reporting only the time it took. */
+    private static void step(String name, String mainClass, String... args) throws Throwable {
+        PrintStream original = System.out;
+        long start = System.nanoTime();
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            run(mainClass, args);
+        } finally {
+            System.setOut(original);
+        }
+        System.out.printf("  %-12s %6.0f ms%n", name, (System.nanoTime() - start) / 1e6);
+    }
+}
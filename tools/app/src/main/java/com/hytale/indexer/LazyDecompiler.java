@@ -0,0 +1,577 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.jetbrains.java.decompiler.main.decompiler.BaseDecompiler;
+import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Lazy Phase 1: index from bytecode up front, decompile single classes on request.
+ *
+ * Most consumers only read the source of the few hundred API surface types,
+ * yet a full Phase 1 decompiles every class. With {@code --lazy} Phase 1
+ * instead writes a signature stub ({@link StubGenerator}) for every top-level
+ * class into the decompiled tree (or pack) and indexes those, which takes
+ * seconds and yields the same kind of class index. The filtered JAR is kept
+ * under artifacts/lazy/ so {@link #decompile(Collection)} can later replace
+ * the stubs of just the classes a consumer asks for with Vineflower output.
+ * Each request decompiles the top-level class together with its nested
+ * classes, with the whole JAR loaded as library context.
+ *
+ * Results are cached under artifacts/lazy/cache/ by a SHA-256 over the
+ * class files of the top-level class and its nested classes, so a class whose
+ * bytecode is unchanged in a new JAR version is never decompiled twice.
+ *
+ * Usage: lazy-decompile [--artifacts dir] [--surface] [--print] [<fqcn> ...]
+ *
+ * --surface decompiles every type in surface.json (what Phases 3-4 read);
+ * --print writes the source of the requested classes to stdout.
+ */
+public class LazyDecompiler {
+
+    static final String LAZY_DIR = "lazy";
+    static final String CLASSES_JAR = "classes.jar";
+    static final String STATE_FILE = "lazy.json";
+    static final String CACHE_DIR = "cache";
+    static final String STUB_REASON = "lazy: not decompiled yet";
+
+    /** Time limit per method, as in the isolated workers. */
+    private static final String METHOD_TIMEOUT_SECONDS = "60";
+
+    /** Written by Phase 1 --lazy; tells later requests where to put the source. */
+    static class LazyState {
+        String version;
+        String generated_at;
+        String jar_hash;
+        boolean packed;
+        boolean compress;
+        int units;
+    }
+
+    /** How a requested class got its source. */
+    enum Origin {
+        /** Already real source in the artifacts, nothing to do. */
+        PRESENT,
+        /** Taken from the per-hash cache. */
+        CACHED,
+        /** Decompiled by this request. */
+        DECOMPILED,
+        /** Vineflower produced nothing; the stub stays. */
+        STUB
+    }
+
+    record Result(String fqcn, String unit, Origin origin, String source) {}
+
+    private final Path artifactsDir;
+    private final Path lazyDir;
+    private final LazyState state;
+    /** Class entry names per top-level class, both as internal names. */
+    private final Map<String, List<String>> units;
+    private PrintStream progress = System.out;
+
+    private LazyDecompiler(Path artifactsDir, LazyState state, Map<String, List<String>> units) {
+        this.artifactsDir = artifactsDir;
+        this.lazyDir = artifactsDir.resolve(LAZY_DIR);
+        this.state = state;
+        this.units = units;
+    }
+
+    // --- Phase 1 ---
+
+    /**
+     * Phase 1 --lazy: keep the filtered JAR, stub every top-level class into
+     * the loose tree or the pack, and index the stubs.
+     */
+    static void index(Path jarPath, Decompiler filter, Path artifactsDir, Path classIndexPath, String jarHash,
+                      boolean packed, boolean compress) throws IOException {
+        Path lazyDir = artifactsDir.resolve(LAZY_DIR);
+        Files.createDirectories(lazyDir);
+        Path classesJar = lazyDir.resolve(CLASSES_JAR);
+        long entries = filter.filterJar(jarPath, classesJar);
+        System.out.println("Input JAR: " + jarPath);
+        System.out.println("Filtered to " + entries + " entries (packages: " + filter.describeIncludes() + ")");
+        System.out.println("Kept for on-demand decompilation: " + classesJar);
+
+        Map<String, Map<String, byte[]>> grouped = new TreeMap<>();
+        try (JarFile jf = new JarFile(classesJar.toFile())) {
+            Map<String, List<String>> names = groupUnits(jf);
+            for (Map.Entry<String, List<String>> unit : names.entrySet()) {
+                Map<String, byte[]> classes = new LinkedHashMap<>();
+                for (String name : unit.getValue()) {
+                    classes.put(name, readClass(jf, name));
+                }
+                grouped.put(unit.getKey(), classes);
+            }
+        }
+
+        Path decompiledDir = artifactsDir.resolve("decompiled");
+        AtomicInteger failed = new AtomicInteger();
+        try (PipelineMetrics.Stage stage = PipelineMetrics.get().stage("stub")) {
+            if (packed) {
+                try (PackedSourceStore.Writer writer = new PackedSourceStore.Writer(artifactsDir, true, compress)) {
+                    writeStubs(grouped, writer, failed);
+                }
+            } else {
+                Files.createDirectories(decompiledDir);
+                writeStubs(grouped, new LooseSourceSaver(decompiledDir), failed);
+            }
+            System.out.printf("Stubbed %d classes from bytecode in %.1f seconds%n",
+                grouped.size() - failed.get(), stage.elapsedMillis() / 1000.0);
+        }
+        if (failed.get() > 0) {
+            System.err.println("WARN: " + failed.get() + " classes could not be stubbed and are not indexed");
+        }
+
+        System.out.println();
+        System.out.println("=== Phase 1b: Parsing stubs with JavaParser ===");
+        // Stubs have no bodies, so the signature-only parse loses nothing
+        ClassIndexer indexer = new ClassIndexer(true);
+        if (packed) {
+            try (PackedSourceStore store = PackedSourceStore.open(artifactsDir)) {
+                indexer.index(store, classIndexPath, jarHash);
+            }
+        } else {
+            indexer.index(decompiledDir, classIndexPath, jarHash);
+        }
+
+        LazyState state = new LazyState();
+        state.version = "1.0.0";
+        state.generated_at = DateTimeFormatter.ISO_INSTANT.format(Instant.now().atOffset(ZoneOffset.UTC));
+        state.jar_hash = jarHash;
+        state.packed = packed;
+        state.compress = compress;
+        state.units = grouped.size();
+        ArtifactIO.writeJson(new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create(),
+            state, lazyDir.resolve(STATE_FILE));
+    }
+
+    private static void writeStubs(Map<String, Map<String, byte[]>> grouped, SourceSaver sink, AtomicInteger failed) {
+        grouped.entrySet().parallelStream().forEach(unit -> {
+            String name = unit.getKey();
+            String simpleName = name.substring(name.lastIndexOf('/') + 1);
+            if (simpleName.equals("package-info") || simpleName.equals("module-info")) return;
+            try {
+                sink.saveSource(name.replace('/', '.'), StubGenerator.generate(name, unit.getValue(), STUB_REASON));
+            } catch (RuntimeException e) {
+                System.err.println("WARN: Cannot stub " + name.replace('/', '.') + ": " + e.getMessage());
+                failed.incrementAndGet();
+            }
+        });
+    }
+
+    // --- On-demand decompilation ---
+
+    /**
+     * Open the lazy state a Phase 1 --lazy run left in the artifacts directory.
+     *
+     * @throws IOException if there is none
+     */
+    static LazyDecompiler open(Path artifactsDir) throws IOException {
+        Path lazyDir = artifactsDir.resolve(LAZY_DIR);
+        Path statePath = ArtifactIO.find(lazyDir.resolve(STATE_FILE));
+        if (!Files.isRegularFile(statePath) || !Files.isRegularFile(lazyDir.resolve(CLASSES_JAR))) {
+            throw new IOException("No lazy index in " + artifactsDir + "; run Phase 1 with --lazy first");
+        }
+        LazyState state;
+        try (Reader reader = ArtifactIO.newReader(statePath)) {
+            state = new Gson().fromJson(reader, LazyState.class);
+        }
+        Map<String, List<String>> units;
+        try (JarFile jf = new JarFile(lazyDir.resolve(CLASSES_JAR).toFile())) {
+            units = groupUnits(jf);
+        }
+        return new LazyDecompiler(artifactsDir, state, units);
+    }
+
+    /** Where progress and Vineflower warnings go; stdout by default. */
+    void setProgress(PrintStream progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Internal name of the top-level class holding a type, or null if the JAR
+     * has no such type. Accepts dotted names of nested types ("a.b.Outer.Inner")
+     * as well as binary and internal names.
+     */
+    String unitOf(String fqcn) {
+        String name = fqcn.replace('.', '/');
+        String top = DecompileScheduler.topLevelName(name);
+        if (units.containsKey(top)) return top;
+        if (units.containsKey(name)) return name;
+        for (int slash = name.lastIndexOf('/'); slash > 0; slash = name.lastIndexOf('/', slash - 1)) {
+            if (units.containsKey(name.substring(0, slash))) return name.substring(0, slash);
+        }
+        return null;
+    }
+
+    /** Decompile one class (with its outer and nested classes) and return its source. */
+    String decompile(String fqcn) throws IOException {
+        return decompile(List.of(fqcn)).get(0).source();
+    }
+
+    /**
+     * Make real source available for the given types. Each distinct top-level
+     * class is looked up in the artifacts, then in the cache; the rest are
+     * decompiled in one Vineflower run. Results are written back to the
+     * decompiled tree or pack, so every other tool sees them too.
+     *
+     * @return one result per requested type, in request order
+     * @throws IllegalArgumentException if a type is not in the lazy index
+     * @throws IOException if Vineflower produces no source for a type that has no stub either
+     */
+    @SuppressWarnings("try")
+    List<Result> decompile(Collection<String> fqcns) throws IOException {
+        Map<String, String> unitByRequest = new LinkedHashMap<>();
+        for (String fqcn : fqcns) {
+            String unit = unitOf(fqcn);
+            if (unit == null) {
+                throw new IllegalArgumentException("Not in the lazy index: " + fqcn);
+            }
+            unitByRequest.put(fqcn, unit);
+        }
+
+        Path cacheDir = lazyDir.resolve(CACHE_DIR);
+        Files.createDirectories(cacheDir);
+        Map<String, Origin> origins = new LinkedHashMap<>();
+        Map<String, String> sources = new LinkedHashMap<>();
+        // One process at a time: pack appends are not safe across processes
+        try (FileChannel lockChannel = FileChannel.open(lazyDir.resolve(".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = lockChannel.lock();
+             JarFile jf = new JarFile(lazyDir.resolve(CLASSES_JAR).toFile())) {
+            Map<String, String> current = readMaterialized(unitByRequest.values());
+            Map<String, String> hashes = new LinkedHashMap<>();
+            List<String> pending = new ArrayList<>();
+            for (String unit : new LinkedHashSet<>(unitByRequest.values())) {
+                String source = current.get(unit);
+                if (source != null && !isStub(source)) {
+                    origins.put(unit, Origin.PRESENT);
+                    sources.put(unit, source);
+                    continue;
+                }
+                String hash = unitHash(jf, units.get(unit));
+                hashes.put(unit, hash);
+                Path cached = cacheDir.resolve(hash + ".java");
+                if (Files.isRegularFile(cached)) {
+                    origins.put(unit, Origin.CACHED);
+                    sources.put(unit, Files.readString(cached));
+                } else {
+                    pending.add(unit);
+                }
+            }
+
+            if (!pending.isEmpty()) {
+                Map<String, String> decompiled = decompileUnits(jf, pending);
+                for (String unit : pending) {
+                    String source = decompiled.get(unit.replace('/', '.'));
+                    if (source == null) {
+                        String stub = current.get(unit);
+                        if (stub == null) {
+                            throw new IOException("Vineflower produced no source for " + unit.replace('/', '.')
+                                + " and there is no stub to fall back on");
+                        }
+                        System.err.println("WARN: Vineflower produced no source for " + unit.replace('/', '.')
+                            + "; keeping its stub");
+                        origins.put(unit, Origin.STUB);
+                        sources.put(unit, stub);
+                        continue;
+                    }
+                    ArtifactIO.writeAtomically(cacheDir.resolve(hashes.get(unit) + ".java"), source);
+                    origins.put(unit, Origin.DECOMPILED);
+                    sources.put(unit, source);
+                }
+            }
+
+            Map<String, String> updates = new LinkedHashMap<>();
+            for (Map.Entry<String, Origin> e : origins.entrySet()) {
+                if (e.getValue() == Origin.CACHED || e.getValue() == Origin.DECOMPILED) {
+                    updates.put(e.getKey(), sources.get(e.getKey()));
+                }
+            }
+            materialize(updates);
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (Map.Entry<String, String> e : unitByRequest.entrySet()) {
+            String unit = e.getValue();
+            results.add(new Result(e.getKey(), unit.replace('/', '.'), origins.get(unit), sources.get(unit)));
+        }
+        return results;
+    }
+
+    private static boolean isStub(String source) {
+        return source.contains("// $stub: ");
+    }
+
+    /** Current source of the given units in the decompiled tree or pack; absent units are left out. */
+    private Map<String, String> readMaterialized(Collection<String> unitNames) throws IOException {
+        Map<String, String> sources = new LinkedHashMap<>();
+        if (state.packed) {
+            if (!PackedSourceStore.exists(artifactsDir)) return sources;
+            try (PackedSourceStore store = PackedSourceStore.open(artifactsDir)) {
+                for (String unit : unitNames) {
+                    String source = store.read(unit.replace('/', '.'));
+                    if (source != null) sources.put(unit, source);
+                }
+            }
+        } else {
+            for (String unit : unitNames) {
+                Path file = artifactsDir.resolve("decompiled").resolve(unit + ".java");
+                if (Files.isRegularFile(file)) sources.put(unit, Files.readString(file));
+            }
+        }
+        return sources;
+    }
+
+    private void materialize(Map<String, String> updates) throws IOException {
+        if (updates.isEmpty()) return;
+        if (state.packed) {
+            try (PackedSourceStore.Writer writer = new PackedSourceStore.Writer(artifactsDir, false, state.compress)) {
+                for (Map.Entry<String, String> e : updates.entrySet()) {
+                    writer.append(e.getKey().replace('/', '.'), e.getValue());
+                }
+            }
+        } else {
+            Path decompiledDir = artifactsDir.resolve("decompiled");
+            for (Map.Entry<String, String> e : updates.entrySet()) {
+                Path target = decompiledDir.resolve(e.getKey() + ".java");
+                Files.createDirectories(target.getParent());
+                ArtifactIO.writeAtomically(target, e.getValue());
+            }
+        }
+    }
+
+    /**
+     * Decompile the given units in one Vineflower run, with the filtered JAR
+     * as library context so references to undecompiled classes resolve.
+     *
+     * @return source per dotted top-level FQCN
+     */
+    private Map<String, String> decompileUnits(JarFile jf, List<String> pending) throws IOException {
+        Map<String, String> results = new ConcurrentHashMap<>();
+        Path batchJar = Files.createTempFile("hytale-lazy-", ".jar");
+        long start = System.nanoTime();
+        try {
+            try (OutputStream os = Files.newOutputStream(batchJar);
+                 JarOutputStream jos = new JarOutputStream(os, new Manifest())) {
+                for (String unit : pending) {
+                    for (String name : units.get(unit)) {
+                        jos.putNextEntry(new JarEntry(name + ".class"));
+                        jos.write(readClass(jf, name));
+                        jos.closeEntry();
+                    }
+                }
+            }
+
+            String threads = String.valueOf(Math.min(pending.size(), Runtime.getRuntime().availableProcessors()));
+            Map<String, Object> options = Decompiler.vineflowerOptions(threads);
+            options.put("mpm", METHOD_TIMEOUT_SECONDS);
+            SourceSaver saver = new SourceSaver() {
+                @Override
+                protected void saveSource(String fqcn, String content) {
+                    results.put(fqcn, content);
+                }
+            };
+            try {
+                BaseDecompiler decompiler = new BaseDecompiler(saver, options, new PrintStreamLogger(progress));
+                // Library first, so the source registration of the requested classes wins
+                decompiler.addLibrary(lazyDir.resolve(CLASSES_JAR).toFile());
+                decompiler.addSource(batchJar.toFile());
+                decompiler.decompileContext();
+            } catch (Exception e) {
+                throw new RuntimeException("Vineflower decompilation failed: " + e.getMessage(), e);
+            }
+        } finally {
+            Files.deleteIfExists(batchJar);
+        }
+        progress.printf("Decompiled %d classes in %.1f seconds%n", results.size(), (System.nanoTime() - start) / 1e9);
+        return results;
+    }
+
+    /**
+     * Cache key of a unit: SHA-256 over the Vineflower options and the name and
+     * bytes of each of its class files, in name order.
+     */
+    private static String unitHash(JarFile jf, List<String> classNames) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Decompiler.vineflowerOptions("").toString().getBytes(StandardCharsets.UTF_8));
+            digest.update(METHOD_TIMEOUT_SECONDS.getBytes(StandardCharsets.UTF_8));
+            for (String name : classNames.stream().sorted().toList()) {
+                digest.update(name.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(readClass(jf, name));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // --- JAR helpers ---
+
+    /**
+     * Class entries of the JAR grouped by top-level class, as the isolated
+     * scheduler groups them: a '$' name whose outer class is not in the JAR
+     * is a unit of its own.
+     */
+    private static Map<String, List<String>> groupUnits(JarFile jf) {
+        List<String> classes = new ArrayList<>();
+        var entries = jf.entries();
+        while (entries.hasMoreElements()) {
+            JarEntry entry = entries.nextElement();
+            String name = entry.getName();
+            if (entry.isDirectory() || !name.endsWith(".class") || name.startsWith("META-INF/")) continue;
+            classes.add(name.substring(0, name.length() - ".class".length()));
+        }
+        Set<String> known = new HashSet<>(classes);
+        Map<String, List<String>> grouped = new TreeMap<>();
+        for (String name : classes) {
+            String top = DecompileScheduler.topLevelName(name);
+            if (!known.contains(top)) top = name;
+            grouped.computeIfAbsent(top, k -> new ArrayList<>()).add(name);
+        }
+        return grouped;
+    }
+
+    private static byte[] readClass(JarFile jf, String internalName) throws IOException {
+        JarEntry entry = jf.getJarEntry(internalName + ".class");
+        if (entry == null) {
+            throw new IOException("Class missing from " + jf.getName() + ": " + internalName);
+        }
+        try (InputStream is = jf.getInputStream(entry)) {
+            return is.readAllBytes();
+        }
+    }
+
+    // --- CLI ---
+
+    public static void main(String[] args) {
+        Path artifactsDir = Path.of("artifacts");
+        boolean surface = false;
+        boolean print = false;
+        List<String> fqcns = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--artifacts") && i + 1 < args.length) {
+                artifactsDir = Path.of(args[++i]);
+            } else if (args[i].equals("--surface")) {
+                surface = true;
+            } else if (args[i].equals("--print")) {
+                print = true;
+            } else if (!args[i].startsWith("--")) {
+                fqcns.add(args[i]);
+            } else {
+                System.err.println("ERROR: Unexpected argument: " + args[i]);
+                System.exit(1);
+            }
+        }
+        if (fqcns.isEmpty() && !surface) {
+            System.err.println("Usage: lazy-decompile [--artifacts dir] [--surface] [--print] [<fqcn> ...]");
+            System.err.println("  <fqcn>       Type to decompile, with its outer and nested classes");
+            System.err.println("  --surface    Decompile every type in surface.json");
+            System.err.println("  --print      Write the source of the given types to stdout");
+            System.exit(1);
+        }
+        artifactsDir = artifactsDir.toAbsolutePath().normalize();
+
+        LazyDecompiler lazy = null;
+        try {
+            lazy = open(artifactsDir);
+        } catch (IOException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            System.exit(1);
+        }
+        // Keep stdout for the source when printing
+        PrintStream out = System.out;
+        if (print) lazy.setProgress(System.err);
+
+        try {
+            List<String> requested = new ArrayList<>(fqcns);
+            if (surface) {
+                Path surfacePath = ArtifactIO.find(artifactsDir.resolve("surface.json"));
+                if (!Files.isRegularFile(surfacePath)) {
+                    System.err.println("ERROR: File not found: " + surfacePath + " (run Phase 2 first)");
+                    System.exit(1);
+                }
+                try (Reader reader = ArtifactIO.newReader(surfacePath)) {
+                    SurfaceClassifier.SurfaceOutput output =
+                        new Gson().fromJson(reader, SurfaceClassifier.SurfaceOutput.class);
+                    for (SurfaceClassifier.SurfaceType type : output.types) {
+                        if (lazy.unitOf(type.fqcn) != null) requested.add(type.fqcn);
+                    }
+                }
+            }
+            for (String fqcn : fqcns) {
+                if (lazy.unitOf(fqcn) == null) {
+                    System.err.println("ERROR: Not in the lazy index: " + fqcn);
+                    System.exit(1);
+                }
+            }
+
+            lazy.progress.println("=== Lazy decompilation: " + requested.size() + " types ===");
+            long start = System.nanoTime();
+            List<Result> results = lazy.decompile(requested);
+            Map<Origin, Integer> counts = new TreeMap<>();
+            Map<String, Origin> seen = new LinkedHashMap<>();
+            for (Result result : results) {
+                if (seen.putIfAbsent(result.unit(), result.origin()) == null) {
+                    counts.merge(result.origin(), 1, Integer::sum);
+                }
+            }
+            if (!surface) {
+                for (Result result : results) {
+                    lazy.progress.printf("  %-10s %s%n", result.origin().name().toLowerCase(Locale.ROOT), result.fqcn());
+                }
+            }
+            lazy.progress.printf("%d classes in %.1f seconds: %s%n", seen.size(),
+                (System.nanoTime() - start) / 1e9, counts.toString().toLowerCase(Locale.ROOT));
+
+            if (print) {
+                Set<String> printed = new HashSet<>();
+                for (Result result : results) {
+                    if (fqcns.contains(result.fqcn()) && printed.add(result.unit())) {
+                        out.println(result.source());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("FATAL: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Phase 4.1 link audit: checks that every .md link in output/docs/ resolves,
+ * applies the mechanical fixes, and writes artifacts/link-audit.json.
+ *
+ * Usage: link-auditor [--artifacts dir] [--docs dir] [--check-only]
+ *
+ * Pages are scanned in parallel. Each dangling target is classified against
+ * the docs tree and the surface set held in memory (simple name -> FQCN):
+ *   path_corrected  a page with that file name exists in another directory;
+ *                   the link is rewritten to the right relative path
+ *   must_generate   the type is API surface but has no page yet (Phase 4.1
+ *                   generation step); the link is left for that step
+ *   stripped        anything not in surface.json; the link becomes inline
+ *                   code. Targets that are not indexed types either are
+ *                   classified "unknown" and counted and listed separately
+ *                   for review
+ *   unknown         surface.json is missing, so nothing can be stripped
+ *
+ * Rewritten pages are replaced atomically (temp file + move) and only those
+ * pages are scanned again. Exits 1 if any link still dangles, which is the
+ * "assert zero remaining" step of the phase.
+ */
+public class LinkAuditor {
+
+    static final String AUDIT_FILE = "link-audit.json";
+
+    /** Same link pattern the site's sync-docs script rewrites. */
+    private static final Pattern MD_LINK = Pattern.compile("\\[([^\\]]*)\\]\\(([^)]*\\.md(?:#[^)]*)?)\\)");
+
+    public static void main(String[] args) {
+        Path artifactsDir = Path.of("artifacts");
+        Path docsDir = Path.of("output", "docs");
+        boolean checkOnly = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--artifacts") && i + 1 < args.length) {
+                artifactsDir = Path.of(args[++i]);
+            } else if (args[i].equals("--docs") && i + 1 < args.length) {
+                docsDir = Path.of(args[++i]);
+            } else if (args[i].equals("--check-only")) {
+                checkOnly = true;
+            } else {
+                System.err.println("ERROR: Unexpected argument: " + args[i]);
+                System.err.println("Usage: link-auditor [--artifacts dir] [--docs dir] [--check-only]");
+                System.exit(1);
+            }
+        }
+        artifactsDir = artifactsDir.toAbsolutePath();
+        docsDir = docsDir.toAbsolutePath();
+        if (!Files.isDirectory(docsDir)) {
+            System.err.println("ERROR: Docs directory not found: " + docsDir);
+            System.exit(1);
+        }
+
+        int remaining;
+        try {
+            remaining = new LinkAuditor(artifactsDir, docsDir).run(!checkOnly);
+        } catch (Exception e) {
+            System.err.println("FATAL: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+            return;
+        }
+        if (remaining > 0) {
+            System.exit(1);
+        }
+    }
+
+    /** One markdown link as found in a page. */
+    private record Link(String source, String text, String href, String target, boolean resolves) {}
+
+    private final Path artifactsDir;
+    private final Path docsDir;
+    private final Map<String, List<String>> surfaceByName = new HashMap<>();  // simple name -> fqcns
+    private final Set<String> internalNames = new HashSet<>();
+    private final boolean surfaceLoaded;
+
+    public LinkAuditor(Path artifactsDir, Path docsDir) throws IOException {
+        this.artifactsDir = artifactsDir;
+        this.docsDir = docsDir;
+        Gson gson = new GsonBuilder().create();
+
+        Path surfacePath = ArtifactIO.find(artifactsDir.resolve("surface.json"));
+        if (Files.isRegularFile(surfacePath)) {
+            try (Reader reader = ArtifactIO.newReader(surfacePath)) {
+                for (SurfaceClassifier.SurfaceType t : gson.fromJson(reader, SurfaceClassifier.SurfaceOutput.class).types) {
+                    surfaceByName.computeIfAbsent(TypeNameResolver.simpleName(t.fqcn), k -> new ArrayList<>()).add(t.fqcn);
+                }
+            }
+            surfaceLoaded = true;
+        } else {
+            surfaceLoaded = false;
+            System.err.println("WARN: surface.json not found in " + artifactsDir
+                + "; dangling types will be reported as unknown and not stripped");
+        }
+        Path internalPath = ArtifactIO.find(artifactsDir.resolve("internal-index.json"));
+        if (Files.isRegularFile(internalPath)) {
+            try (Reader reader = ArtifactIO.newReader(internalPath)) {
+                for (SurfaceClassifier.InternalType t : gson.fromJson(reader, SurfaceClassifier.InternalOutput.class).types) {
+                    internalNames.add(TypeNameResolver.simpleName(t.fqcn));
+                }
+            }
+        }
+    }
+
+    /**
+     * Audit the docs tree and write link-audit.json.
+     *
+     * @param applyFixes rewrite pages with corrected and stripped links
+     * @return number of links that still do not resolve
+     */
+    public int run(boolean applyFixes) throws IOException {
+        System.out.println("=== Phase 4.1: Link Audit ===");
+        long start = System.nanoTime();
+
+        List<Path> files = DocPage.listPages(docsDir);
+        Set<String> fileSet = new HashSet<>();
+        Map<String, List<String>> filesByName = new HashMap<>();
+        for (Path file : files) {
+            String relative = relative(file);
+            fileSet.add(relative);
+            filesByName.computeIfAbsent(fileName(relative), k -> new ArrayList<>()).add(relative);
+        }
+
+        Map<String, List<Link>> links = new TreeMap<>(scan(files, fileSet));
+        int totalLinks = links.values().stream().mapToInt(List::size).sum();
+        System.out.println("Scanned " + totalLinks + " links in " + files.size() + " files");
+
+        // Classify each missing target once
+        Map<String, DanglingTarget> dangling = new TreeMap<>();
+        for (List<Link> pageLinks : links.values()) {
+            for (Link link : pageLinks) {
+                if (link.resolves()) continue;
+                DanglingTarget target = dangling.computeIfAbsent(link.target(), t -> classify(t, filesByName));
+                target.addReference(link.source(), link.text());
+            }
+        }
+
+        AuditOutput output = new AuditOutput();
+        output.version = "1.0.0";
+        output.generated_at = DateTimeFormatter.ISO_INSTANT.format(Instant.now().atOffset(ZoneOffset.UTC));
+        output.total_links_scanned = totalLinks;
+        output.total_files_scanned = files.size();
+        output.dangling_targets = new ArrayList<>(dangling.values());
+        for (DanglingTarget target : dangling.values()) {
+            int count = target.referenced_by.stream().mapToInt(r -> r.count).sum();
+            switch (target.action) {
+                case "path_corrected" -> output.wrong_path_links += count;
+                case "stripped" -> {
+                    if (target.surface_classification.equals("internal")) output.internal_links_stripped += count;
+                    else output.unknown_links_stripped += count;
+                }
+                case "must_generate" -> output.missing_pages_to_generate++;
+                default -> { }
+            }
+        }
+
+        // Rewrite affected pages and re-verify only those
+        if (applyFixes) {
+            Set<String> touched = applyFixes(links, dangling);
+            if (!touched.isEmpty()) {
+                List<Path> touchedFiles = touched.stream().map(docsDir::resolve).toList();
+                links.putAll(scan(touchedFiles, fileSet));
+                System.out.println("Rewrote and re-verified " + touched.size() + " pages");
+            }
+        }
+
+        List<Link> remaining = new ArrayList<>();
+        for (List<Link> pageLinks : links.values()) {
+            for (Link link : pageLinks) {
+                if (!link.resolves()) remaining.add(link);
+            }
+        }
+        output.remaining_violations = remaining.size();
+
+        Path auditPath = artifactsDir.resolve(AUDIT_FILE);
+        Files.createDirectories(artifactsDir);
+        Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+        ArtifactIO.writeAtomically(auditPath, gson.toJson(output));
+
+        System.out.printf("Dangling targets: %d (%d corrected, %d stripped, %d unknown stripped,"
+            + " %d to generate)%n",
+            dangling.size(), output.wrong_path_links, output.internal_links_stripped,
+            output.unknown_links_stripped, output.missing_pages_to_generate);
+        for (DanglingTarget t : dangling.values()) {
+            if (t.surface_classification.equals("unknown") && t.action.equals("stripped")) {
+                int count = t.referenced_by.stream().mapToInt(r -> r.count).sum();
+                System.err.println("WARN: " + t.target + " is not an indexed type; stripped "
+                    + count + " link(s) to it");
+            }
+        }
+        if (!remaining.isEmpty()) {
+            System.err.println("ERROR: " + remaining.size() + " links still do not resolve:");
+            for (Link link : remaining) {
+                DanglingTarget t = dangling.get(link.target());
+                System.err.println("  " + link.source() + " -> " + link.target()
+                    + " (" + (t == null ? "unresolved" : t.action) + ")");
+            }
+        }
+        System.out.printf("Done in %d ms. Written to: %s%n", (System.nanoTime() - start) / 1_000_000, auditPath);
+        return remaining.size();
+    }
+
+    // --- Scan ---
+
+    /** Links of each page, keyed by page path; pages are read and matched in parallel. */
+    private Map<String, List<Link>> scan(List<Path> files, Set<String> fileSet) {
+        return files.parallelStream().collect(Collectors.toConcurrentMap(this::relative, file -> {
+            try {
+                return scanPage(relative(file), Files.readString(file), fileSet);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read " + file, e);
+            }
+        }));
+    }
+
+    private static List<Link> scanPage(String source, String content, Set<String> fileSet) {
+        List<Link> links = new ArrayList<>();
+        Matcher m = MD_LINK.matcher(content);
+        while (m.find()) {
+            String href = m.group(2);
+            if (href.startsWith("http://") || href.startsWith("https://")) continue;
+            String target = resolve(source, stripAnchor(href));
+            links.add(new Link(source, m.group(1), href, target, fileSet.contains(target)));
+        }
+        return links;
+    }
+
+    // --- Classify ---
+
+    private DanglingTarget classify(String target, Map<String, List<String>> filesByName) {
+        DanglingTarget result = new DanglingTarget();
+        result.target = target;
+
+        List<String> sameName = filesByName.get(fileName(target));
+        if (sameName != null) {
+            String actual = pickCorrection(sameName);
+            result.surface_classification = "n/a";
+            result.action = "path_corrected";
+            result.corrected_to = relativeLink(parentOf(target), actual);
+            result.resolved_path = actual;
+            return result;
+        }
+
+        // Only surface types get pages, so everything else is stripped once surface.json is known
+        String name = fileName(target).replaceFirst("\\.md$", "");
+        if (surfaceByName.containsKey(name)) {
+            result.surface_classification = "public";
+            result.action = "must_generate";
+        } else if (!surfaceLoaded) {
+            result.surface_classification = "unknown";
+            result.action = "unknown";
+        } else {
+            result.surface_classification = internalNames.contains(name) ? "internal" : "unknown";
+            result.action = "stripped";
+        }
+        return result;
+    }
+
+    /** Several pages can share a file name (e.g. index.md); prefer class pages. */
+    private static String pickCorrection(List<String> candidates) {
+        if (candidates.size() > 1) {
+            for (String c : candidates) {
+                if (c.startsWith("api/classes/")) return c;
+            }
+        }
+        return candidates.get(0);
+    }
+
+    // --- Fix ---
+
+    /** Rewrite pages that link to corrected or stripped targets. Returns the pages changed. */
+    private Set<String> applyFixes(Map<String, List<Link>> links, Map<String, DanglingTarget> dangling) {
+        List<String> sources = new ArrayList<>();
+        for (Map.Entry<String, List<Link>> e : links.entrySet()) {
+            for (Link link : e.getValue()) {
+                DanglingTarget t = link.resolves() ? null : dangling.get(link.target());
+                if (t != null && (t.action.equals("path_corrected") || t.action.equals("stripped"))) {
+                    sources.add(e.getKey());
+                    break;
+                }
+            }
+        }
+
+        sources.parallelStream().forEach(source -> {
+            Path file = docsDir.resolve(source);
+            try {
+                String content = Files.readString(file);
+                String fixed = fixPage(source, content, dangling);
+                if (!fixed.equals(content)) ArtifactIO.writeAtomically(file, fixed);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot rewrite " + file, e);
+            }
+        });
+        return new HashSet<>(sources);
+    }
+
+    private static String fixPage(String source, String content, Map<String, DanglingTarget> dangling) {
+        Matcher m = MD_LINK.matcher(content);
+        StringBuilder sb = new StringBuilder(content.length());
+        while (m.find()) {
+            String text = m.group(1);
+            String href = m.group(2);
+            String replacement = m.group();
+            DanglingTarget t = href.startsWith("http://") || href.startsWith("https://")
+                ? null : dangling.get(resolve(source, stripAnchor(href)));
+            if (t != null && t.action.equals("path_corrected")) {
+                int anchor = href.indexOf('#');
+                String fixedHref = relativeLink(parentOf(source), t.resolved_path)
+                    + (anchor < 0 ? "" : href.substring(anchor));
+                replacement = "[" + text + "](" + fixedHref + ")";
+            } else if (t != null && t.action.equals("stripped")) {
+                replacement = "`" + text.replace("`", "") + "`";
+            }
+            m.appendReplacement(sb, Matcher.quoteReplacement(replacement));
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    // --- Paths (all relative to the docs root, forward slashes) ---
+
+    private String relative(Path file) {
+        return docsDir.relativize(file).toString().replace('\\', '/');
+    }
+
+    /** Docs-root-relative target of a link in the given page; may start with ".." if it escapes the root. */
+    static String resolve(String source, String href) {
+        return Path.of(parentOf(source)).resolve(href).normalize().toString().replace('\\', '/');
+    }
+
+    /** Relative link from a directory to a page. */
+    static String relativeLink(String fromDir, String to) {
+        return Path.of(fromDir).relativize(Path.of(to)).toString().replace('\\', '/');
+    }
+
+    /** Directory part of a docs-root-relative path; "" at the root. */
+    static String parentOf(String path) {
+        int slash = path.lastIndexOf('/');
+        return slash < 0 ? "" : path.substring(0, slash);
+    }
+
+    private static String fileName(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private static String stripAnchor(String href) {
+        int anchor = href.indexOf('#');
+        return anchor < 0 ? href : href.substring(0, anchor);
+    }
+
+    // --- JSON output model classes ---
+
+    static class AuditOutput {
+        String version;
+        String generated_at;
+        int total_links_scanned;
+        int total_files_scanned;
+        List<DanglingTarget> dangling_targets;
+        int wrong_path_links;
+        int missing_pages_generated;     // set by the page generation step, not here
+        int missing_pages_to_generate;
+        int internal_links_stripped;
+        int unknown_links_stripped;      // stripped links to targets that are not indexed types
+        int remaining_violations;
+    }
+
+    static class DanglingTarget {
+        String target;
+        String surface_classification;
+        String action;
+        String corrected_to;
+        transient String resolved_path;
+        List<Reference> referenced_by = new ArrayList<>();
+
+        private final transient Map<String, Reference> bySourceAndText = new LinkedHashMap<>();
+
+        void addReference(String source, String text) {
+            Reference ref = bySourceAndText.computeIfAbsent(source + "\0" + text, k -> {
+                Reference r = new Reference();
+                r.source = source;
+                r.text = text;
+                referenced_by.add(r);
+                return r;
+            });
+            ref.count++;
+        }
+    }
+
+    static class Reference {
+        String source;
+        String text;
+        int count;
+    }
+}
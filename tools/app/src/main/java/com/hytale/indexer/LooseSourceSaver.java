@@ -0,0 +1,30 @@
+package com.hytale.indexer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Vineflower result saver that writes the classic loose tree: one .java file
+ * per top-level class under the output directory.
+ */
+public class LooseSourceSaver extends SourceSaver {
+
+    private final Path outputDir;
+
+    public LooseSourceSaver(Path outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    @Override
+    protected void saveSource(String fqcn, String content) {
+        Path target = outputDir.resolve(sourcePathFor(fqcn));
+        try {
+            Files.createDirectories(target.getParent());
+            Files.writeString(target, content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + target, e);
+        }
+    }
+}
@@ -5,70 +5,382 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * CLI entry point for the Hytale JAR indexer.
  *
- * Usage: java -jar hytale-indexer.jar <path-to-jar>
+ * Usage: java -jar hytale-indexer.jar [--packed] [--pipelined] [--fast-parse] [--isolated] [--resume]
+ *            [--compress] [--lazy] <path-to-jar>[=<prefixes>] [<path-to-jar>[=<prefixes>] ...]
  *
  * Performs two steps:
  * 1. Decompiles the JAR using Vineflower to artifacts/decompiled/
+ *    (or, with --packed, to the single-file store artifacts/decompiled.pack,
+ *    removing any loose tree an earlier run left behind)
  * 2. Parses the decompiled source with JavaParser to produce artifacts/class-index.json
+ *
+ * With --pipelined the two steps overlap: classes are parsed and written to the
+ * index while Vineflower is still decompiling the rest of the JAR.
+ * With --fast-parse method bodies are stripped before parsing; the index is unchanged.
+ * With --isolated classes are decompiled largest-first in budgeted worker JVMs
+ * (see {@link DecompileScheduler}); classes that exceed the budgets are stubbed.
+ * With --resume progress is checkpointed per class under artifacts/checkpoint/
+ * and an interrupted run of the same JAR continues where it stopped.
+ * With --compress the index is written as class-index.json.gz and, with
+ * --packed, every class in the pack is deflated (see {@link ArtifactIO}).
+ * With --lazy nothing is decompiled: the index is built from bytecode stubs and
+ * classes are decompiled later on request (see {@link LazyDecompiler}).
+ *
+ * Several JARs (e.g. the server plus companion and plugin JARs) are indexed
+ * together into one class index, each type tagged with its JAR of origin; see
+ * {@link InputJars} for the include filters.
  */
 public class Main {
 
+    @SuppressWarnings("try")
     public static void main(String[] args) {
-        if (args.length < 1) {
-            System.err.println("Usage: hytale-indexer <path-to-jar>");
-            System.err.println("  <path-to-jar>  Path to the HytaleServer.jar file");
+        boolean packed = false;
+        boolean pipelined = false;
+        boolean fastParse = false;
+        boolean isolated = false;
+        boolean resume = false;
+        boolean compress = false;
+        boolean lazy = false;
+        List<String> jarArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--packed")) {
+                packed = true;
+            } else if (arg.equals("--pipelined")) {
+                pipelined = true;
+            } else if (arg.equals("--fast-parse")) {
+                fastParse = true;
+            } else if (arg.equals("--isolated")) {
+                isolated = true;
+            } else if (arg.equals("--resume")) {
+                resume = true;
+            } else if (arg.equals("--compress")) {
+                compress = true;
+            } else if (arg.equals("--lazy")) {
+                lazy = true;
+            } else if (!arg.startsWith("--")) {
+                jarArgs.add(arg);
+            } else {
+                System.err.println("ERROR: Unexpected argument: " + arg);
+                System.exit(1);
+            }
+        }
+
+        if (jarArgs.isEmpty()) {
+            System.err.println("Usage: hytale-indexer [--packed] [--pipelined] [--fast-parse] [--isolated] [--resume] [--compress]");
+            System.err.println("                      [--lazy]");
+            System.err.println("                      <path-to-jar>[=<prefixes>] [<path-to-jar>[=<prefixes>] ...]");
+            System.err.println("  <path-to-jar>  Path to the HytaleServer.jar file, optionally followed by");
+            System.err.println("                 companion/plugin JARs indexed into the same class index");
+            System.err.println("  =<prefixes>    Comma-separated packages to index from that JAR, or *");
+            System.err.println("                 (default: com.hypixel.hytale for the first JAR,");
+            System.err.println("                 everything for the others)");
+            System.err.println("  --packed       Store decompiled source in artifacts/decompiled.pack");
+            System.err.println("                 instead of one file per class");
+            System.err.println("  --pipelined    Overlap decompiling, parsing and index writing");
+            System.err.println("  --fast-parse   Signature-only parsing (skips method bodies)");
+            System.err.println("  --isolated     Decompile in budgeted worker JVMs, stubbing classes");
+            System.err.println("                 that time out or run out of memory");
+            System.err.println("  --resume       Checkpoint progress and continue an interrupted run");
+            System.err.println("                 of the same JAR");
+            System.err.println("  --compress     Write class-index.json.gz and, with --packed, a deflated pack");
+            System.err.println("  --lazy         Index signatures from bytecode only; decompile classes");
+            System.err.println("                 on request with lazy-decompile");
             System.exit(1);
         }
 
-        Path jarPath = Path.of(args[0]).toAbsolutePath();
-        if (!Files.isRegularFile(jarPath)) {
-            System.err.println("ERROR: File not found: " + jarPath);
+        if (pipelined && (isolated || resume)) {
+            System.err.println("ERROR: --pipelined cannot be combined with --isolated or --resume");
+            System.exit(1);
+        }
+        if (lazy && (pipelined || isolated || resume)) {
+            System.err.println("ERROR: --lazy cannot be combined with --pipelined, --isolated or --resume");
             System.exit(1);
         }
 
-        if (!jarPath.toString().endsWith(".jar")) {
-            System.err.println("ERROR: Expected a .jar file, got: " + jarPath.getFileName());
+        InputJars inputs = null;
+        try {
+            inputs = InputJars.parse(jarArgs);
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERROR: " + e.getMessage());
             System.exit(1);
         }
 
         // Resolve project root (two levels up from tools/app/)
-        Path projectRoot = resolveProjectRoot(jarPath);
+        Path projectRoot = resolveProjectRoot(inputs.primary());
         Path artifactsDir = projectRoot.resolve("artifacts");
         Path decompiledDir = artifactsDir.resolve("decompiled");
-        Path classIndexPath = artifactsDir.resolve("class-index.json");
+        Path classIndexPath = ArtifactIO.target(artifactsDir.resolve("class-index.json"), compress);
 
+        Path combinedJar = null;
         try {
             // Compute JAR hash for change detection
-            String jarHash = computeSha256(jarPath);
-            System.out.println("JAR SHA-256: " + jarHash);
+            String jarHash = inputs.hash();
+            Path jarPath = inputs.primary();
+            Map<String, String> origins = null;
+            if (inputs.isCombined()) {
+                System.out.println("Input hash (" + inputs.inputs().size() + " JARs): " + jarHash);
+                System.out.println();
+                System.out.println("=== Phase 1: Combining " + inputs.inputs().size() + " JARs ===");
+                combinedJar = Files.createTempFile("hytale-combined-", ".jar");
+                origins = inputs.combine(combinedJar);
+                jarPath = combinedJar;
+            } else {
+                System.out.println("JAR SHA-256: " + jarHash);
+            }
+            Decompiler decompiler = inputs.decompiler();
+            if (packed && Files.isDirectory(decompiledDir)) {
+                // Phase 2 reads a loose tree in preference to the pack, so a stale one must go
+                System.out.println("Removing loose decompiled tree from an earlier run: " + decompiledDir);
+                DecompileScheduler.deleteRecursively(decompiledDir);
+            }
 
-            // Step 1: Decompile
-            System.out.println();
-            System.out.println("=== Phase 1a: Decompiling JAR with Vineflower ===");
-            Decompiler decompiler = new Decompiler();
-            decompiler.decompile(jarPath, decompiledDir);
+            if (lazy) {
+                runLazy(jarPath, decompiler, artifactsDir, classIndexPath, jarHash, packed, compress);
+            } else if (resume) {
+                runResumable(jarPath, decompiler, artifactsDir, decompiledDir, classIndexPath, jarHash,
+                    packed, fastParse, isolated, compress);
+            } else if (isolated) {
+                runIsolated(jarPath, decompiler, artifactsDir, decompiledDir, classIndexPath, jarHash,
+                    packed, fastParse, compress);
+            } else if (pipelined) {
+                runPipelined(jarPath, decompiler, artifactsDir, decompiledDir, classIndexPath, jarHash,
+                    packed, fastParse, compress);
+            } else if (packed) {
+                runPacked(jarPath, decompiler, artifactsDir, classIndexPath, jarHash, fastParse, compress);
+            } else {
+                // Step 1: Decompile
+                System.out.println();
+                System.out.println("=== Phase 1a: Decompiling JAR with Vineflower ===");
+                decompiler.decompile(jarPath, decompiledDir);
 
-            // Step 2: Parse and index
-            System.out.println();
-            System.out.println("=== Phase 1b: Parsing decompiled source with JavaParser ===");
-            ClassIndexer indexer = new ClassIndexer();
-            indexer.index(decompiledDir, classIndexPath, jarHash);
+                // Step 2: Parse and index
+                System.out.println();
+                System.out.println("=== Phase 1b: Parsing decompiled source with JavaParser ===");
+                ClassIndexer indexer = new ClassIndexer(fastParse);
+                indexer.index(decompiledDir, classIndexPath, jarHash);
 
-            System.out.println();
-            System.out.println("=== Phase 1 complete ===");
-            System.out.println("  Decompiled source: " + decompiledDir);
-            System.out.println("  Class index:       " + classIndexPath);
+                System.out.println();
+                System.out.println("=== Phase 1 complete ===");
+                System.out.println("  Decompiled source: " + decompiledDir);
+                System.out.println("  Class index:       " + classIndexPath);
+            }
 
+            if (origins != null) {
+                Map<String, Integer> types;
+                try (PipelineMetrics.Stage stage = PipelineMetrics.get().stage("tag-origins")) {
+                    types = inputs.tag(classIndexPath, jarHash, origins);
+                }
+                System.out.println("  Types per JAR:");
+                for (Map.Entry<String, Integer> e : types.entrySet()) {
+                    System.out.printf("    %-30s %d%n", e.getKey(), e.getValue());
+                }
+            }
+
+            Path metricsPath = PipelineMetrics.get().write(artifactsDir, "phase1", jarHash);
+            System.out.println("  Metrics:           " + metricsPath);
         } catch (Exception e) {
             System.err.println("FATAL: " + e.getMessage());
             e.printStackTrace();
             System.exit(2);
+        } finally {
+            if (combinedJar != null) {
+                try {
+                    Files.deleteIfExists(combinedJar);
+                } catch (IOException e) {
+                    System.err.println("WARN: Cannot delete " + combinedJar + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Phase 1 with the packed source store: Vineflower appends straight into
+     * artifacts/decompiled.pack and the indexer streams it back out.
+     */
+    private static void runPacked(Path jarPath, Decompiler decompiler, Path artifactsDir, Path classIndexPath,
+                                  String jarHash, boolean fastParse, boolean compress) throws IOException {
+        System.out.println();
+        System.out.println("=== Phase 1a: Decompiling JAR with Vineflower (packed) ===");
+        try (PackedSourceStore.Writer writer = new PackedSourceStore.Writer(artifactsDir, true, compress)) {
+            decompiler.decompile(jarPath, writer);
+            System.out.println("Packed " + writer.count() + " classes");
+        }
+
+        System.out.println();
+        System.out.println("=== Phase 1b: Parsing decompiled source with JavaParser ===");
+        try (PackedSourceStore store = PackedSourceStore.open(artifactsDir)) {
+            new ClassIndexer(fastParse).index(store, classIndexPath, jarHash);
+        }
+
+        System.out.println();
+        System.out.println("=== Phase 1 complete ===");
+        System.out.println("  Decompiled source: " + artifactsDir.resolve(PackedSourceStore.DATA_FILE));
+        System.out.println("  Class index:       " + classIndexPath);
+    }
+
+    /**
+     * Checkpointed Phase 1 (see {@link PhaseCheckpoint}): each class is indexed
+     * as soon as it is decompiled and recorded in an append-only segment. A rerun
+     * for the same JAR skips everything already recorded, then all segments are
+     * merged into class-index.json.
+     */
+    @SuppressWarnings("try")
+    private static void runResumable(Path jarPath, Decompiler decompiler, Path artifactsDir, Path decompiledDir,
+                                     Path classIndexPath, String jarHash, boolean packed,
+                                     boolean fastParse, boolean isolated, boolean compress) throws IOException {
+        System.out.println();
+        System.out.println("=== Phase 1a+1b: Decompiling and indexing (checkpointed) ===");
+        PhaseCheckpoint checkpoint = PhaseCheckpoint.open(artifactsDir.resolve("checkpoint"), jarHash);
+        try {
+            Set<String> completed;
+            if (packed && !checkpoint.isFresh() && PackedSourceStore.exists(artifactsDir)) {
+                try (PackedSourceStore store = PackedSourceStore.open(artifactsDir)) {
+                    completed = checkpoint.completedUnits(store::contains);
+                }
+            } else if (packed) {
+                completed = checkpoint.completedUnits(fqcn -> false);
+            } else {
+                completed = checkpoint.completedUnits(fqcn ->
+                    Files.isRegularFile(decompiledDir.resolve(SourceSaver.sourcePathFor(fqcn))));
+            }
+            Path filteredJar = checkpoint.filteredJar(jarPath, decompiler);
+
+            if (packed) {
+                try (PackedSourceStore.Writer writer = new PackedSourceStore.Writer(artifactsDir,
+                        checkpoint.isFresh(), compress)) {
+                    decompileRemaining(filteredJar, decompiler, artifactsDir, completed,
+                        checkpoint.journal(writer, fastParse), isolated);
+                }
+            } else {
+                Files.createDirectories(decompiledDir);
+                decompileRemaining(filteredJar, decompiler, artifactsDir, completed,
+                    checkpoint.journal(new LooseSourceSaver(decompiledDir), fastParse), isolated);
+            }
+
+            System.out.println();
+            System.out.println("=== Phase 1c: Merging checkpoint segments ===");
+            int types;
+            try (PipelineMetrics.Stage stage = PipelineMetrics.get().stage("merge")) {
+                types = checkpoint.merge(classIndexPath, jarHash);
+            }
+            System.out.println("Indexed " + types + " types");
+            System.out.println("Written to: " + classIndexPath);
+            checkpoint.delete();
+        } finally {
+            checkpoint.close();
+        }
+
+        System.out.println();
+        System.out.println("=== Phase 1 complete ===");
+        System.out.println("  Decompiled source: "
+            + (packed ? artifactsDir.resolve(PackedSourceStore.DATA_FILE) : decompiledDir));
+        System.out.println("  Class index:       " + classIndexPath);
+    }
+
+    private static void decompileRemaining(Path filteredJar, Decompiler decompiler, Path artifactsDir,
+                                           Set<String> completed, SourceSaver saver,
+                                           boolean isolated) throws IOException {
+        if (isolated) {
+            DecompileScheduler.withDefaults(decompiler).decompile(filteredJar, saver,
+                artifactsDir.resolve("decompile-report.json"), completed);
+        } else {
+            decompiler.decompileRemaining(filteredJar, completed, saver);
+        }
+    }
+
+    /**
+     * Phase 1 without decompiling: stub and index every class from bytecode,
+     * leaving the rest to {@link LazyDecompiler}.
+     */
+    private static void runLazy(Path jarPath, Decompiler decompiler, Path artifactsDir, Path classIndexPath,
+                                String jarHash, boolean packed, boolean compress) throws IOException {
+        System.out.println();
+        System.out.println("=== Phase 1a: Stubbing classes from bytecode (lazy) ===");
+        LazyDecompiler.index(jarPath, decompiler, artifactsDir, classIndexPath, jarHash, packed, compress);
+
+        System.out.println();
+        System.out.println("=== Phase 1 complete (lazy) ===");
+        System.out.println("  Stubbed source:    "
+            + (packed ? artifactsDir.resolve(PackedSourceStore.DATA_FILE) : artifactsDir.resolve("decompiled")));
+        System.out.println("  Class index:       " + classIndexPath);
+        System.out.println("  Decompile on demand with lazy-decompile <fqcn> or --surface");
+    }
+
+    /**
+     * Phase 1 with the straggler-resistant scheduler: decompile in isolated
+     * worker JVMs into the loose tree or the packed store, then index.
+     */
+    private static void runIsolated(Path jarPath, Decompiler decompiler, Path artifactsDir, Path decompiledDir,
+                                    Path classIndexPath, String jarHash, boolean packed,
+                                    boolean fastParse, boolean compress) throws IOException {
+        System.out.println();
+        System.out.println("=== Phase 1a: Decompiling JAR with Vineflower (isolated workers) ===");
+        Path reportPath = artifactsDir.resolve("decompile-report.json");
+        DecompileScheduler scheduler = DecompileScheduler.withDefaults(decompiler);
+
+        if (packed) {
+            try (PackedSourceStore.Writer writer = new PackedSourceStore.Writer(artifactsDir, true, compress)) {
+                scheduler.decompile(jarPath, writer, reportPath);
+            }
+            System.out.println();
+            System.out.println("=== Phase 1b: Parsing decompiled source with JavaParser ===");
+            try (PackedSourceStore store = PackedSourceStore.open(artifactsDir)) {
+                new ClassIndexer(fastParse).index(store, classIndexPath, jarHash);
+            }
+        } else {
+            Files.createDirectories(decompiledDir);
+            scheduler.decompile(jarPath, new LooseSourceSaver(decompiledDir), reportPath);
+            System.out.println();
+            System.out.println("=== Phase 1b: Parsing decompiled source with JavaParser ===");
+            new ClassIndexer(fastParse).index(decompiledDir, classIndexPath, jarHash);
+        }
+
+        System.out.println();
+        System.out.println("=== Phase 1 complete ===");
+        System.out.println("  Decompiled source: "
+            + (packed ? artifactsDir.resolve(PackedSourceStore.DATA_FILE) : decompiledDir));
+        System.out.println("  Class index:       " + classIndexPath);
+        System.out.println("  Decompile report:  " + reportPath);
+    }
+
+    /**
+     * Phase 1 as a bounded producer/consumer pipeline (see {@link PipelinedIndexer}).
+     */
+    @SuppressWarnings("try")
+    private static void runPipelined(Path jarPath, Decompiler decompiler, Path artifactsDir, Path decompiledDir,
+                                     Path classIndexPath, String jarHash, boolean packed,
+                                     boolean fastParse, boolean compress) throws IOException {
+        System.out.println();
+        System.out.println("=== Phase 1a+1b: Decompiling and indexing (pipelined) ===");
+        int parserThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        PipelinedIndexer pipeline = new PipelinedIndexer(parserThreads, fastParse, decompiler);
+
+        // The decompile stage is recorded separately and overlaps this one
+        try (PipelineMetrics.Stage stage = PipelineMetrics.get().stage("pipeline")) {
+            if (packed) {
+                try (PackedSourceStore.Writer writer = new PackedSourceStore.Writer(artifactsDir, true, compress)) {
+                    pipeline.run(jarPath, writer, classIndexPath, jarHash);
+                }
+            } else {
+                Files.createDirectories(decompiledDir);
+                pipeline.run(jarPath, new LooseSourceSaver(decompiledDir), classIndexPath, jarHash);
+            }
         }
+
+        System.out.println();
+        System.out.println("=== Phase 1 complete ===");
+        System.out.println("  Decompiled source: "
+            + (packed ? artifactsDir.resolve(PackedSourceStore.DATA_FILE) : decompiledDir));
+        System.out.println("  Class index:       " + classIndexPath);
     }
 
     /**
@@ -0,0 +1,185 @@
+package com.hytale.indexer;
+
+/**
+ * Replaces every non-type block in a Java source file with an empty {@code {}}.
+ *
+ * The class index only records declarations, so method/constructor bodies,
+ * initializer blocks, field-initializer lambdas, anonymous class bodies and
+ * array initializers are dead weight for the parser. Stripping them with a
+ * single lexical pass (aware of strings, text blocks, char literals and
+ * comments) leaves a file that parses to exactly the same declarations.
+ *
+ * A brace opens a type body when the declaration header in front of it has a
+ * class/interface/enum/record keyword followed by a name. Every other brace at
+ * type-body level is a block and gets emptied, including any types declared
+ * inside it (local and anonymous classes, which the index never records).
+ */
+final class MethodBodyStripper {
+
+    private MethodBodyStripper() {}
+
+    static String strip(String source) {
+        StringBuilder out = new StringBuilder(source.length() / 2);
+        StringBuilder header = new StringBuilder();
+        int parenDepth = 0;
+        int n = source.length();
+        int i = 0;
+
+        while (i < n) {
+            int literalEnd = skipLiteralOrComment(source, i);
+            if (literalEnd > i) {
+                out.append(source, i, literalEnd);
+                header.append(' ');
+                i = literalEnd;
+                continue;
+            }
+
+            char c = source.charAt(i);
+            if (c == '{' && parenDepth > 0) {
+                // Annotation array or lambda inside a header, e.g. @Anno({1, 2}) or a record component
+                out.append("{}");
+                header.append(' ');
+                i = skipBlock(source, i);
+            } else if (c == '{') {
+                if (isTypeHeader(header)) {
+                    out.append('{');
+                    i++;
+                } else {
+                    out.append("{}");
+                    i = skipBlock(source, i);
+                }
+                header.setLength(0);
+            } else if (c == '}') {
+                // Only type bodies are ever entered; blocks are skipped whole
+                out.append('}');
+                header.setLength(0);
+                i++;
+            } else if (c == ';') {
+                out.append(';');
+                header.setLength(0);
+                parenDepth = 0;
+                i++;
+            } else {
+                if (c == '(') parenDepth++;
+                else if (c == ')' && parenDepth > 0) parenDepth--;
+                out.append(c);
+                header.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Skip from an opening brace to just past its matching closing brace.
+     */
+    private static int skipBlock(String source, int open) {
+        int depth = 0;
+        int i = open;
+        int n = source.length();
+        while (i < n) {
+            int literalEnd = skipLiteralOrComment(source, i);
+            if (literalEnd > i) {
+                i = literalEnd;
+                continue;
+            }
+            char c = source.charAt(i++);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return i;
+            }
+        }
+        return n; // unbalanced input; the parser will report it
+    }
+
+    /**
+     * If a string, text block, char literal or comment starts at {@code i},
+     * return the index just past it; otherwise return {@code i}.
+     */
+    private static int skipLiteralOrComment(String s, int i) {
+        int n = s.length();
+        char c = s.charAt(i);
+        if (c == '/' && i + 1 < n) {
+            char next = s.charAt(i + 1);
+            if (next == '/') {
+                int end = s.indexOf('\n', i + 2);
+                return end < 0 ? n : end;
+            }
+            if (next == '*') {
+                int end = s.indexOf("*/", i + 2);
+                return end < 0 ? n : end + 2;
+            }
+            return i;
+        }
+        if (c == '"') {
+            if (s.startsWith("\"\"\"", i)) {
+                int j = i + 3;
+                while (j < n) {
+                    if (s.charAt(j) == '\\') {
+                        j += 2;
+                    } else if (s.startsWith("\"\"\"", j)) {
+                        return j + 3;
+                    } else {
+                        j++;
+                    }
+                }
+                return n;
+            }
+            return skipQuoted(s, i, '"');
+        }
+        if (c == '\'') {
+            return skipQuoted(s, i, '\'');
+        }
+        return i;
+    }
+
+    private static int skipQuoted(String s, int open, char quote) {
+        int n = s.length();
+        int j = open + 1;
+        while (j < n) {
+            char c = s.charAt(j);
+            if (c == '\\') {
+                j += 2;
+            } else if (c == quote || c == '\n') {
+                return j + 1;
+            } else {
+                j++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * True if the declaration header contains a type keyword followed by an
+     * identifier, e.g. "public final class Foo", "@interface Bar",
+     * "record Point(int x)". A method named "record" is followed by '(' and
+     * does not match.
+     */
+    private static boolean isTypeHeader(CharSequence header) {
+        String previous = null;
+        int n = header.length();
+        int i = 0;
+        while (i < n) {
+            char c = header.charAt(i);
+            if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < n && Character.isJavaIdentifierPart(header.charAt(i))) i++;
+                String word = header.subSequence(start, i).toString();
+                if (previous != null && isTypeKeyword(previous)) {
+                    return true;
+                }
+                previous = word;
+            } else {
+                if (!Character.isWhitespace(c)) previous = null;
+                i++;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTypeKeyword(String word) {
+        return word.equals("class") || word.equals("interface")
+            || word.equals("enum") || word.equals("record");
+    }
+}
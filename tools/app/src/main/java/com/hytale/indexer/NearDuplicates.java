@@ -0,0 +1,284 @@
+package com.hytale.indexer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Structural near-duplicate detection between two groups of types, such as
+ * protocol wire DTOs and the server types they mirror.
+ *
+ * Each type is reduced to a set of structural features: its instance fields
+ * (name and simple type, and the name alone), getter-style accessors folded
+ * onto the field names they expose, static fields typed as their own enum
+ * and other method names with their arity. The class index has no entries
+ * for enum constants, so an enum is fingerprinted by its members only.
+ * Package names never enter a feature, so a DTO copied into another package,
+ * or renamed, still matches its original. Features carried by a large share
+ * of one group (serialize, clone, id, ...) are dropped there, as they say
+ * nothing about which type is which.
+ *
+ * Similarity is the Jaccard index of two feature sets. Candidates are found
+ * with MinHash signatures split into LSH bands: two types become a candidate
+ * pair when all rows of at least one band agree, which happens with high
+ * probability above ~0.4 similarity and rarely below ~0.2. Only candidate
+ * pairs are compared exactly, so the cost grows with the number of types and
+ * near-duplicates rather than with the product of the group sizes.
+ */
+final class NearDuplicates {
+
+    /** Types with fewer features are too small to fingerprint reliably. */
+    static final int MIN_FEATURES = 3;
+
+    private static final int BANDS = 32;
+    private static final int ROWS = 3;
+    private static final int HASHES = BANDS * ROWS;
+    /** A feature on more than this share of a group's types is ignored in that group. */
+    private static final double COMMON_FEATURE_SHARE = 0.25;
+    /** Groups smaller than this keep all features; a share would be meaningless. */
+    private static final int COMMON_FEATURE_MIN_TYPES = 20;
+
+    /** The most similar type of the other group. */
+    record Match(String fqcn, String match, double similarity) {}
+
+    /**
+     * @param best          best match per left-hand type, for those with one at or above the threshold
+     * @param candidatePairs pairs that shared an LSH bucket and were compared exactly
+     * @param totalPairs    pairs an exhaustive comparison would have made
+     */
+    record Result(Map<String, Match> best, long candidatePairs, long totalPairs) {}
+
+    private NearDuplicates() {}
+
+    /** Structural features of a type; empty for types without members. */
+    static List<String> features(ClassIndexer.ClassEntry entry) {
+        Set<String> features = new TreeSet<>();
+        if (entry.fields != null) {
+            for (ClassIndexer.FieldEntry field : entry.fields) {
+                boolean isStatic = field.modifiers != null && field.modifiers.contains("static");
+                String name = normalize(field.name);
+                if (isStatic) {
+                    // Named instances such as DEFAULT; the index has no entries for enum constants
+                    if ("enum".equals(entry.kind) && entry.name.equals(simpleType(field.type))) {
+                        features.add("c:" + name);
+                    }
+                    continue;
+                }
+                features.add("n:" + name);
+                features.add("f:" + name + ":" + simpleType(field.type));
+            }
+        }
+        if (entry.methods != null) {
+            for (ClassIndexer.MethodEntry method : entry.methods) {
+                if (method.modifiers != null
+                        && (method.modifiers.contains("private") || method.modifiers.contains("static"))) {
+                    continue;
+                }
+                int arity = method.parameters == null ? 0 : method.parameters.size();
+                String property = arity == 0 ? accessorProperty(method.name) : null;
+                if (property != null) {
+                    features.add("n:" + property);
+                } else {
+                    features.add("m:" + normalize(method.name) + "/" + arity);
+                }
+            }
+        }
+        return new ArrayList<>(features);
+    }
+
+    /**
+     * Best match in {@code right} for every type in {@code left} with a
+     * similarity of at least {@code minSimilarity}. Types with fewer than
+     * {@link #MIN_FEATURES} features (after dropping common ones) take no part.
+     */
+    static Result find(Map<String, List<String>> left, Map<String, List<String>> right, double minSimilarity) {
+        Map<String, long[]> leftSets = featureHashes(left);
+        Map<String, long[]> rightSets = featureHashes(right);
+
+        // Bucket the right-hand group by band
+        List<String> rightNames = new ArrayList<>(rightSets.keySet());
+        Map<Long, List<Integer>> buckets = new HashMap<>();
+        for (int i = 0; i < rightNames.size(); i++) {
+            long[] signature = signature(rightSets.get(rightNames.get(i)));
+            for (int band = 0; band < BANDS; band++) {
+                buckets.computeIfAbsent(bandKey(signature, band), k -> new ArrayList<>(2)).add(i);
+            }
+        }
+
+        Map<String, Match> best = new LinkedHashMap<>();
+        long candidatePairs = 0;
+        Set<Integer> candidates = new HashSet<>();
+        for (Map.Entry<String, long[]> e : leftSets.entrySet()) {
+            long[] signature = signature(e.getValue());
+            candidates.clear();
+            for (int band = 0; band < BANDS; band++) {
+                List<Integer> bucket = buckets.get(bandKey(signature, band));
+                if (bucket != null) candidates.addAll(bucket);
+            }
+            candidatePairs += candidates.size();
+            Match match = null;
+            for (int i : candidates) {
+                String other = rightNames.get(i);
+                double similarity = jaccard(e.getValue(), rightSets.get(other));
+                if (similarity >= minSimilarity && (match == null || similarity > match.similarity()
+                        || similarity == match.similarity() && other.compareTo(match.match()) < 0)) {
+                    match = new Match(e.getKey(), other, similarity);
+                }
+            }
+            if (match != null) best.put(e.getKey(), match);
+        }
+        return new Result(best, candidatePairs, (long) leftSets.size() * rightSets.size());
+    }
+
+    /**
+     * Exact similarity of two types after dropping the features that are
+     * common in their groups; 0 if either is too small to fingerprint.
+     */
+    static double similarity(List<String> a, List<String> b, Set<String> commonA, Set<String> commonB) {
+        long[] ha = hashes(a, commonA);
+        long[] hb = hashes(b, commonB);
+        if (ha.length < MIN_FEATURES || hb.length < MIN_FEATURES) return 0;
+        return jaccard(ha, hb);
+    }
+
+    /** Features carried by more than a quarter of a group's types; empty for small groups. */
+    static Set<String> commonFeatures(Map<String, List<String>> group) {
+        if (group.size() < COMMON_FEATURE_MIN_TYPES) return Set.of();
+        Map<String, Integer> frequency = new HashMap<>();
+        for (List<String> features : group.values()) {
+            for (String feature : features) frequency.merge(feature, 1, Integer::sum);
+        }
+        Set<String> common = new HashSet<>();
+        int limit = (int) (group.size() * COMMON_FEATURE_SHARE);
+        frequency.forEach((feature, count) -> {
+            if (count > limit) common.add(feature);
+        });
+        return common;
+    }
+
+    /** Number of features left after dropping the common ones. */
+    static int featureCount(List<String> features, Set<String> common) {
+        int count = 0;
+        for (String feature : features) {
+            if (!common.contains(feature)) count++;
+        }
+        return count;
+    }
+
+    // --- Hashing ---
+
+    private static Map<String, long[]> featureHashes(Map<String, List<String>> group) {
+        Set<String> common = commonFeatures(group);
+        Map<String, long[]> sets = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> e : group.entrySet()) {
+            long[] hashes = hashes(e.getValue(), common);
+            if (hashes.length >= MIN_FEATURES) sets.put(e.getKey(), hashes);
+        }
+        return sets;
+    }
+
+    /** Sorted, distinct 64-bit hashes of the features not in {@code common}. */
+    private static long[] hashes(List<String> features, Set<String> common) {
+        long[] hashes = new long[features.size()];
+        int n = 0;
+        for (String feature : features) {
+            if (common.contains(feature)) continue;
+            hashes[n++] = mix(feature.hashCode() * 0x9E3779B97F4A7C15L + feature.length());
+        }
+        hashes = Arrays.copyOf(hashes, n);
+        Arrays.sort(hashes);
+        int distinct = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            if (i == 0 || hashes[i] != hashes[i - 1]) hashes[distinct++] = hashes[i];
+        }
+        return Arrays.copyOf(hashes, distinct);
+    }
+
+    /** MinHash signature: for each of the hash functions, the smallest value over the set. */
+    private static long[] signature(long[] set) {
+        long[] signature = new long[HASHES];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (long h : set) {
+            for (int i = 0; i < HASHES; i++) {
+                long v = mix(h + (i + 1) * 0x9E3779B97F4A7C15L);
+                if (v < signature[i]) signature[i] = v;
+            }
+        }
+        return signature;
+    }
+
+    private static long bandKey(long[] signature, int band) {
+        long key = band;
+        for (int r = 0; r < ROWS; r++) {
+            key = mix(key ^ signature[band * ROWS + r]);
+        }
+        return key;
+    }
+
+    private static double jaccard(long[] a, long[] b) {
+        int i = 0;
+        int j = 0;
+        int common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (a.length + b.length - common);
+    }
+
+    /** SplitMix64 finalizer. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // --- Feature normalization ---
+
+    /** "getMaxStack" / "isSolid" -> "maxstack" / "solid"; null if not accessor-shaped. */
+    private static String accessorProperty(String name) {
+        for (String prefix : new String[] {"get", "is", "has"}) {
+            if (name.length() > prefix.length() && name.startsWith(prefix)
+                    && Character.isUpperCase(name.charAt(prefix.length()))) {
+                return normalize(name.substring(prefix.length()));
+            }
+        }
+        return null;
+    }
+
+    /** Case and underscores ignored, so "max_stack", "maxStack" and "MAX_STACK" agree. */
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    /** "java.util.Map<String, com.x.Foo>[]" -> "Map<String,Foo>[]". */
+    private static String simpleType(String type) {
+        if (type == null) return "";
+        StringBuilder sb = new StringBuilder(type.length());
+        int start = 0;
+        for (int i = 0; i <= type.length(); i++) {
+            char c = i < type.length() ? type.charAt(i) : '\0';
+            if (i == type.length() || c == '<' || c == '>' || c == ',' || c == '[' || c == ']' || c == ' ') {
+                String token = type.substring(start, i);
+                sb.append(token.substring(token.lastIndexOf('.') + 1));
+                if (i < type.length() && c != ' ') sb.append(c);
+                start = i + 1;
+            }
+        }
+        return sb.toString();
+    }
+}
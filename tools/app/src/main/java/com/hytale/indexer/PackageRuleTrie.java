@@ -0,0 +1,164 @@
+package com.hytale.indexer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The package rules of a {@link ClassifierConfig} compiled into one trie
+ * over dot-separated name segments. A single walk of a FQCN answers all four
+ * questions Phase 2 asks about a type: external, excluded, internal-index tag
+ * and category.
+ *
+ * Matching is exactly {@code fqcn.startsWith(prefix)}, including prefixes that
+ * do not end in a dot ("com.hypixel.hytale.math" also matches
+ * "com.hypixel.hytale.mathx"): a prefix is stored as its complete segments
+ * plus the partial last segment, which is tested with startsWith against the
+ * next segment of the name. Tags and categories keep first-match-wins order
+ * by taking the lowest rule index seen along the walk.
+ *
+ * The walk over the package segments is cached per package, so each package
+ * is matched once and only the class name segments are walked per type.
+ */
+final class PackageRuleTrie {
+
+    /** Rule outcome for one FQCN. */
+    record Match(boolean external, boolean excluded, String tag, String category) {}
+
+    private static final int NONE = Integer.MAX_VALUE;
+
+    private final Node root = new Node();
+    private final List<String> tags = new ArrayList<>();
+    private final List<String> categories = new ArrayList<>();
+    private final String defaultTag;
+    private final String defaultCategory;
+    private final Map<String, PackageState> packageCache = new HashMap<>();
+    private long cacheHits;
+    private long cacheMisses;
+
+    private PackageRuleTrie(String defaultTag, String defaultCategory) {
+        this.defaultTag = defaultTag;
+        this.defaultCategory = defaultCategory;
+    }
+
+    static PackageRuleTrie compile(ClassifierConfig config) {
+        PackageRuleTrie trie = new PackageRuleTrie("internal", config.default_category);
+        for (String prefix : config.external_prefixes) {
+            trie.add(prefix, Rule.EXTERNAL, 0);
+        }
+        for (String prefix : config.excluded_packages) {
+            trie.add(prefix, Rule.EXCLUDED, 0);
+        }
+        for (Map.Entry<String, String> tag : config.excluded_tags.entrySet()) {
+            trie.add(tag.getKey(), Rule.TAG, trie.tags.size());
+            trie.tags.add(tag.getValue());
+        }
+        // Root protocol types not reached by expansion still get tagged as protocol
+        trie.add(SurfaceClassifier.PROTOCOL_PREFIX, Rule.TAG, trie.tags.size());
+        trie.tags.add("protocol");
+        for (ClassifierConfig.CategoryRule rule : config.category_rules) {
+            trie.add(rule.prefix, Rule.CATEGORY, trie.categories.size());
+            trie.categories.add(rule.category);
+        }
+        return trie;
+    }
+
+    private void add(String prefix, int kind, int index) {
+        Node node = root;
+        int start = 0;
+        int dot;
+        while ((dot = prefix.indexOf('.', start)) >= 0) {
+            node = node.children.computeIfAbsent(prefix.substring(start, dot), k -> new Node());
+            start = dot + 1;
+        }
+        node.rules.add(new Rule(prefix.substring(start), kind, index));
+    }
+
+    Match match(String fqcn) {
+        int packageEnd = packageEnd(fqcn);
+        PackageState state = new PackageState(root, false, false, NONE, NONE);
+        if (packageEnd >= 0) {
+            String pkg = fqcn.substring(0, packageEnd);
+            PackageState cached = packageCache.get(pkg);
+            if (cached != null) {
+                cacheHits++;
+                state = cached;
+            } else {
+                cacheMisses++;
+                state = walk(pkg, state);
+                packageCache.put(pkg, state);
+            }
+        }
+        state = walk(packageEnd < 0 ? fqcn : fqcn.substring(packageEnd + 1), state);
+        return new Match(state.external, state.excluded,
+            state.tag == NONE ? defaultTag : tags.get(state.tag),
+            state.category == NONE ? defaultCategory : categories.get(state.category));
+    }
+
+    long cacheHits() {
+        return cacheHits;
+    }
+
+    long cacheMisses() {
+        return cacheMisses;
+    }
+
+    /**
+     * Index of the dot that ends the package: the one before the first segment
+     * starting with an upper-case letter, else the last dot; -1 if there is none.
+     * Only affects caching, not results.
+     */
+    private static int packageEnd(String fqcn) {
+        int lastDot = -1;
+        int dot;
+        while ((dot = fqcn.indexOf('.', lastDot + 1)) >= 0) {
+            if (dot + 1 < fqcn.length() && Character.isUpperCase(fqcn.charAt(dot + 1))) return dot;
+            lastDot = dot;
+        }
+        return lastDot;
+    }
+
+    /** Continue a walk with the given dot-separated segments. */
+    private static PackageState walk(String name, PackageState state) {
+        Node node = state.node;
+        boolean external = state.external;
+        boolean excluded = state.excluded;
+        int tag = state.tag;
+        int category = state.category;
+        int start = 0;
+        while (node != null) {
+            int dot = name.indexOf('.', start);
+            String segment = dot < 0 ? name.substring(start) : name.substring(start, dot);
+            for (Rule rule : node.rules) {
+                if (!segment.startsWith(rule.partial)) continue;
+                switch (rule.kind) {
+                    case Rule.EXTERNAL -> external = true;
+                    case Rule.EXCLUDED -> excluded = true;
+                    case Rule.TAG -> tag = Math.min(tag, rule.index);
+                    default -> category = Math.min(category, rule.index);
+                }
+            }
+            node = node.children.get(segment);
+            if (dot < 0) break;
+            start = dot + 1;
+        }
+        return new PackageState(node, external, excluded, tag, category);
+    }
+
+    private static final class Node {
+        final Map<String, Node> children = new HashMap<>();
+        final List<Rule> rules = new ArrayList<>();
+    }
+
+    /** A prefix ending at this node; {@code partial} must start the next segment. */
+    private record Rule(String partial, int kind, int index) {
+        static final int EXTERNAL = 0;
+        static final int EXCLUDED = 1;
+        static final int TAG = 2;
+        static final int CATEGORY = 3;
+    }
+
+    /** Matches so far and the node reached after walking a package. */
+    private record PackageState(Node node, boolean external, boolean excluded, int tag, int category) {}
+}
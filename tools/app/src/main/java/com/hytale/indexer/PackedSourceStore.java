@@ -0,0 +1,389 @@
+package com.hytale.indexer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Packed alternative to the loose artifacts/decompiled/ tree.
+ *
+ * The store is two files next to each other:
+ * - decompiled.pack      append-only concatenation of UTF-8 source texts
+ * - decompiled.pack.idx  append-only offset index: (FQCN, offset, length) records
+ *
+ * Both files are only ever appended to, so a crashed writer leaves a readable
+ * prefix behind. If the same FQCN is written twice, the last record wins.
+ * Readers map the data file once and slice it per class for random access, or
+ * walk it in offset order for whole-tree passes.
+ *
+ * A writer opened with compression stores each record as its uncompressed
+ * length followed by a raw deflate stream, flagged in the top bit of the index
+ * length, so records stay individually readable and compressed and plain
+ * records can share a pack.
+ */
+public class PackedSourceStore implements AutoCloseable {
+
+    static final String DATA_FILE = "decompiled.pack";
+    static final String INDEX_FILE = "decompiled.pack.idx";
+
+    /** Index length bit marking a deflated record. */
+    private static final int DEFLATED = 0x80000000;
+
+    private final Path dataPath;
+    private final Map<String, Slot> slots;
+    private final FileChannel channel;
+    private final MappedByteBuffer mapped; // null when the pack is too large to map in one piece
+
+    private record Slot(long offset, int length, boolean deflated) {}
+
+    private PackedSourceStore(Path dataPath, Map<String, Slot> slots) throws IOException {
+        this.dataPath = dataPath;
+        this.slots = slots;
+        this.channel = FileChannel.open(dataPath, StandardOpenOption.READ);
+        long size = channel.size();
+        this.mapped = size <= Integer.MAX_VALUE
+            ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+            : null;
+    }
+
+    /** True if a packed store exists in the given directory. */
+    public static boolean exists(Path dir) {
+        return Files.isRegularFile(dir.resolve(DATA_FILE)) && Files.isRegularFile(dir.resolve(INDEX_FILE));
+    }
+
+    /**
+     * Open the packed store in the given directory for reading.
+     *
+     * @throws IOException if the store does not exist or its index is unreadable
+     */
+    public static PackedSourceStore open(Path dir) throws IOException {
+        Path dataPath = dir.resolve(DATA_FILE);
+        Path indexPath = dir.resolve(INDEX_FILE);
+        if (!exists(dir)) {
+            throw new IOException("Packed source store not found in: " + dir);
+        }
+
+        long dataSize = Files.size(dataPath);
+        Map<String, Slot> slots = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            while (true) {
+                String fqcn;
+                long offset;
+                int length;
+                try {
+                    fqcn = in.readUTF();
+                    offset = in.readLong();
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break; // clean end, or a torn final record from a crashed writer
+                }
+                boolean deflated = (length & DEFLATED) != 0;
+                length &= ~DEFLATED;
+                if (offset + length > dataSize) break; // data for this record never made it to disk
+                slots.put(fqcn, new Slot(offset, length, deflated));
+            }
+        }
+        return new PackedSourceStore(dataPath, slots);
+    }
+
+    /** Number of classes in the store. */
+    public int size() {
+        return slots.size();
+    }
+
+    /** Top-level FQCNs in the store, in first-write order. */
+    public Set<String> fqcns() {
+        return slots.keySet();
+    }
+
+    public boolean contains(String fqcn) {
+        return slots.containsKey(fqcn);
+    }
+
+    /**
+     * Random access to one class's source.
+     *
+     * @return the source text, or null if the FQCN is not in the store
+     */
+    public String read(String fqcn) throws IOException {
+        Slot slot = slots.get(fqcn);
+        if (slot == null) return null;
+        return decode(slot);
+    }
+
+    /**
+     * Stream every class in data-file order, which is a single sequential pass
+     * over the mapped file.
+     */
+    public void forEach(BiConsumer<String, String> consumer) throws IOException {
+        List<Map.Entry<String, Slot>> ordered = new ArrayList<>(slots.entrySet());
+        ordered.sort(Comparator.comparingLong(e -> e.getValue().offset()));
+        for (Map.Entry<String, Slot> e : ordered) {
+            consumer.accept(e.getKey(), decode(e.getValue()));
+        }
+    }
+
+    /**
+     * Export the store back to a loose tree (one .java file per top-level class).
+     *
+     * @return the number of files written
+     */
+    public int exportTo(Path outputDir) throws IOException {
+        int[] written = {0};
+        IOException[] failure = {null};
+        forEach((fqcn, source) -> {
+            if (failure[0] != null) return;
+            try {
+                Path target = outputDir.resolve(SourceSaver.sourcePathFor(fqcn));
+                Files.createDirectories(target.getParent());
+                Files.writeString(target, source);
+                written[0]++;
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) throw failure[0];
+        return written[0];
+    }
+
+    private String decode(Slot slot) throws IOException {
+        byte[] bytes;
+        if (mapped != null) {
+            bytes = new byte[slot.length()];
+            mapped.get((int) slot.offset(), bytes);
+        } else {
+            ByteBuffer buf = ByteBuffer.allocate(slot.length());
+            long pos = slot.offset();
+            while (buf.hasRemaining()) {
+                int n = channel.read(buf, pos + buf.position());
+                if (n < 0) throw new EOFException("Truncated pack: " + dataPath);
+            }
+            bytes = buf.array();
+        }
+        return new String(slot.deflated() ? inflate(bytes) : bytes, StandardCharsets.UTF_8);
+    }
+
+    private byte[] inflate(byte[] record) throws IOException {
+        int rawLength = ByteBuffer.wrap(record).getInt();
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(record, 4, record.length - 4);
+            int n = 0;
+            while (n < rawLength && !inflater.finished()) {
+                int read = inflater.inflate(raw, n, rawLength - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                n += read;
+            }
+            if (n != rawLength) throw new EOFException("Corrupt deflated record in " + dataPath);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt deflated record in " + dataPath + ": " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+        return raw;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Vineflower result saver that appends every decompiled class to a packed
+     * store. Safe for concurrent use by Vineflower's worker threads.
+     */
+    public static class Writer extends SourceSaver implements AutoCloseable {
+
+        private final OutputStream data;
+        private final DataOutputStream index;
+        private final Deflater deflater; // null when writing plain records
+        private final byte[] deflateBuffer = new byte[1 << 16];
+        private long offset;
+        private int count;
+        private IOException failure;
+
+        /**
+         * Open (or create) a packed store for appending.
+         *
+         * @param dir      directory holding the pack files
+         * @param truncate if true, any existing pack is discarded first
+         */
+        public Writer(Path dir, boolean truncate) throws IOException {
+            this(dir, truncate, false);
+        }
+
+        /**
+         * @param compress if true, records are deflated
+         */
+        public Writer(Path dir, boolean truncate, boolean compress) throws IOException {
+            this.deflater = compress ? new Deflater(Deflater.BEST_SPEED, true) : null;
+            Files.createDirectories(dir);
+            Path dataPath = dir.resolve(DATA_FILE);
+            Path indexPath = dir.resolve(INDEX_FILE);
+            if (truncate) {
+                Files.deleteIfExists(dataPath);
+                Files.deleteIfExists(indexPath);
+            } else {
+                trimTornTail(dataPath, indexPath);
+            }
+            this.offset = Files.exists(dataPath) ? Files.size(dataPath) : 0;
+            this.data = new BufferedOutputStream(Files.newOutputStream(dataPath,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), 1 << 16);
+            this.index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexPath,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        }
+
+        @Override
+        protected synchronized void saveSource(String fqcn, String content) {
+            if (failure != null) return;
+            try {
+                append(fqcn, content);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        /** Append one class. Later appends for the same FQCN supersede earlier ones. */
+        public synchronized void append(String fqcn, String content) throws IOException {
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            int length = bytes.length;
+            if (deflater != null) {
+                length = 4 + deflate(bytes);
+            } else {
+                data.write(bytes);
+            }
+            index.writeUTF(fqcn);
+            index.writeLong(offset);
+            index.writeInt(deflater != null ? length | DEFLATED : length);
+            offset += length;
+            count++;
+        }
+
+        /** Write the uncompressed length and the deflated bytes; returns the deflated size. */
+        private int deflate(byte[] bytes) throws IOException {
+            data.write(bytes.length >>> 24);
+            data.write(bytes.length >>> 16);
+            data.write(bytes.length >>> 8);
+            data.write(bytes.length);
+            deflater.reset();
+            deflater.setInput(bytes);
+            deflater.finish();
+            int total = 0;
+            while (!deflater.finished()) {
+                int n = deflater.deflate(deflateBuffer);
+                data.write(deflateBuffer, 0, n);
+                total += n;
+            }
+            return total;
+        }
+
+        /**
+         * Cut both files back to the last complete record left by a crashed
+         * writer, so records appended now are not hidden behind a torn one.
+         */
+        private static void trimTornTail(Path dataPath, Path indexPath) throws IOException {
+            if (!Files.exists(dataPath) || !Files.exists(indexPath)) return;
+            long dataSize = Files.size(dataPath);
+            long validIndexBytes = 0;
+            long dataEnd = 0;
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(indexPath)))) {
+                while (true) {
+                    int nameLength;
+                    long offset;
+                    int length;
+                    try {
+                        nameLength = in.readUnsignedShort();
+                        in.readFully(new byte[nameLength]);
+                        offset = in.readLong();
+                        length = in.readInt() & ~DEFLATED;
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    if (offset + length > dataSize) break;
+                    validIndexBytes += 2 + nameLength + 8 + 4;
+                    dataEnd = Math.max(dataEnd, offset + length);
+                }
+            }
+            try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.WRITE);
+                 FileChannel data = FileChannel.open(dataPath, StandardOpenOption.WRITE)) {
+                index.truncate(validIndexBytes);
+                data.truncate(dataEnd);
+            }
+        }
+
+        /** Number of classes appended through this writer. */
+        public synchronized int count() {
+            return count;
+        }
+
+        /**
+         * Flush both files. Data is flushed before the index so an index record
+         * never points past the end of the data file.
+         *
+         * @throws IOException if any earlier append from a Vineflower thread failed
+         */
+        @Override
+        public synchronized void close() throws IOException {
+            try {
+                data.close();
+            } finally {
+                index.close();
+                if (deflater != null) deflater.end();
+            }
+            if (failure != null) {
+                throw new IOException("Failed to append to packed store: " + failure.getMessage(), failure);
+            }
+        }
+    }
+
+    /**
+     * CLI: export a packed store back to a loose tree.
+     *
+     * Usage: packed-source-store <artifacts-dir> [output-dir]
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: packed-source-store <artifacts-dir> [output-dir]");
+            System.err.println("  <artifacts-dir>  Directory containing decompiled.pack");
+            System.err.println("  [output-dir]     Loose tree to write (default: <artifacts-dir>/decompiled)");
+            System.exit(1);
+        }
+
+        Path artifactsDir = Path.of(args[0]).toAbsolutePath();
+        Path outputDir = args.length > 1 ? Path.of(args[1]).toAbsolutePath() : artifactsDir.resolve("decompiled");
+
+        try (PackedSourceStore store = open(artifactsDir)) {
+            System.out.println("Exporting " + store.size() + " classes to " + outputDir);
+            int written = store.exportTo(outputDir);
+            System.out.println("Wrote " + written + " files");
+        } catch (Exception e) {
+            System.err.println("FATAL: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.hytale.indexer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Throughput comparison of ClassIndexer's full and signature-only parse modes.
+ *
+ * Usage: parse-benchmark [file-count] [methods-per-class]
+ *
+ * Generates a synthetic decompiled tree shaped like Vineflower output (generic
+ * classes, inner types, enums with constant bodies, records, lambdas, anonymous
+ * classes, strings and comments containing braces), indexes it in both modes,
+ * checks the two class-index.json files are identical apart from generated_at,
+ * and prints files/second for each mode.
+ */
+public class ParseBenchmark {
+
+    public static void main(String[] args) {
+        int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int methodsPerClass = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        try {
+            Path workDir = Files.createTempDirectory("hytale-parse-bench-");
+            try {
+                run(workDir, fileCount, methodsPerClass);
+            } finally {
+                DecompileScheduler.deleteRecursively(workDir);
+            }
+        } catch (Exception e) {
+            System.err.println("FATAL: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    private static void run(Path workDir, int fileCount, int methodsPerClass) throws IOException {
+        Path decompiledDir = workDir.resolve("decompiled");
+        System.out.println("Generating " + fileCount + " synthetic sources (" + methodsPerClass
+            + " methods each)...");
+        long bytes = generateTree(decompiledDir, fileCount, methodsPerClass);
+        System.out.printf("Source tree: %.1f MB%n", bytes / (1024.0 * 1024.0));
+
+        // Warm up both modes so JIT compilation is not charged to whichever runs first
+        Path warmupDir = workDir.resolve("warmup");
+        generateTree(warmupDir.resolve("decompiled"), Math.min(500, fileCount), methodsPerClass);
+        quietly(() -> new ClassIndexer(false).index(warmupDir.resolve("decompiled"), warmupDir.resolve("a.json"), "bench"));
+        quietly(() -> new ClassIndexer(true).index(warmupDir.resolve("decompiled"), warmupDir.resolve("b.json"), "bench"));
+
+        Path fullIndex = workDir.resolve("full.json");
+        Path fastIndex = workDir.resolve("signature-only.json");
+        long fullNanos = time(() -> new ClassIndexer(false).index(decompiledDir, fullIndex, "bench"));
+        long fastNanos = time(() -> new ClassIndexer(true).index(decompiledDir, fastIndex, "bench"));
+
+        boolean identical = withoutTimestamp(fullIndex).equals(withoutTimestamp(fastIndex));
+
+        System.out.println();
+        System.out.println("=== Parse mode comparison ===");
+        System.out.printf("  %-16s %8.2f s  %9.0f files/s%n", "full",
+            fullNanos / 1e9, fileCount / (fullNanos / 1e9));
+        System.out.printf("  %-16s %8.2f s  %9.0f files/s%n", "signature-only",
+            fastNanos / 1e9, fileCount / (fastNanos / 1e9));
+        System.out.printf("  speedup          %8.2fx%n", (double) fullNanos / fastNanos);
+        System.out.println("  identical index: " + identical);
+
+        if (!identical) {
+            System.err.println("ERROR: signature-only index differs from full index");
+            System.exit(3);
+        }
+    }
+
+    private interface IndexRun {
+        void run() throws IOException;
+    }
+
+    private static long time(IndexRun run) throws IOException {
+        long start = System.nanoTime();
+        quietly(run);
+        return System.nanoTime() - start;
+    }
+
+    /** Run with stdout suppressed so per-run logging does not skew the timings. */
+    private static void quietly(IndexRun run) throws IOException {
+        java.io.PrintStream original = System.out;
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+        try {
+            run.run();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    private static List<String> withoutTimestamp(Path index) throws IOException {
+        try (Stream<String> lines = Files.lines(index)) {
+            return lines.filter(line -> !line.trim().startsWith("\"generated_at\"")).toList();
+        }
+    }
+
+    // --- Synthetic source generation ---
+
+    private static long generateTree(Path root, int fileCount, int methodsPerClass) throws IOException {
+        long bytes = 0;
+        for (int i = 0; i < fileCount; i++) {
+            String pkg = "com.hypixel.hytale.bench.p" + (i % 40) + ".sub" + (i % 7);
+            String name = "Synthetic" + i;
+            String source = generateClass(pkg, name, i, methodsPerClass);
+            Path file = root.resolve(pkg.replace('.', '/')).resolve(name + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source);
+            bytes += source.length();
+        }
+        return bytes;
+    }
+
+    static String generateClass(String pkg, String name, int seed, int methods) {
+        StringBuilder sb = new StringBuilder(methods * 900);
+        sb.append("package ").append(pkg).append(";\n\n");
+        sb.append("import com.hypixel.hytale.component.ComponentAccessor;\n");
+        sb.append("import java.util.List;\nimport java.util.Map;\nimport java.util.function.Function;\n");
+        sb.append("import javax.annotation.Nonnull;\n\n");
+        sb.append("@Deprecated(since = \"1.0\")\n");
+        sb.append("public class ").append(name).append("<ECS_TYPE, T extends Comparable<T>> extends Base")
+            .append(seed % 13).append("<ECS_TYPE> implements ComponentAccessor<ECS_TYPE>, Runnable {\n");
+        sb.append("    public static final String KEY = \"{not a block}\";\n");
+        sb.append("    private static final char OPEN = '{';\n");
+        sb.append("    protected final Map<String, List<T>> cache = new java.util.HashMap<>();\n");
+        sb.append("    private final int[] table = {1, 2, 3, ").append(seed).append("};\n");
+        sb.append("    private final Function<String, Integer> parser = s -> {\n");
+        sb.append("        return s.isEmpty() ? 0 : Integer.parseInt(s);\n    };\n");
+        sb.append("    private final Runnable hook = new Runnable() {\n");
+        sb.append("        @Override\n        public void run() {\n            System.out.println(\"}\");\n        }\n    };\n\n");
+        sb.append("    static {\n        System.setProperty(\"bench.").append(seed).append("\", \"{}\");\n    }\n\n");
+        sb.append("    public ").append(name).append("(@Nonnull String id) {\n        super(id);\n    }\n\n");
+
+        for (int m = 0; m < methods; m++) {
+            sb.append("    /** Method ").append(m).append(" { with braces in javadoc } */\n");
+            sb.append("    @Nonnull\n");
+            sb.append("    public <R> List<R> method").append(m)
+                .append("(@Nonnull Map<String, ? extends T> input, int depth) throws java.io.IOException {\n");
+            sb.append("        List<R> result = new java.util.ArrayList<>();\n");
+            sb.append("        for (Map.Entry<String, ? extends T> e : input.entrySet()) {\n");
+            sb.append("            // a comment with an unbalanced brace {\n");
+            sb.append("            switch (e.getKey()) {\n");
+            sb.append("                case \"a\" -> {\n                    depth += 1;\n                }\n");
+            sb.append("                case \"}\" -> depth -= 1;\n");
+            sb.append("                default -> {\n                    if (depth > ").append(m)
+                .append(") {\n                        throw new java.io.IOException(\"too deep: {\" + depth);\n                    }\n                }\n");
+            sb.append("            }\n");
+            sb.append("            Runnable r = () -> {\n                String text = \"\"\"\n                    { text block }\n                    \"\"\";\n                System.out.println(text);\n            };\n");
+            sb.append("            r.run();\n");
+            sb.append("        }\n");
+            sb.append("        return result;\n");
+            sb.append("    }\n\n");
+        }
+
+        sb.append("    @Override\n    public void run() {\n    }\n\n");
+        sb.append("    public static class Inner").append(seed % 5).append(" implements Comparable<Inner")
+            .append(seed % 5).append("> {\n");
+        sb.append("        private long value;\n\n");
+        sb.append("        @Override\n        public int compareTo(Inner").append(seed % 5)
+            .append(" other) {\n            return Long.compare(value, other.value);\n        }\n    }\n\n");
+        sb.append("    public enum Mode {\n        FAST {\n            @Override\n            int weight() {\n                return 1;\n            }\n        },\n");
+        sb.append("        SLOW(2) {\n            @Override\n            int weight() {\n                return 2;\n            }\n        };\n\n");
+        sb.append("        Mode() {\n        }\n\n        Mode(int w) {\n        }\n\n        abstract int weight();\n    }\n\n");
+        sb.append("    public record Pair<A, B>(A left, B right) {\n        public Pair {\n            java.util.Objects.requireNonNull(left);\n        }\n\n");
+        sb.append("        public static <A, B> Pair<A, B> of(A a, B b) {\n            return new Pair<>(a, b);\n        }\n    }\n\n");
+        sb.append("    public interface Listener {\n        void onEvent(String name);\n\n");
+        sb.append("        default void onError(Throwable t) {\n            t.printStackTrace();\n        }\n    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,259 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Durable progress record for a Phase 1 run, so a run that dies late
+ * (Vineflower OOM, killed CI job) can pick up where it stopped.
+ *
+ * The checkpoint directory (artifacts/checkpoint/) belongs to one jar_hash and holds:
+ * - checkpoint.json     jar_hash the checkpoint belongs to
+ * - filtered.jar        the filtered JAR, built once and reused on resume
+ * - segment-NNNN.jsonl  one append-only segment per run; each line is
+ *                       {"unit": FQCN, "entries": [...]} for one top-level class
+ *
+ * A segment line is only written after the class's source has been handed to
+ * the sink and parsed, so it doubles as the commit record for that unit. A line
+ * torn by a crash does not parse and the unit is simply redone. When the run
+ * completes, the segments are merged into class-index.json and the checkpoint
+ * is deleted.
+ */
+public class PhaseCheckpoint implements AutoCloseable {
+
+    static final String MANIFEST_FILE = "checkpoint.json";
+    static final String FILTERED_JAR = "filtered.jar";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".jsonl";
+
+    private final Path dir;
+    private final boolean fresh;
+    private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+    /** Journal line per completed unit, from earlier runs and this one. */
+    private final Map<String, String> completed = new HashMap<>();
+    private BufferedWriter segment;
+
+    private PhaseCheckpoint(Path dir, boolean fresh) {
+        this.dir = dir;
+        this.fresh = fresh;
+    }
+
+    /**
+     * Open the checkpoint for the given JAR, discarding any checkpoint left by
+     * a different JAR.
+     *
+     * @param dir     checkpoint directory
+     * @param jarHash hash of the JAR being indexed
+     */
+    public static PhaseCheckpoint open(Path dir, String jarHash) throws IOException {
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        Path manifestPath = dir.resolve(MANIFEST_FILE);
+        if (Files.isRegularFile(manifestPath)) {
+            Manifest manifest = gson.fromJson(Files.readString(manifestPath), Manifest.class);
+            if (manifest != null && jarHash.equals(manifest.jar_hash)) {
+                PhaseCheckpoint checkpoint = new PhaseCheckpoint(dir, false);
+                checkpoint.loadSegments();
+                return checkpoint;
+            }
+            System.out.println("Discarding checkpoint for a different JAR");
+        }
+
+        DecompileScheduler.deleteRecursively(dir);
+        Files.createDirectories(dir);
+        Manifest manifest = new Manifest();
+        manifest.version = "1.0.0";
+        manifest.jar_hash = jarHash;
+        manifest.created_at = DateTimeFormatter.ISO_INSTANT.format(Instant.now().atOffset(ZoneOffset.UTC));
+        Files.writeString(manifestPath, gson.toJson(manifest));
+        return new PhaseCheckpoint(dir, true);
+    }
+
+    /** True if there was nothing to resume; earlier output should be discarded. */
+    public boolean isFresh() {
+        return fresh;
+    }
+
+    /**
+     * Drop completed units whose source is no longer in the output (e.g. a
+     * buffered write that never reached the disk), so they are decompiled again.
+     *
+     * @param sourcePresent whether the decompiled source of a top-level FQCN exists
+     * @return FQCNs of the units that do not need to be decompiled again
+     */
+    public Set<String> completedUnits(Predicate<String> sourcePresent) {
+        completed.keySet().removeIf(fqcn -> !sourcePresent.test(fqcn));
+        return Set.copyOf(completed.keySet());
+    }
+
+    /**
+     * The filtered JAR, built on first use and kept until the run completes.
+     *
+     * @param filter decides which entries of the JAR are kept
+     */
+    public Path filteredJar(Path jarPath, Decompiler filter) throws IOException {
+        Path filtered = dir.resolve(FILTERED_JAR);
+        if (!Files.isRegularFile(filtered)) {
+            Path temp = dir.resolve(FILTERED_JAR + ".tmp");
+            filter.filterJar(jarPath, temp);
+            Files.move(temp, filtered, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return filtered;
+    }
+
+    /**
+     * Wrap a source sink so every class it receives is also parsed and recorded
+     * in this run's segment. Safe for use from Vineflower's worker threads.
+     *
+     * @param sink          persists the decompiled source
+     * @param signatureOnly parse mode for the index entries
+     */
+    public SourceSaver journal(SourceSaver sink, boolean signatureOnly) throws IOException {
+        segment = Files.newBufferedWriter(dir.resolve(nextSegmentName()),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ThreadLocal<ClassIndexer> parsers = ThreadLocal.withInitial(() -> new ClassIndexer(signatureOnly));
+
+        return new SourceSaver() {
+            @Override
+            protected void saveSource(String fqcn, String content) {
+                sink.saveSource(fqcn, content);
+                String sourceFile = "decompiled/" + sourcePathFor(fqcn);
+                List<ClassIndexer.ClassEntry> entries;
+                try {
+                    entries = parsers.get().parseSource(content, sourceFile);
+                } catch (RuntimeException e) {
+                    // Parse failures are deterministic; record the unit as done with no entries
+                    System.err.println("WARN: Failed to parse " + sourceFile + ": " + e.getMessage());
+                    entries = List.of();
+                }
+                record(fqcn, entries);
+            }
+        };
+    }
+
+    private void record(String fqcn, List<ClassIndexer.ClassEntry> entries) {
+        JournalRecord rec = new JournalRecord();
+        rec.unit = fqcn;
+        rec.entries = entries;
+        String line = gson.toJson(rec);
+        synchronized (this) {
+            try {
+                segment.write(line);
+                segment.write('\n');
+                // Reaches the OS on every unit, so a killed process loses nothing already recorded
+                segment.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write checkpoint segment", e);
+            }
+            completed.put(fqcn, line);
+        }
+    }
+
+    /**
+     * Merge all segments into class-index.json, one unit at a time in FQCN order.
+     *
+     * @return number of types written
+     */
+    public synchronized int merge(Path outputPath, String jarHash) throws IOException {
+        if (segment != null) segment.flush();
+        List<String> units = new ArrayList<>(completed.keySet());
+        units.sort(null);
+        try (ClassIndexWriter writer = new ClassIndexWriter(outputPath, jarHash)) {
+            for (String unit : units) {
+                writer.writeAll(gson.fromJson(completed.get(unit), JournalRecord.class).entries);
+            }
+            return writer.count();
+        }
+    }
+
+    /** Remove the checkpoint after a completed run. */
+    public void delete() throws IOException {
+        close();
+        DecompileScheduler.deleteRecursively(dir);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (segment != null) {
+            segment.close();
+            segment = null;
+        }
+    }
+
+    // --- Segment files ---
+
+    private void loadSegments() throws IOException {
+        int torn = 0;
+        for (Path path : segmentFiles()) {
+            try (BufferedReader reader = Files.newBufferedReader(path)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String unit = unitOf(line);
+                    if (unit == null) {
+                        torn++;
+                        continue;
+                    }
+                    completed.put(unit, line); // later segments supersede earlier ones
+                }
+            }
+        }
+        System.out.println("Checkpoint: " + completed.size() + " units already done"
+            + (torn > 0 ? ", " + torn + " torn records ignored" : ""));
+    }
+
+    /** FQCN of a complete journal line, or null for a line torn by a crash. */
+    private String unitOf(String line) {
+        try {
+            JournalRecord rec = gson.fromJson(line, JournalRecord.class);
+            return rec == null || rec.entries == null ? null : rec.unit;
+        } catch (JsonSyntaxException e) {
+            return null;
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                .filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                    && p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private String nextSegmentName() throws IOException {
+        return String.format("%s%04d%s", SEGMENT_PREFIX, segmentFiles().size() + 1, SEGMENT_SUFFIX);
+    }
+
+    // --- JSON model classes ---
+
+    static class Manifest {
+        String version;
+        String jar_hash;
+        String created_at;
+    }
+
+    static class JournalRecord {
+        String unit;
+        List<ClassIndexer.ClassEntry> entries;
+    }
+}
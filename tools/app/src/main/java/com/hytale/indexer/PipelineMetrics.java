@@ -0,0 +1,420 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Process-wide timing and memory metrics for one pipeline phase.
+ *
+ * Each phase runs in its own JVM, so a single collector per process is
+ * enough: stages ({@code try (var s = PipelineMetrics.get().stage("parse"))})
+ * record wall time, process CPU time, bytes allocated and peak heap; the
+ * indexer records per-file parse latency and the classifier its BFS levels
+ * and cache hit rates. {@link #write} merges the phase into
+ * artifacts/metrics.json next to the sections written by other phases.
+ *
+ * Every measurement is also committed as a custom JFR event (category
+ * "Hytale Indexer"), visible when the JVM runs with
+ * {@code -XX:StartFlightRecording}.
+ */
+final class PipelineMetrics {
+
+    static final String METRICS_FILE = "metrics.json";
+
+    /** Upper bounds (ms) of the parse latency histogram buckets; the last bucket is open. */
+    private static final long[] PARSE_BUCKETS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000};
+    private static final int SLOWEST_FILES = 20;
+
+    private static final PipelineMetrics INSTANCE = new PipelineMetrics();
+
+    private final long startNanos = System.nanoTime();
+    private final List<StageMetrics> stages = new ArrayList<>();
+    private final Map<String, CacheMetrics> caches = new TreeMap<>();
+    private final Map<String, Long> counters = new TreeMap<>();
+    private final List<ExpansionMetrics> expansions = new ArrayList<>();
+    private final List<ParsedFile> parsedFiles = new ArrayList<>();
+    private int openStages;
+
+    private PipelineMetrics() {}
+
+    static PipelineMetrics get() {
+        return INSTANCE;
+    }
+
+    /** Start a stage; closing it records the measurements. */
+    Stage stage(String name) {
+        synchronized (this) {
+            // Peak heap is per stage unless stages overlap (pipelined mode), then it is shared
+            if (openStages++ == 0) {
+                for (MemoryPoolMXBean pool : heapPools()) pool.resetPeakUsage();
+            }
+        }
+        return new Stage(name);
+    }
+
+    /** Parse latency of one source file, from any thread. */
+    void recordParse(String sourceFile, long nanos, int chars, int types, boolean success) {
+        FileParseEvent event = new FileParseEvent();
+        if (event.shouldCommit()) {
+            event.file = sourceFile;
+            event.parseTime = nanos;
+            event.chars = chars;
+            event.types = types;
+            event.success = success;
+            event.commit();
+        }
+        synchronized (this) {
+            parsedFiles.add(new ParsedFile(sourceFile, nanos, chars));
+        }
+    }
+
+    /** One breadth-first expansion: types expanded per depth and the largest queue length. */
+    synchronized void recordExpansion(String name, List<Integer> levels, int maxQueue) {
+        ExpansionMetrics m = new ExpansionMetrics();
+        m.name = name;
+        m.levels = List.copyOf(levels);
+        m.expanded = levels.stream().mapToInt(Integer::intValue).sum();
+        m.max_queue = maxQueue;
+        expansions.add(m);
+        for (int depth = 0; depth < levels.size(); depth++) {
+            FrontierEvent event = new FrontierEvent();
+            event.expansion = name;
+            event.depth = depth;
+            event.size = levels.get(depth);
+            event.commit();
+        }
+    }
+
+    synchronized void recordCache(String name, long hits, long misses) {
+        CacheMetrics m = new CacheMetrics();
+        m.hits = hits;
+        m.misses = misses;
+        m.hit_rate = hits + misses == 0 ? 0 : Math.round(10000.0 * hits / (hits + misses)) / 10000.0;
+        caches.put(name, m);
+        CacheEvent event = new CacheEvent();
+        event.cache = name;
+        event.hits = hits;
+        event.misses = misses;
+        event.commit();
+    }
+
+    synchronized void count(String name, long delta) {
+        counters.merge(name, delta, Long::sum);
+    }
+
+    /**
+     * Replace this phase's section of artifacts/metrics.json, keeping the
+     * sections of other phases.
+     */
+    synchronized Path write(Path artifactsDir, String phase, String jarHash) throws IOException {
+        Path path = artifactsDir.resolve(METRICS_FILE);
+        MetricsFile file = null;
+        if (Files.isRegularFile(path)) {
+            try (Reader reader = Files.newBufferedReader(path)) {
+                file = new GsonBuilder().create().fromJson(reader, MetricsFile.class);
+            } catch (JsonParseException e) {
+                System.err.println("WARN: Ignoring unreadable " + path + ": " + e.getMessage());
+            }
+        }
+        if (file == null || file.phases == null) {
+            file = new MetricsFile();
+            file.phases = new TreeMap<>();
+        }
+        String timestamp = DateTimeFormatter.ISO_INSTANT.format(Instant.now().atOffset(ZoneOffset.UTC));
+        file.version = "1.0.0";
+        file.generated_at = timestamp;
+        if (jarHash != null) file.jar_hash = jarHash;
+
+        PhaseMetrics m = new PhaseMetrics();
+        m.generated_at = timestamp;
+        m.wall_ms = (System.nanoTime() - startNanos) / 1_000_000;
+        m.process_cpu_ms = processCpuNanos() / 1_000_000;
+        long currentPeak = heapPools().stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+        m.peak_heap_mb = Math.max(mb(currentPeak), stages.stream().mapToDouble(st -> st.peak_heap_mb).max().orElse(0));
+        m.stages = new ArrayList<>(stages);
+        m.parse = parseMetrics();
+        m.expansions = expansions.isEmpty() ? null : new ArrayList<>(expansions);
+        m.caches = caches.isEmpty() ? null : new LinkedHashMap<>(caches);
+        m.counters = counters.isEmpty() ? null : new LinkedHashMap<>(counters);
+        file.phases.put(phase, m);
+
+        Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+        Files.writeString(path, gson.toJson(file));
+        return path;
+    }
+
+    private ParseMetrics parseMetrics() {
+        if (parsedFiles.isEmpty()) return null;
+        long[] nanos = parsedFiles.stream().mapToLong(ParsedFile::nanos).sorted().toArray();
+        ParseMetrics m = new ParseMetrics();
+        m.files = nanos.length;
+        m.total_ms = Arrays.stream(nanos).sum() / 1_000_000;
+        m.p50_ms = millis(percentile(nanos, 0.50));
+        m.p90_ms = millis(percentile(nanos, 0.90));
+        m.p99_ms = millis(percentile(nanos, 0.99));
+        m.max_ms = millis(nanos[nanos.length - 1]);
+        m.histogram = new ArrayList<>();
+        int i = 0;
+        for (int b = 0; b <= PARSE_BUCKETS_MS.length; b++) {
+            long bound = b < PARSE_BUCKETS_MS.length ? PARSE_BUCKETS_MS[b] * 1_000_000 : Long.MAX_VALUE;
+            int count = 0;
+            while (i < nanos.length && nanos[i] < bound) {
+                count++;
+                i++;
+            }
+            Bucket bucket = new Bucket();
+            bucket.lt_ms = b < PARSE_BUCKETS_MS.length ? PARSE_BUCKETS_MS[b] : null;
+            bucket.count = count;
+            m.histogram.add(bucket);
+        }
+        m.slowest = parsedFiles.stream()
+            .sorted((a, b) -> Long.compare(b.nanos(), a.nanos()))
+            .limit(SLOWEST_FILES)
+            .map(f -> {
+                SlowFile s = new SlowFile();
+                s.file = f.file();
+                s.ms = millis(f.nanos());
+                s.chars = f.chars();
+                return s;
+            })
+            .toList();
+        return m;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    private static double mb(long bytes) {
+        return Math.round(bytes / 1024.0 / 1024.0 * 10) / 10.0;
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(p -> p.getType() == MemoryType.HEAP && p.isValid())
+            .toList();
+    }
+
+    private static long processCpuNanos() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return Math.max(0, os.getProcessCpuTime());
+        }
+        return 0;
+    }
+
+    /** Bytes allocated by all threads so far, or -1 where the JVM does not track it. */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getTotalThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /** A running stage; close it to record wall/CPU time, allocation and peak heap. */
+    final class Stage implements AutoCloseable {
+        private final String name;
+        private final long startNanos = System.nanoTime();
+        private final long startCpu = processCpuNanos();
+        private final long startAllocated = allocatedBytes();
+        private final StageEvent event = new StageEvent();
+        private long wallNanos = -1;
+
+        private Stage(String name) {
+            this.name = name;
+            event.begin();
+        }
+
+        /** Elapsed wall time so far, or the final wall time once closed. */
+        long elapsedMillis() {
+            return (wallNanos >= 0 ? wallNanos : System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        @Override
+        public void close() {
+            if (wallNanos >= 0) return;
+            wallNanos = System.nanoTime() - startNanos;
+            long cpu = processCpuNanos() - startCpu;
+            long allocated = startAllocated < 0 ? -1 : allocatedBytes() - startAllocated;
+            long peak = heapPools().stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = name;
+                event.cpuTime = cpu;
+                event.allocated = allocated;
+                event.peakHeap = peak;
+                event.commit();
+            }
+
+            StageMetrics m = new StageMetrics();
+            m.name = name;
+            m.wall_ms = wallNanos / 1_000_000;
+            m.cpu_ms = cpu / 1_000_000;
+            m.allocated_mb = allocated < 0 ? null : mb(allocated);
+            m.peak_heap_mb = mb(peak);
+            synchronized (PipelineMetrics.this) {
+                stages.add(m);
+                openStages--;
+            }
+        }
+    }
+
+    private record ParsedFile(String file, long nanos, int chars) {}
+
+    // --- JFR events ---
+
+    @Name("com.hytale.indexer.Stage")
+    @Label("Pipeline Stage")
+    @Category("Hytale Indexer")
+    @Description("One stage of a pipeline phase")
+    static class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+        @Label("CPU Time")
+        @Description("Process CPU time, all threads")
+        @Timespan
+        long cpuTime;
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+        @Label("Peak Heap")
+        @DataAmount
+        long peakHeap;
+    }
+
+    @Name("com.hytale.indexer.FileParse")
+    @Label("Source File Parse")
+    @Category("Hytale Indexer")
+    static class FileParseEvent extends Event {
+        @Label("File")
+        String file;
+        @Label("Parse Time")
+        @Timespan
+        long parseTime;
+        @Label("Characters")
+        int chars;
+        @Label("Types")
+        int types;
+        @Label("Success")
+        boolean success;
+    }
+
+    @Name("com.hytale.indexer.Frontier")
+    @Label("Expansion Frontier")
+    @Category("Hytale Indexer")
+    @Description("Types expanded at one BFS depth")
+    static class FrontierEvent extends Event {
+        @Label("Expansion")
+        String expansion;
+        @Label("Depth")
+        int depth;
+        @Label("Size")
+        int size;
+    }
+
+    @Name("com.hytale.indexer.Cache")
+    @Label("Cache Statistics")
+    @Category("Hytale Indexer")
+    static class CacheEvent extends Event {
+        @Label("Cache")
+        String cache;
+        @Label("Hits")
+        long hits;
+        @Label("Misses")
+        long misses;
+    }
+
+    // --- JSON output model classes ---
+
+    static class MetricsFile {
+        String version;
+        String generated_at;
+        String jar_hash;
+        Map<String, PhaseMetrics> phases;
+    }
+
+    static class PhaseMetrics {
+        String generated_at;
+        long wall_ms;
+        long process_cpu_ms;
+        double peak_heap_mb;
+        List<StageMetrics> stages;
+        ParseMetrics parse;
+        List<ExpansionMetrics> expansions;
+        Map<String, CacheMetrics> caches;
+        Map<String, Long> counters;
+    }
+
+    static class StageMetrics {
+        String name;
+        long wall_ms;
+        long cpu_ms;
+        Double allocated_mb;
+        double peak_heap_mb;
+    }
+
+    static class ParseMetrics {
+        int files;
+        long total_ms;
+        double p50_ms;
+        double p90_ms;
+        double p99_ms;
+        double max_ms;
+        List<Bucket> histogram;
+        List<SlowFile> slowest;
+    }
+
+    static class Bucket {
+        Long lt_ms;
+        int count;
+    }
+
+    static class SlowFile {
+        String file;
+        double ms;
+        int chars;
+    }
+
+    static class ExpansionMetrics {
+        String name;
+        int expanded;
+        int max_queue;
+        List<Integer> levels;
+    }
+
+    static class CacheMetrics {
+        long hits;
+        long misses;
+        double hit_rate;
+    }
+}
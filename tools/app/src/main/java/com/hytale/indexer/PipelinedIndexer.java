@@ -0,0 +1,192 @@
+package com.hytale.indexer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Phase 1 as a three-stage pipeline instead of two barriers:
+ *
+ *   Vineflower ──▶ [sources queue] ──▶ N parser workers ──▶ [entries queue] ──▶ index writer
+ *
+ * Every decompiled class is persisted through the given sink (loose tree or
+ * packed store) and handed to the parsers as soon as Vineflower emits it.
+ * Both queues are bounded, so a slow stage applies back-pressure upstream
+ * instead of buffering the whole JAR in memory. Entries are written in
+ * arrival order, which (unlike the barrier mode) depends on thread timing.
+ *
+ * The index is written to a temporary sibling and only moved into place once
+ * every stage has finished cleanly, so a failed run never leaves a partial
+ * class-index.json behind.
+ */
+public class PipelinedIndexer {
+
+    private static final int QUEUE_CAPACITY = 256;
+
+    /** Unit of work between the decompiler and the parsers. */
+    private record DecompiledSource(String fqcn, String source) {}
+
+    private static final DecompiledSource END_OF_SOURCES = new DecompiledSource(null, null);
+    private static final List<ClassIndexer.ClassEntry> END_OF_ENTRIES = List.of();
+
+    private final int parserThreads;
+    private final boolean signatureOnly;
+    private final Decompiler decompiler;
+
+    public PipelinedIndexer(int parserThreads, boolean signatureOnly) {
+        this(parserThreads, signatureOnly, new Decompiler());
+    }
+
+    public PipelinedIndexer(int parserThreads, boolean signatureOnly, Decompiler decompiler) {
+        this.parserThreads = Math.max(1, parserThreads);
+        this.signatureOnly = signatureOnly;
+        this.decompiler = decompiler;
+    }
+
+    /**
+     * Decompile, parse and index the JAR with all three stages running concurrently.
+     *
+     * @param jarPath    JAR to decompile
+     * @param sink       persists each decompiled class (loose tree or packed store)
+     * @param outputPath class-index.json to write
+     * @param jarHash    hash recorded in the index header
+     */
+    public void run(Path jarPath, SourceSaver sink, Path outputPath, String jarHash) throws IOException {
+        BlockingQueue<DecompiledSource> sources = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        BlockingQueue<List<ClassIndexer.ClassEntry>> entries = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicReference<Throwable> decompileFailure = new AtomicReference<>();
+        AtomicReference<Throwable> parseFailure = new AtomicReference<>();
+        AtomicInteger parsed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.currentTimeMillis();
+        Path temp = outputPath.resolveSibling(".tmp-" + outputPath.getFileName());
+        boolean moved = false;
+
+        ExecutorService pool = Executors.newFixedThreadPool(parserThreads + 1);
+        try {
+            // Stage 1: Vineflower feeds the sources queue from its own worker threads
+            pool.execute(() -> {
+                SourceSaver tee = new SourceSaver() {
+                    @Override
+                    protected void saveSource(String fqcn, String content) {
+                        sink.saveSource(fqcn, content);
+                        put(sources, new DecompiledSource(fqcn, content));
+                    }
+                };
+                try {
+                    decompiler.decompile(jarPath, tee);
+                } catch (Throwable t) {
+                    decompileFailure.set(t);
+                } finally {
+                    System.out.printf("  [pipeline] decompile stage done after %.1f s%n",
+                        (System.currentTimeMillis() - start) / 1000.0);
+                    for (int i = 0; i < parserThreads; i++) {
+                        put(sources, END_OF_SOURCES);
+                    }
+                }
+            });
+
+            // Stage 2: parser workers, each with its own JavaParser instance
+            for (int i = 0; i < parserThreads; i++) {
+                pool.execute(() -> {
+                    ClassIndexer indexer = new ClassIndexer(signatureOnly);
+                    try {
+                        DecompiledSource unit;
+                        while ((unit = take(sources)) != END_OF_SOURCES) {
+                            String sourceFile = "decompiled/" + SourceSaver.sourcePathFor(unit.fqcn());
+                            try {
+                                put(entries, indexer.parseSource(unit.source(), sourceFile));
+                                parsed.incrementAndGet();
+                            } catch (RuntimeException e) {
+                                failed.incrementAndGet();
+                                System.err.println("WARN: Failed to parse " + sourceFile + ": " + e.getMessage());
+                            }
+                        }
+                    } catch (Throwable t) {
+                        // Errors (stack overflow, OOM) end this worker; fail the run, don't lose classes
+                        parseFailure.compareAndSet(null, t);
+                    } finally {
+                        // Always sign off, or the writer would wait forever for this worker
+                        put(entries, END_OF_ENTRIES);
+                    }
+                });
+            }
+
+            // Stage 3: this thread streams entries into the temporary index
+            int finishedParsers = 0;
+            try (ClassIndexWriter writer = new ClassIndexWriter(temp, jarHash)) {
+                while (finishedParsers < parserThreads) {
+                    List<ClassIndexer.ClassEntry> batch = take(entries);
+                    if (batch == END_OF_ENTRIES) {
+                        finishedParsers++;
+                    } else {
+                        writer.writeAll(batch);
+                    }
+                }
+
+                System.out.printf("  [pipeline] parse and write stages done after %.1f s%n",
+                    (System.currentTimeMillis() - start) / 1000.0);
+                System.out.println("Parsed " + parsed.get() + " files successfully, " + failed.get() + " errors");
+                System.out.println("Indexed " + writer.count() + " types");
+            }
+            awaitStages(pool);
+
+            // A dead parser can leave the decompiler blocked until shutdown, so report it first
+            Throwable failure = parseFailure.get();
+            if (failure != null) {
+                throw new IOException("Parse stage failed: " + failure, failure);
+            }
+            failure = decompileFailure.get();
+            if (failure != null) {
+                throw new IOException("Decompile stage failed: " + failure.getMessage(), failure);
+            }
+            Files.move(temp, outputPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(ArtifactIO.isCompressed(outputPath)
+                ? ArtifactIO.plain(outputPath) : ArtifactIO.target(outputPath, true));
+            moved = true;
+            System.out.println("Written to: " + outputPath);
+        } finally {
+            awaitStages(pool);
+            if (!moved) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /** Stop the stage threads and wait for them, so their failures are visible. */
+    private static void awaitStages(ExecutorService pool) {
+        pool.shutdownNow();
+        try {
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <T> void put(BlockingQueue<T> queue, T item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pipeline interrupted", e);
+        }
+    }
+
+    private static <T> T take(BlockingQueue<T> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pipeline interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,613 @@
+package com.hytale.indexer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Local BM25 retrieval over the generated docs, for tuning chunking and
+ * ranking of the RAG corpus offline.
+ *
+ * Usage: rag-index build [--docs output/docs] [--index artifacts/rag] [--max-words 300]
+ *        rag-index query [--index artifacts/rag] [-k 10] [query ...]
+ *        rag-index eval  [--index artifacts/rag] [-k 10] <queries.tsv>
+ *
+ * build   Splits every page at its ## and ### headings (never inside code
+ *         fences), and splits sections longer than --max-words at paragraph
+ *         breaks. Each chunk is indexed with the page title, FQCN and tags
+ *         and its heading path; title and heading terms count double.
+ * query   Prints the top k chunks with score, page#anchor and a snippet. With
+ *         no query arguments, reads one query per line from stdin and answers
+ *         each against the loaded index, so it can be kept open as a server.
+ * eval    Runs "query TAB expected-page[#anchor]" lines and reports hit@1,
+ *         hit@k, MRR and latency percentiles.
+ *
+ * Tokens are lower-cased. Identifiers are indexed whole and by their
+ * camelCase parts (getEntityRegistry: getentityregistry, get, entity,
+ * registry), dotted names whole and by segment, so a query for a simple
+ * name, a FQCN or plain words all match. Plain words lose a plural "s".
+ *
+ * On disk the index is two files: rag.idx holds the chunk table and the
+ * sorted term dictionary and is read into memory; rag.dat holds the
+ * varint-coded postings and chunk texts and is memory-mapped, so a query
+ * touches only the postings of its own terms.
+ */
+public class RagIndex implements AutoCloseable {
+
+    static final String INDEX_FILE = "rag.idx";
+    static final String DATA_FILE = "rag.dat";
+    private static final int MAGIC = 0x48524147; // "HRAG"
+    private static final int FORMAT = 1;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 2;
+    private static final int HEADING_WEIGHT = 2;
+
+    private static final Set<String> STOPWORDS = Set.of(
+        "a", "an", "and", "are", "as", "at", "be", "by", "can", "do", "does", "for", "from", "how", "i",
+        "if", "in", "into", "is", "it", "its", "of", "on", "or", "that", "the", "this", "to", "was",
+        "what", "when", "which", "with", "you", "your");
+
+    public static void main(String[] args) {
+        String command = args.length > 0 ? args[0] : "";
+        Path docsDir = Path.of("output", "docs");
+        Path indexDir = Path.of("artifacts", "rag");
+        int maxWords = 300;
+        int k = 10;
+        List<String> rest = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--docs") && i + 1 < args.length) {
+                docsDir = Path.of(args[++i]);
+            } else if (args[i].equals("--index") && i + 1 < args.length) {
+                indexDir = Path.of(args[++i]);
+            } else if (args[i].equals("--max-words") && i + 1 < args.length) {
+                maxWords = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-k") && i + 1 < args.length) {
+                k = Integer.parseInt(args[++i]);
+            } else {
+                rest.add(args[i]);
+            }
+        }
+        boolean valid = switch (command) {
+            case "build" -> rest.isEmpty();
+            case "query" -> true;
+            case "eval" -> rest.size() == 1;
+            default -> false;
+        };
+        if (!valid) {
+            System.err.println("Usage: rag-index build [--docs dir] [--index dir] [--max-words n]");
+            System.err.println("       rag-index query [--index dir] [-k n] [query ...]");
+            System.err.println("       rag-index eval [--index dir] [-k n] <queries.tsv>");
+            System.exit(1);
+        }
+        indexDir = indexDir.toAbsolutePath();
+        if (!command.equals("build") && !Files.isRegularFile(indexDir.resolve(INDEX_FILE))) {
+            System.err.println("ERROR: No index in " + indexDir + " (run rag-index build first)");
+            System.exit(1);
+        }
+
+        try {
+            switch (command) {
+                case "build" -> build(docsDir.toAbsolutePath(), indexDir, maxWords);
+                case "query" -> {
+                    try (RagIndex index = open(indexDir)) {
+                        if (rest.isEmpty()) {
+                            index.serve(k);
+                        } else {
+                            index.printResults(String.join(" ", rest), k);
+                        }
+                    }
+                }
+                default -> {
+                    try (RagIndex index = open(indexDir)) {
+                        index.evaluate(Path.of(rest.get(0)), k);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("FATAL: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    // --- Tokenizer ---
+
+    /** Index and query tokens of a text, in order, with repeats. */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            if (!isWordChar(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < n && (isWordChar(text.charAt(i))
+                    || (text.charAt(i) == '.' && i + 1 < n && isWordChar(text.charAt(i + 1))))) {
+                i++;
+            }
+            addRun(text.substring(start, i), tokens);
+        }
+        return tokens;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static void addRun(String run, List<String> tokens) {
+        if (run.indexOf('.') >= 0) tokens.add(run.toLowerCase(Locale.ROOT));
+        for (String segment : run.split("[._$]")) {
+            if (segment.isEmpty()) continue;
+            List<String> parts = camelParts(segment);
+            if (parts.size() > 1) {
+                tokens.add(segment.toLowerCase(Locale.ROOT));
+                for (String part : parts) addWord(part, tokens);
+            } else {
+                addWord(segment, tokens);
+            }
+        }
+    }
+
+    private static void addWord(String word, List<String> tokens) {
+        String w = word.toLowerCase(Locale.ROOT);
+        if (w.length() < 2 && !Character.isDigit(w.charAt(0))) return;
+        if (STOPWORDS.contains(w)) return;
+        tokens.add(singular(w));
+    }
+
+    /** "ArchetypeChunk" -> Archetype, Chunk; "HTTPServer2" -> HTTP, Server, 2. */
+    static List<String> camelParts(String identifier) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i < identifier.length(); i++) {
+            char prev = identifier.charAt(i - 1);
+            char c = identifier.charAt(i);
+            boolean boundary = (Character.isLowerCase(prev) && Character.isUpperCase(c))
+                || (Character.isDigit(prev) != Character.isDigit(c))
+                || (Character.isUpperCase(prev) && Character.isUpperCase(c)
+                    && i + 1 < identifier.length() && Character.isLowerCase(identifier.charAt(i + 1)));
+            if (boundary) {
+                parts.add(identifier.substring(start, i));
+                start = i;
+            }
+        }
+        parts.add(identifier.substring(start));
+        return parts;
+    }
+
+    private static String singular(String w) {
+        if (w.length() <= 3 || !Character.isLetter(w.charAt(w.length() - 1))) return w;
+        if (w.endsWith("ies")) return w.substring(0, w.length() - 3) + "y";
+        if (w.endsWith("s") && !w.endsWith("ss") && !w.endsWith("us") && !w.endsWith("is")) {
+            return w.substring(0, w.length() - 1);
+        }
+        return w;
+    }
+
+    // --- Chunking ---
+
+    /** A retrievable slice of one page. */
+    record Chunk(String page, String anchor, String heading, String fqcn, String text) {}
+
+    /** Chunk plus the weighted terms it is indexed under. */
+    private record IndexedChunk(Chunk chunk, Map<String, Integer> terms, int length) {}
+
+    static List<Chunk> chunk(DocPage page, int maxWords) {
+        String title = page.field("title") != null ? page.field("title") : page.relativePath;
+        String fqcn = page.documentedFqcn();
+        List<Chunk> chunks = new ArrayList<>();
+
+        String h2 = null;
+        String anchor = "";
+        String heading = title;
+        StringBuilder section = new StringBuilder();
+        boolean inFence = false;
+        for (String line : page.body.split("\n", -1)) {
+            if (line.trim().startsWith("```")) inFence = !inFence;
+            int level = inFence ? 0 : headingLevel(line);
+            if (level == 2 || level == 3) {
+                addSection(chunks, page.relativePath, anchor, heading, fqcn, section.toString(), maxWords);
+                section.setLength(0);
+                String text = line.substring(level + 1).trim();
+                if (level == 2) h2 = text;
+                heading = level == 3 && h2 != null ? title + " > " + h2 + " > " + text : title + " > " + text;
+                anchor = slug(text);
+            }
+            section.append(line).append('\n');
+        }
+        addSection(chunks, page.relativePath, anchor, heading, fqcn, section.toString(), maxWords);
+        return chunks;
+    }
+
+    private static int headingLevel(String line) {
+        int level = 0;
+        while (level < line.length() && line.charAt(level) == '#') level++;
+        return level > 0 && level < line.length() && line.charAt(level) == ' ' ? level : 0;
+    }
+
+    /** Add a section, split at blank lines outside code fences if it is too long. */
+    private static void addSection(List<Chunk> chunks, String page, String anchor, String heading,
+                                   String fqcn, String text, int maxWords) {
+        // A heading directly followed by a subheading: its subsections carry it in their heading path
+        if (text.lines().allMatch(line -> line.isBlank() || headingLevel(line) > 0)) return;
+        StringBuilder part = new StringBuilder();
+        int words = 0;
+        boolean inFence = false;
+        for (String line : text.split("\n", -1)) {
+            if (line.trim().startsWith("```")) inFence = !inFence;
+            if (!inFence && line.isBlank() && words >= maxWords) {
+                chunks.add(new Chunk(page, anchor, heading, fqcn, part.toString().strip()));
+                part.setLength(0);
+                words = 0;
+            }
+            part.append(line).append('\n');
+            words += line.isBlank() ? 0 : line.trim().split("\\s+").length;
+        }
+        if (!part.toString().isBlank()) chunks.add(new Chunk(page, anchor, heading, fqcn, part.toString().strip()));
+    }
+
+    /** Heading anchor as the docs site generates it. */
+    static String slug(String heading) {
+        String s = heading.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9 _-]", "").trim();
+        return s.replace(' ', '-');
+    }
+
+    private static List<String> tags(DocPage page) {
+        List<String> tags = new ArrayList<>();
+        boolean inTags = false;
+        for (String line : page.frontmatter.split("\n")) {
+            if (!line.isEmpty() && !Character.isWhitespace(line.charAt(0))) {
+                inTags = line.startsWith("tags:");
+            } else if (inTags && line.trim().startsWith("- ")) {
+                tags.add(line.trim().substring(2).replace("\"", "").replace("'", ""));
+            }
+        }
+        return tags;
+    }
+
+    // --- Build ---
+
+    static void build(Path docsDir, Path indexDir, int maxWords) throws IOException {
+        if (!Files.isDirectory(docsDir)) {
+            throw new IOException("Docs directory not found: " + docsDir);
+        }
+        System.out.println("=== Building RAG index ===");
+        long start = System.nanoTime();
+        List<IndexedChunk> indexed = new ArrayList<>();
+        List<Path> pages = DocPage.listPages(docsDir);
+        for (Path file : pages) {
+            DocPage page = DocPage.read(docsDir, file);
+            String title = page.field("title");
+            List<String> meta = new ArrayList<>();
+            if (title != null) meta.add(title);
+            if (page.documentedFqcn() != null) meta.add(page.documentedFqcn());
+            List<String> pageTags = tags(page);
+            for (Chunk chunk : chunk(page, maxWords)) {
+                Map<String, Integer> terms = new HashMap<>();
+                int sectionStart = chunk.heading().indexOf(" > ");
+                String section = sectionStart < 0 ? "" : chunk.heading().substring(sectionStart + 3);
+                int length = addTerms(terms, tokenize(String.join(" ", meta)), TITLE_WEIGHT)
+                    + addTerms(terms, tokenize(section), HEADING_WEIGHT)
+                    + addTerms(terms, tokenize(String.join(" ", pageTags)), 1)
+                    + addTerms(terms, tokenize(chunk.text()), 1);
+                indexed.add(new IndexedChunk(chunk, terms, length));
+            }
+        }
+
+        // Invert: term -> (chunk id, weighted tf), chunk ids ascending
+        TreeMap<String, List<int[]>> postings = new TreeMap<>();
+        long totalLength = 0;
+        for (int id = 0; id < indexed.size(); id++) {
+            IndexedChunk c = indexed.get(id);
+            totalLength += c.length();
+            for (Map.Entry<String, Integer> e : c.terms().entrySet()) {
+                postings.computeIfAbsent(e.getKey(), t -> new ArrayList<>()).add(new int[] {id, e.getValue()});
+            }
+        }
+
+        Files.createDirectories(indexDir);
+        try (DataOutputStream idx = new DataOutputStream(new BufferedOutputStream(
+                 Files.newOutputStream(indexDir.resolve(INDEX_FILE))));
+             DataOutputStream dat = new DataOutputStream(new BufferedOutputStream(
+                 Files.newOutputStream(indexDir.resolve(DATA_FILE)), 1 << 16))) {
+            idx.writeInt(MAGIC);
+            idx.writeInt(FORMAT);
+            idx.writeInt(indexed.size());
+            idx.writeDouble(indexed.isEmpty() ? 0 : (double) totalLength / indexed.size());
+
+            long offset = 0;
+            for (IndexedChunk c : indexed) {
+                byte[] text = c.chunk().text().getBytes(StandardCharsets.UTF_8);
+                idx.writeUTF(c.chunk().page());
+                idx.writeUTF(c.chunk().anchor());
+                idx.writeUTF(c.chunk().heading());
+                idx.writeUTF(c.chunk().fqcn() == null ? "" : c.chunk().fqcn());
+                idx.writeInt(c.length());
+                idx.writeLong(offset);
+                idx.writeInt(text.length);
+                dat.write(text);
+                offset += text.length;
+            }
+
+            idx.writeInt(postings.size());
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            for (Map.Entry<String, List<int[]>> e : postings.entrySet()) {
+                buf.reset();
+                int previous = 0;
+                for (int[] p : e.getValue()) {
+                    writeVarint(buf, p[0] - previous);
+                    writeVarint(buf, p[1]);
+                    previous = p[0];
+                }
+                idx.writeUTF(e.getKey());
+                idx.writeInt(e.getValue().size());
+                idx.writeLong(offset);
+                idx.writeInt(buf.size());
+                buf.writeTo(dat);
+                offset += buf.size();
+            }
+        }
+
+        long postingCount = postings.values().stream().mapToLong(List::size).sum();
+        System.out.println("Pages:    " + pages.size());
+        System.out.println("Chunks:   " + indexed.size() + " (max " + maxWords + " words per section part)");
+        System.out.println("Terms:    " + postings.size() + ", " + postingCount + " postings");
+        System.out.printf("Index:    %.1f KB dictionary, %.1f KB postings and text%n",
+            Files.size(indexDir.resolve(INDEX_FILE)) / 1024.0, Files.size(indexDir.resolve(DATA_FILE)) / 1024.0);
+        System.out.printf("Built in %.0f ms%n", (System.nanoTime() - start) / 1e6);
+        System.out.println("Written to: " + indexDir);
+    }
+
+    private static int addTerms(Map<String, Integer> terms, List<String> tokens, int weight) {
+        for (String t : tokens) terms.merge(t, weight, Integer::sum);
+        return tokens.size() * weight;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    // --- Query ---
+
+    private record ChunkRef(String page, String anchor, String heading, String fqcn,
+                            int length, long textOffset, int textLength) {}
+
+    private record TermRef(int df, long offset, int bytes) {}
+
+    record Hit(int chunk, double score) {}
+
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    private final ChunkRef[] chunks;
+    private final Map<String, TermRef> terms;
+    private final double avgLength;
+
+    private RagIndex(FileChannel channel, MappedByteBuffer data, ChunkRef[] chunks,
+                     Map<String, TermRef> terms, double avgLength) {
+        this.channel = channel;
+        this.data = data;
+        this.chunks = chunks;
+        this.terms = terms;
+        this.avgLength = avgLength;
+    }
+
+    static RagIndex open(Path indexDir) throws IOException {
+        ChunkRef[] chunks;
+        Map<String, TermRef> terms;
+        double avgLength;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(indexDir.resolve(INDEX_FILE))))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                throw new IOException("Not a RAG index (or an older format, rebuild it): " + indexDir);
+            }
+            chunks = new ChunkRef[in.readInt()];
+            avgLength = in.readDouble();
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = new ChunkRef(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(),
+                    in.readInt(), in.readLong(), in.readInt());
+            }
+            int termCount = in.readInt();
+            terms = new HashMap<>(termCount * 2);
+            for (int i = 0; i < termCount; i++) {
+                terms.put(in.readUTF(), new TermRef(in.readInt(), in.readLong(), in.readInt()));
+            }
+        }
+        FileChannel channel = FileChannel.open(indexDir.resolve(DATA_FILE), StandardOpenOption.READ);
+        MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        return new RagIndex(channel, data, chunks, terms, avgLength);
+    }
+
+    /** Top k chunks by BM25 score, best first. */
+    List<Hit> search(String query, int k) {
+        Map<String, Integer> queryTerms = new LinkedHashMap<>();
+        for (String t : tokenize(query)) queryTerms.merge(t, 1, Integer::sum);
+
+        double[] scores = new double[chunks.length];
+        boolean[] matched = new boolean[chunks.length];
+        ByteBuffer postings = data.duplicate();
+        for (Map.Entry<String, Integer> q : queryTerms.entrySet()) {
+            TermRef term = terms.get(q.getKey());
+            if (term == null) continue;
+            double idf = Math.log(1 + (chunks.length - term.df() + 0.5) / (term.df() + 0.5));
+            postings.position((int) term.offset());
+            int id = 0;
+            for (int i = 0; i < term.df(); i++) {
+                id += readVarint(postings);
+                int tf = readVarint(postings);
+                double norm = K1 * (1 - B + B * chunks[id].length() / avgLength);
+                scores[id] += q.getValue() * idf * tf * (K1 + 1) / (tf + norm);
+                matched[id] = true;
+            }
+        }
+
+        PriorityQueue<Hit> top = new PriorityQueue<>((a, b) -> Double.compare(a.score(), b.score()));
+        for (int id = 0; id < scores.length; id++) {
+            if (!matched[id]) continue;
+            if (top.size() < k) {
+                top.add(new Hit(id, scores[id]));
+            } else if (scores[id] > top.peek().score()) {
+                top.poll();
+                top.add(new Hit(id, scores[id]));
+            }
+        }
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort((a, b) -> Double.compare(b.score(), a.score()));
+        return hits;
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = in.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) return value;
+            shift += 7;
+        }
+    }
+
+    /** page#anchor of a chunk. */
+    String location(int chunk) {
+        ChunkRef c = chunks[chunk];
+        return c.anchor().isEmpty() ? c.page() : c.page() + "#" + c.anchor();
+    }
+
+    String text(int chunk) {
+        ChunkRef c = chunks[chunk];
+        byte[] bytes = new byte[c.textLength()];
+        data.get((int) c.textOffset(), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void printResults(String query, int k) {
+        long start = System.nanoTime();
+        List<Hit> hits = search(query, k);
+        double ms = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%d results for \"%s\" in %.2f ms%n", hits.size(), query, ms);
+        int rank = 1;
+        for (Hit hit : hits) {
+            String snippet = text(hit.chunk()).replaceAll("\\s+", " ");
+            if (snippet.length() > 160) snippet = snippet.substring(0, 157) + "...";
+            System.out.printf("%2d. %6.2f  %s%n", rank++, hit.score(), location(hit.chunk()));
+            System.out.println("    " + chunks[hit.chunk()].heading());
+            System.out.println("    " + snippet);
+        }
+    }
+
+    private void serve(int k) throws IOException {
+        System.out.println("RAG index: " + chunks.length + " chunks, " + terms.size()
+            + " terms. One query per line, empty line or EOF to quit.");
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null && !line.isBlank()) {
+            printResults(line.trim(), k);
+            System.out.println();
+        }
+    }
+
+    /** Hit rates, MRR and latency over "query TAB expected" lines. */
+    private void evaluate(Path queriesFile, int k) throws IOException {
+        List<String[]> cases = new ArrayList<>();
+        for (String line : Files.readAllLines(queriesFile)) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            String[] parts = line.split("\t");
+            if (parts.length < 2) {
+                System.err.println("WARN: Skipping line without a TAB-separated expected page: " + line);
+                continue;
+            }
+            cases.add(new String[] {parts[0].trim(), parts[1].trim()});
+        }
+        if (cases.isEmpty()) {
+            System.err.println("WARN: No queries in " + queriesFile);
+            return;
+        }
+
+        // Warm up so the first queries are not charged for JIT compilation
+        for (int i = 0; i < 20; i++) {
+            for (String[] c : cases) search(c[0], k);
+        }
+
+        int top1 = 0;
+        int topK = 0;
+        double reciprocalRanks = 0;
+        long[] nanos = new long[cases.size()];
+        List<String> misses = new ArrayList<>();
+        for (int i = 0; i < cases.size(); i++) {
+            String query = cases.get(i)[0];
+            String expected = cases.get(i)[1];
+            long start = System.nanoTime();
+            List<Hit> hits = search(query, k);
+            nanos[i] = System.nanoTime() - start;
+            int rank = 0;
+            for (int r = 0; r < hits.size(); r++) {
+                String location = location(hits.get(r).chunk());
+                boolean match = expected.contains("#") ? location.equals(expected)
+                    : location.equals(expected) || location.startsWith(expected + "#");
+                if (match) {
+                    rank = r + 1;
+                    break;
+                }
+            }
+            if (rank == 1) top1++;
+            if (rank > 0) {
+                topK++;
+                reciprocalRanks += 1.0 / rank;
+            } else {
+                misses.add(query + "  (expected " + expected + ")");
+            }
+        }
+        Arrays.sort(nanos);
+
+        System.out.println("=== RAG retrieval evaluation ===");
+        System.out.println("Queries:  " + cases.size());
+        System.out.printf("hit@1:    %.3f%n", (double) top1 / cases.size());
+        System.out.printf("hit@%-2d    %.3f%n", k, (double) topK / cases.size());
+        System.out.printf("MRR@%-2d    %.3f%n", k, reciprocalRanks / cases.size());
+        System.out.printf("Latency:  p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+            percentile(nanos, 0.50) / 1e6, percentile(nanos, 0.99) / 1e6, nanos[nanos.length - 1] / 1e6);
+        if (!misses.isEmpty()) {
+            System.out.println("Not found in top " + k + ":");
+            for (String miss : misses) System.out.println("  " + miss);
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,553 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Phase 3e helper: index the data files bundled in the server JAR and infer
+ * the structure of its JSON assets.
+ *
+ * Usage: resource-index [--artifacts dir] [--include prefix,...] [--compress] <path-to-jar>
+ *
+ * Phase 1 only keeps class files; this scans every other entry. Entries are
+ * read straight out of the JAR in parallel, never extracted to disk, and JSON
+ * is consumed as a token stream: each file is reduced to a structural shape
+ * (types, properties, array items) without building its tree. The shapes of
+ * all JSON files in a directory are merged into one schema per asset
+ * directory, noting which properties every file has (required) and a few
+ * example values. Objects with very many distinct keys are treated as maps
+ * (additionalProperties) rather than listing every key.
+ *
+ * If artifacts/schemas/ exists ({@link CodecSchemaExtractor}), each directory
+ * is cross-referenced with the codec schema whose properties best match its
+ * files' keys, listing keys the codec does not know and required codec keys
+ * some files omit.
+ *
+ * Writes artifacts/resource-index.json.
+ */
+public class ResourceIndexer {
+
+    static final String OUTPUT_FILE = "resource-index.json";
+
+    /** Objects with more distinct keys than this at one position are maps. */
+    private static final int MAX_PROPERTIES = 64;
+    /** Distinct example values kept per string or number position. */
+    private static final int MAX_EXAMPLES = 5;
+    /** Example strings longer than this are not kept. */
+    private static final int MAX_EXAMPLE_LENGTH = 80;
+    /** Parse errors listed per directory. */
+    private static final int MAX_ERRORS = 10;
+    /** Key-set similarity below which no codec schema is reported for a directory. */
+    private static final double MIN_SCHEMA_MATCH = 0.3;
+
+    private final Path jarPath;
+    private final Path artifactsDir;
+    private final List<String> includes;
+    private final boolean compress;
+
+    ResourceIndexer(Path jarPath, Path artifactsDir, List<String> includes, boolean compress) {
+        this.jarPath = jarPath;
+        this.artifactsDir = artifactsDir;
+        this.includes = includes;
+        this.compress = compress;
+    }
+
+    public static void main(String[] args) {
+        Path artifactsDir = Path.of("artifacts");
+        List<String> includes = List.of("");
+        boolean compress = false;
+        String jar = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--artifacts") && i + 1 < args.length) {
+                artifactsDir = Path.of(args[++i]);
+            } else if (args[i].equals("--include") && i + 1 < args.length) {
+                includes = new ArrayList<>();
+                for (String prefix : args[++i].split(",")) {
+                    if (!prefix.isBlank()) includes.add(prefix.trim());
+                }
+            } else if (args[i].equals("--compress")) {
+                compress = true;
+            } else if (jar == null && !args[i].startsWith("--")) {
+                jar = args[i];
+            } else {
+                System.err.println("ERROR: Unexpected argument: " + args[i]);
+                System.exit(1);
+            }
+        }
+        if (jar == null) {
+            System.err.println("Usage: resource-index [--artifacts dir] [--include prefix,...] [--compress] <path-to-jar>");
+            System.err.println("  --include    Only index entries under these path prefixes (default: all)");
+            System.err.println("  --compress   Write resource-index.json.gz");
+            System.exit(1);
+        }
+        Path jarPath = Path.of(jar).toAbsolutePath().normalize();
+        if (!Files.isRegularFile(jarPath)) {
+            System.err.println("ERROR: File not found: " + jarPath);
+            System.exit(1);
+        }
+
+        try {
+            new ResourceIndexer(jarPath, artifactsDir.toAbsolutePath().normalize(), includes, compress).run();
+        } catch (Exception e) {
+            System.err.println("FATAL: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    void run() throws IOException, NoSuchAlgorithmException {
+        System.out.println("=== Resource index ===");
+        long start = System.nanoTime();
+        String jarHash = Main.computeSha256(jarPath);
+
+        List<ScannedFile> scanned;
+        int classFiles = 0;
+        try (JarFile jf = new JarFile(jarPath.toFile())) {
+            List<JarEntry> entries = new ArrayList<>();
+            for (JarEntry entry : Collections.list(jf.entries())) {
+                String name = entry.getName();
+                if (entry.isDirectory() || !isIncluded(name)) continue;
+                if (name.endsWith(".class")) {
+                    classFiles++;
+                } else if (!isJarMetadata(name)) {
+                    entries.add(entry);
+                }
+            }
+            System.out.println("Scanning " + entries.size() + " data entries (" + classFiles
+                + " class files skipped) in " + jarPath.getFileName());
+            // ZipFile serves concurrent readers; each stream inflates on its own thread
+            scanned = entries.parallelStream().map(entry -> scan(jf, entry)).toList();
+        }
+
+        Map<String, List<ScannedFile>> byDirectory = new TreeMap<>();
+        for (ScannedFile file : scanned) {
+            byDirectory.computeIfAbsent(directoryOf(file.name), k -> new ArrayList<>()).add(file);
+        }
+        List<CodecSchema> codecSchemas = loadCodecSchemas(artifactsDir.resolve("schemas"));
+
+        ResourceIndex output = new ResourceIndex();
+        output.version = "1.0.0";
+        output.generated_at = DateTimeFormatter.ISO_INSTANT.format(Instant.now().atOffset(ZoneOffset.UTC));
+        output.jar = jarPath.getFileName().toString();
+        output.jar_sha256 = jarHash;
+        output.include = includes;
+        output.kinds = new TreeMap<>();
+        output.directories = new ArrayList<>();
+        int matched = 0;
+        for (Map.Entry<String, List<ScannedFile>> e : byDirectory.entrySet()) {
+            ResourceDirectory dir = summarize(e.getKey(), e.getValue());
+            if (dir.schema != null && !codecSchemas.isEmpty()) {
+                dir.codec_schema = matchCodecSchema(dir.schema, codecSchemas);
+                if (dir.codec_schema != null) matched++;
+            }
+            output.directories.add(dir);
+            output.total_files += dir.files.size();
+            output.total_bytes += dir.bytes;
+            output.json_files += dir.json_files;
+            output.json_errors += dir.json_errors;
+            dir.kinds.forEach((kind, n) -> output.kinds.merge(kind, n, Integer::sum));
+        }
+        output.total_directories = output.directories.size();
+
+        Files.createDirectories(artifactsDir);
+        Path outputPath = ArtifactIO.target(artifactsDir.resolve(OUTPUT_FILE), compress);
+        ArtifactIO.writeJson(new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create(), output, outputPath);
+
+        System.out.printf("Indexed %d files (%d JSON, %d unparsable) in %d directories in %d ms%n",
+            output.total_files, output.json_files, output.json_errors, output.total_directories,
+            (System.nanoTime() - start) / 1_000_000);
+        if (!codecSchemas.isEmpty()) {
+            System.out.println("Matched " + matched + " directories to " + codecSchemas.size() + " codec schemas");
+        } else {
+            System.out.println("No codec schemas in " + artifactsDir.resolve("schemas")
+                + "; run codecSchemas first to cross-reference");
+        }
+        System.out.println("Written to: " + outputPath);
+    }
+
+    private boolean isIncluded(String name) {
+        for (String prefix : includes) {
+            if (name.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    /** Manifest, signatures and module descriptors are not resources. */
+    private static boolean isJarMetadata(String name) {
+        if (!name.startsWith("META-INF/")) return name.equals("module-info.class");
+        String upper = name.toUpperCase(Locale.ROOT);
+        return upper.equals("META-INF/MANIFEST.MF") || upper.endsWith(".SF") || upper.endsWith(".RSA")
+            || upper.endsWith(".DSA") || upper.endsWith(".EC") || upper.startsWith("META-INF/MAVEN/")
+            || upper.startsWith("META-INF/VERSIONS/");
+    }
+
+    // --- Scanning ---
+
+    private record ScannedFile(String name, String kind, long size, Shape shape, String error) {}
+
+    private static ScannedFile scan(JarFile jf, JarEntry entry) {
+        String name = entry.getName();
+        String kind = kindOf(name);
+        if (!kind.equals("json")) {
+            return new ScannedFile(name, kind, Math.max(entry.getSize(), 0), null, null);
+        }
+        try (InputStream in = jf.getInputStream(entry);
+             JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            // Asset files are hand-written; tolerate comments, unquoted names and single quotes
+            reader.setStrictness(Strictness.LENIENT);
+            Shape shape = Shape.read(reader);
+            return new ScannedFile(name, kind, Math.max(entry.getSize(), 0), shape, null);
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            String message = String.valueOf(e.getMessage());
+            int newline = message.indexOf('\n');
+            return new ScannedFile(name, kind, Math.max(entry.getSize(), 0), null,
+                newline < 0 ? message : message.substring(0, newline));
+        }
+    }
+
+    /** Lower-case extension, "none" without one. */
+    private static String kindOf(String name) {
+        String file = name.substring(name.lastIndexOf('/') + 1);
+        int dot = file.lastIndexOf('.');
+        return dot <= 0 ? "none" : file.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static String directoryOf(String name) {
+        int slash = name.lastIndexOf('/');
+        return slash < 0 ? "" : name.substring(0, slash + 1);
+    }
+
+    private static ResourceDirectory summarize(String path, List<ScannedFile> files) {
+        ResourceDirectory dir = new ResourceDirectory();
+        dir.path = path;
+        dir.kinds = new TreeMap<>();
+        dir.files = new ArrayList<>();
+        Shape merged = null;
+        List<ScannedFile> sorted = new ArrayList<>(files);
+        sorted.sort((a, b) -> a.name.compareTo(b.name));
+        for (ScannedFile file : sorted) {
+            dir.files.add(file.name.substring(path.length()));
+            dir.bytes += file.size;
+            dir.kinds.merge(file.kind, 1, Integer::sum);
+            if (!file.kind.equals("json")) continue;
+            dir.json_files++;
+            if (file.shape != null) {
+                merged = merged == null ? file.shape : merged.merge(file.shape);
+            } else {
+                dir.json_errors++;
+                if (dir.errors == null) dir.errors = new ArrayList<>();
+                if (dir.errors.size() < MAX_ERRORS) {
+                    dir.errors.add(file.name.substring(path.length()) + ": " + file.error);
+                }
+            }
+        }
+        if (merged != null) dir.schema = merged.toSchema();
+        return dir;
+    }
+
+    // --- Codec schema cross-reference ---
+
+    private record CodecSchema(String fqcn, String file, boolean asset, Set<String> keys, Set<String> required) {}
+
+    /** Top-level keys of every codec schema, including those inherited through allOf. */
+    private static List<CodecSchema> loadCodecSchemas(Path schemasDir) throws IOException {
+        Path indexPath = schemasDir.resolve("index.json");
+        if (!Files.isRegularFile(indexPath)) return List.of();
+        CodecSchemaExtractor.SchemaIndex index;
+        try (Reader reader = Files.newBufferedReader(indexPath)) {
+            index = new Gson().fromJson(reader, CodecSchemaExtractor.SchemaIndex.class);
+        }
+        Map<String, JsonObject> byFile = new HashMap<>();
+        for (CodecSchemaExtractor.SchemaEntry entry : index.schemas) {
+            Path file = schemasDir.resolve(entry.file);
+            if (!Files.isRegularFile(file)) continue;
+            try (Reader reader = Files.newBufferedReader(file)) {
+                byFile.put(entry.file, JsonParser.parseReader(reader).getAsJsonObject());
+            }
+        }
+        List<CodecSchema> schemas = new ArrayList<>();
+        for (CodecSchemaExtractor.SchemaEntry entry : index.schemas) {
+            Set<String> keys = new TreeSet<>();
+            Set<String> required = new TreeSet<>();
+            collectKeys(entry.file, byFile, keys, required, new HashSet<>());
+            if (!keys.isEmpty()) schemas.add(new CodecSchema(entry.fqcn, entry.file, entry.asset, keys, required));
+        }
+        return schemas;
+    }
+
+    private static void collectKeys(String file, Map<String, JsonObject> byFile, Set<String> keys,
+                                    Set<String> required, Set<String> seen) {
+        JsonObject schema = byFile.get(file);
+        if (schema == null || !seen.add(file)) return;
+        if (schema.has("properties")) keys.addAll(schema.getAsJsonObject("properties").keySet());
+        if (schema.has("required")) {
+            for (JsonElement key : schema.getAsJsonArray("required")) required.add(key.getAsString());
+        }
+        if (schema.has("allOf")) {
+            for (JsonElement part : schema.getAsJsonArray("allOf")) {
+                JsonElement ref = part.getAsJsonObject().get("$ref");
+                if (ref != null) collectKeys(ref.getAsString(), byFile, keys, required, seen);
+            }
+        }
+    }
+
+    /**
+     * The codec schema whose keys best match the directory's top-level keys
+     * (Jaccard index; asset codecs win ties), or null below {@link #MIN_SCHEMA_MATCH}.
+     */
+    private static CodecMatch matchCodecSchema(JsonObject schema, List<CodecSchema> codecSchemas) {
+        if (!schema.has("properties")) return null;
+        JsonObject properties = schema.getAsJsonObject("properties");
+        Set<String> keys = properties.keySet();
+        CodecSchema best = null;
+        double bestScore = 0;
+        for (CodecSchema candidate : codecSchemas) {
+            int common = 0;
+            for (String key : keys) {
+                if (candidate.keys().contains(key)) common++;
+            }
+            if (common == 0) continue;
+            double score = (double) common / (keys.size() + candidate.keys().size() - common);
+            if (score > bestScore || score == bestScore && best != null && candidate.asset() && !best.asset()) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        if (best == null || bestScore < MIN_SCHEMA_MATCH) return null;
+
+        CodecMatch match = new CodecMatch();
+        match.fqcn = best.fqcn();
+        match.schema = best.file();
+        match.score = Math.round(bestScore * 1000) / 1000.0;
+        match.unknown_keys = new ArrayList<>();
+        for (String key : keys) {
+            if (!best.keys().contains(key)) match.unknown_keys.add(key);
+        }
+        Set<String> alwaysPresent = new HashSet<>();
+        if (schema.has("required")) {
+            for (JsonElement key : schema.getAsJsonArray("required")) alwaysPresent.add(key.getAsString());
+        }
+        match.required_not_always_present = new ArrayList<>();
+        for (String key : best.required()) {
+            if (!alwaysPresent.contains(key)) match.required_not_always_present.add(key);
+        }
+        return match;
+    }
+
+    // --- Structural shapes ---
+
+    /**
+     * Structure of the JSON values seen at one position, merged over all
+     * occurrences: which types occurred, object properties with how often each
+     * was present, and the merged shape of array items.
+     */
+    static final class Shape {
+        int count;
+        final Set<String> types = new TreeSet<>();
+        /** Times the value was an object; a property present this often is required. */
+        int objects;
+        Map<String, Shape> properties = new TreeMap<>();
+        /** Merged value shape once the object turned out to be a map. */
+        Shape additional;
+        Shape items;
+        Set<JsonPrimitive> examples;
+
+        /** Read one JSON value from the stream into a new shape. */
+        static Shape read(JsonReader in) throws IOException {
+            Shape shape = new Shape();
+            shape.count = 1;
+            switch (in.peek()) {
+                case BEGIN_OBJECT -> {
+                    shape.types.add("object");
+                    shape.objects = 1;
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        String key = in.nextName();
+                        shape.addProperty(key, read(in));
+                    }
+                    in.endObject();
+                }
+                case BEGIN_ARRAY -> {
+                    shape.types.add("array");
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        Shape item = read(in);
+                        shape.items = shape.items == null ? item : shape.items.merge(item);
+                    }
+                    in.endArray();
+                }
+                case STRING -> {
+                    shape.types.add("string");
+                    String value = in.nextString();
+                    if (value.length() <= MAX_EXAMPLE_LENGTH) shape.addExample(new JsonPrimitive(value));
+                }
+                case NUMBER -> {
+                    String number = in.nextString();
+                    boolean integer = number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0;
+                    shape.types.add(integer ? "integer" : "number");
+                    shape.addExample(new JsonPrimitive(new BigDecimal(number)));
+                }
+                case BOOLEAN -> {
+                    in.nextBoolean();
+                    shape.types.add("boolean");
+                }
+                case NULL -> {
+                    in.nextNull();
+                    shape.types.add("null");
+                }
+                default -> throw new IllegalStateException("Unexpected JSON token " + in.peek());
+            }
+            return shape;
+        }
+
+        /** Merge another shape of the same position into this one; returns this. */
+        Shape merge(Shape other) {
+            count += other.count;
+            types.addAll(other.types);
+            objects += other.objects;
+            if (other.additional != null) {
+                toMap();
+                additional = additional == null ? other.additional : additional.merge(other.additional);
+            }
+            if (other.properties != null) {
+                other.properties.forEach(this::addProperty);
+            }
+            if (other.items != null) items = items == null ? other.items : items.merge(other.items);
+            if (other.examples != null) {
+                for (JsonPrimitive example : other.examples) addExample(example);
+            }
+            return this;
+        }
+
+        private void addProperty(String key, Shape value) {
+            if (properties == null) {
+                additional = additional == null ? value : additional.merge(value);
+                return;
+            }
+            Shape existing = properties.get(key);
+            properties.put(key, existing == null ? value : existing.merge(value));
+            if (properties.size() > MAX_PROPERTIES) toMap();
+        }
+
+        /** Too many distinct keys for a record: fold all values into one map value shape. */
+        private void toMap() {
+            if (properties == null) return;
+            for (Shape value : properties.values()) {
+                additional = additional == null ? value : additional.merge(value);
+            }
+            properties = null;
+        }
+
+        private void addExample(JsonPrimitive value) {
+            if (examples == null) examples = new LinkedHashSet<>();
+            if (examples.size() < MAX_EXAMPLES) examples.add(value);
+        }
+
+        /** JSON Schema (2020-12 vocabulary) for the shape, with occurrence counts as x-seen. */
+        JsonObject toSchema() {
+            JsonObject schema = new JsonObject();
+            if (types.size() == 1) {
+                schema.addProperty("type", types.iterator().next());
+            } else {
+                JsonArray typeList = new JsonArray();
+                types.forEach(typeList::add);
+                schema.add("type", typeList);
+            }
+            if (objects > 0) {
+                if (properties != null) {
+                    JsonObject props = new JsonObject();
+                    JsonArray required = new JsonArray();
+                    properties.forEach((key, value) -> {
+                        props.add(key, value.toSchema());
+                        if (value.count == objects) required.add(key);
+                    });
+                    schema.add("properties", props);
+                    if (!required.isEmpty()) schema.add("required", required);
+                } else if (additional != null) {
+                    schema.add("additionalProperties", additional.toSchema());
+                }
+            }
+            if (items != null) schema.add("items", items.toSchema());
+            if (examples != null) {
+                JsonArray list = new JsonArray();
+                examples.forEach(list::add);
+                schema.add("examples", list);
+            }
+            schema.addProperty("x-seen", count);
+            return schema;
+        }
+    }
+
+    // --- JSON output model ---
+
+    static class ResourceIndex {
+        String version;
+        String generated_at;
+        String jar;
+        String jar_sha256;
+        List<String> include;
+        int total_files;
+        long total_bytes;
+        int total_directories;
+        int json_files;
+        int json_errors;
+        Map<String, Integer> kinds;
+        List<ResourceDirectory> directories;
+    }
+
+    static class ResourceDirectory {
+        String path;
+        long bytes;
+        Map<String, Integer> kinds;
+        int json_files;
+        int json_errors;
+        // Only when some JSON could not be parsed
+        List<String> errors;
+        // Merged schema of all parsed JSON files; absent without JSON
+        JsonObject schema;
+        // Best-matching codec schema from artifacts/schemas/, if any
+        CodecMatch codec_schema;
+        List<String> files;
+    }
+
+    static class CodecMatch {
+        String fqcn;
+        String schema;
+        double score;
+        List<String> unknown_keys;
+        List<String> required_not_always_present;
+    }
+}
@@ -0,0 +1,333 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-to-end scaling benchmark over synthetic JARs of increasing size.
+ *
+ * Usage: scaling-benchmark [--sizes 1000,3000,10000,30000,100000] [--heap 4g]
+ *                          [--indexer-flags "--pipelined --fast-parse"]
+ *                          [--out artifacts/scaling-benchmark.json]
+ *                          [--baseline previous.json] [--tolerance 0.25] [--keep dir]
+ *
+ * For each size a {@link SyntheticJarGenerator} JAR is placed at
+ * size-N/input/HytaleServer.jar, then Phase 1 ({@link Main}) and Phase 2
+ * ({@link SurfaceClassifier}) each run in a fresh JVM with the given heap, so
+ * peak heap and JIT warm-up are measured per phase and per size. Timings come
+ * from the artifacts/metrics.json the phases write themselves.
+ *
+ * Prints throughput (classes/s), peak heap and stage times per phase, and the
+ * scaling exponent between successive sizes: 1.0 is linear, 2.0 quadratic.
+ * With --baseline, a phase whose throughput drops or peak heap grows by more
+ * than the tolerance at any size common to both runs is reported as a
+ * regression and the benchmark exits with status 3.
+ */
+public class ScalingBenchmark {
+
+    private static final Gson GSON = new GsonBuilder()
+        .setPrettyPrinting()
+        .disableHtmlEscaping()
+        .create();
+
+    private static final String[] PHASES = {"phase1", "phase2"};
+
+    public static void main(String[] args) {
+        List<Integer> sizes = List.of(1000, 3000, 10000, 30000, 100000);
+        String heap = "4g";
+        List<String> indexerFlags = List.of();
+        Path out = Path.of("artifacts", "scaling-benchmark.json");
+        Path baseline = null;
+        double tolerance = 0.25;
+        Path keep = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--sizes" -> sizes = Arrays.stream(value.split(",")).map(String::trim).map(Integer::valueOf).toList();
+                case "--heap" -> heap = value;
+                case "--indexer-flags" -> indexerFlags = Arrays.stream(value.trim().split("\\s+"))
+                    .filter(s -> !s.isEmpty()).toList();
+                case "--out" -> out = Path.of(value);
+                case "--baseline" -> baseline = Path.of(value);
+                case "--tolerance" -> tolerance = Double.parseDouble(value);
+                case "--keep" -> keep = Path.of(value);
+                default -> usage("Unexpected argument: " + arg);
+            }
+        }
+        if (baseline != null && !Files.isRegularFile(baseline)) {
+            System.err.println("ERROR: Baseline not found: " + baseline.toAbsolutePath());
+            System.exit(1);
+        }
+
+        try {
+            Path workDir = keep != null ? Files.createDirectories(keep.toAbsolutePath())
+                : Files.createTempDirectory("hytale-scaling-bench-");
+            BenchmarkReport report;
+            try {
+                report = run(workDir, sizes, heap, indexerFlags);
+            } finally {
+                if (keep == null) DecompileScheduler.deleteRecursively(workDir);
+            }
+
+            Path outPath = out.toAbsolutePath();
+            if (outPath.getParent() != null) Files.createDirectories(outPath.getParent());
+            Files.writeString(outPath, GSON.toJson(report));
+            System.out.println("Written to: " + outPath);
+
+            if (baseline != null) {
+                BenchmarkReport previous;
+                try (Reader reader = Files.newBufferedReader(baseline)) {
+                    previous = GSON.fromJson(reader, BenchmarkReport.class);
+                }
+                List<String> regressions = compare(previous, report, tolerance);
+                System.out.println();
+                System.out.printf("=== Comparison with %s (tolerance %.0f%%) ===%n", baseline, tolerance * 100);
+                if (regressions.isEmpty()) {
+                    System.out.println("  No regressions");
+                } else {
+                    regressions.forEach(r -> System.out.println("  REGRESSION: " + r));
+                    System.exit(3);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("FATAL: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    private static void usage(String error) {
+        System.err.println("ERROR: " + error);
+        System.err.println("Usage: scaling-benchmark [--sizes n,n,...] [--heap 4g] [--indexer-flags \"...\"]");
+        System.err.println("                         [--out artifacts/scaling-benchmark.json] [--baseline previous.json]");
+        System.err.println("                         [--tolerance 0.25] [--keep dir]");
+        System.exit(1);
+    }
+
+    private static BenchmarkReport run(Path workDir, List<Integer> sizes, String heap,
+                                       List<String> indexerFlags) throws IOException {
+        BenchmarkReport report = new BenchmarkReport();
+        report.version = "1.0.0";
+        report.generated_at = DateTimeFormatter.ISO_INSTANT.format(Instant.now().atOffset(ZoneOffset.UTC));
+        report.java_version = System.getProperty("java.version");
+        report.processors = Runtime.getRuntime().availableProcessors();
+        report.heap = heap;
+        report.indexer_flags = indexerFlags;
+        report.results = new ArrayList<>();
+
+        for (int size : sizes.stream().sorted().toList()) {
+            System.out.println();
+            System.out.println("=== " + size + " classes ===");
+            SizeResult result = runSize(workDir.resolve("size-" + size), size, heap, indexerFlags);
+            report.results.add(result);
+            if (result.error != null) {
+                System.err.println("WARN: " + result.error + "; skipping larger sizes");
+                break;
+            }
+        }
+
+        // Scaling exponents against the previous size: log(t2/t1) / log(n2/n1)
+        for (int i = 1; i < report.results.size(); i++) {
+            SizeResult prev = report.results.get(i - 1);
+            SizeResult cur = report.results.get(i);
+            for (String phase : PHASES) {
+                PhaseResult a = prev.phases.get(phase);
+                PhaseResult b = cur.phases.get(phase);
+                if (a == null || b == null || a.wall_ms <= 0 || b.wall_ms <= 0) continue;
+                b.scaling_exponent = round(Math.log((double) b.wall_ms / a.wall_ms)
+                    / Math.log((double) cur.classes / prev.classes), 2);
+            }
+        }
+
+        printTable(report);
+        return report;
+    }
+
+    private static SizeResult runSize(Path sizeDir, int size, String heap, List<String> indexerFlags)
+            throws IOException {
+        SizeResult result = new SizeResult();
+        result.phases = new LinkedHashMap<>();
+        Path jar = sizeDir.resolve("input").resolve("HytaleServer.jar");
+
+        long start = System.nanoTime();
+        SyntheticJarGenerator.Summary summary = new SyntheticJarGenerator(size).generate(size, jar);
+        result.generate_ms = (System.nanoTime() - start) / 1_000_000;
+        result.classes = summary.classes();
+        result.top_level = summary.topLevel();
+        result.jar_mb = round(summary.bytes() / (1024.0 * 1024.0), 1);
+        System.out.println("  Generated " + summary);
+
+        List<String> phase1 = new ArrayList<>(indexerFlags);
+        phase1.add(jar.toString());
+        Path artifacts = sizeDir.resolve("artifacts");
+        String[][] runs = {
+            {"phase1", Main.class.getName()},
+            {"phase2", SurfaceClassifier.class.getName()}
+        };
+        for (String[] run : runs) {
+            List<String> runArgs = run[0].equals("phase1") ? phase1
+                : List.of(artifacts.resolve("class-index.json").toString());
+            Path log = sizeDir.resolve(run[0] + ".log");
+            System.out.println("  Running " + run[0] + "...");
+            long phaseStart = System.nanoTime();
+            int exit = runChild(sizeDir, heap, run[1], runArgs, log);
+            long processMs = (System.nanoTime() - phaseStart) / 1_000_000;
+            if (exit != 0) {
+                result.error = run[0] + " exited with status " + exit + " at " + size + " classes (see " + log + ")";
+                return result;
+            }
+            PhaseResult phase = readPhase(artifacts.resolve("metrics.json"), run[0], result.classes);
+            phase.process_wall_ms = processMs;
+            result.phases.put(run[0], phase);
+        }
+        return result;
+    }
+
+    private static int runChild(Path dir, String heap, String mainClass, List<String> args, Path log)
+            throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new ArrayList<>(List.of(
+            java,
+            "-Xmx" + heap,
+            "-XX:+ExitOnOutOfMemoryError",
+            "-cp", System.getProperty("java.class.path"),
+            mainClass));
+        command.addAll(args);
+
+        Process process = new ProcessBuilder(command)
+            .directory(dir.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(log.toFile())
+            .start();
+        try {
+            return process.waitFor();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + mainClass, e);
+        }
+    }
+
+    private static PhaseResult readPhase(Path metricsPath, String phase, int classes) throws IOException {
+        PipelineMetrics.MetricsFile metrics;
+        try (Reader reader = Files.newBufferedReader(metricsPath)) {
+            metrics = GSON.fromJson(reader, PipelineMetrics.MetricsFile.class);
+        }
+        PipelineMetrics.PhaseMetrics m = metrics.phases == null ? null : metrics.phases.get(phase);
+        if (m == null) {
+            throw new IOException("No " + phase + " section in " + metricsPath);
+        }
+        PhaseResult result = new PhaseResult();
+        result.wall_ms = m.wall_ms;
+        result.cpu_ms = m.process_cpu_ms;
+        result.peak_heap_mb = m.peak_heap_mb;
+        result.classes_per_sec = m.wall_ms > 0 ? round(classes * 1000.0 / m.wall_ms, 1) : 0;
+        result.stages = new LinkedHashMap<>();
+        if (m.stages != null) {
+            for (PipelineMetrics.StageMetrics stage : m.stages) {
+                result.stages.merge(stage.name, stage.wall_ms, Long::sum);
+            }
+        }
+        return result;
+    }
+
+    private static void printTable(BenchmarkReport report) {
+        System.out.println();
+        System.out.println("=== Scaling (heap " + report.heap + ", " + report.processors + " processors) ===");
+        System.out.printf("  %-8s %8s %8s %10s %10s %8s %6s%n",
+            "phase", "classes", "wall s", "classes/s", "peak MB", "cpu s", "exp");
+        for (String phase : PHASES) {
+            for (SizeResult r : report.results) {
+                PhaseResult p = r.phases.get(phase);
+                if (p == null) continue;
+                System.out.printf("  %-8s %8d %8.2f %10.0f %10.0f %8.2f %6s%n",
+                    phase, r.classes, p.wall_ms / 1000.0, p.classes_per_sec, p.peak_heap_mb,
+                    p.cpu_ms / 1000.0, p.scaling_exponent == null ? "-" : String.format("%.2f", p.scaling_exponent));
+            }
+        }
+    }
+
+    /** Throughput and peak heap regressions of the current run against a baseline, by size and phase. */
+    private static List<String> compare(BenchmarkReport baseline, BenchmarkReport current, double tolerance) {
+        Map<Integer, SizeResult> previous = new LinkedHashMap<>();
+        for (SizeResult r : baseline.results) previous.put(r.classes, r);
+
+        List<String> regressions = new ArrayList<>();
+        for (SizeResult cur : current.results) {
+            SizeResult prev = previous.get(cur.classes);
+            if (prev == null) continue;
+            for (String phase : PHASES) {
+                PhaseResult a = prev.phases == null ? null : prev.phases.get(phase);
+                PhaseResult b = cur.phases.get(phase);
+                if (a == null) continue;
+                if (b == null) {
+                    regressions.add(String.format("%s at %d classes: no longer completes (%s)",
+                        phase, cur.classes, cur.error));
+                    continue;
+                }
+                if (b.classes_per_sec < a.classes_per_sec * (1 - tolerance)) {
+                    regressions.add(String.format("%s at %d classes: %.0f classes/s, baseline %.0f",
+                        phase, cur.classes, b.classes_per_sec, a.classes_per_sec));
+                }
+                if (b.peak_heap_mb > a.peak_heap_mb * (1 + tolerance)) {
+                    regressions.add(String.format("%s at %d classes: peak heap %.0f MB, baseline %.0f MB",
+                        phase, cur.classes, b.peak_heap_mb, a.peak_heap_mb));
+                }
+            }
+        }
+        return regressions;
+    }
+
+    private static double round(double value, int places) {
+        double scale = Math.pow(10, places);
+        return Math.round(value * scale) / scale;
+    }
+
+    // --- JSON output model classes ---
+
+    static class BenchmarkReport {
+        String version;
+        String generated_at;
+        String java_version;
+        int processors;
+        String heap;
+        List<String> indexer_flags;
+        List<SizeResult> results;
+    }
+
+    static class SizeResult {
+        int classes;
+        int top_level;
+        double jar_mb;
+        long generate_ms;
+        Map<String, PhaseResult> phases;
+        String error;
+    }
+
+    static class PhaseResult {
+        long wall_ms;
+        long process_wall_ms;
+        long cpu_ms;
+        double peak_heap_mb;
+        double classes_per_sec;
+        Double scaling_exponent;
+        Map<String, Long> stages;
+    }
+}
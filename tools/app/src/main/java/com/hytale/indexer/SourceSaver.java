@@ -0,0 +1,65 @@
+package com.hytale.indexer;
+
+import org.jetbrains.java.decompiler.main.extern.IResultSaver;
+
+import java.util.jar.Manifest;
+
+/**
+ * Adapter between Vineflower's result callbacks and our own source sinks.
+ *
+ * Vineflower reports every decompiled class of an archive through
+ * {@link #saveClassEntry}. Subclasses only see the top-level class FQCN and its
+ * source text; folders, manifests and copied resources are ignored because the
+ * index never needs them.
+ *
+ * Vineflower calls the saver from its worker threads, so implementations must
+ * be thread-safe.
+ */
+public abstract class SourceSaver implements IResultSaver {
+
+    /**
+     * Receive the decompiled source of one top-level class (inner classes are
+     * part of the same source text).
+     *
+     * @param fqcn    dotted FQCN of the top-level class, e.g. "com.hypixel.hytale.Foo"
+     * @param content decompiled Java source
+     */
+    protected abstract void saveSource(String fqcn, String content);
+
+    @Override
+    public void saveClassEntry(String path, String archiveName, String qualifiedName,
+                               String entryName, String content) {
+        if (content == null || qualifiedName == null) return; // Vineflower failed on this class
+        saveSource(qualifiedName.replace('/', '.'), content);
+    }
+
+    @Override
+    public void saveClassFile(String path, String qualifiedName, String entryName,
+                              String content, int[] mapping) {
+        if (content == null || qualifiedName == null) return;
+        saveSource(qualifiedName.replace('/', '.'), content);
+    }
+
+    @Override
+    public void saveFolder(String path) {}
+
+    @Override
+    public void copyFile(String source, String path, String entryName) {}
+
+    @Override
+    public void createArchive(String path, String archiveName, Manifest manifest) {}
+
+    @Override
+    public void saveDirEntry(String path, String archiveName, String entryName) {}
+
+    @Override
+    public void copyEntry(String source, String path, String archiveName, String entry) {}
+
+    @Override
+    public void closeArchive(String path, String archiveName) {}
+
+    /** Relative source path for a top-level FQCN, e.g. "com/hypixel/hytale/Foo.java". */
+    static String sourcePathFor(String fqcn) {
+        return fqcn.replace('.', '/') + ".java";
+    }
+}
@@ -0,0 +1,419 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.hytale.indexer.TypeNameResolver.Scope;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Renders the structural sections of type pages (declaration, type
+ * hierarchy, method and field tables) straight from class-index.json and
+ * surface.json, so Phase 4 only has to write the prose around them.
+ *
+ * Usage: structural-renderer [--artifacts dir] [--docs dir] [--create-missing] [--adopt]
+ *
+ * The rendered block sits between {@code <!-- structural:begin -->} and
+ * {@code <!-- structural:end -->} markers; anything outside the markers is
+ * never touched. Pages are handled as follows:
+ *   page with markers      the block is re-rendered in place
+ *   page without markers   left alone; with --adopt the block is inserted
+ *                          before the page's "## Related" section
+ *   no page yet            with --create-missing a page is created with
+ *                          frontmatter and the block (events under api/events,
+ *                          components under api/components, the rest under
+ *                          api/classes)
+ *
+ * Rendering is deterministic and a page is only rewritten when its content
+ * changes, so re-running on an unchanged index writes nothing. Type names
+ * link to their page when one exists (link rule 1) and are inline code
+ * otherwise.
+ */
+public class StructuralRenderer {
+
+    static final String BEGIN_MARKER = "<!-- structural:begin -->";
+    static final String END_MARKER = "<!-- structural:end -->";
+
+    /** Page directory per surface category; everything else goes to api/classes. */
+    private static final Map<String, String> CATEGORY_DIRS = Map.of(
+        "event", "api/events",
+        "component", "api/components"
+    );
+    private static final String DEFAULT_DIR = "api/classes";
+    private static final int MAX_SUBTYPES = 25;
+
+    public static void main(String[] args) {
+        Path artifactsDir = Path.of("artifacts");
+        Path docsDir = Path.of("output", "docs");
+        boolean createMissing = false;
+        boolean adopt = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--artifacts") && i + 1 < args.length) {
+                artifactsDir = Path.of(args[++i]);
+            } else if (args[i].equals("--docs") && i + 1 < args.length) {
+                docsDir = Path.of(args[++i]);
+            } else if (args[i].equals("--create-missing")) {
+                createMissing = true;
+            } else if (args[i].equals("--adopt")) {
+                adopt = true;
+            } else {
+                System.err.println("ERROR: Unexpected argument: " + args[i]);
+                System.err.println("Usage: structural-renderer [--artifacts dir] [--docs dir] [--create-missing] [--adopt]");
+                System.exit(1);
+            }
+        }
+        artifactsDir = artifactsDir.toAbsolutePath();
+        docsDir = docsDir.toAbsolutePath();
+        if (!Files.isDirectory(docsDir)) {
+            System.err.println("ERROR: Docs directory not found: " + docsDir);
+            System.exit(1);
+        }
+
+        try {
+            new StructuralRenderer(artifactsDir, docsDir).run(createMissing, adopt);
+        } catch (Exception e) {
+            System.err.println("FATAL: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    private enum Outcome { CREATED, UPDATED, UNCHANGED, UNMANAGED, SKIPPED }
+
+    /** A surface type and the page that documents (or will document) it. */
+    private record Target(ClassIndexer.ClassEntry entry, String category, String page, boolean exists) {}
+
+    private final Path docsDir;
+    private final Map<String, ClassIndexer.ClassEntry> types = new HashMap<>();
+    private final Map<String, List<String>> subtypes = new HashMap<>();      // fqcn -> direct subtypes
+    private final Map<String, String> surface = new TreeMap<>();             // fqcn -> category
+    private final Map<String, String> pages = new HashMap<>();               // fqcn -> page path
+    private final TypeNameResolver resolver;
+
+    public StructuralRenderer(Path artifactsDir, Path docsDir) throws IOException {
+        this.docsDir = docsDir;
+        Gson gson = new GsonBuilder().create();
+
+        Path indexPath = ArtifactIO.find(artifactsDir.resolve("class-index.json"));
+        if (!Files.isRegularFile(indexPath)) {
+            throw new IOException("class-index.json not found in " + artifactsDir + "; run Phase 1 first");
+        }
+        try (Reader reader = ArtifactIO.newReader(indexPath)) {
+            for (ClassIndexer.ClassEntry entry : gson.fromJson(reader, ClassIndexer.ClassIndex.class).classes) {
+                types.put(entry.fqcn, entry);
+            }
+        }
+        resolver = new TypeNameResolver(types.values());
+        for (ClassIndexer.ClassEntry entry : types.values()) {
+            List<String> supertypes = new ArrayList<>();
+            if (entry.superclass != null) supertypes.add(entry.superclass);
+            if (entry.interfaces != null) supertypes.addAll(entry.interfaces);
+            for (String supertype : supertypes) {
+                String resolved = resolver.resolve(supertype, supertypeScope(entry));
+                if (resolved != null) subtypes.computeIfAbsent(resolved, k -> new ArrayList<>()).add(entry.fqcn);
+            }
+        }
+
+        Path surfacePath = ArtifactIO.find(artifactsDir.resolve("surface.json"));
+        if (!Files.isRegularFile(surfacePath)) {
+            throw new IOException("surface.json not found in " + artifactsDir + "; run Phase 2 first");
+        }
+        try (Reader reader = ArtifactIO.newReader(surfacePath)) {
+            for (SurfaceClassifier.SurfaceType t : gson.fromJson(reader, SurfaceClassifier.SurfaceOutput.class).types) {
+                surface.put(t.fqcn, t.category == null ? "" : t.category);
+            }
+        }
+    }
+
+    public void run(boolean createMissing, boolean adopt) throws IOException {
+        System.out.println("=== Phase 4: Structural Sections ===");
+        long start = System.nanoTime();
+
+        for (Path file : DocPage.listPages(docsDir)) {
+            DocPage page = DocPage.read(docsDir, file);
+            String fqcn = page.documentedFqcn();
+            if (fqcn != null && types.containsKey(fqcn)) pages.putIfAbsent(fqcn, page.relativePath);
+        }
+
+        // Every page path is settled before rendering, so links to new pages resolve
+        List<Target> targets = new ArrayList<>();
+        Map<String, String> owners = new HashMap<>(); // page path -> fqcn
+        pages.forEach((fqcn, page) -> owners.put(page, fqcn));
+        int notIndexed = 0;
+        for (Map.Entry<String, String> s : surface.entrySet()) {
+            ClassIndexer.ClassEntry entry = types.get(s.getKey());
+            if (entry == null) {
+                notIndexed++;
+                continue;
+            }
+            String existing = pages.get(entry.fqcn);
+            if (existing != null) {
+                targets.add(new Target(entry, s.getValue(), existing, true));
+                continue;
+            }
+            if (!createMissing) continue;
+            String planned = CATEGORY_DIRS.getOrDefault(s.getValue(), DEFAULT_DIR) + "/" + pageName(entry) + ".md";
+            String owner = owners.putIfAbsent(planned, entry.fqcn);
+            if (owner != null) {
+                System.err.println("WARN: " + planned + " already documents " + owner + "; no page for " + entry.fqcn);
+                continue;
+            }
+            pages.put(entry.fqcn, planned);
+            targets.add(new Target(entry, s.getValue(), planned, false));
+        }
+        if (notIndexed > 0) {
+            System.err.println("WARN: " + notIndexed + " surface types are not in class-index.json");
+        }
+
+        String timestamp = DateTimeFormatter.ISO_INSTANT.format(Instant.now().atOffset(ZoneOffset.UTC));
+        Map<Outcome, Long> outcomes = targets.parallelStream()
+            .map(target -> {
+                try {
+                    return renderPage(target, adopt, timestamp);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot render " + target.page(), e);
+                }
+            })
+            .collect(Collectors.groupingBy(Function.identity(), () -> new EnumMap<>(Outcome.class),
+                Collectors.counting()));
+
+        System.out.printf("Pages: %d created, %d updated, %d unchanged, %d without markers%n",
+            outcomes.getOrDefault(Outcome.CREATED, 0L), outcomes.getOrDefault(Outcome.UPDATED, 0L),
+            outcomes.getOrDefault(Outcome.UNCHANGED, 0L), outcomes.getOrDefault(Outcome.UNMANAGED, 0L));
+        System.out.printf("Done in %d ms%n", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private Outcome renderPage(Target target, boolean adopt, String timestamp) throws IOException {
+        Path file = docsDir.resolve(target.page());
+        String block = renderBlock(target);
+
+        if (!target.exists()) {
+            Files.createDirectories(file.getParent());
+            ArtifactIO.writeAtomically(file, newPage(target, timestamp) + block + "\n");
+            return Outcome.CREATED;
+        }
+
+        String content = Files.readString(file);
+        String updated;
+        int begin = content.indexOf(BEGIN_MARKER);
+        int end = begin < 0 ? -1 : content.indexOf(END_MARKER, begin);
+        if (begin >= 0 && end >= 0) {
+            updated = content.substring(0, begin) + block + content.substring(end + END_MARKER.length());
+        } else if (begin >= 0) {
+            System.err.println("WARN: " + target.page() + " has no " + END_MARKER + "; left unchanged");
+            return Outcome.SKIPPED;
+        } else if (adopt) {
+            int related = content.startsWith("## Related") ? 0 : content.indexOf("\n## Related");
+            updated = related < 0
+                ? content.stripTrailing() + "\n\n" + block + "\n"
+                : content.substring(0, related).stripTrailing() + "\n\n" + block + "\n\n" + content.substring(related).stripLeading();
+        } else {
+            return Outcome.UNMANAGED;
+        }
+
+        if (updated.equals(content)) return Outcome.UNCHANGED;
+        ArtifactIO.writeAtomically(file, updated);
+        return Outcome.UPDATED;
+    }
+
+    // --- Rendering ---
+
+    private String newPage(Target target, String timestamp) {
+        ClassIndexer.ClassEntry entry = target.entry();
+        String kind = CATEGORY_DIRS.containsKey(target.category()) ? target.category() : entry.kind;
+        StringBuilder sb = new StringBuilder();
+        sb.append("---\n");
+        sb.append("title: \"").append(pageName(entry)).append("\"\n");
+        sb.append("kind: \"").append(kind).append("\"\n");
+        sb.append("package: \"").append(entry.package_).append("\"\n");
+        sb.append("fqcn: \"").append(entry.fqcn).append("\"\n");
+        sb.append("api_surface: \"public\"\n");
+        sb.append("generator_version: \"1.0.0\"\n");
+        sb.append("generated_at: \"").append(timestamp).append("\"\n");
+        sb.append("---\n\n");
+        sb.append("> Package: `").append(entry.package_).append("`\n\n");
+        return sb.toString();
+    }
+
+    /** The managed block, markers included. */
+    private String renderBlock(Target target) {
+        ClassIndexer.ClassEntry entry = target.entry();
+        String dir = LinkAuditor.parentOf(target.page());
+        Scope scope = memberScope(entry);
+        StringBuilder sb = new StringBuilder();
+        sb.append(BEGIN_MARKER).append("\n\n");
+        sb.append("```java\n").append(declaration(entry)).append("\n```\n\n");
+
+        sb.append("## Type Hierarchy\n\n");
+        appendHierarchy(sb, entry, dir);
+
+        List<ClassIndexer.MethodEntry> methods = entry.methods == null ? List.of()
+            : entry.methods.stream().filter(m -> ApiSignatures.isApi(m.modifiers)).toList();
+        List<ClassIndexer.FieldEntry> fields = entry.fields == null ? List.of()
+            : entry.fields.stream().filter(f -> ApiSignatures.isApi(f.modifiers)).toList();
+
+        if (target.category().equals("event")) {
+            sb.append("\n## Fields / Accessors\n\n");
+            List<ClassIndexer.MethodEntry> accessors = methods.stream()
+                .filter(m -> !has(m.modifiers, "static")).toList();
+            if (accessors.isEmpty()) {
+                sb.append("This event declares no accessors.\n");
+            } else {
+                sb.append("| Accessor | Return Type |\n|----------|-------------|\n");
+                for (ClassIndexer.MethodEntry m : accessors) {
+                    sb.append("| `").append(ApiSignatures.methodKey(m)).append("` | ")
+                        .append(typeRef(m.return_type, scope, dir)).append(" |\n");
+                }
+            }
+            methods = methods.stream().filter(m -> has(m.modifiers, "static")).toList();
+        }
+        if (target.category().equals("component")) {
+            List<ClassIndexer.FieldEntry> data = fields.stream().filter(f -> !has(f.modifiers, "static")).toList();
+            sb.append("\n## Data\n\n");
+            if (data.isEmpty()) {
+                sb.append("This component declares no data fields.\n");
+            } else {
+                appendFieldTable(sb, data, scope, dir);
+            }
+            fields = fields.stream().filter(f -> has(f.modifiers, "static")).toList();
+        }
+
+        if (!methods.isEmpty()) {
+            sb.append("\n## Methods\n\n");
+            sb.append("| Method | Returns | Modifiers |\n|--------|---------|-----------|\n");
+            for (ClassIndexer.MethodEntry m : methods) {
+                sb.append("| `").append(ApiSignatures.methodKey(m)).append("` | ")
+                    .append(typeRef(m.return_type, scope, dir)).append(" | ")
+                    .append(modifiers(m.modifiers)).append(" |\n");
+            }
+        }
+        if (!fields.isEmpty()) {
+            sb.append("\n## Fields\n\n");
+            appendFieldTable(sb, fields, scope, dir);
+        }
+        sb.append('\n').append(END_MARKER);
+        return sb.toString();
+    }
+
+    private void appendFieldTable(StringBuilder sb, List<ClassIndexer.FieldEntry> fields, Scope scope, String dir) {
+        sb.append("| Field | Type | Modifiers |\n|-------|------|-----------|\n");
+        for (ClassIndexer.FieldEntry f : fields) {
+            sb.append("| `").append(f.name).append("` | ")
+                .append(typeRef(f.type, scope, dir)).append(" | ")
+                .append(modifiers(f.modifiers)).append(" |\n");
+        }
+    }
+
+    private static String declaration(ClassIndexer.ClassEntry entry) {
+        StringBuilder sb = new StringBuilder();
+        if (entry.modifiers != null) {
+            for (String m : entry.modifiers) sb.append(m).append(' ');
+        }
+        sb.append(entry.kind.equals("annotation") ? "@interface" : entry.kind).append(' ').append(entry.name);
+        if (entry.type_parameters != null && !entry.type_parameters.isEmpty()) {
+            sb.append('<').append(String.join(", ", entry.type_parameters)).append('>');
+        }
+        if (entry.superclass != null && !entry.superclass.equals("java.lang.Object") && !entry.superclass.equals("Object")) {
+            sb.append(" extends ").append(entry.superclass);
+        }
+        if (entry.interfaces != null && !entry.interfaces.isEmpty()) {
+            sb.append(entry.kind.equals("interface") ? " extends " : " implements ")
+                .append(String.join(", ", entry.interfaces));
+        }
+        return sb.toString();
+    }
+
+    /** Superclass chain down to the type, then its direct subtypes. */
+    private void appendHierarchy(StringBuilder sb, ClassIndexer.ClassEntry entry, String dir) {
+        List<String> chain = new ArrayList<>();  // rendered ancestors, nearest first
+        if (!entry.kind.equals("interface") && !entry.kind.equals("annotation")) {
+            ClassIndexer.ClassEntry current = entry;
+            while (chain.size() < 20) {
+                String superclass = current.superclass == null ? "java.lang.Object" : current.superclass;
+                String resolved = resolver.resolve(superclass, supertypeScope(current));
+                if (resolved == null || resolved.equals(current.fqcn)) {
+                    chain.add("`" + TypeNameResolver.erasure(superclass) + "`");
+                    break;
+                }
+                chain.add(link(resolved, "`" + resolved + "`", dir));
+                current = types.get(resolved);
+            }
+        }
+
+        String indent = "";
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            sb.append(indent).append("- ").append(chain.get(i)).append('\n');
+            indent += "  ";
+        }
+        sb.append(indent).append("- **`").append(entry.fqcn).append("`**\n");
+        List<String> children = subtypes.getOrDefault(entry.fqcn, List.of()).stream()
+            .sorted(Comparator.comparing(TypeNameResolver::simpleName).thenComparing(Comparator.naturalOrder()))
+            .toList();
+        for (int i = 0; i < children.size() && i < MAX_SUBTYPES; i++) {
+            String child = children.get(i);
+            sb.append(indent).append("  - ").append(link(child, "`" + TypeNameResolver.simpleName(child) + "`", dir)).append('\n');
+        }
+        if (children.size() > MAX_SUBTYPES) {
+            sb.append(indent).append("  - ... and ").append(children.size() - MAX_SUBTYPES).append(" more\n");
+        }
+    }
+
+    /** Name of a type within its package; nested types keep their outer names (Outer.Inner). */
+    private String pageName(ClassIndexer.ClassEntry entry) {
+        int dot = entry.fqcn.lastIndexOf('.');
+        ClassIndexer.ClassEntry outer = dot < 0 ? null : types.get(entry.fqcn.substring(0, dot));
+        return outer == null ? entry.name : pageName(outer) + "." + entry.name;
+    }
+
+    /** A type as written in a signature, linked to its page when it has one. */
+    private String typeRef(String type, Scope scope, String dir) {
+        if (type == null) return "`void`";
+        String resolved = resolver.resolve(type, scope);
+        return resolved == null ? "`" + type + "`" : link(resolved, "`" + type + "`", dir);
+    }
+
+    private String link(String fqcn, String text, String dir) {
+        String page = pages.get(fqcn);
+        return page == null ? text : "[" + text + "](" + LinkAuditor.relativeLink(dir, page) + ")";
+    }
+
+    /**
+     * Scope of member signatures, where the type's own nested types are
+     * visible. class-index.json keeps no imports, so names resolve through
+     * nesting, the package and unique simple names.
+     */
+    private static Scope memberScope(ClassIndexer.ClassEntry entry) {
+        return new Scope(entry.package_ == null ? "" : entry.package_, Set.of(), Set.of(), entry.fqcn);
+    }
+
+    /** Scope of a type's extends and implements clauses, which are outside its body. */
+    private Scope supertypeScope(ClassIndexer.ClassEntry entry) {
+        String pkg = entry.package_ == null ? "" : entry.package_;
+        return new Scope(pkg, Set.of(), Set.of(), resolver.enclosing(entry.fqcn));
+    }
+
+    private static String modifiers(List<String> modifiers) {
+        return modifiers == null || modifiers.isEmpty() ? "" : "`" + String.join(" ", modifiers) + "`";
+    }
+
+    private static boolean has(List<String> modifiers, String modifier) {
+        return modifiers != null && modifiers.contains(modifier);
+    }
+}
@@ -0,0 +1,620 @@
+package com.hytale.indexer;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.RecordComponentVisitor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Generates signature-only Java source for a class straight from its bytecode.
+ *
+ * Used when Vineflower cannot (or should not) decompile a class: the stub keeps
+ * the package, type header, generic signatures, annotations, fields, method
+ * signatures and member types, so ClassIndexer produces the same kind of entry
+ * it would for real decompiled source. Method bodies are left empty.
+ *
+ * Parameter names follow Vineflower's slot-based "varN" convention unless the
+ * class file carries a MethodParameters attribute.
+ */
+public class StubGenerator {
+
+    // Not SKIP_DEBUG: ASM counts MethodParameters as debug information
+    private static final int PARSE_FLAGS = ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES;
+
+    /**
+     * Generate stub source for a top-level class and its member classes.
+     *
+     * @param outerName internal name of the top-level class, e.g. "com/hypixel/hytale/Foo"
+     * @param unit      class bytes of the top-level class and its nested classes, keyed by internal name
+     * @param reason    why the class was stubbed; recorded in a header comment
+     */
+    public static String generate(String outerName, Map<String, byte[]> unit, String reason) {
+        Map<String, ClassModel> models = new HashMap<>();
+        Map<String, String> sourceNames = new HashMap<>();
+        for (Map.Entry<String, byte[]> e : unit.entrySet()) {
+            ClassModel model = new ClassModel();
+            new ClassReader(e.getValue()).accept(model, PARSE_FLAGS);
+            models.put(model.name, model);
+        }
+        // InnerClasses entries give the true source name of every referenced nested class
+        for (ClassModel model : models.values()) {
+            for (InnerClass ic : model.innerClasses) {
+                if (ic.outerName() != null && ic.innerName() != null) {
+                    sourceNames.put(ic.name(), ic.outerName() + "$" + ic.innerName());
+                }
+            }
+        }
+
+        ClassModel outer = models.get(outerName);
+        if (outer == null) {
+            throw new IllegalArgumentException("Unit does not contain " + outerName);
+        }
+
+        int slash = outerName.lastIndexOf('/');
+        String pkg = slash < 0 ? "" : outerName.substring(0, slash).replace('/', '.');
+        Names names = new Names(pkg, simpleName(outerName), sourceNames);
+
+        StringBuilder body = new StringBuilder();
+        writeClass(body, outer, outer.access, models, names, "");
+
+        StringBuilder out = new StringBuilder();
+        if (!pkg.isEmpty()) {
+            out.append("package ").append(pkg).append(";\n\n");
+        }
+        for (String imp : names.imports()) {
+            out.append("import ").append(imp).append(";\n");
+        }
+        if (!names.imports().isEmpty()) out.append('\n');
+        out.append("// $stub: ").append(reason).append(". Signatures generated from bytecode; bodies omitted.\n");
+        out.append(body);
+        return out.toString();
+    }
+
+    // --- Source writing ---
+
+    private static void writeClass(StringBuilder sb, ClassModel cls, int access,
+                                   Map<String, ClassModel> models, Names names, String indent) {
+        boolean isInterface = (cls.access & Opcodes.ACC_INTERFACE) != 0;
+        boolean isAnnotation = (cls.access & Opcodes.ACC_ANNOTATION) != 0;
+        boolean isEnum = (cls.access & Opcodes.ACC_ENUM) != 0;
+        boolean isRecord = "java/lang/Record".equals(cls.superName) && !cls.recordComponents.isEmpty();
+        String simple = names.simpleOf(cls.name);
+
+        for (String ann : cls.annotations) {
+            sb.append(indent).append('@').append(names.ofDescriptorClass(ann)).append('\n');
+        }
+        sb.append(indent).append(classModifiers(access, isInterface, isEnum, isRecord));
+        if (isAnnotation) {
+            sb.append("@interface ");
+        } else if (isInterface) {
+            sb.append("interface ");
+        } else if (isEnum) {
+            sb.append("enum ");
+        } else if (isRecord) {
+            sb.append("record ");
+        } else {
+            sb.append("class ");
+        }
+        sb.append(simple);
+
+        List<String> interfaces = new ArrayList<>();
+        String superclass = null;
+        boolean plainClass = !isInterface && !isEnum && !isRecord;
+        if (cls.signature != null) {
+            SignatureParser sp = new SignatureParser(cls.signature, names);
+            sb.append(sp.typeParameters());
+            superclass = sp.type();
+            while (sp.hasMore()) interfaces.add(sp.type());
+        } else {
+            if (plainClass && cls.superName != null) superclass = names.ofInternal(cls.superName);
+            if (!isAnnotation) {
+                // java.lang.annotation.Annotation is implicit for @interface
+                for (String iface : cls.interfaces) interfaces.add(names.ofInternal(iface));
+            }
+        }
+
+        if (isRecord) {
+            sb.append('(');
+            for (int i = 0; i < cls.recordComponents.size(); i++) {
+                String[] rc = cls.recordComponents.get(i);
+                if (i > 0) sb.append(", ");
+                String type = rc[2] != null
+                    ? new SignatureParser(rc[2], names).type()
+                    : new SignatureParser(rc[1], names).type();
+                sb.append(type).append(' ').append(rc[0]);
+            }
+            sb.append(')');
+        }
+
+        if (plainClass && superclass != null && !superclass.equals("Object")) {
+            sb.append(" extends ").append(superclass);
+        }
+        if (!interfaces.isEmpty()) {
+            sb.append(isInterface ? " extends " : " implements ").append(String.join(", ", interfaces));
+        }
+        sb.append(" {\n");
+
+        String memberIndent = indent + "    ";
+        if (isEnum) {
+            List<String> constants = new ArrayList<>();
+            for (FieldModel f : cls.fields) {
+                if ((f.access & Opcodes.ACC_ENUM) != 0) constants.add(f.name);
+            }
+            sb.append(memberIndent).append(String.join(",\n" + memberIndent, constants)).append(";\n");
+        }
+
+        for (FieldModel f : cls.fields) {
+            if ((f.access & Opcodes.ACC_SYNTHETIC) != 0) continue;
+            if (isEnum && (f.access & Opcodes.ACC_ENUM) != 0) continue;
+            if (isRecord && (f.access & Opcodes.ACC_STATIC) == 0) continue; // implicit component fields
+            for (String ann : f.annotations) {
+                sb.append(memberIndent).append('@').append(names.ofDescriptorClass(ann)).append('\n');
+            }
+            String type = new SignatureParser(f.signature != null ? f.signature : f.descriptor, names).type();
+            sb.append(memberIndent).append(fieldModifiers(f.access, isInterface))
+                .append(type).append(' ').append(f.name).append(";\n");
+        }
+
+        for (MethodModel m : cls.methods) {
+            if ((m.access & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) != 0) continue;
+            if (m.name.equals("<clinit>")) continue;
+            if (isEnum && (m.name.equals("values") && m.descriptor.startsWith("()")
+                    || m.name.equals("valueOf") && m.descriptor.startsWith("(Ljava/lang/String;)"))) continue;
+            if (isRecord && isImplicitRecordMember(cls, m)) continue;
+            sb.append('\n');
+            writeMethod(sb, cls, m, simple, isInterface, isEnum, names, memberIndent, access);
+        }
+
+        for (InnerClass ic : cls.innerClasses) {
+            if (!cls.name.equals(ic.outerName()) || ic.innerName() == null) continue;
+            ClassModel inner = models.get(ic.name());
+            if (inner == null) continue;
+            sb.append('\n');
+            writeClass(sb, inner, ic.access(), models, names, memberIndent);
+        }
+
+        sb.append(indent).append("}\n");
+    }
+
+    private static void writeMethod(StringBuilder sb, ClassModel cls, MethodModel m, String simple,
+                                    boolean isInterface, boolean isEnum, Names names, String indent,
+                                    int classAccess) {
+        boolean isStatic = (m.access & Opcodes.ACC_STATIC) != 0;
+        boolean isAbstract = (m.access & Opcodes.ACC_ABSTRACT) != 0;
+        boolean isConstructor = m.name.equals("<init>");
+
+        SignatureParser sp = new SignatureParser(m.signature != null ? m.signature : m.descriptor, names);
+        String typeParams = sp.typeParameters();
+        List<String> params = sp.parameters();
+        String returnType = sp.type();
+        List<String> thrown = new ArrayList<>();
+        while (sp.hasMore()) thrown.add(sp.type());
+        if (thrown.isEmpty()) {
+            for (String ex : m.exceptions) thrown.add(names.ofInternal(ex));
+        }
+
+        // Descriptor-only constructors carry implicit leading parameters that source never shows
+        if (isConstructor && m.signature == null) {
+            boolean innerInstance = cls.name.contains("$") && (classAccess & Opcodes.ACC_STATIC) == 0
+                && !isEnum && !isInterface;
+            int implicit = isEnum ? 2 : innerInstance ? 1 : 0;
+            params = params.subList(Math.min(implicit, params.size()), params.size());
+        }
+
+        for (String ann : m.annotations) {
+            sb.append(indent).append('@').append(names.ofDescriptorClass(ann)).append('\n');
+        }
+        sb.append(indent).append(methodModifiers(m.access, isInterface));
+        if (!typeParams.isEmpty()) sb.append(typeParams).append(' ');
+        if (isConstructor) {
+            sb.append(simple);
+        } else {
+            sb.append(returnType).append(' ').append(m.name);
+        }
+
+        sb.append('(');
+        int slot = isStatic ? 0 : 1;
+        // MethodParameters also names the implicit leading parameters dropped above
+        int firstName = Math.max(0, m.parameterNames.size() - params.size());
+        for (int i = 0; i < params.size(); i++) {
+            String type = params.get(i);
+            if (i > 0) sb.append(", ");
+            if (i == params.size() - 1 && (m.access & Opcodes.ACC_VARARGS) != 0 && type.endsWith("[]")) {
+                type = type.substring(0, type.length() - 2) + "...";
+            }
+            int nameIndex = firstName + i;
+            String name = nameIndex < m.parameterNames.size() && m.parameterNames.get(nameIndex) != null
+                ? m.parameterNames.get(nameIndex)
+                : "var" + slot;
+            sb.append(type).append(' ').append(name);
+            slot += type.equals("long") || type.equals("double") ? 2 : 1;
+        }
+        sb.append(')');
+        if (!thrown.isEmpty()) sb.append(" throws ").append(String.join(", ", thrown));
+
+        if (isAbstract || (m.access & Opcodes.ACC_NATIVE) != 0) {
+            sb.append(";\n");
+        } else {
+            sb.append(" {\n").append(indent).append("}\n");
+        }
+    }
+
+    /**
+     * Canonical constructor, accessors and the generated equals/hashCode/toString
+     * of a record. Explicit versions look the same in bytecode and are dropped too.
+     */
+    private static boolean isImplicitRecordMember(ClassModel cls, MethodModel m) {
+        StringBuilder components = new StringBuilder("(");
+        for (String[] rc : cls.recordComponents) {
+            components.append(rc[1]);
+            if (m.name.equals(rc[0]) && m.descriptor.equals("()" + rc[1])) return true;
+        }
+        components.append(")V");
+        if (m.name.equals("<init>")) return m.descriptor.equals(components.toString());
+        return (m.access & Opcodes.ACC_FINAL) != 0
+            && (m.name.equals("toString") && m.descriptor.equals("()Ljava/lang/String;")
+                || m.name.equals("hashCode") && m.descriptor.equals("()I")
+                || m.name.equals("equals") && m.descriptor.equals("(Ljava/lang/Object;)Z"));
+    }
+
+    private static String classModifiers(int access, boolean isInterface, boolean isEnum, boolean isRecord) {
+        StringBuilder sb = new StringBuilder();
+        if ((access & Opcodes.ACC_PUBLIC) != 0) sb.append("public ");
+        if ((access & Opcodes.ACC_PROTECTED) != 0) sb.append("protected ");
+        if ((access & Opcodes.ACC_PRIVATE) != 0) sb.append("private ");
+        boolean plainClass = !isInterface && !isEnum && !isRecord;
+        if (plainClass && (access & Opcodes.ACC_ABSTRACT) != 0) sb.append("abstract ");
+        if (plainClass && (access & Opcodes.ACC_STATIC) != 0) sb.append("static ");
+        if (plainClass && (access & Opcodes.ACC_FINAL) != 0) sb.append("final ");
+        return sb.toString();
+    }
+
+    private static String fieldModifiers(int access, boolean inInterface) {
+        if (inInterface) return ""; // implicitly public static final
+        StringBuilder sb = new StringBuilder();
+        if ((access & Opcodes.ACC_PUBLIC) != 0) sb.append("public ");
+        if ((access & Opcodes.ACC_PROTECTED) != 0) sb.append("protected ");
+        if ((access & Opcodes.ACC_PRIVATE) != 0) sb.append("private ");
+        if ((access & Opcodes.ACC_STATIC) != 0) sb.append("static ");
+        if ((access & Opcodes.ACC_FINAL) != 0) sb.append("final ");
+        if ((access & Opcodes.ACC_TRANSIENT) != 0) sb.append("transient ");
+        if ((access & Opcodes.ACC_VOLATILE) != 0) sb.append("volatile ");
+        return sb.toString();
+    }
+
+    private static String methodModifiers(int access, boolean inInterface) {
+        StringBuilder sb = new StringBuilder();
+        boolean isAbstract = (access & Opcodes.ACC_ABSTRACT) != 0;
+        boolean isStatic = (access & Opcodes.ACC_STATIC) != 0;
+        if (!inInterface && (access & Opcodes.ACC_PUBLIC) != 0) sb.append("public ");
+        if ((access & Opcodes.ACC_PROTECTED) != 0) sb.append("protected ");
+        if ((access & Opcodes.ACC_PRIVATE) != 0) sb.append("private ");
+        if (!inInterface && isAbstract) sb.append("abstract ");
+        if (inInterface && !isAbstract && !isStatic && (access & Opcodes.ACC_PRIVATE) == 0) sb.append("default ");
+        if (isStatic) sb.append("static ");
+        if ((access & Opcodes.ACC_FINAL) != 0) sb.append("final ");
+        if ((access & Opcodes.ACC_SYNCHRONIZED) != 0) sb.append("synchronized ");
+        if ((access & Opcodes.ACC_NATIVE) != 0) sb.append("native ");
+        return sb.toString();
+    }
+
+    private static String simpleName(String internalName) {
+        return internalName.substring(internalName.lastIndexOf('/') + 1);
+    }
+
+    // --- Name rendering and imports ---
+
+    /**
+     * Turns internal names into source names, importing top-level classes by
+     * simple name where that is unambiguous and falling back to FQCNs otherwise.
+     */
+    static final class Names {
+        private final String pkg;
+        private final String ownSimpleName;
+        private final Map<String, String> sourceNames; // nested binary name -> Outer$Inner with true split
+        private final Map<String, String> importsBySimple = new TreeMap<>();
+
+        Names(String pkg, String ownSimpleName, Map<String, String> sourceNames) {
+            this.pkg = pkg;
+            this.ownSimpleName = ownSimpleName;
+            this.sourceNames = sourceNames;
+        }
+
+        List<String> imports() {
+            return new ArrayList<>(new java.util.TreeSet<>(importsBySimple.values()));
+        }
+
+        /** Simple source name of a class, e.g. "Inner" for "a/b/Outer$Inner". */
+        String simpleOf(String internalName) {
+            String resolved = resolveNesting(internalName);
+            int split = Math.max(resolved.lastIndexOf('$'), resolved.lastIndexOf('/'));
+            return resolved.substring(split + 1);
+        }
+
+        /** Annotation/field descriptors like "Ljavax/annotation/Nonnull;". */
+        String ofDescriptorClass(String descriptor) {
+            return ofInternal(descriptor.substring(1, descriptor.length() - 1));
+        }
+
+        String ofInternal(String internalName) {
+            String resolved = resolveNesting(internalName);
+            int slash = resolved.lastIndexOf('/');
+            String classPkg = slash < 0 ? "" : resolved.substring(0, slash).replace('/', '.');
+            String nested = resolved.substring(slash + 1); // Outer$Inner
+            int dollar = nested.indexOf('$');
+            String top = dollar < 0 ? nested : nested.substring(0, dollar);
+            String rendered = nested.replace('$', '.');
+            String topFqcn = classPkg.isEmpty() ? top : classPkg + "." + top;
+
+            if (classPkg.equals(pkg) && !top.equals(ownSimpleName)) return rendered;
+            if (classPkg.equals(pkg)) return rendered;
+            if (top.equals(ownSimpleName)) return classPkg + "." + rendered; // would shadow ourselves
+            if (classPkg.equals("java.lang") && !importsBySimple.containsKey(top)) return rendered;
+
+            String existing = importsBySimple.get(top);
+            if (existing == null) {
+                importsBySimple.put(top, topFqcn);
+                return rendered;
+            }
+            return existing.equals(topFqcn) ? rendered : classPkg + "." + rendered;
+        }
+
+        private String resolveNesting(String internalName) {
+            String known = sourceNames.get(internalName);
+            if (known == null) return internalName;
+            int dollar = known.lastIndexOf('$');
+            return resolveNesting(known.substring(0, dollar)) + known.substring(dollar);
+        }
+    }
+
+    /**
+     * Recursive-descent reader for JVM descriptors and generic signatures
+     * (JVMS 4.3 and 4.7.9.1), producing Java source syntax.
+     */
+    static final class SignatureParser {
+        private final String s;
+        private final Names names;
+        private int pos;
+
+        SignatureParser(String signature, Names names) {
+            this.s = signature;
+            this.names = names;
+        }
+
+        boolean hasMore() {
+            if (pos < s.length() && s.charAt(pos) == '^') pos++;
+            return pos < s.length();
+        }
+
+        /** Optional formal type parameters, e.g. "<T extends Comparable<T>>" or "". */
+        String typeParameters() {
+            if (pos >= s.length() || s.charAt(pos) != '<') return "";
+            pos++;
+            List<String> params = new ArrayList<>();
+            while (s.charAt(pos) != '>') {
+                int colon = s.indexOf(':', pos);
+                String name = s.substring(pos, colon);
+                pos = colon;
+                List<String> bounds = new ArrayList<>();
+                while (pos < s.length() && s.charAt(pos) == ':') {
+                    pos++;
+                    if (s.charAt(pos) == ':') continue; // empty class bound, interface bound follows
+                    String bound = type();
+                    if (!bound.equals("Object")) bounds.add(bound);
+                }
+                params.add(bounds.isEmpty() ? name : name + " extends " + String.join(" & ", bounds));
+            }
+            pos++;
+            return "<" + String.join(", ", params) + ">";
+        }
+
+        /** Method parameter list: consumes "(...)". */
+        List<String> parameters() {
+            List<String> params = new ArrayList<>();
+            pos++; // (
+            while (s.charAt(pos) != ')') params.add(type());
+            pos++; // )
+            return params;
+        }
+
+        String type() {
+            char c = s.charAt(pos++);
+            switch (c) {
+                case 'B': return "byte";
+                case 'C': return "char";
+                case 'D': return "double";
+                case 'F': return "float";
+                case 'I': return "int";
+                case 'J': return "long";
+                case 'S': return "short";
+                case 'Z': return "boolean";
+                case 'V': return "void";
+                case '[': return type() + "[]";
+                case 'T': {
+                    int end = s.indexOf(';', pos);
+                    String name = s.substring(pos, end);
+                    pos = end + 1;
+                    return name;
+                }
+                case 'L': return classType();
+                default: throw new IllegalArgumentException("Bad signature at " + (pos - 1) + ": " + s);
+            }
+        }
+
+        private String classType() {
+            StringBuilder internal = new StringBuilder();
+            StringBuilder args = new StringBuilder();
+            List<String> innerArgs = new ArrayList<>(); // type arguments per nesting level
+            while (true) {
+                char c = s.charAt(pos);
+                if (c == '<') {
+                    pos++;
+                    List<String> typeArgs = new ArrayList<>();
+                    while (s.charAt(pos) != '>') typeArgs.add(typeArgument());
+                    pos++;
+                    args.setLength(0);
+                    args.append('<').append(String.join(", ", typeArgs)).append('>');
+                } else if (c == '.' || c == ';') {
+                    innerArgs.add(args.toString());
+                    args.setLength(0);
+                    pos++;
+                    if (c == ';') break;
+                    internal.append('$');
+                } else {
+                    internal.append(c);
+                    pos++;
+                }
+            }
+
+            String rendered = names.ofInternal(internal.toString());
+            if (innerArgs.stream().allMatch(String::isEmpty)) return rendered;
+            // Re-attach type arguments to their nesting level: Outer<A>.Inner<B>
+            String[] parts = rendered.split("\\.");
+            int levels = innerArgs.size();
+            int firstLevel = parts.length - levels;
+            StringBuilder out = new StringBuilder();
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) out.append('.');
+                out.append(parts[i]);
+                int level = i - firstLevel;
+                if (level >= 0) out.append(innerArgs.get(level));
+            }
+            return out.toString();
+        }
+
+        private String typeArgument() {
+            char c = s.charAt(pos);
+            if (c == '*') {
+                pos++;
+                return "?";
+            }
+            if (c == '+') {
+                pos++;
+                return "? extends " + type();
+            }
+            if (c == '-') {
+                pos++;
+                return "? super " + type();
+            }
+            return type();
+        }
+    }
+
+    // --- Bytecode model ---
+
+    private record InnerClass(String name, String outerName, String innerName, int access) {}
+
+    private static final class FieldModel {
+        int access;
+        String name;
+        String descriptor;
+        String signature;
+        final List<String> annotations = new ArrayList<>();
+    }
+
+    private static final class MethodModel {
+        int access;
+        String name;
+        String descriptor;
+        String signature;
+        List<String> exceptions = List.of();
+        final List<String> annotations = new ArrayList<>();
+        final List<String> parameterNames = new ArrayList<>();
+    }
+
+    private static final class ClassModel extends ClassVisitor {
+        int access;
+        String name;
+        String signature;
+        String superName;
+        List<String> interfaces = List.of();
+        final List<String> annotations = new ArrayList<>();
+        final List<FieldModel> fields = new ArrayList<>();
+        final List<MethodModel> methods = new ArrayList<>();
+        final List<InnerClass> innerClasses = new ArrayList<>();
+        final List<String[]> recordComponents = new ArrayList<>(); // name, descriptor, signature
+
+        ClassModel() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature,
+                          String superName, String[] interfaces) {
+            this.access = access;
+            this.name = name;
+            this.signature = signature;
+            this.superName = superName;
+            this.interfaces = interfaces == null ? List.of() : List.of(interfaces);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            annotations.add(descriptor);
+            return null;
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            innerClasses.add(new InnerClass(name, outerName, innerName, access));
+        }
+
+        @Override
+        public RecordComponentVisitor visitRecordComponent(String name, String descriptor, String signature) {
+            recordComponents.add(new String[] {name, descriptor, signature});
+            return null;
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor,
+                                       String signature, Object value) {
+            FieldModel f = new FieldModel();
+            f.access = access;
+            f.name = name;
+            f.descriptor = descriptor;
+            f.signature = signature;
+            fields.add(f);
+            return new FieldVisitor(Opcodes.ASM9) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                    f.annotations.add(desc);
+                    return null;
+                }
+            };
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor,
+                                         String signature, String[] exceptions) {
+            MethodModel m = new MethodModel();
+            m.access = access;
+            m.name = name;
+            m.descriptor = descriptor;
+            m.signature = signature;
+            m.exceptions = exceptions == null ? List.of() : List.of(exceptions);
+            methods.add(m);
+            return new MethodVisitor(Opcodes.ASM9) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                    m.annotations.add(desc);
+                    return null;
+                }
+
+                @Override
+                public void visitParameter(String paramName, int paramAccess) {
+                    m.parameterNames.add((paramAccess & Opcodes.ACC_SYNTHETIC) != 0
+                        || (paramAccess & Opcodes.ACC_MANDATED) != 0 ? null : paramName);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Which seeds pull each type into the API surface.
+ *
+ * Usage: surface-attribution [--artifacts dir] <command>
+ *   explain <type>             seeds that reach the type
+ *   what-if-remove <seed> ...  types that leave (or re-enter) the surface
+ *                              if the given seeds are dropped
+ *   seeds                      per seed: types reached, and types reached
+ *                              by no other seed
+ * Types and seeds may be given as FQCNs or unambiguous simple names.
+ *
+ * Phase 2 runs one multi-source reachability pass over the reference graph
+ * built during expansion: every type gets a bitset of the seeds that reach
+ * it, propagated along the edges until nothing changes. The bitsets are
+ * written to surface-attribution.json. Since reachability from a set of
+ * seeds is the union of each seed's reachability, a type survives removing
+ * some seeds exactly when another bit is still set. Queries therefore need
+ * no re-classification. Protocol types that Phase 2 removed as duplicates
+ * are stored with the types they duplicate, and stay removed while one of
+ * those is still reached.
+ */
+public class SurfaceAttribution {
+
+    static final String ATTRIBUTION_FILE = "surface-attribution.json";
+
+    private final List<String> seeds;
+    private final List<String> seedReasons;
+    private final Map<String, BitSet> reach;   // every expanded type, including de-duplicated ones
+    private final Set<String> surface;
+    private final Map<String, List<String>> duplicateOf; // protocol duplicate -> types it duplicates
+
+    private SurfaceAttribution(List<String> seeds, List<String> seedReasons, Map<String, BitSet> reach,
+                               Set<String> surface, Map<String, List<String>> duplicateOf) {
+        this.seeds = seeds;
+        this.seedReasons = seedReasons;
+        this.reach = reach;
+        this.surface = surface;
+        this.duplicateOf = duplicateOf;
+    }
+
+    /**
+     * Propagate seed bits along the reference graph.
+     *
+     * @param allSeeds   seed FQCN -> inclusion reason, in seed order
+     * @param references expanded type -> types its API references; only keys are traversed
+     * @param surface    final surface, after de-duplication
+     * @param duplicateOf protocol types removed by de-duplication -> the types they duplicate
+     */
+    static SurfaceAttribution compute(Map<String, String> allSeeds, Map<String, List<String>> references,
+                                      Set<String> surface, Map<String, List<String>> duplicateOf) {
+        List<String> nodes = new ArrayList<>(new TreeSet<>(references.keySet()));
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) ids.put(nodes.get(i), i);
+        int[][] successors = new int[nodes.size()][];
+        for (int i = 0; i < nodes.size(); i++) {
+            successors[i] = references.get(nodes.get(i)).stream()
+                .filter(ids::containsKey).mapToInt(ids::get).distinct().toArray();
+        }
+
+        List<String> seeds = new ArrayList<>();
+        List<String> reasons = new ArrayList<>();
+        BitSet[] bits = new BitSet[nodes.size()];
+        for (int i = 0; i < bits.length; i++) bits[i] = new BitSet();
+        Deque<Integer> worklist = new ArrayDeque<>();
+        boolean[] queued = new boolean[nodes.size()];
+        for (Map.Entry<String, String> seed : allSeeds.entrySet()) {
+            Integer id = ids.get(seed.getKey());
+            if (id == null) continue; // not in the index, external or excluded
+            bits[id].set(seeds.size());
+            seeds.add(seed.getKey());
+            reasons.add(seed.getValue());
+            if (!queued[id]) {
+                queued[id] = true;
+                worklist.add(id);
+            }
+        }
+
+        BitSet added = new BitSet();
+        while (!worklist.isEmpty()) {
+            int u = worklist.poll();
+            queued[u] = false;
+            for (int v : successors[u]) {
+                added.clear();
+                added.or(bits[u]);
+                added.andNot(bits[v]);
+                if (added.isEmpty()) continue;
+                bits[v].or(added);
+                if (!queued[v]) {
+                    queued[v] = true;
+                    worklist.add(v);
+                }
+            }
+        }
+
+        Map<String, BitSet> reach = new TreeMap<>();
+        for (int i = 0; i < nodes.size(); i++) reach.put(nodes.get(i), bits[i]);
+        return new SurfaceAttribution(seeds, reasons, reach, new HashSet<>(surface), new HashMap<>(duplicateOf));
+    }
+
+    int seedCount() {
+        return seeds.size();
+    }
+
+    /** Seeds that were expanded, in seed order. */
+    List<String> seeds() {
+        return seeds;
+    }
+
+    // --- Queries ---
+
+    /** Seeds that reach the type, in seed order. */
+    List<String> seedsReaching(String fqcn) {
+        BitSet bits = reach.get(fqcn);
+        List<String> result = new ArrayList<>();
+        if (bits == null) return result;
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) result.add(seeds.get(i));
+        return result;
+    }
+
+    /** The surface as Phase 2 would produce it without the given seeds. */
+    Set<String> surfaceWithout(Set<String> removedSeeds) {
+        return deduplicateProtocolTypes(reachedWithout(removedSeeds));
+    }
+
+    /** Expanded types still reached by some seed once the given seeds are dropped. */
+    Set<String> reachedWithout(Set<String> removedSeeds) {
+        BitSet removed = new BitSet();
+        for (int i = 0; i < seeds.size(); i++) {
+            if (removedSeeds.contains(seeds.get(i))) removed.set(i);
+        }
+        Set<String> reached = new HashSet<>();
+        for (Map.Entry<String, BitSet> e : reach.entrySet()) {
+            BitSet remaining = (BitSet) e.getValue().clone();
+            remaining.andNot(removed);
+            if (!remaining.isEmpty()) reached.add(e.getKey());
+        }
+        return reached;
+    }
+
+    /**
+     * Re-apply Phase 2's protocol de-duplication decisions: a type it removed
+     * stays removed while a type it duplicates is still reached. Removing seeds
+     * only shrinks the surface, so no other type can become a duplicate.
+     */
+    private Set<String> deduplicateProtocolTypes(Set<String> types) {
+        Set<String> result = new HashSet<>();
+        for (String fqcn : types) {
+            if (surface.contains(fqcn)) {
+                result.add(fqcn);
+                continue;
+            }
+            List<String> originals = duplicateOf.get(fqcn);
+            // Without a record (older attribution files) keep the Phase 2 decision
+            if (originals != null && originals.stream().noneMatch(types::contains)) {
+                result.add(fqcn);
+            }
+        }
+        return result;
+    }
+
+    // --- Persistence ---
+
+    /** Write surface-attribution.json (or its .gz variant) to the given file. */
+    void write(Gson gson, Path file, String timestamp) throws IOException {
+        AttributionOutput output = new AttributionOutput();
+        output.version = "1.0.0";
+        output.generated_at = timestamp;
+        output.seeds = new ArrayList<>();
+        for (int i = 0; i < seeds.size(); i++) {
+            SeedRef ref = new SeedRef();
+            ref.fqcn = seeds.get(i);
+            ref.reason = seedReasons.get(i);
+            output.seeds.add(ref);
+        }
+        output.types = new ArrayList<>();
+        Base64.Encoder base64 = Base64.getEncoder();
+        for (Map.Entry<String, BitSet> e : reach.entrySet()) {
+            TypeAttribution t = new TypeAttribution();
+            t.fqcn = e.getKey();
+            t.in_surface = surface.contains(e.getKey());
+            t.seed_count = e.getValue().cardinality();
+            t.seed_bits = base64.encodeToString(e.getValue().toByteArray());
+            t.duplicate_of = duplicateOf.get(e.getKey());
+            output.types.add(t);
+        }
+        ArtifactIO.writeJson(gson, output, file);
+    }
+
+    static SurfaceAttribution load(Path file) throws IOException {
+        AttributionOutput output;
+        try (Reader reader = ArtifactIO.newReader(ArtifactIO.find(file))) {
+            output = new GsonBuilder().create().fromJson(reader, AttributionOutput.class);
+        }
+        List<String> seeds = new ArrayList<>();
+        List<String> reasons = new ArrayList<>();
+        for (SeedRef ref : output.seeds) {
+            seeds.add(ref.fqcn);
+            reasons.add(ref.reason);
+        }
+        Map<String, BitSet> reach = new TreeMap<>();
+        Set<String> surface = new HashSet<>();
+        Map<String, List<String>> duplicateOf = new HashMap<>();
+        Base64.Decoder base64 = Base64.getDecoder();
+        for (TypeAttribution t : output.types) {
+            reach.put(t.fqcn, BitSet.valueOf(base64.decode(t.seed_bits)));
+            if (t.in_surface) surface.add(t.fqcn);
+            if (t.duplicate_of != null) duplicateOf.put(t.fqcn, t.duplicate_of);
+        }
+        return new SurfaceAttribution(seeds, reasons, reach, surface, duplicateOf);
+    }
+
+    // --- CLI ---
+
+    public static void main(String[] args) {
+        Path artifactsDir = Path.of("artifacts");
+        List<String> rest = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--artifacts") && i + 1 < args.length) {
+                artifactsDir = Path.of(args[++i]);
+            } else {
+                rest.add(args[i]);
+            }
+        }
+        String command = rest.isEmpty() ? "" : rest.get(0);
+        boolean valid = (command.equals("explain") && rest.size() == 2)
+            || (command.equals("what-if-remove") && rest.size() >= 2)
+            || (command.equals("seeds") && rest.size() == 1);
+        if (!valid) {
+            System.err.println("Usage: surface-attribution [--artifacts dir] "
+                + "<explain <type> | what-if-remove <seed> ... | seeds>");
+            System.exit(1);
+        }
+        Path file = artifactsDir.toAbsolutePath().resolve(ATTRIBUTION_FILE);
+        if (!ArtifactIO.exists(file)) {
+            System.err.println("ERROR: File not found: " + file + " (run Phase 2 first)");
+            System.exit(1);
+        }
+
+        try {
+            SurfaceAttribution attribution = load(file);
+            List<String> names = rest.subList(1, rest.size());
+            switch (command) {
+                case "explain" -> attribution.printExplain(names.get(0));
+                case "what-if-remove" -> attribution.printWhatIfRemove(names);
+                default -> attribution.printSeeds();
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("FATAL: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    private void printExplain(String name) {
+        String fqcn = lookup(name, reach.keySet());
+        List<String> reaching = seedsReaching(fqcn);
+        System.out.println(fqcn + (surface.contains(fqcn) ? "" : " (reached, but removed as a protocol duplicate)"));
+        System.out.println("Reached from " + reaching.size() + " of " + seeds.size() + " seeds:");
+        for (String seed : reaching) {
+            System.out.println("  " + seed + "  [" + seedReasons.get(seeds.indexOf(seed)) + "]");
+        }
+        if (reaching.size() == 1) {
+            System.out.println("Removing that seed removes this type from the surface.");
+        }
+    }
+
+    private void printWhatIfRemove(List<String> names) {
+        Set<String> removed = new TreeSet<>();
+        for (String name : names) {
+            removed.add(lookup(name, new HashSet<>(seeds)));
+        }
+        Set<String> after = surfaceWithout(removed);
+        Set<String> leaving = new TreeSet<>(surface);
+        leaving.removeAll(after);
+        Set<String> entering = new TreeSet<>(after);
+        entering.removeAll(surface);
+
+        System.out.println("Without " + String.join(", ", removed) + ":");
+        System.out.println("Surface: " + surface.size() + " -> " + after.size() + " types");
+        for (String fqcn : leaving) System.out.println("  - " + fqcn);
+        for (String fqcn : entering) System.out.println("  + " + fqcn + " (protocol duplicate no longer shadowed)");
+    }
+
+    private void printSeeds() {
+        int[] reached = new int[seeds.size()];
+        int[] exclusive = new int[seeds.size()];
+        for (Map.Entry<String, BitSet> e : reach.entrySet()) {
+            if (!surface.contains(e.getKey())) continue;
+            BitSet bits = e.getValue();
+            for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) reached[i]++;
+            if (bits.cardinality() == 1) exclusive[bits.nextSetBit(0)]++;
+        }
+        System.out.printf("%-8s %-9s %-12s %s%n", "reached", "exclusive", "reason", "seed");
+        for (int i = 0; i < seeds.size(); i++) {
+            System.out.printf("%-8d %-9d %-12s %s%n", reached[i], exclusive[i], seedReasons.get(i), seeds.get(i));
+        }
+    }
+
+    /** FQCN for a FQCN or unambiguous simple name. */
+    private static String lookup(String name, Set<String> known) {
+        if (known.contains(name)) return name;
+        List<String> matches = known.stream().filter(f -> TypeNameResolver.simpleName(f).equals(name)).sorted().toList();
+        if (matches.size() == 1) return matches.get(0);
+        throw new IllegalArgumentException(matches.isEmpty()
+            ? "Not found: " + name
+            : "Ambiguous name " + name + ": " + String.join(", ", matches));
+    }
+
+    // --- JSON model classes ---
+
+    static class AttributionOutput {
+        String version;
+        String generated_at;
+        List<SeedRef> seeds;
+        List<TypeAttribution> types;
+    }
+
+    static class SeedRef {
+        String fqcn;
+        String reason;
+    }
+
+    static class TypeAttribution {
+        String fqcn;
+        boolean in_surface;
+        int seed_count;
+        String seed_bits; // base64 of BitSet.toByteArray(); bit i = seeds[i]
+        // Only for protocol types removed as duplicates: the types they duplicate
+        List<String> duplicate_of;
+    }
+}
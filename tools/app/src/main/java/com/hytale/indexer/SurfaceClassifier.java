@@ -19,145 +19,129 @@ import java.util.*;
  * Loads class-index.json, seeds the frontier with known plugin entry points,
  * and transitively expands by following public/protected member type references.
  * Produces surface.json, internal-index.json, and surface-review.json.
+ *
+ * Seeds and package rules come from {@link ClassifierConfig} ({@code --config}).
+ * Each run also saves its reference graph to surface-graph.json, so that
+ * {@code --incremental} can re-classify after a config change without
+ * re-reading the index or sources, and reports what changed against the
+ * previous surface.json in surface-delta.json.
  */
 public class SurfaceClassifier {
 
-    // --- Excluded packages (types here are NOT API even if reachable) ---
-    // Note: protocol.packets.* and protocol.io.* are excluded (network internals),
-    // but protocol root types (GameMode, BlockPosition, etc.) are allowed through
-    // because many are the ONLY definition of fundamental game concepts.
-    private static final List<String> EXCLUDED_PACKAGES = List.of(
-        "com.hypixel.hytale.builtin.",
-        "com.hypixel.hytale.protocol.packets.",
-        "com.hypixel.hytale.protocol.io.",
-        "com.hypixel.hytale.procedurallib."
-    );
-
-    // --- External package prefixes to skip entirely ---
-    private static final List<String> EXTERNAL_PREFIXES = List.of(
-        "java.", "javax.", "org.slf4j.", "org.bson.", "io.netty.",
-        "org.jetbrains.", "org.intellij."
-    );
-
-    // --- Excluded package -> tag mapping (for internal-index.json) ---
-    private static final Map<String, String> EXCLUDED_TAGS = Map.of(
-        "com.hypixel.hytale.builtin.", "builtin",
-        "com.hypixel.hytale.protocol.packets.", "protocol",
-        "com.hypixel.hytale.protocol.io.", "protocol",
-        "com.hypixel.hytale.procedurallib.", "procedural"
-    );
-
-    // --- Seed types by tier ---
-    private static final Map<String, String> TIER1_SEEDS = Map.of(
-        "com.hypixel.hytale.server.core.plugin.JavaPlugin", "seed:tier1",
-        "com.hypixel.hytale.server.core.plugin.JavaPluginInit", "seed:tier1",
-        "com.hypixel.hytale.server.core.plugin.PluginBase", "seed:tier1",
-        "com.hypixel.hytale.common.plugin.PluginManifest", "seed:tier1",
-        "com.hypixel.hytale.server.core.plugin.PluginManager", "seed:tier1",
-        "com.hypixel.hytale.server.core.plugin.PluginState", "seed:tier1",
-        "com.hypixel.hytale.common.plugin.PluginIdentifier", "seed:tier1"
-    );
-
-    private static final Map<String, String> TIER2_SEEDS = new LinkedHashMap<>();
-    static {
-        TIER2_SEEDS.put("com.hypixel.hytale.server.core.command.system.CommandRegistry", "seed:tier2");
-        TIER2_SEEDS.put("com.hypixel.hytale.server.core.plugin.registry.AssetRegistry", "seed:tier2");
-        TIER2_SEEDS.put("com.hypixel.hytale.server.core.plugin.registry.CodecMapRegistry", "seed:tier2");
-        TIER2_SEEDS.put("com.hypixel.hytale.server.core.plugin.registry.MapKeyMapRegistry", "seed:tier2");
-        TIER2_SEEDS.put("com.hypixel.hytale.server.core.command.system.CommandManager", "seed:tier2");
-        TIER2_SEEDS.put("com.hypixel.hytale.event.EventRegistry", "seed:tier2");
-        TIER2_SEEDS.put("com.hypixel.hytale.event.IEventBus", "seed:tier2");
-        TIER2_SEEDS.put("com.hypixel.hytale.server.core.universe.world.meta.BlockStateRegistry", "seed:tier2");
-        TIER2_SEEDS.put("com.hypixel.hytale.server.core.modules.entity.EntityRegistry", "seed:tier2");
-        TIER2_SEEDS.put("com.hypixel.hytale.server.core.task.TaskRegistry", "seed:tier2");
-        TIER2_SEEDS.put("com.hypixel.hytale.server.core.registry.ClientFeatureRegistry", "seed:tier2");
-        TIER2_SEEDS.put("com.hypixel.hytale.server.core.plugin.registry.IRegistry", "seed:tier2");
-        TIER2_SEEDS.put("com.hypixel.hytale.server.core.plugin.registry.CodecMapRegistry.Assets", "seed:tier2");
-    }
-
-    private static final Map<String, String> TIER3_SEEDS = new LinkedHashMap<>();
-    static {
-        TIER3_SEEDS.put("com.hypixel.hytale.event.IEvent", "seed:tier3");
-        TIER3_SEEDS.put("com.hypixel.hytale.event.IAsyncEvent", "seed:tier3");
-        TIER3_SEEDS.put("com.hypixel.hytale.event.IBaseEvent", "seed:tier3");
-        TIER3_SEEDS.put("com.hypixel.hytale.event.ICancellable", "seed:tier3");
-        TIER3_SEEDS.put("com.hypixel.hytale.event.EventPriority", "seed:tier3");
-        TIER3_SEEDS.put("com.hypixel.hytale.event.EventRegistration", "seed:tier3");
-        TIER3_SEEDS.put("com.hypixel.hytale.component.ComponentType", "seed:tier3");
-        TIER3_SEEDS.put("com.hypixel.hytale.component.ComponentAccessor", "seed:tier3");
-        TIER3_SEEDS.put("com.hypixel.hytale.component.SystemType", "seed:tier3");
-        TIER3_SEEDS.put("com.hypixel.hytale.component.SystemGroup", "seed:tier3");
-        TIER3_SEEDS.put("com.hypixel.hytale.component.Resource", "seed:tier3");
-        TIER3_SEEDS.put("com.hypixel.hytale.registry.Registry", "seed:tier3");
-        TIER3_SEEDS.put("com.hypixel.hytale.registry.Registration", "seed:tier3");
-        TIER3_SEEDS.put("com.hypixel.hytale.server.core.command.system.CommandContext", "seed:tier3");
-        TIER3_SEEDS.put("com.hypixel.hytale.server.core.command.system.CommandOwner", "seed:tier3");
-        TIER3_SEEDS.put("com.hypixel.hytale.server.core.command.system.CommandSender", "seed:tier3");
-        TIER3_SEEDS.put("com.hypixel.hytale.component.ComponentRegistryProxy", "seed:tier3");
-    }
-
-    // Category assignment by package prefix (order matters — more specific first)
-    private static final List<Map.Entry<String, String>> CATEGORY_RULES = List.of(
-        Map.entry("com.hypixel.hytale.server.core.plugin", "plugin"),
-        Map.entry("com.hypixel.hytale.common.plugin", "plugin"),
-        Map.entry("com.hypixel.hytale.server.core.event", "event"),
-        Map.entry("com.hypixel.hytale.event", "event"),
-        Map.entry("com.hypixel.hytale.server.core.command", "command"),
-        Map.entry("com.hypixel.hytale.component", "component"),
-        Map.entry("com.hypixel.hytale.server.core.modules.entity", "entity"),
-        Map.entry("com.hypixel.hytale.server.core.entity", "entity"),
-        Map.entry("com.hypixel.hytale.server.npc", "npc"),
-        Map.entry("com.hypixel.hytale.registry", "registry"),
-        Map.entry("com.hypixel.hytale.server.core.registry", "registry"),
-        Map.entry("com.hypixel.hytale.server.core.asset", "asset"),
-        Map.entry("com.hypixel.hytale.assetstore", "asset"),
-        Map.entry("com.hypixel.hytale.codec", "codec"),
-        Map.entry("com.hypixel.hytale.server.core.inventory", "inventory"),
-        Map.entry("com.hypixel.hytale.server.core.universe", "universe"),
-        Map.entry("com.hypixel.hytale.server.worldgen", "worldgen"),
-        Map.entry("com.hypixel.hytale.server.core.prefab", "prefab"),
-        Map.entry("com.hypixel.hytale.server.core.permissions", "permissions"),
-        Map.entry("com.hypixel.hytale.server.core.ui", "ui"),
-        Map.entry("com.hypixel.hytale.server.core.task", "task"),
-        Map.entry("com.hypixel.hytale.server.core.modules", "modules"),
-        Map.entry("com.hypixel.hytale.server.core.meta", "meta"),
-        Map.entry("com.hypixel.hytale.math", "math"),
-        Map.entry("com.hypixel.hytale.function", "util"),
-        Map.entry("com.hypixel.hytale.common", "util"),
-        Map.entry("com.hypixel.hytale.metrics", "metrics"),
-        Map.entry("com.hypixel.hytale.logger", "logging"),
-        Map.entry("com.hypixel.hytale.server.core.util", "util"),
-        Map.entry("com.hypixel.hytale.server.core.io", "io"),
-        Map.entry("com.hypixel.hytale.protocol", "protocol"),
-        Map.entry("com.hypixel.hytale.server.core", "core")
-    );
+    static final String PROTOCOL_PREFIX = "com.hypixel.hytale.protocol.";
+    static final String GRAPH_FILE = "surface-graph.json";
+    static final String DELTA_FILE = "surface-delta.json";
+
+    /** Protocol types this similar to a server type are duplicates of it, whatever their names. */
+    static final double DUPLICATE_SIMILARITY = 0.6;
+    /** ...or this similar to a server type of the same simple name. */
+    static final double SAME_NAME_SIMILARITY = 0.3;
+    /** Weaker structural matches are listed in surface-review.json. */
+    static final double REVIEW_SIMILARITY = 0.4;
+
+    private final ClassifierConfig config;
+    private final PackageRuleTrie packageRules;
+    private final boolean compress;
 
     // --- State ---
-    private final Map<String, ClassIndexer.ClassEntry> fqcnToEntry = new HashMap<>();
-    private final Map<String, List<String>> simpleNameToFqcns = new HashMap<>();
-    private final Map<String, SurfaceType> apiSurface = new LinkedHashMap<>();
+    // Types are numbered in index order when loaded. Lookups, resolution and the
+    // expansion work on these ids; FQCNs are only looked up again for output.
+    private ClassIndexer.ClassEntry[] entries;
+    private final Map<String, Integer> typeIds = new HashMap<>();
+    private final Map<String, int[]> simpleNameToIds = new HashMap<>();
+    // Per type id, derived once from the entry and the package rules
+    private int[] packageIds;    // -1 without a package
+    private int[] topPackageIds; // first four package segments, -1 without a package
+    private int[] jarIds;        // -1 outside a multi-JAR index
+    private int[] outerIds;      // type named by the FQCN minus its last segment, -1 if none
+    private final BitSet innerTypes = new BitSet();
+    private final BitSet externalTypes = new BitSet();
+    private final BitSet excludedTypes = new BitSet();
+    // Imports of each type's source file (from decompiled sources): sorted as
+    // written, and as ids of the indexed types among them
+    private String[][] importNames;
+    private int[][] importedIds;
+    // Type names referenced by each type's superclass, interfaces, annotations and
+    // public/protected members, as written in the source
+    private String[][] apiReferences;
+    // Structural features of each type with members (see NearDuplicates)
+    private String[][] structure;
+    // Expanded types: how each was reached and the types it references, and their ids in BFS order
+    private Expansion[] expansions;
+    private final IntList expansionOrder = new IntList();
+    // Surface types by id; membership shrinks with de-duplication
+    private SurfaceType[] surface;
+    private final BitSet inSurface = new BitSet();
     private final List<BorderlineCase> borderlineCases = new ArrayList<>();
+    // Protocol types removed by de-duplication -> the server types they duplicate
+    private final Map<String, List<String>> duplicateOf = new LinkedHashMap<>();
     private final List<String> allSeedFqcns = new ArrayList<>();
-    // Maps FQCN -> set of imported FQCNs (extracted from decompiled source files)
-    private final Map<String, Set<String>> importMap = new HashMap<>();
+    private String jarHash;
+
+    public SurfaceClassifier() {
+        this(ClassifierConfig.defaults());
+    }
+
+    public SurfaceClassifier(ClassifierConfig config) {
+        this(config, false);
+    }
+
+    /**
+     * @param compress write every output as gzipped .json.gz (see {@link ArtifactIO})
+     */
+    public SurfaceClassifier(ClassifierConfig config, boolean compress) {
+        this.config = config;
+        this.packageRules = PackageRuleTrie.compile(config);
+        this.compress = compress;
+    }
 
     public static void main(String[] args) {
-        if (args.length < 1) {
-            System.err.println("Usage: surface-classifier <path-to-class-index.json>");
+        Path configPath = null;
+        boolean incremental = false;
+        boolean compress = false;
+        String index = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--config") && i + 1 < args.length) {
+                configPath = Path.of(args[++i]);
+            } else if (args[i].equals("--incremental")) {
+                incremental = true;
+            } else if (args[i].equals("--compress")) {
+                compress = true;
+            } else if (index == null && !args[i].startsWith("--")) {
+                index = args[i];
+            } else {
+                index = null;
+                break;
+            }
+        }
+        if (index == null) {
+            System.err.println("Usage: surface-classifier [--config <file>] [--incremental] [--compress] <path-to-class-index.json>");
             System.exit(1);
         }
 
-        Path indexPath = Path.of(args[0]).toAbsolutePath();
+        Path indexPath = ArtifactIO.find(Path.of(index).toAbsolutePath());
         if (!Files.isRegularFile(indexPath)) {
             System.err.println("ERROR: File not found: " + indexPath);
             System.exit(1);
         }
+        if (configPath != null && !Files.isRegularFile(configPath)) {
+            System.err.println("ERROR: Config file not found: " + configPath.toAbsolutePath());
+            System.exit(1);
+        }
 
         Path artifactsDir = indexPath.getParent();
 
         try {
-            SurfaceClassifier classifier = new SurfaceClassifier();
-            classifier.run(indexPath, artifactsDir);
+            ClassifierConfig config = configPath == null
+                ? ClassifierConfig.defaults() : ClassifierConfig.load(configPath);
+            // A compressed index gets compressed outputs
+            SurfaceClassifier classifier = new SurfaceClassifier(config,
+                compress || ArtifactIO.isCompressed(indexPath));
+            if (incremental) {
+                classifier.runIncremental(indexPath, artifactsDir);
+            } else {
+                classifier.run(indexPath, artifactsDir);
+            }
         } catch (Exception e) {
             System.err.println("FATAL: " + e.getMessage());
             e.printStackTrace();
@@ -165,78 +149,152 @@ public class SurfaceClassifier {
         }
     }
 
+    @SuppressWarnings("try")
     public void run(Path indexPath, Path outputDir) throws IOException {
         System.out.println("=== Phase 2: Classify API Surface ===");
         System.out.println("Loading class-index.json...");
 
         Path decompiledDir = outputDir.resolve("decompiled");
+        Map<String, String> previousSurface = readPreviousSurface(outputDir);
 
-        // Load index
-        Gson gson = new GsonBuilder().create();
+        PipelineMetrics metrics = PipelineMetrics.get();
         ClassIndexer.ClassIndex index;
-        try (Reader reader = Files.newBufferedReader(indexPath)) {
-            index = gson.fromJson(reader, ClassIndexer.ClassIndex.class);
-        }
+        try (PipelineMetrics.Stage stage = metrics.stage("load-index")) {
+            // Load index
+            Gson gson = new GsonBuilder().create();
+            try (Reader reader = ArtifactIO.newReader(indexPath)) {
+                index = gson.fromJson(reader, ClassIndexer.ClassIndex.class);
+            }
+            jarHash = index.jar_hash;
 
-        System.out.println("Loaded " + index.classes.size() + " types");
+            System.out.println("Loaded " + index.classes.size() + " types");
 
-        // Build lookup maps
-        buildLookupMaps(index.classes);
+            // Build lookup maps
+            buildLookupMaps(index.classes);
+        }
 
         // Build import map from decompiled source files for accurate type resolution
-        buildImportMap(index.classes, decompiledDir);
+        try (PipelineMetrics.Stage stage = metrics.stage("import-map")) {
+            buildImportMap(decompiledDir);
+            resolveImports();
+        }
+
+        try (PipelineMetrics.Stage stage = metrics.stage("references")) {
+            for (int id = 0; id < entries.length; id++) {
+                apiReferences[id] = referencedTypeNames(entries[id]).toArray(String[]::new);
+                List<String> features = NearDuplicates.features(entries[id]);
+                if (!features.isEmpty()) structure[id] = features.toArray(String[]::new);
+            }
+        }
 
-        // Collect all seeds
-        Map<String, String> allSeeds = new LinkedHashMap<>();
-        allSeeds.putAll(TIER1_SEEDS);
-        allSeeds.putAll(TIER2_SEEDS);
-        allSeeds.putAll(TIER3_SEEDS);
+        Map<String, String> allSeeds = collectSeeds();
 
-        // Tier 4: all types in event packages
-        for (ClassIndexer.ClassEntry entry : index.classes) {
-            if (entry.package_ != null && (
-                    entry.package_.equals("com.hypixel.hytale.server.core.event") ||
-                    entry.package_.startsWith("com.hypixel.hytale.server.core.event.") ||
-                    entry.package_.equals("com.hypixel.hytale.event") ||
-                    entry.package_.startsWith("com.hypixel.hytale.event."))) {
-                allSeeds.putIfAbsent(entry.fqcn, "seed:tier4");
+        // BFS expansion
+        System.out.println("Expanding API surface...");
+        try (PipelineMetrics.Stage stage = metrics.stage("expand")) {
+            expand("seeds", allSeeds, new BitSet(entries.length));
+        }
+
+        finish(indexPath, outputDir, allSeeds, previousSurface, "full", List.of());
+    }
+
+    /**
+     * Re-classify from the reference graph saved by the previous run instead
+     * of the class index and sources. Falls back to a full run if there is no
+     * graph or the class index changed since.
+     *
+     * If the config keeps the same exclusions, only the affected region is
+     * touched: types reached solely from removed seeds are retracted using the
+     * seed bitsets in surface-attribution.json, expansion continues from added
+     * seeds only, and types whose expansion path ran through a retracted type
+     * get a new path. Category and tag rules are simply re-applied. A change
+     * to exclusions or external prefixes changes how references resolve, so
+     * the surface is expanded again, from the in-memory graph.
+     */
+    @SuppressWarnings("try")
+    public void runIncremental(Path indexPath, Path outputDir) throws IOException {
+        Path graphPath = ArtifactIO.find(outputDir.resolve(GRAPH_FILE));
+        Path attributionPath = ArtifactIO.find(outputDir.resolve(SurfaceAttribution.ATTRIBUTION_FILE));
+        GraphFile graph = null;
+        if (Files.isRegularFile(graphPath) && Files.isRegularFile(attributionPath)) {
+            try (Reader reader = ArtifactIO.newReader(graphPath)) {
+                graph = new GsonBuilder().create().fromJson(reader, GraphFile.class);
             }
         }
+        if (graph == null || graph.index_size != Files.size(indexPath)
+                || !Files.getLastModifiedTime(indexPath).toString().equals(graph.index_modified)) {
+            System.out.println("No reference graph for this class-index.json; running a full classification");
+            run(indexPath, outputDir);
+            return;
+        }
 
-        // Validate seeds
-        int validSeeds = 0;
-        for (Map.Entry<String, String> seed : allSeeds.entrySet()) {
-            if (fqcnToEntry.containsKey(seed.getKey())) {
-                validSeeds++;
-                allSeedFqcns.add(seed.getKey());
+        System.out.println("=== Phase 2: Classify API Surface (incremental) ===");
+        Map<String, String> previousSurface = readPreviousSurface(outputDir);
+        jarHash = graph.jar_hash;
+        try (PipelineMetrics.Stage stage = PipelineMetrics.get().stage("load-graph")) {
+            loadGraph(graph);
+        }
+        System.out.println("Loaded reference graph: " + graph.types.size() + " types");
+
+        ClassifierConfig previous = ClassifierConfig.withDefaults(graph.config);
+        List<String> changes = config.changedFields(previous);
+        System.out.println("Config changes: " + (changes.isEmpty() ? "none" : String.join(", ", changes)));
+
+        Map<String, String> allSeeds = collectSeeds();
+        String mode;
+        try (PipelineMetrics.Stage stage = PipelineMetrics.get().stage("expand")) {
+            if (config.sameExpansionRules(previous)) {
+                mode = "incremental";
+                expandRegion(graph, allSeeds, SurfaceAttribution.load(attributionPath));
             } else {
-                System.err.println("WARN: Seed type not found in index: " + seed.getKey());
+                mode = "re-expand";
+                System.out.println("Exclusions changed; expanding again from the reference graph...");
+                expand("seeds", allSeeds, new BitSet(entries.length));
             }
         }
-        System.out.println("Seeds: " + validSeeds + "/" + allSeeds.size() + " resolved");
 
-        // BFS expansion
-        System.out.println("Expanding API surface...");
-        expand(allSeeds);
+        finish(indexPath, outputDir, allSeeds, previousSurface, mode, changes);
+    }
 
-        System.out.println("API surface (pre-dedup): " + apiSurface.size() + " types");
+    /** De-duplicate, attribute and write all Phase 2 outputs. */
+    @SuppressWarnings("try")
+    private void finish(Path indexPath, Path outputDir, Map<String, String> allSeeds,
+                        Map<String, String> previousSurface, String mode, List<String> changes) throws IOException {
+        PipelineMetrics metrics = PipelineMetrics.get();
+        SurfaceAttribution attribution;
+        try (PipelineMetrics.Stage stage = metrics.stage("surface")) {
+            buildSurface();
+            collectBorderlines(allSeeds);
+            System.out.println("API surface (pre-dedup): " + inSurface.cardinality() + " types");
+
+            // Remove protocol types that duplicate a non-protocol type already in the surface
+            int removed = deduplicateProtocolTypes();
+            if (removed > 0) {
+                System.out.println("Removed " + removed + " redundant protocol duplicates");
+            }
 
-        // Remove protocol types that duplicate a non-protocol type already in the surface
-        int removed = deduplicateProtocolTypes();
-        if (removed > 0) {
-            System.out.println("Removed " + removed + " redundant protocol duplicates");
-        }
+            System.out.println("API surface: " + inSurface.cardinality() + " types");
+            System.out.println("Borderline cases: " + borderlineCases.size());
 
-        System.out.println("API surface: " + apiSurface.size() + " types");
-        System.out.println("Borderline cases: " + borderlineCases.size());
+            Map<String, List<String>> references = new LinkedHashMap<>();
+            Set<String> surfaceFqcns = new HashSet<>();
+            for (int i = 0; i < expansionOrder.size(); i++) {
+                int id = expansionOrder.get(i);
+                references.put(entries[id].fqcn, fqcns(expansions[id].edges));
+                if (inSurface.get(id)) surfaceFqcns.add(entries[id].fqcn);
+            }
+            attribution = SurfaceAttribution.compute(allSeeds, references, surfaceFqcns,
+                duplicateOf);
+            System.out.println("Seed attribution: " + references.size() + " types, " + attribution.seedCount() + " seeds");
+        }
 
         // Build internal index (everything not in API surface)
         List<InternalType> internalTypes = new ArrayList<>();
-        for (ClassIndexer.ClassEntry entry : index.classes) {
-            if (!apiSurface.containsKey(entry.fqcn)) {
+        for (int id = 0; id < entries.length; id++) {
+            if (!inSurface.get(id)) {
                 InternalType it = new InternalType();
-                it.fqcn = entry.fqcn;
-                it.tag = tagForPackage(entry.fqcn);
+                it.fqcn = entries[id].fqcn;
+                it.tag = tagForPackage(it.fqcn);
                 internalTypes.add(it);
             }
         }
@@ -246,19 +304,34 @@ public class SurfaceClassifier {
         Gson prettyGson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
         String timestamp = DateTimeFormatter.ISO_INSTANT.format(Instant.now().atOffset(ZoneOffset.UTC));
 
-        writeSurfaceJson(prettyGson, outputDir, timestamp);
-        writeInternalJson(prettyGson, outputDir, timestamp, internalTypes);
-        writeReviewJson(prettyGson, outputDir, timestamp);
+        try (PipelineMetrics.Stage stage = metrics.stage("write-outputs")) {
+            writeSurfaceJson(prettyGson, outputDir, timestamp);
+            writeInternalJson(prettyGson, outputDir, timestamp, internalTypes);
+            writeReviewJson(prettyGson, outputDir, timestamp);
+            attribution.write(prettyGson, output(outputDir, SurfaceAttribution.ATTRIBUTION_FILE), timestamp);
+            writeGraphJson(prettyGson, indexPath, outputDir, timestamp);
+            if (previousSurface != null) {
+                writeDeltaJson(prettyGson, outputDir, timestamp, previousSurface, mode, changes);
+            }
+        }
+        metrics.recordCache("package-rules", packageRules.cacheHits(), packageRules.cacheMisses());
+        Path metricsPath = metrics.write(outputDir, "phase2", jarHash);
 
         System.out.println();
         System.out.println("=== Phase 2 complete ===");
-        System.out.println("  API surface:    " + outputDir.resolve("surface.json"));
-        System.out.println("  Internal index: " + outputDir.resolve("internal-index.json"));
-        System.out.println("  Review cases:   " + outputDir.resolve("surface-review.json"));
+        System.out.println("  API surface:    " + output(outputDir, "surface.json"));
+        System.out.println("  Internal index: " + output(outputDir, "internal-index.json"));
+        System.out.println("  Review cases:   " + output(outputDir, "surface-review.json"));
+        System.out.println("  Attribution:    " + output(outputDir, SurfaceAttribution.ATTRIBUTION_FILE));
+        System.out.println("  Graph:          " + output(outputDir, GRAPH_FILE));
+        if (previousSurface != null) {
+            System.out.println("  Delta:          " + output(outputDir, DELTA_FILE));
+        }
+        System.out.println("  Metrics:        " + metricsPath);
 
         // Print category breakdown
         Map<String, Integer> categoryCount = new TreeMap<>();
-        for (SurfaceType st : apiSurface.values()) {
+        for (SurfaceType st : surfaceTypes()) {
             categoryCount.merge(st.category, 1, Integer::sum);
         }
         System.out.println();
@@ -268,24 +341,123 @@ public class SurfaceClassifier {
         }
     }
 
+    /** Seeds in order: tiers 1-3 from the config, then every type in a tier 4 package. */
+    private Map<String, String> collectSeeds() {
+        Map<String, String> allSeeds = new LinkedHashMap<>(config.explicitSeeds());
+
+        // Tier 4: all types in event packages
+        for (ClassIndexer.ClassEntry entry : entries) {
+            if (config.isTier4Package(entry.package_)) {
+                allSeeds.putIfAbsent(entry.fqcn, "seed:tier4");
+            }
+        }
+
+        // Validate seeds
+        int validSeeds = 0;
+        for (Map.Entry<String, String> seed : allSeeds.entrySet()) {
+            if (typeIds.containsKey(seed.getKey())) {
+                validSeeds++;
+                allSeedFqcns.add(seed.getKey());
+            } else {
+                System.err.println("WARN: Seed type not found in index: " + seed.getKey());
+            }
+        }
+        System.out.println("Seeds: " + validSeeds + "/" + allSeeds.size() + " resolved");
+        return allSeeds;
+    }
+
+    /**
+     * Number the types in index order and derive everything resolution asks
+     * about a type: its simple-name postings, package, top-level package, JAR,
+     * enclosing type and package-rule flags.
+     */
     private void buildLookupMaps(List<ClassIndexer.ClassEntry> classes) {
-        for (ClassIndexer.ClassEntry entry : classes) {
-            fqcnToEntry.put(entry.fqcn, entry);
-            simpleNameToFqcns
-                .computeIfAbsent(entry.name, k -> new ArrayList<>())
-                .add(entry.fqcn);
+        int n = classes.size();
+        entries = classes.toArray(new ClassIndexer.ClassEntry[0]);
+        packageIds = new int[n];
+        topPackageIds = new int[n];
+        jarIds = new int[n];
+        outerIds = new int[n];
+        importNames = new String[n][];
+        importedIds = new int[n][];
+        apiReferences = new String[n][];
+        structure = new String[n][];
+        expansions = new Expansion[n];
+        surface = new SurfaceType[n];
+
+        Map<String, IntList> postings = new HashMap<>();
+        Map<String, Integer> packages = new HashMap<>();
+        Map<String, Integer> topPackages = new HashMap<>();
+        Map<String, Integer> jars = new HashMap<>();
+        for (int id = 0; id < n; id++) {
+            ClassIndexer.ClassEntry entry = entries[id];
+            typeIds.put(entry.fqcn, id);
+            postings.computeIfAbsent(entry.name, k -> new IntList()).add(id);
+            packageIds[id] = entry.package_ == null ? -1
+                : packages.computeIfAbsent(entry.package_, k -> packages.size());
+            topPackageIds[id] = entry.package_ == null ? -1
+                : topPackages.computeIfAbsent(getTopLevelPackage(entry.package_), k -> topPackages.size());
+            jarIds[id] = entry.jar == null ? -1 : jars.computeIfAbsent(entry.jar, k -> jars.size());
+            PackageRuleTrie.Match rules = packageRules.match(entry.fqcn);
+            externalTypes.set(id, rules.external());
+            excludedTypes.set(id, rules.excluded());
+        }
+        postings.forEach((name, ids) -> simpleNameToIds.put(name, ids.toArray()));
+        for (int id = 0; id < n; id++) {
+            ClassIndexer.ClassEntry entry = entries[id];
+            int lastDot = entry.fqcn.lastIndexOf('.');
+            outerIds[id] = lastDot < 0 ? -1 : typeId(entry.fqcn.substring(0, lastDot));
+            // An inner class has more segments after the package than just its name
+            String expected = entry.package_.isEmpty() ? entry.name : entry.package_ + "." + entry.name;
+            innerTypes.set(id, !entry.fqcn.equals(expected));
+        }
+        System.out.println("Built lookup maps: " + n + " entries, "
+            + simpleNameToIds.size() + " unique simple names");
+    }
+
+    /** The id of an indexed type, or -1. */
+    private int typeId(String fqcn) {
+        Integer id = typeIds.get(fqcn);
+        return id == null ? -1 : id;
+    }
+
+    private List<String> fqcns(int[] ids) {
+        List<String> result = new ArrayList<>(ids.length);
+        for (int id : ids) result.add(entries[id].fqcn);
+        return result;
+    }
+
+    /** Resolve each type's imports to the indexed types among them, once imports are loaded. */
+    private void resolveImports() {
+        IntList ids = new IntList();
+        for (int id = 0; id < entries.length; id++) {
+            if (importNames[id] == null) continue;
+            ids.clear();
+            for (String imported : importNames[id]) {
+                int importedId = typeId(imported);
+                if (importedId >= 0) ids.add(importedId);
+            }
+            int[] sorted = ids.toArray();
+            Arrays.sort(sorted);
+            importedIds[id] = sorted;
         }
-        System.out.println("Built lookup maps: " + fqcnToEntry.size() + " entries, "
-            + simpleNameToFqcns.size() + " unique simple names");
     }
 
     /**
      * Build a map of FQCN -> imported FQCNs by reading import statements from decompiled source.
      * This allows accurate disambiguation of simple type names.
+     * Reads from the packed store (artifacts/decompiled.pack) when there is no loose tree.
      */
-    private void buildImportMap(List<ClassIndexer.ClassEntry> classes, Path decompiledDir) {
+    private void buildImportMap(Path decompiledDir) {
+        Path artifactsDir = decompiledDir.getParent();
+        if (!Files.isDirectory(decompiledDir) && artifactsDir != null && PackedSourceStore.exists(artifactsDir)) {
+            buildImportMapFromPack(artifactsDir);
+            return;
+        }
+
         int loaded = 0;
-        for (ClassIndexer.ClassEntry entry : classes) {
+        for (int id = 0; id < entries.length; id++) {
+            ClassIndexer.ClassEntry entry = entries[id];
             if (entry.source_file == null) continue;
             // source_file is relative to artifacts/ parent, like "decompiled/com/hypixel/..."
             // The decompiled dir is artifacts/decompiled, so strip the "decompiled/" prefix
@@ -296,188 +468,479 @@ public class SurfaceClassifier {
             Path sourceFile = decompiledDir.resolve(relPath);
             if (!Files.isRegularFile(sourceFile)) continue;
 
-            Set<String> imports = new HashSet<>();
             try {
-                List<String> lines = Files.readAllLines(sourceFile);
-                for (String line : lines) {
-                    String trimmed = line.trim();
-                    if (trimmed.startsWith("import ") && trimmed.endsWith(";")) {
-                        String importStr = trimmed.substring(7, trimmed.length() - 1).trim();
-                        if (importStr.startsWith("static ")) continue; // skip static imports
-                        imports.add(importStr);
-                    }
-                    // Stop at class/interface/enum declaration (optimization)
-                    if (trimmed.startsWith("public ") || trimmed.startsWith("abstract ")
-                            || trimmed.startsWith("final ") || trimmed.startsWith("sealed ")
-                            || trimmed.startsWith("class ") || trimmed.startsWith("interface ")
-                            || trimmed.startsWith("enum ") || trimmed.startsWith("record ")) {
-                        break;
-                    }
-                }
+                importNames[id] = extractImports(Files.readAllLines(sourceFile));
             } catch (IOException e) {
                 // Skip files that can't be read
                 continue;
             }
-
-            importMap.put(entry.fqcn, imports);
             loaded++;
         }
         System.out.println("Built import map: " + loaded + " source files scanned");
     }
 
-    private void expand(Map<String, String> allSeeds) {
-        // BFS frontier: FQCN -> (inclusion_reason, expansion_path)
-        Deque<ExpansionItem> frontier = new ArrayDeque<>();
-        Set<String> visited = new HashSet<>();
+    private void buildImportMapFromPack(Path artifactsDir) {
+        int loaded = 0;
+        try (PackedSourceStore store = PackedSourceStore.open(artifactsDir)) {
+            for (int id = 0; id < entries.length; id++) {
+                // Only top-level classes have their own record; inner classes share the outer's imports
+                if (!store.contains(entries[id].fqcn)) continue;
+                String source = store.read(entries[id].fqcn);
+                importNames[id] = extractImports(source.lines().toList());
+                loaded++;
+            }
+        } catch (IOException e) {
+            System.err.println("WARN: Cannot read packed sources: " + e.getMessage());
+        }
+        System.out.println("Built import map: " + loaded + " packed sources scanned");
+    }
 
-        // Seed the frontier
-        for (Map.Entry<String, String> seed : allSeeds.entrySet()) {
-            String fqcn = seed.getKey();
-            if (fqcnToEntry.containsKey(fqcn)) {
-                frontier.add(new ExpansionItem(fqcn, seed.getValue(), List.of()));
-            }
-        }
-
-        while (!frontier.isEmpty()) {
-            ExpansionItem item = frontier.poll();
-            if (visited.contains(item.fqcn)) continue;
-            visited.add(item.fqcn);
-
-            // Skip external types
-            if (isExternal(item.fqcn)) continue;
-
-            // Check excluded packages
-            if (isExcludedPackage(item.fqcn)) {
-                // Record as borderline if reachable from API
-                if (!item.expansionPath.isEmpty()) {
-                    BorderlineCase bc = new BorderlineCase();
-                    bc.fqcn = item.fqcn;
-                    bc.reason = "Reachable from API via " + String.join(" -> ", item.expansionPath)
-                        + " but lives in excluded package";
-                    bc.recommendation = "exclude";
-                    bc.confidence = "high";
-                    borderlineCases.add(bc);
-                }
-                continue;
+    /** Imported FQCNs, sorted and distinct. */
+    private static String[] extractImports(List<String> lines) {
+        Set<String> imports = new TreeSet<>();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("import ") && trimmed.endsWith(";")) {
+                String importStr = trimmed.substring(7, trimmed.length() - 1).trim();
+                if (importStr.startsWith("static ")) continue; // skip static imports
+                imports.add(importStr);
             }
+            // Stop at class/interface/enum declaration (optimization)
+            if (trimmed.startsWith("public ") || trimmed.startsWith("abstract ")
+                    || trimmed.startsWith("final ") || trimmed.startsWith("sealed ")
+                    || trimmed.startsWith("class ") || trimmed.startsWith("interface ")
+                    || trimmed.startsWith("enum ") || trimmed.startsWith("record ")) {
+                break;
+            }
+        }
+        return imports.toArray(String[]::new);
+    }
+
+    /**
+     * Breadth-first expansion from the given seeds. Types already in
+     * {@code visited} are neither expanded nor re-queued, which lets an
+     * incremental run continue from an existing surface.
+     */
+    private void expand(String name, Map<String, String> seeds, BitSet visited) {
+        // BFS frontier of (type id, id it was reached from or -1 for a seed, depth) triples
+        IntList frontier = new IntList();
 
-            ClassIndexer.ClassEntry entry = fqcnToEntry.get(item.fqcn);
-            if (entry == null) continue;
+        // Seed the frontier
+        for (String fqcn : seeds.keySet()) {
+            int id = typeId(fqcn);
+            if (id >= 0) {
+                frontier.add(id);
+                frontier.add(-1);
+                frontier.add(0);
+            }
+        }
 
-            // Add to API surface
-            SurfaceType st = new SurfaceType();
-            st.fqcn = item.fqcn;
-            st.inclusion_reason = item.reason;
-            st.expansion_path = item.expansionPath;
-            st.category = categorize(item.fqcn);
-            apiSurface.put(item.fqcn, st);
-
-            // Expand: extract all referenced types from public/protected members
-            Set<String> referencedSimpleNames = new LinkedHashSet<>();
-
-            // Superclass
-            if (entry.superclass != null && !entry.superclass.equals("java.lang.Object")
-                    && !entry.superclass.equals("java.lang.Enum")
-                    && !entry.superclass.equals("java.lang.Record")) {
-                extractTypeNames(entry.superclass, referencedSimpleNames);
-            }
-
-            // Interfaces
-            if (entry.interfaces != null) {
-                for (String iface : entry.interfaces) {
-                    extractTypeNames(iface, referencedSimpleNames);
+        // Types expanded per BFS depth and outcome of each simple-name resolution, for metrics
+        IntList levels = new IntList();
+        int maxQueue = frontier.size() / 3;
+        long unresolved = 0;
+        long unique = 0;
+        long ambiguous = 0;
+        // Edges of the type being expanded, de-duplicated in resolution order
+        IntList edges = new IntList();
+        BitSet isEdge = new BitSet(entries.length);
+        for (int head = 0; head < frontier.size(); head += 3) {
+            maxQueue = Math.max(maxQueue, (frontier.size() - head) / 3);
+            int id = frontier.get(head);
+            int parent = frontier.get(head + 1);
+            int depth = frontier.get(head + 2);
+            if (visited.get(id)) continue;
+            visited.set(id);
+
+            // Skip external types; excluded ones are reported by collectBorderlines()
+            if (externalTypes.get(id) || excludedTypes.get(id)) continue;
+
+            // Resolve the simple names used in the type's API to types and add to frontier
+            edges.clear();
+            for (String simpleName : apiReferences[id]) {
+                int[] resolved = resolveSimpleName(simpleName, id);
+                if (resolved.length == 0) unresolved++;
+                else if (resolved.length == 1) unique++;
+                else ambiguous++;
+                for (int target : resolved) {
+                    if (!isEdge.get(target)) {
+                        isEdge.set(target);
+                        edges.add(target);
+                    }
                 }
             }
-
-            // Annotations
-            if (entry.annotations != null) {
-                for (String ann : entry.annotations) {
-                    referencedSimpleNames.add(ann);
+            int[] targets = edges.toArray();
+            for (int target : targets) isEdge.clear(target);
+
+            String reason = parent < 0 ? seeds.get(entries[id].fqcn) : "expansion";
+            expansions[id] = new Expansion(reason, parent, targets);
+            expansionOrder.add(id);
+            while (levels.size() <= depth) levels.add(0);
+            levels.set(depth, levels.get(depth) + 1);
+            for (int target : targets) {
+                if (!visited.get(target)) {
+                    frontier.add(target);
+                    frontier.add(id);
+                    frontier.add(depth + 1);
                 }
             }
+        }
+
+        PipelineMetrics metrics = PipelineMetrics.get();
+        metrics.recordExpansion(name, levels.boxed(), maxQueue);
+        metrics.count("resolve.unresolved", unresolved);
+        metrics.count("resolve.unique", unique);
+        metrics.count("resolve.ambiguous", ambiguous);
+    }
+
+    /** Type names referenced by the superclass, interfaces, annotations and public/protected members. */
+    private Set<String> referencedTypeNames(ClassIndexer.ClassEntry entry) {
+        Set<String> referencedSimpleNames = new LinkedHashSet<>();
 
-            // Public/protected methods
-            if (entry.methods != null) {
-                for (ClassIndexer.MethodEntry method : entry.methods) {
-                    if (!isPublicOrProtected(method.modifiers)) continue;
-                    extractTypeNames(method.return_type, referencedSimpleNames);
-                    if (method.parameters != null) {
-                        for (ClassIndexer.ParameterEntry param : method.parameters) {
-                            extractTypeNames(param.type, referencedSimpleNames);
-                        }
+        // Superclass
+        if (entry.superclass != null && !entry.superclass.equals("java.lang.Object")
+                && !entry.superclass.equals("java.lang.Enum")
+                && !entry.superclass.equals("java.lang.Record")) {
+            extractTypeNames(entry.superclass, referencedSimpleNames);
+        }
+
+        // Interfaces
+        if (entry.interfaces != null) {
+            for (String iface : entry.interfaces) {
+                extractTypeNames(iface, referencedSimpleNames);
+            }
+        }
+
+        // Annotations
+        if (entry.annotations != null) {
+            referencedSimpleNames.addAll(entry.annotations);
+        }
+
+        // Public/protected methods
+        if (entry.methods != null) {
+            for (ClassIndexer.MethodEntry method : entry.methods) {
+                if (!isPublicOrProtected(method.modifiers)) continue;
+                extractTypeNames(method.return_type, referencedSimpleNames);
+                if (method.parameters != null) {
+                    for (ClassIndexer.ParameterEntry param : method.parameters) {
+                        extractTypeNames(param.type, referencedSimpleNames);
                     }
-                    if (method.throws_ != null) {
-                        for (String thrown : method.throws_) {
-                            extractTypeNames(thrown, referencedSimpleNames);
-                        }
+                }
+                if (method.throws_ != null) {
+                    for (String thrown : method.throws_) {
+                        extractTypeNames(thrown, referencedSimpleNames);
                     }
                 }
             }
+        }
 
-            // Public/protected fields
-            if (entry.fields != null) {
-                for (ClassIndexer.FieldEntry field : entry.fields) {
-                    if (!isPublicOrProtected(field.modifiers)) continue;
-                    extractTypeNames(field.type, referencedSimpleNames);
-                }
+        // Public/protected fields
+        if (entry.fields != null) {
+            for (ClassIndexer.FieldEntry field : entry.fields) {
+                if (!isPublicOrProtected(field.modifiers)) continue;
+                extractTypeNames(field.type, referencedSimpleNames);
+            }
+        }
+        return referencedSimpleNames;
+    }
+
+    /** Build the API surface from the expansions, in expansion order. */
+    private void buildSurface() {
+        Arrays.fill(surface, null);
+        inSurface.clear();
+        for (int i = 0; i < expansionOrder.size(); i++) {
+            int id = expansionOrder.get(i);
+            SurfaceType st = new SurfaceType();
+            st.fqcn = entries[id].fqcn;
+            st.inclusion_reason = expansions[id].reason;
+            st.expansion_path = expansionPath(id);
+            st.category = categorize(st.fqcn);
+            st.jar = entries[id].jar;
+            surface[id] = st;
+            inSurface.set(id);
+        }
+    }
+
+    /** The surface in expansion order. */
+    private List<SurfaceType> surfaceTypes() {
+        List<SurfaceType> types = new ArrayList<>(inSurface.cardinality());
+        for (int i = 0; i < expansionOrder.size(); i++) {
+            int id = expansionOrder.get(i);
+            if (inSurface.get(id)) types.add(surface[id]);
+        }
+        return types;
+    }
+
+    /** Types from a seed down to (not including) the given type. */
+    private List<String> expansionPath(int id) {
+        int parent = expansions[id].parent;
+        if (parent < 0) return List.of();
+        SurfaceType parentType = surface[parent];
+        List<String> path = new ArrayList<>(parentType != null ? parentType.expansion_path : expansionPath(parent));
+        path.add(entries[parent].fqcn);
+        return path;
+    }
+
+    /**
+     * Excluded types referenced from the API, each reported once with the
+     * path of the first expanded type referencing it (the one BFS reaches it from).
+     */
+    private void collectBorderlines(Map<String, String> allSeeds) {
+        borderlineCases.clear();
+        BitSet seeds = new BitSet(entries.length);
+        for (String seed : allSeeds.keySet()) {
+            int id = typeId(seed);
+            if (id >= 0) seeds.set(id);
+        }
+        BitSet recorded = new BitSet(entries.length);
+        for (int i = 0; i < expansionOrder.size(); i++) {
+            int id = expansionOrder.get(i);
+            for (int target : expansions[id].edges) {
+                if (expansions[target] != null || seeds.get(target)) continue;
+                if (externalTypes.get(target) || !excludedTypes.get(target) || recorded.get(target)) continue;
+                recorded.set(target);
+                List<String> path = new ArrayList<>(surface[id].expansion_path);
+                path.add(entries[id].fqcn);
+                BorderlineCase bc = new BorderlineCase();
+                bc.fqcn = entries[target].fqcn;
+                bc.reason = "Reachable from API via " + String.join(" -> ", path)
+                    + " but lives in excluded package";
+                bc.recommendation = "exclude";
+                bc.confidence = "high";
+                borderlineCases.add(bc);
+            }
+        }
+    }
+
+    // --- Incremental re-classification ---
+
+    /** Rebuild lookup maps, imports and API references from a saved reference graph. */
+    private void loadGraph(GraphFile graph) {
+        List<ClassIndexer.ClassEntry> classes = new ArrayList<>(graph.types.size());
+        for (GraphType t : graph.types) {
+            ClassIndexer.ClassEntry entry = new ClassIndexer.ClassEntry();
+            entry.fqcn = t.fqcn;
+            entry.package_ = t.package_;
+            entry.name = t.name;
+            entry.jar = t.jar;
+            classes.add(entry);
+        }
+        buildLookupMaps(classes);
+        for (int id = 0; id < entries.length; id++) {
+            GraphType t = graph.types.get(id);
+            apiReferences[id] = t.references.toArray(String[]::new);
+            if (t.imports != null) importNames[id] = new TreeSet<>(t.imports).toArray(String[]::new);
+            if (t.structure != null) structure[id] = t.structure.toArray(String[]::new);
+        }
+        resolveImports();
+    }
+
+    /**
+     * Update the previous expansion for a changed seed set, touching only the
+     * affected region. Edges are taken from the graph: with unchanged
+     * exclusions, every type resolves its references exactly as before.
+     */
+    private void expandRegion(GraphFile graph, Map<String, String> allSeeds, SurfaceAttribution previous) {
+        Set<String> removedSeeds = new HashSet<>(previous.seeds());
+        removedSeeds.removeAll(allSeeds.keySet());
+        Set<String> kept = previous.reachedWithout(removedSeeds);
+        BitSet seeds = new BitSet(entries.length);
+        for (String seed : allSeeds.keySet()) {
+            int id = typeId(seed);
+            if (id >= 0) seeds.set(id);
+        }
+
+        // Restore surviving expansions in their previous order
+        List<GraphType> expanded = graph.types.stream()
+            .filter(t -> t.expansion_index != null)
+            .sorted(Comparator.comparingInt(t -> t.expansion_index))
+            .toList();
+        IntList edges = new IntList();
+        for (GraphType t : expanded) {
+            if (!kept.contains(t.fqcn)) continue;
+            int id = typeId(t.fqcn);
+            edges.clear();
+            for (String edge : t.edges) {
+                int target = typeId(edge);
+                if (target >= 0) edges.add(target);
             }
+            String seedReason = allSeeds.get(t.fqcn);
+            expansions[id] = seedReason != null
+                ? new Expansion(seedReason, -1, edges.toArray())
+                : new Expansion("expansion", t.parent == null ? -1 : typeId(t.parent), edges.toArray());
+            expansionOrder.add(id);
+        }
+        int retracted = expanded.size() - expansionOrder.size();
 
-            // Resolve simple names to FQCNs and add to frontier
-            for (String simpleName : referencedSimpleNames) {
-                List<String> resolved = resolveSimpleName(simpleName, entry);
-                for (String resolvedFqcn : resolved) {
-                    if (!visited.contains(resolvedFqcn)) {
-                        List<String> newPath = new ArrayList<>(item.expansionPath);
-                        newPath.add(item.fqcn);
-                        String reason = item.expansionPath.isEmpty() ? "expansion" : "expansion";
-                        frontier.add(new ExpansionItem(resolvedFqcn, reason, newPath));
+        // Continue from seeds the previous run did not reach
+        Map<String, String> addedSeeds = new LinkedHashMap<>();
+        for (Map.Entry<String, String> seed : allSeeds.entrySet()) {
+            int id = typeId(seed.getKey());
+            if (id >= 0 && expansions[id] == null) {
+                addedSeeds.put(seed.getKey(), seed.getValue());
+            }
+        }
+        int before = expansionOrder.size();
+        BitSet visited = new BitSet(entries.length);
+        for (int i = 0; i < before; i++) visited.set(expansionOrder.get(i));
+        expand("added-seeds", addedSeeds, visited);
+        int added = expansionOrder.size() - before;
+
+        // Types whose path ran through a retracted type, or through a former seed, need a new parent
+        BitSet valid = new BitSet(entries.length);
+        IntList orphans = new IntList();
+        for (int i = 0; i < expansionOrder.size(); i++) {
+            int id = expansionOrder.get(i);
+            int parent = expansions[id].parent;
+            if (parent < 0 ? seeds.get(id) : valid.get(parent)) {
+                valid.set(id);
+            } else {
+                orphans.add(id);
+            }
+        }
+        if (orphans.size() > 0) {
+            int[] bfsParent = new int[entries.length];
+            Arrays.fill(bfsParent, -1);
+            BitSet reached = new BitSet(entries.length);
+            IntList queue = new IntList();
+            for (String seed : allSeeds.keySet()) {
+                int id = typeId(seed);
+                if (id >= 0 && expansions[id] != null && !reached.get(id)) {
+                    reached.set(id);
+                    queue.add(id);
+                }
+            }
+            for (int head = 0; head < queue.size(); head++) {
+                int u = queue.get(head);
+                for (int v : expansions[u].edges) {
+                    if (expansions[v] != null && !reached.get(v)) {
+                        reached.set(v);
+                        bfsParent[v] = u;
+                        queue.add(v);
                     }
                 }
             }
+            for (int i = 0; i < orphans.size(); i++) {
+                expansions[orphans.get(i)].parent = bfsParent[orphans.get(i)];
+            }
+        }
+        System.out.println("Incremental update: " + removedSeeds.size() + " seeds removed, "
+            + addedSeeds.size() + " added; " + retracted + " types retracted, " + added + " expanded, "
+            + orphans.size() + " re-parented");
+    }
+
+    private static Map<String, String> readPreviousSurface(Path outputDir) throws IOException {
+        Path file = ArtifactIO.find(outputDir.resolve("surface.json"));
+        if (!Files.isRegularFile(file)) return null;
+        SurfaceOutput previous;
+        try (Reader reader = ArtifactIO.newReader(file)) {
+            previous = new GsonBuilder().create().fromJson(reader, SurfaceOutput.class);
         }
+        Map<String, String> categories = new LinkedHashMap<>();
+        for (SurfaceType st : previous.types) categories.put(st.fqcn, st.category);
+        return categories;
     }
 
     /**
-     * After BFS expansion, remove protocol types from the surface when a non-protocol
-     * type with the same simple name already exists. These are wire-format DTO copies
-     * (e.g., protocol.BlockType duplicates server.core.asset.type.blocktype.config.BlockType).
-     * The server-side type is the canonical definition for plugin developers.
+     * After BFS expansion, remove protocol types from the surface that duplicate a
+     * non-protocol surface type. These are wire-format DTO copies (e.g.,
+     * protocol.BlockType duplicates server.core.asset.type.blocktype.config.BlockType);
+     * the server-side type is the canonical definition for plugin developers.
+     *
+     * Duplicates are recognized by structure ({@link NearDuplicates}), not by name:
+     * a protocol type is removed if its members closely match a server type's, or
+     * loosely match a server type of the same simple name. A same-named type with
+     * unrelated members is kept, and near misses go to surface-review.json. Types
+     * too small to fingerprint fall back to the simple-name rule. The server
+     * types each removed type duplicates are kept in {@link #duplicateOf}, so
+     * surface-attribution.json can re-apply the decision.
      *
      * Protocol types that are the ONLY definition of a concept (no server-side equivalent)
      * are kept — they're legitimate API surface.
      */
     private int deduplicateProtocolTypes() {
-        String protocolPrefix = "com.hypixel.hytale.protocol.";
-        List<String> toRemove = new ArrayList<>();
-
-        for (SurfaceType st : apiSurface.values()) {
-            if (!st.fqcn.startsWith(protocolPrefix)) continue;
-
-            // Get the simple name
-            ClassIndexer.ClassEntry entry = fqcnToEntry.get(st.fqcn);
-            if (entry == null) continue;
-            String simpleName = entry.name;
-
-            // Check if a non-protocol type with the same simple name is in the surface
-            boolean hasDuplicate = false;
-            for (SurfaceType other : apiSurface.values()) {
-                if (other.fqcn.startsWith(protocolPrefix)) continue;
-                ClassIndexer.ClassEntry otherEntry = fqcnToEntry.get(other.fqcn);
-                if (otherEntry != null && otherEntry.name.equals(simpleName)) {
-                    hasDuplicate = true;
-                    break;
-                }
+        Map<String, List<String>> protocol = new LinkedHashMap<>();
+        Map<String, List<String>> server = new LinkedHashMap<>();
+        Map<String, List<String>> serverBySimpleName = new HashMap<>();
+        for (int i = 0; i < expansionOrder.size(); i++) {
+            int id = expansionOrder.get(i);
+            if (!inSurface.get(id)) continue;
+            String fqcn = entries[id].fqcn;
+            List<String> features = structure[id] == null ? List.of() : Arrays.asList(structure[id]);
+            if (fqcn.startsWith(PROTOCOL_PREFIX)) {
+                protocol.put(fqcn, features);
+            } else {
+                server.put(fqcn, features);
+                serverBySimpleName.computeIfAbsent(entries[id].name, k -> new ArrayList<>()).add(fqcn);
+            }
+        }
+        if (protocol.isEmpty()) return 0;
+
+        NearDuplicates.Result nearest = NearDuplicates.find(protocol, server, REVIEW_SIMILARITY);
+        Set<String> protocolCommon = NearDuplicates.commonFeatures(protocol);
+        Set<String> serverCommon = NearDuplicates.commonFeatures(server);
+        System.out.printf("Structural dedup: %d protocol x %d server types, %d candidate pairs of %d%n",
+            protocol.size(), server.size(), nearest.candidatePairs(), nearest.totalPairs());
+
+        duplicateOf.clear();
+        int renamed = 0;
+        for (Map.Entry<String, List<String>> e : protocol.entrySet()) {
+            String fqcn = e.getKey();
+            List<String> sameName = serverBySimpleName.getOrDefault(fqcn.substring(fqcn.lastIndexOf('.') + 1),
+                List.of());
+            if (NearDuplicates.featureCount(e.getValue(), protocolCommon) < NearDuplicates.MIN_FEATURES) {
+                if (!sameName.isEmpty()) duplicateOf.put(fqcn, sameName);
+                continue;
             }
 
-            if (hasDuplicate) {
-                toRemove.add(st.fqcn);
+            // Best same-named server type, compared exactly
+            String namesake = null;
+            double namesakeSimilarity = 0;
+            for (String other : sameName) {
+                List<String> otherFeatures = server.get(other);
+                double similarity = NearDuplicates.featureCount(otherFeatures, serverCommon) < NearDuplicates.MIN_FEATURES
+                    ? 1.0 // nothing to compare against: trust the name, as before
+                    : NearDuplicates.similarity(e.getValue(), otherFeatures, protocolCommon, serverCommon);
+                if (namesake == null || similarity > namesakeSimilarity) {
+                    namesake = other;
+                    namesakeSimilarity = similarity;
+                }
+            }
+            NearDuplicates.Match match = nearest.best().get(fqcn);
+
+            if (namesake != null && namesakeSimilarity >= SAME_NAME_SIMILARITY) {
+                duplicateOf.put(fqcn, List.of(namesake));
+            } else if (match != null && match.similarity() >= DUPLICATE_SIMILARITY) {
+                duplicateOf.put(fqcn, List.of(match.match()));
+                renamed++;
+                addDuplicateCase(fqcn, "Structural duplicate of " + match.match(), match.similarity(),
+                    "exclude", "medium");
+            } else if (match != null) {
+                addDuplicateCase(fqcn, "Possible duplicate of " + match.match(), match.similarity(),
+                    "review", "low");
+            } else if (namesake != null) {
+                addDuplicateCase(fqcn, "Same simple name as " + namesake + " but different members; kept",
+                    namesakeSimilarity, "include", "medium");
             }
         }
 
-        for (String fqcn : toRemove) {
-            apiSurface.remove(fqcn);
+        for (String fqcn : duplicateOf.keySet()) {
+            inSurface.clear(typeId(fqcn));
         }
-        return toRemove.size();
+        if (renamed > 0) {
+            System.out.println("  of which renamed duplicates: " + renamed);
+        }
+        return duplicateOf.size();
+    }
+
+    private void addDuplicateCase(String fqcn, String reason, double similarity, String recommendation,
+                                  String confidence) {
+        BorderlineCase bc = new BorderlineCase();
+        bc.fqcn = fqcn;
+        bc.reason = String.format(Locale.ROOT, "%s (structural similarity %.2f)", reason, similarity);
+        bc.recommendation = recommendation;
+        bc.confidence = confidence;
+        borderlineCases.add(bc);
     }
 
     /**
@@ -546,152 +1009,129 @@ public class SurfaceClassifier {
     }
 
     /**
-     * Resolve a simple type name to FQCN(s) using the lookup map.
-     * Uses package proximity for disambiguation.
+     * Resolve a simple type name to type ids using the lookup maps.
+     * Uses package proximity for disambiguation. The result may be shared
+     * and must not be modified.
      */
-    private List<String> resolveSimpleName(String simpleName, ClassIndexer.ClassEntry context) {
-        // If it looks like a FQCN already (contains dots and starts with com.)
-        if (simpleName.contains(".") && simpleName.startsWith("com.")) {
-            if (fqcnToEntry.containsKey(simpleName)) {
-                return List.of(simpleName);
-            }
-            return List.of();
+    private int[] resolveSimpleName(String simpleName, int context) {
+        // If it looks like a FQCN already (dotted, starting with a lower-case package
+        // segment); plugin JARs in a combined index need not live under com.
+        if (simpleName.contains(".") && Character.isLowerCase(simpleName.charAt(0))) {
+            int id = typeId(simpleName);
+            return id >= 0 ? new int[] {id} : NONE;
         }
 
         // Handle inner class references like "CodecMapRegistry.Assets"
         if (simpleName.contains(".")) {
             String outerName = simpleName.substring(0, simpleName.indexOf('.'));
             String innerName = simpleName.substring(simpleName.indexOf('.') + 1);
-            List<String> outerFqcns = resolveSimpleName(outerName, context);
-            List<String> results = new ArrayList<>();
-            for (String outerFqcn : outerFqcns) {
-                String innerFqcn = outerFqcn + "." + innerName;
-                if (fqcnToEntry.containsKey(innerFqcn)) {
-                    results.add(innerFqcn);
+            int[] outerIds = resolveSimpleName(outerName, context);
+            IntList results = new IntList();
+            for (int outerId : outerIds) {
+                int innerId = typeId(entries[outerId].fqcn + "." + innerName);
+                if (innerId >= 0) {
+                    results.add(innerId);
                 }
             }
-            return results;
+            return results.toArray();
         }
 
-        List<String> candidates = simpleNameToFqcns.get(simpleName);
-        if (candidates == null || candidates.isEmpty()) return List.of();
+        int[] candidates = simpleNameToIds.get(simpleName);
+        if (candidates == null) return NONE;
 
         // Single match — but check if it's an inner class being matched by an unqualified name.
         // E.g., "Function" in source means java.util.function.Function (external, not in index),
         // but would spuriously match Scope.Function (an inner class). If the only candidate
         // is an inner class and we're using a bare name, it's likely an external type.
-        if (candidates.size() == 1) {
-            if (isInnerClass(candidates.get(0))) {
-                return List.of(); // Bare name doesn't match inner classes
+        if (candidates.length == 1) {
+            if (innerTypes.get(candidates[0])) {
+                return NONE; // Bare name doesn't match inner classes
             }
             return candidates;
         }
 
         // Multiple matches — use heuristics
+        int[] matches = new int[candidates.length];
+        int count;
 
         // 0. Check import statements (most accurate)
         // For inner classes, also check the outer class's imports
-        Set<String> imports = getEffectiveImports(context);
-        if (imports != null && !imports.isEmpty()) {
-            List<String> imported = new ArrayList<>();
-            for (String candidate : candidates) {
-                // Direct import match
-                if (imports.contains(candidate)) {
-                    imported.add(candidate);
-                    continue;
-                }
-                // Inner class of an imported type (handles scope inheritance)
-                // E.g., BuilderCodec.BuilderBase matched when BuilderCodec is imported
-                int lastDot = candidate.lastIndexOf('.');
-                while (lastDot > 0) {
-                    String parent = candidate.substring(0, lastDot);
-                    if (imports.contains(parent)) {
-                        imported.add(candidate);
+        int[] imports = importedIds[importOwner(context)];
+        if (imports != null && imports.length > 0) {
+            count = 0;
+            for (int candidate : candidates) {
+                // Direct import match, or inner class of an imported type (handles scope
+                // inheritance). E.g., BuilderCodec.BuilderBase matched when BuilderCodec is imported
+                for (int type = candidate; type >= 0; type = outerIds[type]) {
+                    if (Arrays.binarySearch(imports, type) >= 0) {
+                        matches[count++] = candidate;
                         break;
                     }
-                    lastDot = parent.lastIndexOf('.');
                 }
             }
-            if (imported.size() == 1) return imported;
-            if (!imported.isEmpty()) return imported;
+            if (count > 0) return Arrays.copyOf(matches, count);
         }
 
         // 1. Prefer same package
-        String contextPackage = context.package_;
-        for (String candidate : candidates) {
-            ClassIndexer.ClassEntry ce = fqcnToEntry.get(candidate);
-            if (ce != null && ce.package_ != null && ce.package_.equals(contextPackage)) {
-                return List.of(candidate);
+        int contextPackage = packageIds[context];
+        for (int candidate : candidates) {
+            if (packageIds[candidate] >= 0 && packageIds[candidate] == contextPackage) {
+                return new int[] {candidate};
             }
         }
 
+        // 1b. In an index built from several JARs, prefer the referencing type's own JAR
+        if (jarIds[context] >= 0) {
+            int sameJar = -1;
+            count = 0;
+            for (int candidate : candidates) {
+                if (jarIds[candidate] == jarIds[context]) {
+                    sameJar = candidate;
+                    count++;
+                }
+            }
+            if (count == 1) return new int[] {sameJar};
+        }
+
         // 2. Prefer non-excluded package types
-        List<String> pool = candidates;
-        List<String> nonExcluded = new ArrayList<>();
-        for (String candidate : pool) {
-            if (!isExcludedPackage(candidate) && !isExternal(candidate)) {
-                nonExcluded.add(candidate);
+        count = 0;
+        for (int candidate : candidates) {
+            if (!excludedTypes.get(candidate) && !externalTypes.get(candidate)) {
+                matches[count++] = candidate;
             }
         }
-        if (nonExcluded.size() == 1) return nonExcluded;
+        int[] pool = count == 0 ? candidates : Arrays.copyOf(matches, count);
+        if (count == 1) return pool;
 
         // 4. Prefer types from the same top-level package hierarchy
-        if (contextPackage != null) {
-            String topPackage = getTopLevelPackage(contextPackage);
-            List<String> sameTopLevel = new ArrayList<>();
-            for (String candidate : nonExcluded.isEmpty() ? pool : nonExcluded) {
-                ClassIndexer.ClassEntry ce = fqcnToEntry.get(candidate);
-                if (ce != null && ce.package_ != null && getTopLevelPackage(ce.package_).equals(topPackage)) {
-                    sameTopLevel.add(candidate);
+        if (contextPackage >= 0) {
+            int topPackage = topPackageIds[context];
+            count = 0;
+            for (int candidate : pool) {
+                if (topPackageIds[candidate] == topPackage) {
+                    matches[count++] = candidate;
                 }
             }
-            if (sameTopLevel.size() == 1) return sameTopLevel;
-            if (!sameTopLevel.isEmpty()) return sameTopLevel;
+            if (count > 0) return Arrays.copyOf(matches, count);
         }
 
         // 5. Return all non-excluded candidates (prefer false positives)
-        return nonExcluded.isEmpty() ? pool : nonExcluded;
+        return pool;
     }
 
     /**
-     * Get effective imports for a class. For inner classes, the imports come from
-     * the compilation unit (the outer class's source file) since Java shares imports.
+     * The type whose imports apply to the given one. Inner classes share the
+     * source file, and so the imports, of their outermost class.
      */
-    private Set<String> getEffectiveImports(ClassIndexer.ClassEntry context) {
-        // Inner classes share the source file with their outermost class.
-        // The import map is keyed by FQCN, so for inner classes we need
-        // to look up the outermost enclosing class.
-        String lookupFqcn = context.fqcn;
-        if (isInnerClass(lookupFqcn)) {
-            // Walk up to the outermost class
-            while (true) {
-                int lastDot = lookupFqcn.lastIndexOf('.');
-                if (lastDot < 0) break;
-                String candidate = lookupFqcn.substring(0, lastDot);
-                ClassIndexer.ClassEntry ce = fqcnToEntry.get(candidate);
-                if (ce != null && !isInnerClass(candidate)) {
-                    lookupFqcn = candidate;
-                    break;
-                }
-                if (ce == null) break; // reached the package level
-                lookupFqcn = candidate;
-            }
+    private int importOwner(int id) {
+        if (!innerTypes.get(id)) return id;
+        // Walk up to the outermost class, stopping at the package level
+        int owner = id;
+        while (outerIds[owner] >= 0) {
+            owner = outerIds[owner];
+            if (!innerTypes.get(owner)) break;
         }
-        return importMap.get(lookupFqcn);
-    }
-
-    /**
-     * Check if a FQCN represents an inner class. In the index, inner classes
-     * have FQCNs like "com.foo.Outer.Inner" where "Outer" is a class name
-     * (starts with uppercase) in the FQCN path.
-     */
-    private boolean isInnerClass(String fqcn) {
-        ClassIndexer.ClassEntry entry = fqcnToEntry.get(fqcn);
-        if (entry == null) return false;
-        // If the FQCN has more segments after the package than just the class name,
-        // it's an inner class. Compare package + "." + name vs fqcn.
-        String expected = entry.package_.isEmpty() ? entry.name : entry.package_ + "." + entry.name;
-        return !fqcn.equals(expected);
+        return owner;
     }
 
     private static String getTopLevelPackage(String pkg) {
@@ -701,46 +1141,29 @@ public class SurfaceClassifier {
         return String.join(".", Arrays.copyOf(parts, depth));
     }
 
-    private static boolean isExternal(String fqcn) {
-        for (String prefix : EXTERNAL_PREFIXES) {
-            if (fqcn.startsWith(prefix)) return true;
-        }
-        return false;
+    private String tagForPackage(String fqcn) {
+        return packageRules.match(fqcn).tag();
     }
 
-    private static boolean isExcludedPackage(String fqcn) {
-        for (String prefix : EXCLUDED_PACKAGES) {
-            if (fqcn.startsWith(prefix)) return true;
-        }
-        return false;
+    private String categorize(String fqcn) {
+        return packageRules.match(fqcn).category();
     }
 
-    private static String tagForPackage(String fqcn) {
-        for (Map.Entry<String, String> entry : EXCLUDED_TAGS.entrySet()) {
-            if (fqcn.startsWith(entry.getKey())) return entry.getValue();
-        }
-        // Root protocol types not reached by expansion still get tagged as protocol
-        if (fqcn.startsWith("com.hypixel.hytale.protocol.")) return "protocol";
-        return "internal";
-    }
+    // --- Output writing ---
 
-    private static String categorize(String fqcn) {
-        for (Map.Entry<String, String> rule : CATEGORY_RULES) {
-            if (fqcn.startsWith(rule.getKey())) return rule.getValue();
-        }
-        return "core";
+    /** Output file in the artifacts directory, .gz when compressing. */
+    private Path output(Path outputDir, String name) {
+        return ArtifactIO.target(outputDir.resolve(name), compress);
     }
 
-    // --- Output writing ---
-
     private void writeSurfaceJson(Gson gson, Path outputDir, String timestamp) throws IOException {
         SurfaceOutput output = new SurfaceOutput();
         output.version = "1.0.0";
         output.generated_at = timestamp;
-        output.total_api_types = apiSurface.size();
+        output.types = surfaceTypes();
+        output.total_api_types = output.types.size();
         output.seed_types = allSeedFqcns;
-        output.types = new ArrayList<>(apiSurface.values());
-        Files.writeString(outputDir.resolve("surface.json"), gson.toJson(output));
+        ArtifactIO.writeJson(gson, output, output(outputDir, "surface.json"));
     }
 
     private void writeInternalJson(Gson gson, Path outputDir, String timestamp,
@@ -750,7 +1173,7 @@ public class SurfaceClassifier {
         output.generated_at = timestamp;
         output.total_internal_types = internalTypes.size();
         output.types = internalTypes;
-        Files.writeString(outputDir.resolve("internal-index.json"), gson.toJson(output));
+        ArtifactIO.writeJson(gson, output, output(outputDir, "internal-index.json"));
     }
 
     private void writeReviewJson(Gson gson, Path outputDir, String timestamp) throws IOException {
@@ -758,12 +1181,140 @@ public class SurfaceClassifier {
         output.version = "1.0.0";
         output.generated_at = timestamp;
         output.borderline_cases = borderlineCases;
-        Files.writeString(outputDir.resolve("surface-review.json"), gson.toJson(output));
+        ArtifactIO.writeJson(gson, output, output(outputDir, "surface-review.json"));
+    }
+
+    /**
+     * Everything an incremental run needs: the effective config, each type's
+     * API references and imports, and how the expanded types were reached.
+     */
+    private void writeGraphJson(Gson gson, Path indexPath, Path outputDir, String timestamp) throws IOException {
+        GraphFile output = new GraphFile();
+        output.version = "1.0.0";
+        output.generated_at = timestamp;
+        output.jar_hash = jarHash;
+        output.index_size = Files.size(indexPath);
+        output.index_modified = Files.getLastModifiedTime(indexPath).toString();
+        output.config = config;
+        output.types = new ArrayList<>();
+        int[] order = new int[entries.length];
+        for (int i = 0; i < expansionOrder.size(); i++) order[expansionOrder.get(i)] = i;
+        for (int id = 0; id < entries.length; id++) {
+            ClassIndexer.ClassEntry entry = entries[id];
+            GraphType t = new GraphType();
+            t.fqcn = entry.fqcn;
+            t.package_ = entry.package_;
+            t.name = entry.name;
+            t.jar = entry.jar;
+            t.references = apiReferences[id] == null ? List.of() : Arrays.asList(apiReferences[id]);
+            t.imports = importNames[id] == null ? null : Arrays.asList(importNames[id]);
+            t.structure = structure[id] == null ? null : Arrays.asList(structure[id]);
+            Expansion exp = expansions[id];
+            if (exp != null) {
+                t.expansion_index = order[id];
+                t.reason = exp.reason;
+                t.parent = exp.parent < 0 ? null : entries[exp.parent].fqcn;
+                t.edges = fqcns(exp.edges);
+            }
+            output.types.add(t);
+        }
+        ArtifactIO.writeJson(gson, output, output(outputDir, GRAPH_FILE));
     }
 
-    // --- Record types for BFS ---
+    private void writeDeltaJson(Gson gson, Path outputDir, String timestamp, Map<String, String> previous,
+                                String mode, List<String> changes) throws IOException {
+        DeltaOutput output = new DeltaOutput();
+        output.version = "1.0.0";
+        output.generated_at = timestamp;
+        output.mode = mode;
+        output.config_changes = changes;
+        output.previous_total = previous.size();
+        output.total = inSurface.cardinality();
+        output.entered = new ArrayList<>();
+        output.left = new ArrayList<>();
+        output.recategorized = new ArrayList<>();
+        for (SurfaceType st : surfaceTypes()) {
+            String before = previous.get(st.fqcn);
+            if (before == null) {
+                DeltaType d = new DeltaType();
+                d.fqcn = st.fqcn;
+                d.category = st.category;
+                d.inclusion_reason = st.inclusion_reason;
+                output.entered.add(d);
+            } else if (!before.equals(st.category)) {
+                Recategorized r = new Recategorized();
+                r.fqcn = st.fqcn;
+                r.from = before;
+                r.to = st.category;
+                output.recategorized.add(r);
+            }
+        }
+        for (Map.Entry<String, String> e : previous.entrySet()) {
+            int id = typeId(e.getKey());
+            if (id >= 0 && inSurface.get(id)) continue;
+            DeltaType d = new DeltaType();
+            d.fqcn = e.getKey();
+            d.category = e.getValue();
+            output.left.add(d);
+        }
+        ArtifactIO.writeJson(gson, output, output(outputDir, DELTA_FILE));
+        System.out.println("Surface delta: +" + output.entered.size() + " -" + output.left.size()
+            + " ~" + output.recategorized.size() + " (" + mode + ")");
+    }
+
+    // --- Types for BFS ---
+
+    private static final int[] NONE = new int[0];
 
-    private record ExpansionItem(String fqcn, String reason, List<String> expansionPath) {}
+    /** How an expanded type was reached (parent -1 for a seed), and the indexed types its API references. */
+    private static class Expansion {
+        final String reason;
+        int parent;
+        final int[] edges;
+
+        Expansion(String reason, int parent, int[] edges) {
+            this.reason = reason;
+            this.parent = parent;
+            this.edges = edges;
+        }
+    }
+
+    /** Growable list of ints, for frontiers and id lists without boxing. */
+    private static final class IntList {
+        private int[] items = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = value;
+        }
+
+        int get(int index) {
+            return items[index];
+        }
+
+        void set(int index, int value) {
+            items[index] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int[] toArray() {
+            return size == 0 ? NONE : Arrays.copyOf(items, size);
+        }
+
+        List<Integer> boxed() {
+            List<Integer> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) list.add(items[i]);
+            return list;
+        }
+    }
 
     // --- JSON output model classes ---
 
@@ -780,6 +1331,8 @@ public class SurfaceClassifier {
         String inclusion_reason;
         List<String> expansion_path;
         String category;
+        // Only in an index built from several JARs
+        String jar;
     }
 
     static class InternalOutput {
@@ -806,4 +1359,55 @@ public class SurfaceClassifier {
         String recommendation;
         String confidence;
     }
+
+    static class GraphFile {
+        String version;
+        String generated_at;
+        String jar_hash;
+        long index_size;
+        String index_modified;
+        ClassifierConfig config;
+        List<GraphType> types;
+    }
+
+    static class GraphType {
+        String fqcn;
+        @SerializedName("package")
+        String package_;
+        String name;
+        String jar;
+        List<String> references;
+        List<String> imports;
+        // Structural features, for protocol de-duplication
+        List<String> structure;
+        // Only for expanded types
+        Integer expansion_index;
+        String reason;
+        String parent;
+        List<String> edges;
+    }
+
+    static class DeltaOutput {
+        String version;
+        String generated_at;
+        String mode;
+        List<String> config_changes;
+        int previous_total;
+        int total;
+        List<DeltaType> entered;
+        List<DeltaType> left;
+        List<Recategorized> recategorized;
+    }
+
+    static class DeltaType {
+        String fqcn;
+        String category;
+        String inclusion_reason;
+    }
+
+    static class Recategorized {
+        String fqcn;
+        String from;
+        String to;
+    }
 }
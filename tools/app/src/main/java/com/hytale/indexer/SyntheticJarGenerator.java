@@ -0,0 +1,717 @@
+package com.hytale.indexer;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Builds a deterministic synthetic stand-in for HytaleServer.jar, for
+ * measuring how the pipeline scales without the proprietary JAR.
+ *
+ * Usage: synthetic-jar <class-count> <output.jar> [--seed n]
+ *
+ * Everything lives under com/hypixel/hytale/ in package trees rooted at the
+ * classifier's own category and exclusion prefixes, 3 to 9 segments deep. The
+ * JAR contains the classifier's tier 1-3 seed types, the event and packet
+ * framework interfaces, and a mix of generic classes, interfaces, enums,
+ * static and inner member classes, events under server.core.event (some
+ * cancellable, some async) and protocol packet look-alikes. Every type
+ * references a handful of earlier ones through fields, accessors and
+ * supertypes, so Phase 2 expands a connected graph. Method bodies are short
+ * straight-line code: enough for Vineflower to decompile something, no
+ * branches, so no stack map frames are needed.
+ *
+ * The same count and seed always give the same JAR, byte for byte.
+ */
+public class SyntheticJarGenerator {
+
+    static final String ROOT = "com/hypixel/hytale/";
+    private static final String IBASE_EVENT = ROOT + "event/IBaseEvent";
+    private static final String IEVENT = ROOT + "event/IEvent";
+    private static final String IASYNC_EVENT = ROOT + "event/IAsyncEvent";
+    private static final String ICANCELLABLE = ROOT + "event/ICancellable";
+    private static final String PACKET = ROOT + "protocol/Packet";
+    private static final String BYTE_BUFFER = "java/nio/ByteBuffer";
+    private static final long ENTRY_TIME = 1_700_000_000_000L;
+
+    private static final String[] WORDS = {
+        "world", "entity", "block", "item", "player", "chunk", "physics", "model", "asset", "config",
+        "network", "storage", "command", "particle", "sound", "light", "fluid", "spawn", "combat", "stats",
+        "inventory", "crafting", "weather", "path", "ai", "prefab", "biome", "noise", "camera", "ui",
+        "permission", "task", "metric", "zone", "portal", "farming", "projectile", "interaction", "effect", "team"
+    };
+    private static final String[] NOUNS = {
+        "Manager", "Registry", "Handler", "System", "Component", "Data", "Config", "Provider", "Service",
+        "State", "Builder", "Codec", "Type", "Asset", "Controller", "Module", "Store", "Context", "Factory", "Util"
+    };
+    private static final String[] CONSTANTS = {
+        "NONE", "DEFAULT", "NORTH", "SOUTH", "EAST", "WEST", "UP", "DOWN", "ACTIVE", "DISABLED", "PENDING", "DONE"
+    };
+
+    enum Kind { CLASS, INTERFACE, ENUM, EVENT, PACKET }
+
+    /** One generated class file. */
+    private static final class TypeSpec {
+        final String name;
+        final Kind kind;
+        String superName = "java/lang/Object";
+        String superSignature = "Ljava/lang/Object;";
+        final List<String> interfaces = new ArrayList<>();
+        final List<String> interfaceSignatures = new ArrayList<>();
+        boolean generic;
+        boolean cancellable;
+        final List<String> refs = new ArrayList<>();
+        final List<TypeSpec> nested = new ArrayList<>();
+        TypeSpec outer;
+        boolean inner;
+
+        TypeSpec(String name, Kind kind) {
+            this.name = name;
+            this.kind = kind;
+        }
+
+        String simpleName() {
+            return name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('$')) + 1);
+        }
+    }
+
+    private final Random random;
+    private final Map<String, TypeSpec> types = new LinkedHashMap<>();
+    private final List<TypeSpec> referable = new ArrayList<>();
+    private final List<TypeSpec> extendable = new ArrayList<>();
+    private final List<TypeSpec> interfaces = new ArrayList<>();
+    private final List<TypeSpec> events = new ArrayList<>();
+    private final List<String> packages = new ArrayList<>();
+    private final List<String> eventPackages = new ArrayList<>();
+    private final List<String> packetPackages = new ArrayList<>();
+    private int classCount;
+
+    SyntheticJarGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public static void main(String[] args) {
+        long seed = 42;
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--seed") && i + 1 < args.length) {
+                seed = Long.parseLong(args[++i]);
+            } else {
+                positional.add(args[i]);
+            }
+        }
+        if (positional.size() != 2) {
+            System.err.println("Usage: synthetic-jar <class-count> <output.jar> [--seed n]");
+            System.exit(1);
+        }
+
+        try {
+            int count = Integer.parseInt(positional.get(0));
+            Path out = Path.of(positional.get(1)).toAbsolutePath();
+            Summary summary = new SyntheticJarGenerator(seed).generate(count, out);
+            System.out.println("Generated " + summary);
+            System.out.println("Written to: " + out);
+        } catch (Exception e) {
+            System.err.println("FATAL: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    record Summary(int classes, int topLevel, int packages, int maxDepth, long bytes) {
+        @Override
+        public String toString() {
+            return String.format("%d classes (%d top-level) in %d packages, max depth %d, %.1f MB",
+                classes, topLevel, packages, maxDepth, bytes / (1024.0 * 1024.0));
+        }
+    }
+
+    /** Plan about {@code count} classes (member classes included) and write them to a JAR. */
+    Summary generate(int count, Path jar) throws IOException {
+        planPackages(count);
+        planFramework();
+        while (classCount < count) {
+            planType();
+        }
+        // Seeds reference types from anywhere in the tree, like real entry points do
+        for (TypeSpec t : types.values()) {
+            if (t.refs.isEmpty() && t.kind != Kind.ENUM && !t.name.startsWith(ROOT + "event/")) {
+                pickRefs(t, 4 + random.nextInt(8), referable);
+            }
+        }
+
+        if (jar.getParent() != null) Files.createDirectories(jar.getParent());
+        int topLevel = 0;
+        int maxDepth = 0;
+        try (OutputStream os = Files.newOutputStream(jar);
+             JarOutputStream jos = new JarOutputStream(os, manifest())) {
+            for (TypeSpec t : types.values()) {
+                if (t.outer == null) {
+                    topLevel++;
+                    maxDepth = Math.max(maxDepth, (int) t.name.chars().filter(c -> c == '/').count());
+                }
+                JarEntry entry = new JarEntry(t.name + ".class");
+                entry.setTime(ENTRY_TIME);
+                jos.putNextEntry(entry);
+                jos.write(emit(t));
+                jos.closeEntry();
+            }
+        }
+        Set<String> distinct = new HashSet<>();
+        for (TypeSpec t : types.values()) distinct.add(t.name.substring(0, t.name.lastIndexOf('/')));
+        return new Summary(types.size(), topLevel, distinct.size(), maxDepth, Files.size(jar));
+    }
+
+    private static Manifest manifest() {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        return manifest;
+    }
+
+    // --- Planning ---
+
+    private void planPackages(int count) {
+        ClassifierConfig config = ClassifierConfig.defaults();
+        List<String> roots = new ArrayList<>();
+        for (ClassifierConfig.CategoryRule rule : config.category_rules) roots.add(rule.prefix);
+        for (String excluded : config.excluded_packages) roots.add(excluded.substring(0, excluded.length() - 1));
+        int packageCount = Math.max(8, count / 15);
+        for (int i = 0; i < packageCount; i++) {
+            StringBuilder pkg = new StringBuilder(roots.get(random.nextInt(roots.size())).replace('.', '/'));
+            int extra = random.nextInt(4);
+            for (int d = 0; d < extra; d++) pkg.append('/').append(word());
+            packages.add(pkg.toString());
+        }
+        for (int i = 0; i < Math.max(2, packageCount / 20); i++) {
+            eventPackages.add(ROOT + "server/core/event/events/" + word());
+            packetPackages.add(ROOT + "protocol/packets/" + word());
+        }
+    }
+
+    /** Event and packet framework types plus every tier 1-3 seed of the default config. */
+    private void planFramework() {
+        TypeSpec base = add(new TypeSpec(IBASE_EVENT, Kind.INTERFACE));
+        base.generic = true;
+        for (String name : List.of(IEVENT, IASYNC_EVENT)) {
+            TypeSpec t = add(new TypeSpec(name, Kind.INTERFACE));
+            t.generic = true;
+            t.interfaces.add(IBASE_EVENT);
+            t.interfaceSignatures.add("L" + IBASE_EVENT + "<TT;>;");
+        }
+        add(new TypeSpec(ICANCELLABLE, Kind.INTERFACE));
+        add(new TypeSpec(PACKET, Kind.INTERFACE));
+
+        for (String fqcn : ClassifierConfig.defaults().explicitSeeds().keySet()) {
+            String[] parts = fqcn.split("\\.");
+            StringBuilder name = new StringBuilder();
+            TypeSpec outer = null;
+            for (String part : parts) {
+                boolean isType = Character.isUpperCase(part.charAt(0));
+                if (name.length() > 0) name.append(outer != null ? '$' : '/');
+                name.append(part);
+                if (!isType) continue;
+                TypeSpec t = types.get(name.toString());
+                if (t == null) {
+                    t = new TypeSpec(name.toString(), part.startsWith("I") && Character.isUpperCase(part.charAt(1))
+                        ? Kind.INTERFACE : Kind.CLASS);
+                    if (outer != null) {
+                        t.outer = outer;
+                        outer.nested.add(t);
+                    }
+                    add(t);
+                    register(t);
+                }
+                outer = t;
+            }
+        }
+    }
+
+    private void planType() {
+        int roll = random.nextInt(100);
+        Kind kind = roll < 8 ? Kind.EVENT : roll < 18 ? Kind.PACKET : roll < 28 ? Kind.INTERFACE
+            : roll < 35 ? Kind.ENUM : Kind.CLASS;
+        String pkg = switch (kind) {
+            case EVENT -> eventPackages.get(random.nextInt(eventPackages.size()));
+            case PACKET -> packetPackages.get(random.nextInt(packetPackages.size()));
+            default -> packages.get(random.nextInt(packages.size()));
+        };
+        TypeSpec t = new TypeSpec(uniqueName(pkg, kind), kind);
+
+        switch (kind) {
+            case EVENT -> {
+                if (!events.isEmpty() && random.nextInt(4) == 0) {
+                    TypeSpec parent = events.get(random.nextInt(events.size()));
+                    t.superName = parent.name;
+                    t.superSignature = "L" + parent.name + ";";
+                } else {
+                    String iface = random.nextInt(5) == 0 ? IASYNC_EVENT : IEVENT;
+                    String key = random.nextBoolean() ? "Ljava/lang/Void;" : "Ljava/lang/String;";
+                    t.interfaces.add(iface);
+                    t.interfaceSignatures.add("L" + iface + "<" + key + ">;");
+                }
+                if (random.nextInt(3) == 0) {
+                    t.cancellable = true;
+                    t.interfaces.add(ICANCELLABLE);
+                    t.interfaceSignatures.add("L" + ICANCELLABLE + ";");
+                }
+                pickRefs(t, 1 + random.nextInt(3), referable);
+                events.add(t);
+            }
+            case PACKET -> {
+                t.interfaces.add(PACKET);
+                t.interfaceSignatures.add("L" + PACKET + ";");
+                pickRefs(t, random.nextInt(3), referable);
+            }
+            case INTERFACE -> {
+                t.generic = random.nextInt(3) == 0;
+                if (!interfaces.isEmpty() && random.nextInt(4) == 0) {
+                    TypeSpec parent = interfaces.get(random.nextInt(interfaces.size()));
+                    t.interfaces.add(parent.name);
+                    t.interfaceSignatures.add(parent.generic ? "L" + parent.name + "<Ljava/lang/String;>;" : "L" + parent.name + ";");
+                }
+                pickRefs(t, 1 + random.nextInt(3), referable);
+            }
+            case ENUM -> {
+            }
+            case CLASS -> {
+                t.generic = random.nextInt(4) == 0;
+                if (!extendable.isEmpty() && random.nextInt(10) < 3) {
+                    TypeSpec parent = extendable.get(random.nextInt(extendable.size()));
+                    t.superName = parent.name;
+                    t.superSignature = parent.generic ? "L" + parent.name + "<Ljava/lang/Integer;>;" : "L" + parent.name + ";";
+                }
+                if (!interfaces.isEmpty() && random.nextInt(5) == 0) {
+                    TypeSpec iface = interfaces.get(random.nextInt(interfaces.size()));
+                    t.interfaces.add(iface.name);
+                    t.interfaceSignatures.add(iface.generic ? "L" + iface.name + "<Ljava/lang/String;>;" : "L" + iface.name + ";");
+                }
+                pickRefs(t, 2 + random.nextInt(5), referable);
+            }
+        }
+        add(t);
+
+        // Member classes: static nested, inner, nested enums
+        if (kind == Kind.CLASS && random.nextInt(5) == 0) {
+            int members = 1 + random.nextInt(3);
+            for (int i = 0; i < members; i++) {
+                boolean isEnum = random.nextInt(4) == 0;
+                TypeSpec member = new TypeSpec(t.name + "$" + capitalize(word()) + (isEnum ? "Mode" : "Entry") + i,
+                    isEnum ? Kind.ENUM : Kind.CLASS);
+                member.outer = t;
+                member.inner = !isEnum && random.nextBoolean();
+                if (!isEnum) pickRefs(member, 1 + random.nextInt(2), referable);
+                t.nested.add(member);
+                add(member);
+                if (!member.inner) register(member);
+            }
+        }
+        register(t);
+    }
+
+    private TypeSpec add(TypeSpec t) {
+        types.put(t.name, t);
+        classCount++;
+        return t;
+    }
+
+    /** Make a planned type available as a reference, supertype or parent interface of later types. */
+    private void register(TypeSpec t) {
+        if (t.name.startsWith(ROOT + "event/") || t.name.equals(PACKET)) return;
+        referable.add(t);
+        if (t.kind == Kind.CLASS && !t.inner) extendable.add(t);
+        if (t.kind == Kind.INTERFACE) interfaces.add(t);
+    }
+
+    private void pickRefs(TypeSpec t, int n, List<TypeSpec> pool) {
+        if (pool.isEmpty()) return;
+        for (int i = 0; i < n; i++) {
+            // Favour recent types, so packages reference their neighbours more than the whole tree
+            int bound = Math.min(pool.size(), random.nextInt(4) == 0 ? pool.size() : 200);
+            TypeSpec ref = pool.get(pool.size() - 1 - random.nextInt(bound));
+            if (!ref.name.equals(t.name) && !t.refs.contains(ref.name)) t.refs.add(ref.name);
+        }
+    }
+
+    private String uniqueName(String pkg, Kind kind) {
+        String suffix = switch (kind) {
+            case EVENT -> "Event";
+            case PACKET -> "Packet";
+            default -> NOUNS[random.nextInt(NOUNS.length)];
+        };
+        String prefix = kind == Kind.INTERFACE && random.nextBoolean() ? "I" : "";
+        String base = pkg + "/" + prefix + capitalize(word()) + capitalize(word()) + suffix;
+        String name = base;
+        for (int i = 2; types.containsKey(name); i++) name = base + i;
+        return name;
+    }
+
+    private String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String capitalize(String s) {
+        return Character.toUpperCase(s.charAt(0)) + s.substring(1);
+    }
+
+    // --- Class file emission ---
+
+    private byte[] emit(TypeSpec t) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        int access = switch (t.kind) {
+            case INTERFACE -> Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT;
+            case ENUM -> Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_ENUM;
+            default -> Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER;
+        };
+        String superName = t.kind == Kind.ENUM ? "java/lang/Enum" : t.superName;
+        String signature = null;
+        if (t.kind == Kind.ENUM) {
+            signature = "Ljava/lang/Enum<L" + t.name + ";>;";
+        } else if (t.generic || !t.interfaceSignatures.stream().allMatch(s -> s.indexOf('<') < 0)
+                || t.superSignature.indexOf('<') >= 0) {
+            StringBuilder sig = new StringBuilder();
+            if (t.generic) sig.append("<T:Ljava/lang/Object;>");
+            sig.append(t.superSignature);
+            t.interfaceSignatures.forEach(sig::append);
+            signature = sig.toString();
+        }
+        cw.visit(Opcodes.V21, access, t.name, signature, superName, t.interfaces.toArray(String[]::new));
+
+        if (t.outer != null) {
+            cw.visitNestHost(t.outer.name);
+            cw.visitInnerClass(t.name, t.outer.name, t.simpleName(), memberAccess(t));
+        }
+        for (TypeSpec member : t.nested) {
+            cw.visitNestMember(member.name);
+            cw.visitInnerClass(member.name, t.name, member.simpleName(), memberAccess(member));
+        }
+
+        switch (t.kind) {
+            case INTERFACE -> emitInterface(cw, t);
+            case ENUM -> emitEnum(cw, t);
+            case EVENT -> emitEvent(cw, t);
+            case PACKET -> emitPacket(cw, t);
+            case CLASS -> emitClass(cw, t);
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static int memberAccess(TypeSpec t) {
+        int access = Opcodes.ACC_PUBLIC;
+        if (!t.inner) access |= Opcodes.ACC_STATIC;
+        if (t.kind == Kind.ENUM) access |= Opcodes.ACC_FINAL | Opcodes.ACC_ENUM;
+        if (t.kind == Kind.INTERFACE) access |= Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT;
+        return access;
+    }
+
+    private void emitInterface(ClassWriter cw, TypeSpec t) {
+        switch (t.name) {
+            case ICANCELLABLE -> {
+                cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "isCancelled", "()Z", null, null).visitEnd();
+                cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "setCancelled", "(Z)V", null, null).visitEnd();
+                return;
+            }
+            case PACKET -> {
+                cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "serialize", "(L" + BYTE_BUFFER + ";)V", null, null).visitEnd();
+                cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "computeSize", "()I", null, null).visitEnd();
+                return;
+            }
+            default -> {
+            }
+        }
+        if (t.generic) {
+            MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "resolve", "(Ljava/lang/Object;)Ljava/lang/Object;",
+                "(TT;)TT;", null);
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitInsn(Opcodes.ARETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        int i = 0;
+        for (String ref : t.refs) {
+            // Default methods, so implementors owe nothing
+            MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "lookup" + simple(ref) + i++,
+                "(Ljava/lang/String;)L" + ref + ";", null, null);
+            mv.visitCode();
+            mv.visitInsn(Opcodes.ACONST_NULL);
+            mv.visitInsn(Opcodes.ARETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+    }
+
+    private void emitEnum(ClassWriter cw, TypeSpec t) {
+        String desc = "L" + t.name + ";";
+        int count = 2 + random.nextInt(5);
+        List<String> constants = new ArrayList<>();
+        int start = random.nextInt(CONSTANTS.length);
+        for (int i = 0; i < count; i++) constants.add(CONSTANTS[(start + i) % CONSTANTS.length]);
+        for (String c : constants) {
+            cw.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL | Opcodes.ACC_ENUM,
+                c, desc, null, null).visitEnd();
+        }
+        cw.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL | Opcodes.ACC_SYNTHETIC,
+            "$VALUES", "[" + desc, null, null).visitEnd();
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "values", "()[" + desc, null, null);
+        mv.visitCode();
+        mv.visitFieldInsn(Opcodes.GETSTATIC, t.name, "$VALUES", "[" + desc);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "[" + desc, "clone", "()Ljava/lang/Object;", false);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, "[" + desc);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "valueOf", "(Ljava/lang/String;)" + desc, null, null);
+        mv.visitCode();
+        mv.visitLdcInsn(org.objectweb.asm.Type.getObjectType(t.name));
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Enum", "valueOf",
+            "(Ljava/lang/Class;Ljava/lang/String;)Ljava/lang/Enum;", false);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, t.name);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(Opcodes.ACC_PRIVATE, "<init>", "(Ljava/lang/String;I)V", "()V", null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitVarInsn(Opcodes.ILOAD, 2);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Enum", "<init>", "(Ljava/lang/String;I)V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+        mv.visitCode();
+        for (int i = 0; i < constants.size(); i++) {
+            mv.visitTypeInsn(Opcodes.NEW, t.name);
+            mv.visitInsn(Opcodes.DUP);
+            mv.visitLdcInsn(constants.get(i));
+            mv.visitIntInsn(Opcodes.BIPUSH, i);
+            mv.visitMethodInsn(Opcodes.INVOKESPECIAL, t.name, "<init>", "(Ljava/lang/String;I)V", false);
+            mv.visitFieldInsn(Opcodes.PUTSTATIC, t.name, constants.get(i), desc);
+        }
+        mv.visitIntInsn(Opcodes.BIPUSH, constants.size());
+        mv.visitTypeInsn(Opcodes.ANEWARRAY, t.name);
+        for (int i = 0; i < constants.size(); i++) {
+            mv.visitInsn(Opcodes.DUP);
+            mv.visitIntInsn(Opcodes.BIPUSH, i);
+            mv.visitFieldInsn(Opcodes.GETSTATIC, t.name, constants.get(i), desc);
+            mv.visitInsn(Opcodes.AASTORE);
+        }
+        mv.visitFieldInsn(Opcodes.PUTSTATIC, t.name, "$VALUES", "[" + desc);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void emitEvent(ClassWriter cw, TypeSpec t) {
+        emitConstructor(cw, t);
+        emitRefAccessors(cw, t, false);
+        if (t.cancellable) {
+            cw.visitField(Opcodes.ACC_PRIVATE, "cancelled", "Z", null, null).visitEnd();
+            MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "isCancelled", "()Z", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, t.name, "cancelled", "Z");
+            mv.visitInsn(Opcodes.IRETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+            mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "setCancelled", "(Z)V", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitVarInsn(Opcodes.ILOAD, 1);
+            mv.visitFieldInsn(Opcodes.PUTFIELD, t.name, "cancelled", "Z");
+            mv.visitInsn(Opcodes.RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        emitToString(cw, t, null);
+    }
+
+    private void emitPacket(ClassWriter cw, TypeSpec t) {
+        int id = random.nextInt(1000);
+        cw.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "PACKET_ID", "I", null, id).visitEnd();
+        cw.visitField(Opcodes.ACC_PUBLIC, "id", "I", null, null).visitEnd();
+        cw.visitField(Opcodes.ACC_PUBLIC, "flags", "J", null, null).visitEnd();
+        emitConstructor(cw, t);
+        emitRefAccessors(cw, t, true);
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "serialize", "(L" + BYTE_BUFFER + ";)V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, t.name, "id", "I");
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BYTE_BUFFER, "putInt", "(I)L" + BYTE_BUFFER + ";", false);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, t.name, "flags", "J");
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BYTE_BUFFER, "putLong", "(J)L" + BYTE_BUFFER + ";", false);
+        mv.visitInsn(Opcodes.POP);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "deserialize",
+            "(L" + BYTE_BUFFER + ";)L" + t.name + ";", null, null);
+        mv.visitCode();
+        mv.visitTypeInsn(Opcodes.NEW, t.name);
+        mv.visitInsn(Opcodes.DUP);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, t.name, "<init>", "()V", false);
+        mv.visitVarInsn(Opcodes.ASTORE, 1);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BYTE_BUFFER, "getInt", "()I", false);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, t.name, "id", "I");
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "computeSize", "()I", null, null);
+        mv.visitCode();
+        mv.visitIntInsn(Opcodes.BIPUSH, 12);
+        mv.visitInsn(Opcodes.IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void emitClass(ClassWriter cw, TypeSpec t) {
+        FieldVisitor fv = cw.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL,
+            "ID", "Ljava/lang/String;", null, t.simpleName().toLowerCase(Locale.ROOT));
+        fv.visitEnd();
+        cw.visitField(Opcodes.ACC_PROTECTED, "count", "I", null, null).visitEnd();
+        if (t.inner) {
+            cw.visitField(Opcodes.ACC_FINAL | Opcodes.ACC_SYNTHETIC, "this$0", "L" + t.outer.name + ";", null, null).visitEnd();
+        }
+        emitConstructor(cw, t);
+
+        if (t.generic) {
+            cw.visitField(Opcodes.ACC_PRIVATE, "value", "Ljava/lang/Object;", "TT;", null).visitEnd();
+            emitGetter(cw, t.name, "getValue", "value", "Ljava/lang/Object;", "()TT;");
+            emitSetter(cw, t.name, "setValue", "value", "Ljava/lang/Object;", "(TT;)V");
+        }
+        emitRefAccessors(cw, t, false);
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "compute", "(I)I", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ILOAD, 1);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, t.name, "count", "I");
+        mv.visitInsn(Opcodes.IMUL);
+        mv.visitIntInsn(Opcodes.BIPUSH, 31);
+        mv.visitInsn(Opcodes.IADD);
+        mv.visitInsn(Opcodes.IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        emitToString(cw, t, "count");
+    }
+
+    private void emitConstructor(ClassWriter cw, TypeSpec t) {
+        String desc = t.inner ? "(L" + t.outer.name + ";)V" : "()V";
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", desc, null, null);
+        mv.visitCode();
+        if (t.inner) {
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitFieldInsn(Opcodes.PUTFIELD, t.name, "this$0", "L" + t.outer.name + ";");
+        }
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, t.superName, "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /** A field per referenced type (some as List&lt;T&gt;), with public accessors. */
+    private void emitRefAccessors(ClassWriter cw, TypeSpec t, boolean publicFields) {
+        int i = 0;
+        for (String ref : t.refs) {
+            String field = decapitalize(simple(ref)) + i++;
+            String accessor = capitalize(field);
+            int access = publicFields ? Opcodes.ACC_PUBLIC : Opcodes.ACC_PRIVATE;
+            if (!publicFields && random.nextInt(4) == 0) {
+                String sig = "Ljava/util/List<L" + ref + ";>;";
+                cw.visitField(access | Opcodes.ACC_FINAL, field, "Ljava/util/List;", sig, null).visitEnd();
+                emitGetter(cw, t.name, "get" + accessor, field, "Ljava/util/List;", "()" + sig);
+            } else {
+                String desc = "L" + ref + ";";
+                cw.visitField(access, field, desc, null, null).visitEnd();
+                emitGetter(cw, t.name, "get" + accessor, field, desc, null);
+                emitSetter(cw, t.name, "set" + accessor, field, desc, null);
+            }
+        }
+    }
+
+    private static void emitGetter(ClassWriter cw, String owner, String method, String field, String desc, String signature) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, method, "()" + desc, signature, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, owner, field, desc);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void emitSetter(ClassWriter cw, String owner, String method, String field, String desc, String signature) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, method, "(" + desc + ")V", signature, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, owner, field, desc);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void emitToString(ClassWriter cw, TypeSpec t, String intField) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "toString", "()Ljava/lang/String;", null, null);
+        mv.visitCode();
+        mv.visitTypeInsn(Opcodes.NEW, "java/lang/StringBuilder");
+        mv.visitInsn(Opcodes.DUP);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "()V", false);
+        mv.visitLdcInsn(t.simpleName() + "[");
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "append",
+            "(Ljava/lang/String;)Ljava/lang/StringBuilder;", false);
+        if (intField != null) {
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, t.name, intField, "I");
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "append",
+                "(I)Ljava/lang/StringBuilder;", false);
+        }
+        mv.visitLdcInsn("]");
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "append",
+            "(Ljava/lang/String;)Ljava/lang/StringBuilder;", false);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "toString", "()Ljava/lang/String;", false);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static String simple(String internalName) {
+        return internalName.substring(Math.max(internalName.lastIndexOf('/'), internalName.lastIndexOf('$')) + 1);
+    }
+
+    private static String decapitalize(String s) {
+        return Character.toLowerCase(s.charAt(0)) + s.substring(1);
+    }
+}
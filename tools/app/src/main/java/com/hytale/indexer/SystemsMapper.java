@@ -0,0 +1,809 @@
+package com.hytale.indexer;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.InitializerDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.RecordDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.CastExpr;
+import com.github.javaparser.ast.expr.ClassExpr;
+import com.github.javaparser.ast.expr.EnclosedExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.ThisExpr;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.annotations.SerializedName;
+import com.hytale.indexer.TypeNameResolver.Scope;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Deterministic Phase 3 mapping of the event and ECS systems.
+ *
+ * Usage: systems-mapper [--artifacts dir]
+ *
+ * One parallel pass parses every decompiled source and records, per type,
+ * its resolved supertypes with their type arguments and the components named
+ * by its {@code getQuery()}, and per call site, the types passed (as
+ * {@code X.class} or {@code new X(...)}) to register*, dispatch* and invoke*
+ * calls, plus every other construction. From that:
+ * <ul>
+ *   <li>events: every IBaseEvent or EcsEvent subtype with cancellability,
+ *       async and ECS flags, key type (type arguments are substituted down the
+ *       hierarchy), data fields, listener registration sites, dispatch sites
+ *       and the ECS event systems handling it;</li>
+ *   <li>ECS: components and resources with their store type and registration
+ *       sites; systems with their framework base, store type, handled event
+ *       type, queried components and registration sites.</li>
+ * </ul>
+ * Writes artifacts/systems-mapped.json and artifacts/cross-refs-mapped.json
+ * (same relationship shape as cross-refs.json), sorted so that unchanged
+ * sources give identical files apart from generated_at. The agent-written
+ * systems.json and cross-refs.json are left alone; these are their
+ * reproducible skeleton.
+ */
+public class SystemsMapper {
+
+    static final String SYSTEMS_FILE = "systems-mapped.json";
+    static final String CROSS_REFS_FILE = "cross-refs-mapped.json";
+
+    static final String IBASE_EVENT = "com.hypixel.hytale.event.IBaseEvent";
+    static final String IEVENT = "com.hypixel.hytale.event.IEvent";
+    static final String IASYNC_EVENT = "com.hypixel.hytale.event.IAsyncEvent";
+    static final String ICANCELLABLE = "com.hypixel.hytale.event.ICancellable";
+    static final String ECS_EVENT = "com.hypixel.hytale.component.system.EcsEvent";
+    static final String ICANCELLABLE_ECS_EVENT = "com.hypixel.hytale.component.system.ICancellableEcsEvent";
+    static final String COMPONENT = "com.hypixel.hytale.component.Component";
+    static final String RESOURCE = "com.hypixel.hytale.component.Resource";
+    static final String ISYSTEM = "com.hypixel.hytale.component.system.ISystem";
+    static final String SYSTEM_PACKAGE = "com.hypixel.hytale.component.system.";
+    /** Framework types that define the hierarchy rather than belong to it. */
+    static final Set<String> ROOTS = Set.of(IBASE_EVENT, IEVENT, IASYNC_EVENT, ICANCELLABLE, ECS_EVENT,
+        ICANCELLABLE_ECS_EVENT, "com.hypixel.hytale.component.system.CancellableEcsEvent", COMPONENT, RESOURCE, ISYSTEM);
+    static final List<String> EVENT_SYSTEMS = List.of(
+        "com.hypixel.hytale.component.system.EntityEventSystem",
+        "com.hypixel.hytale.component.system.WorldEventSystem");
+
+    /** {@code getTransformComponentType()}-style accessors on modules. */
+    private static final Pattern COMPONENT_TYPE_GETTER = Pattern.compile("get(\\w+?)(?:Component)?Type");
+
+    private final Path artifactsDir;
+    private final Map<String, ClassIndexer.ClassEntry> types = new HashMap<>();
+    private final Map<String, String> categories = new HashMap<>();
+    private final Map<String, TypeFacts> facts = new HashMap<>();
+    private final List<Site> sites = new ArrayList<>();
+    private final Map<String, Set<String>> ancestorCache = new HashMap<>();
+    private final ThreadLocal<JavaParser> parsers = ThreadLocal.withInitial(() -> {
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21);
+        config.setAttributeComments(false);
+        // Tokens stay on: node ranges (site line numbers) depend on them
+        return new JavaParser(config);
+    });
+    private TypeNameResolver resolver;
+    private PackedSourceStore store;
+    private String jarHash;
+
+    SystemsMapper(Path artifactsDir) {
+        this.artifactsDir = artifactsDir;
+    }
+
+    public static void main(String[] args) {
+        Path artifactsDir = Path.of("artifacts");
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--artifacts") && i + 1 < args.length) {
+                artifactsDir = Path.of(args[++i]);
+            } else {
+                System.err.println("ERROR: Unexpected argument: " + args[i]);
+                System.err.println("Usage: systems-mapper [--artifacts dir]");
+                System.exit(1);
+            }
+        }
+        artifactsDir = artifactsDir.toAbsolutePath().normalize();
+        if (!ArtifactIO.exists(artifactsDir.resolve("class-index.json"))) {
+            System.err.println("ERROR: File not found: " + artifactsDir.resolve("class-index.json") + " (run Phase 1 first)");
+            System.exit(1);
+        }
+
+        try {
+            new SystemsMapper(artifactsDir).run();
+        } catch (Exception e) {
+            System.err.println("FATAL: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    void run() throws IOException {
+        System.out.println("=== Phase 3: Map event and ECS systems ===");
+        long start = System.nanoTime();
+        Gson gson = new GsonBuilder().create();
+        ClassIndexer.ClassIndex index;
+        try (Reader reader = ArtifactIO.newReader(ArtifactIO.find(artifactsDir.resolve("class-index.json")))) {
+            index = gson.fromJson(reader, ClassIndexer.ClassIndex.class);
+        }
+        jarHash = index.jar_hash;
+        Map<String, String> topLevelBySourceFile = new HashMap<>();
+        for (ClassIndexer.ClassEntry entry : index.classes) {
+            types.put(entry.fqcn, entry);
+            if (entry.source_file != null) {
+                topLevelBySourceFile.merge(entry.source_file, entry.fqcn, (a, b) -> a.length() <= b.length() ? a : b);
+            }
+        }
+        resolver = new TypeNameResolver(index.classes);
+        Path surfacePath = ArtifactIO.find(artifactsDir.resolve("surface.json"));
+        if (Files.isRegularFile(surfacePath)) {
+            try (Reader reader = ArtifactIO.newReader(surfacePath)) {
+                SurfaceClassifier.SurfaceOutput surface = gson.fromJson(reader, SurfaceClassifier.SurfaceOutput.class);
+                for (SurfaceClassifier.SurfaceType st : surface.types) categories.put(st.fqcn, st.category);
+            }
+        }
+
+        if (!Files.isDirectory(artifactsDir.resolve("decompiled")) && PackedSourceStore.exists(artifactsDir)) {
+            store = PackedSourceStore.open(artifactsDir);
+        }
+        List<FileFacts> scanned;
+        try {
+            scanned = topLevelBySourceFile.entrySet().parallelStream()
+                .map(e -> scanFile(e.getKey(), e.getValue()))
+                .toList();
+        } finally {
+            if (store != null) store.close();
+        }
+        for (FileFacts file : scanned) {
+            for (TypeFacts tf : file.types) facts.put(tf.fqcn, tf);
+            sites.addAll(file.sites);
+        }
+        System.out.println("Scanned " + scanned.size() + " source files: " + facts.size() + " types, "
+            + sites.size() + " call sites");
+
+        MappedSystems systems = map();
+        List<Relationship> relationships = relate(systems);
+
+        Gson prettyGson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+        String timestamp = DateTimeFormatter.ISO_INSTANT.format(Instant.now().atOffset(ZoneOffset.UTC));
+        systems.version = "1.0.0";
+        systems.generated_at = timestamp;
+        systems.jar_hash = jarHash;
+        Files.writeString(artifactsDir.resolve(SYSTEMS_FILE), prettyGson.toJson(systems));
+        CrossRefs crossRefs = new CrossRefs();
+        crossRefs.version = "1.0.0";
+        crossRefs.generated_at = timestamp;
+        crossRefs.relationships = relationships;
+        Files.writeString(artifactsDir.resolve(CROSS_REFS_FILE), prettyGson.toJson(crossRefs));
+
+        System.out.printf("Events: %d (%d cancellable, %d ECS); components: %d; resources: %d; systems: %d%n",
+            systems.events.total, systems.events.cancellable, systems.events.ecs,
+            systems.ecs.components.size(), systems.ecs.resources.size(), systems.ecs.systems.size());
+        System.out.println("Relationships: " + relationships.size());
+        System.out.println("  Systems:    " + artifactsDir.resolve(SYSTEMS_FILE));
+        System.out.println("  Cross-refs: " + artifactsDir.resolve(CROSS_REFS_FILE));
+        System.out.println("Done in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    // --- Source pass ---
+
+    private FileFacts scanFile(String sourceFile, String topLevel) {
+        FileFacts out = new FileFacts();
+        String source;
+        try {
+            if (store != null) {
+                source = store.read(topLevel);
+            } else {
+                Path file = artifactsDir.resolve(sourceFile);
+                source = Files.isRegularFile(file) ? Files.readString(file) : null;
+            }
+        } catch (IOException e) {
+            System.err.println("WARN: Cannot read " + sourceFile + ": " + e.getMessage());
+            return out;
+        }
+        if (source == null) return out;
+        ParseResult<CompilationUnit> result = parsers.get().parse(source);
+        if (result.getResult().isEmpty()) {
+            System.err.println("WARN: Cannot parse " + sourceFile);
+            return out;
+        }
+        CompilationUnit cu = result.getResult().get();
+        Scope fileScope = Scope.of(cu, null);
+
+        for (TypeDeclaration<?> type : cu.findAll(TypeDeclaration.class)) {
+            String fqcn = fqcnOf(type, fileScope.pkg());
+            if (!resolver.contains(fqcn)) continue; // local and anonymous classes
+            out.types.add(typeFacts(type, fqcn, fileScope.in(fqcn)));
+        }
+
+        for (MethodCallExpr call : cu.findAll(MethodCallExpr.class)) {
+            String name = call.getNameAsString();
+            if (!isRegistration(name) && !isDispatch(name)) continue;
+            for (Expression arg : call.getArguments()) {
+                Expression a = unwrap(arg);
+                Type argType = a instanceof ClassExpr ce ? ce.getType()
+                    : a instanceof ObjectCreationExpr oc ? oc.getType() : null;
+                if (argType != null) addSite(out, call, argType, name, fileScope);
+            }
+        }
+        for (ObjectCreationExpr creation : cu.findAll(ObjectCreationExpr.class)) {
+            if (creation.getAnonymousClassBody().isPresent() || isCallArgument(creation)) continue;
+            addSite(out, creation, creation.getType(), "new", fileScope);
+        }
+        return out;
+    }
+
+    private TypeFacts typeFacts(TypeDeclaration<?> type, String fqcn, Scope scope) {
+        TypeFacts tf = new TypeFacts();
+        tf.fqcn = fqcn;
+        List<ClassOrInterfaceType> supers = new ArrayList<>();
+        if (type instanceof ClassOrInterfaceDeclaration cid) {
+            supers.addAll(cid.getExtendedTypes());
+            supers.addAll(cid.getImplementedTypes());
+        } else if (type instanceof EnumDeclaration ed) {
+            supers.addAll(ed.getImplementedTypes());
+        } else if (type instanceof RecordDeclaration rd) {
+            supers.addAll(rd.getImplementedTypes());
+        }
+        for (ClassOrInterfaceType st : supers) {
+            SuperRef ref = new SuperRef();
+            ref.fqcn = resolver.resolve(st.getNameWithScope(), scope);
+            ref.args = new ArrayList<>();
+            st.getTypeArguments().ifPresent(args -> {
+                for (Type arg : args) {
+                    String resolved = arg.isClassOrInterfaceType()
+                        ? resolver.resolve(arg.asClassOrInterfaceType().getNameWithScope(), scope) : null;
+                    ref.args.add(resolved != null ? resolved : arg.asString());
+                }
+            });
+            tf.supers.add(ref);
+        }
+
+        for (MethodDeclaration method : type.getMethodsByName("getQuery")) {
+            if (method.getParameters().isNonEmpty() || method.getBody().isEmpty()) continue;
+            tf.hasQuery = true;
+            method.getBody().get().findFirst(ReturnStmt.class)
+                .flatMap(ReturnStmt::getExpression)
+                .ifPresent(e -> tf.queryExpression = e.toString());
+            Set<String> refs = new TreeSet<>();
+            Set<String> fields = new HashSet<>();
+            collectTypeRefs(method.getBody().get(), scope, refs, fields);
+            // Query held in a field: follow its initializer and assignments in the type
+            for (FieldDeclaration field : type.getFields()) {
+                for (VariableDeclarator var : field.getVariables()) {
+                    if (fields.contains(var.getNameAsString())) {
+                        var.getInitializer().ifPresent(init -> collectTypeRefs(init, scope, refs, new HashSet<>()));
+                    }
+                }
+            }
+            for (AssignExpr assign : type.findAll(AssignExpr.class)) {
+                Expression target = assign.getTarget();
+                String assigned = target instanceof NameExpr ne ? ne.getNameAsString()
+                    : target instanceof FieldAccessExpr fa && fa.getScope() instanceof ThisExpr ? fa.getNameAsString() : null;
+                if (assigned != null && fields.contains(assigned)) {
+                    collectTypeRefs(assign.getValue(), scope, refs, new HashSet<>());
+                }
+            }
+            tf.queryRefs = new ArrayList<>(refs);
+        }
+        return tf;
+    }
+
+    /** Types named in an expression: X.class, X.getComponentType(), module getXComponentType(), X.FIELD. */
+    private void collectTypeRefs(Node node, Scope scope, Set<String> refs, Set<String> fieldNames) {
+        for (ClassExpr ce : node.findAll(ClassExpr.class)) {
+            addRef(refs, resolver.resolve(ce.getType().asString(), scope));
+        }
+        for (MethodCallExpr call : node.findAll(MethodCallExpr.class)) {
+            String name = call.getNameAsString();
+            if ((name.equals("getComponentType") || name.equals("getResourceType")) && call.getScope().isPresent()) {
+                addRef(refs, resolver.resolve(call.getScope().get().toString(), scope));
+            } else {
+                Matcher m = COMPONENT_TYPE_GETTER.matcher(name);
+                if (m.matches()) {
+                    addRef(refs, resolver.resolve(m.group(1) + "Component", null));
+                    addRef(refs, resolver.resolve(m.group(1), null));
+                }
+            }
+        }
+        for (FieldAccessExpr fa : node.findAll(FieldAccessExpr.class)) {
+            if (fa.getScope() instanceof ThisExpr) fieldNames.add(fa.getNameAsString());
+            else if (fa.getScope() instanceof NameExpr ne && Character.isUpperCase(ne.getNameAsString().charAt(0))) {
+                addRef(refs, resolver.resolve(ne.getNameAsString(), scope));
+            }
+        }
+        for (NameExpr ne : node.findAll(NameExpr.class)) {
+            if (Character.isLowerCase(ne.getNameAsString().charAt(0))) fieldNames.add(ne.getNameAsString());
+        }
+    }
+
+    private static void addRef(Set<String> refs, String fqcn) {
+        if (fqcn != null) refs.add(fqcn);
+    }
+
+    private void addSite(FileFacts out, Node node, Type type, String call, Scope fileScope) {
+        Scope scope = fileScope;
+        for (Node n = node.getParentNode().orElse(null); n != null; n = n.getParentNode().orElse(null)) {
+            if (n instanceof TypeDeclaration<?> td) {
+                scope = fileScope.in(fqcnOf(td, fileScope.pkg()));
+                break;
+            }
+        }
+        String target = resolver.resolve(type.asString(), scope);
+        if (target == null || scope.owner() == null || target.equals(scope.owner())) return;
+        Site site = new Site();
+        site.target = target;
+        site.call = call;
+        site.owner = scope.owner();
+        site.method = enclosingMember(node);
+        site.line = node.getRange().map(r -> r.begin.line).orElse(0);
+        out.sites.add(site);
+    }
+
+    private static boolean isRegistration(String call) {
+        return call.startsWith("register");
+    }
+
+    private static boolean isDispatch(String call) {
+        return call.startsWith("dispatch") || call.startsWith("invoke");
+    }
+
+    /** True if the expression is an argument of a register/dispatch/invoke call (already a site). */
+    private static boolean isCallArgument(Expression expr) {
+        Node node = expr;
+        while (node.getParentNode().isPresent()) {
+            Node parent = node.getParentNode().get();
+            if (parent instanceof CastExpr || parent instanceof EnclosedExpr) {
+                node = parent;
+                continue;
+            }
+            return parent instanceof MethodCallExpr call && call.getArguments().contains(node)
+                && (isRegistration(call.getNameAsString()) || isDispatch(call.getNameAsString()));
+        }
+        return false;
+    }
+
+    private static String enclosingMember(Node node) {
+        for (Node n = node; n != null; n = n.getParentNode().orElse(null)) {
+            if (n instanceof ConstructorDeclaration) return "<init>";
+            if (n instanceof CallableDeclaration<?> callable) return callable.getNameAsString();
+            if (n instanceof InitializerDeclaration init) return init.isStatic() ? "<clinit>" : "<init>";
+            if (n instanceof FieldDeclaration field) return field.getVariable(0).getNameAsString();
+            if (n instanceof TypeDeclaration) break;
+        }
+        return null;
+    }
+
+    private static String fqcnOf(TypeDeclaration<?> type, String pkg) {
+        Deque<String> names = new ArrayDeque<>();
+        for (Node n = type; n != null; n = n.getParentNode().orElse(null)) {
+            if (n instanceof TypeDeclaration<?> td) names.addFirst(td.getNameAsString());
+        }
+        String name = String.join(".", names);
+        return pkg.isEmpty() ? name : pkg + "." + name;
+    }
+
+    private static Expression unwrap(Expression expr) {
+        Expression e = expr;
+        while (true) {
+            if (e instanceof CastExpr cast) e = cast.getExpression();
+            else if (e instanceof EnclosedExpr enclosed) e = enclosed.getInner();
+            else return e;
+        }
+    }
+
+    // --- Hierarchy ---
+
+    /** All resolved supertypes, transitively. */
+    private Set<String> ancestors(String fqcn) {
+        Set<String> cached = ancestorCache.get(fqcn);
+        if (cached != null) return cached;
+        Set<String> result = new LinkedHashSet<>();
+        Deque<String> queue = new ArrayDeque<>(List.of(fqcn));
+        while (!queue.isEmpty()) {
+            TypeFacts tf = facts.get(queue.poll());
+            if (tf == null) continue;
+            for (SuperRef ref : tf.supers) {
+                if (ref.fqcn != null && result.add(ref.fqcn)) queue.add(ref.fqcn);
+            }
+        }
+        ancestorCache.put(fqcn, result);
+        return result;
+    }
+
+    /**
+     * The type argument a type passes (directly or through its supertypes) to
+     * a generic root, with type variables substituted on the way down;
+     * unresolved arguments are returned as written.
+     */
+    private String typeArgument(String fqcn, String root, int index) {
+        return typeArgument(fqcn, Map.of(), root, index, new HashSet<>());
+    }
+
+    private String typeArgument(String fqcn, Map<String, String> env, String root, int index, Set<String> seen) {
+        TypeFacts tf = facts.get(fqcn);
+        if (tf == null || !seen.add(fqcn)) return null;
+        for (SuperRef ref : tf.supers) {
+            List<String> actual = ref.args.stream().map(a -> env.getOrDefault(a, a)).toList();
+            if (root.equals(ref.fqcn)) return index < actual.size() ? actual.get(index) : null;
+            if (ref.fqcn == null) continue;
+            List<String> params = typeParameterNames(ref.fqcn);
+            Map<String, String> next = new HashMap<>();
+            for (int i = 0; i < params.size() && i < actual.size(); i++) next.put(params.get(i), actual.get(i));
+            String found = typeArgument(ref.fqcn, next, root, index, seen);
+            if (found != null) return found;
+        }
+        return null;
+    }
+
+    private List<String> typeParameterNames(String fqcn) {
+        ClassIndexer.ClassEntry entry = types.get(fqcn);
+        if (entry == null || entry.type_parameters == null) return List.of();
+        return entry.type_parameters.stream().map(p -> p.trim().split("\\s+")[0]).toList();
+    }
+
+    // --- Mapping ---
+
+    private MappedSystems map() {
+        Map<String, List<Site>> sitesByTarget = new TreeMap<>();
+        for (Site site : sites) sitesByTarget.computeIfAbsent(site.target, k -> new ArrayList<>()).add(site);
+
+        MappedSystems out = new MappedSystems();
+        out.events = new EventsSection();
+        out.events.types = new ArrayList<>();
+        out.ecs = new EcsSection();
+        out.ecs.components = new ArrayList<>();
+        out.ecs.resources = new ArrayList<>();
+        out.ecs.systems = new ArrayList<>();
+        ClassifierConfig config = ClassifierConfig.defaults();
+        Map<String, List<String>> handlers = new TreeMap<>();
+        Map<String, List<String>> queriedBy = new TreeMap<>();
+
+        List<String> sorted = new ArrayList<>(new TreeSet<>(facts.keySet()));
+        for (String fqcn : sorted) {
+            Set<String> ancestors = ancestors(fqcn);
+            if (!ancestors.contains(ISYSTEM) || fqcn.startsWith(SYSTEM_PACKAGE)) continue;
+            SystemType st = new SystemType();
+            st.fqcn = fqcn;
+            st.kind = kindOf(fqcn);
+            st.base = ancestors.stream().filter(a -> a.startsWith(SYSTEM_PACKAGE)).findFirst().orElse(null);
+            st.ecs_type = typeArgument(fqcn, ISYSTEM, 0);
+            for (String eventSystem : EVENT_SYSTEMS) {
+                if (st.event_type == null && ancestors.contains(eventSystem)) st.event_type = typeArgument(fqcn, eventSystem, 1);
+            }
+            TypeFacts query = queryFacts(fqcn);
+            if (query != null) {
+                st.query_expression = query.queryExpression;
+                st.query = query.queryRefs.stream()
+                    .filter(r -> ancestors(r).contains(COMPONENT) || ancestors(r).contains(RESOURCE))
+                    .toList();
+                for (String component : st.query) queriedBy.computeIfAbsent(component, k -> new ArrayList<>()).add(fqcn);
+            }
+            st.registered_at = sitesFor(sitesByTarget, fqcn, call -> call.equals("registerSystem"));
+            if (st.event_type != null) handlers.computeIfAbsent(st.event_type, k -> new ArrayList<>()).add(fqcn);
+            out.ecs.systems.add(st);
+        }
+
+        for (String fqcn : sorted) {
+            if (ROOTS.contains(fqcn)) continue;
+            Set<String> ancestors = ancestors(fqcn);
+            ClassIndexer.ClassEntry entry = types.get(fqcn);
+            if (ancestors.contains(IBASE_EVENT) || ancestors.contains(ECS_EVENT)) {
+                EventType et = new EventType();
+                et.fqcn = fqcn;
+                et.kind = kindOf(fqcn);
+                et.seeded = config.isTier4Package(entry.package_);
+                et.ecs = ancestors.contains(ECS_EVENT);
+                et.cancellable = ancestors.contains(ICANCELLABLE) || ancestors.contains(ICANCELLABLE_ECS_EVENT);
+                et.async = ancestors.contains(IASYNC_EVENT);
+                et.deprecated = entry.annotations != null && entry.annotations.contains("Deprecated");
+                if (!et.ecs) {
+                    et.key_type = typeArgument(fqcn, IEVENT, 0);
+                    if (et.key_type == null) et.key_type = typeArgument(fqcn, IASYNC_EVENT, 0);
+                    if (et.key_type == null) et.key_type = typeArgument(fqcn, IBASE_EVENT, 0);
+                }
+                et.data_fields = dataFields(entry);
+                et.registered_at = sitesFor(sitesByTarget, fqcn, SystemsMapper::isRegistration);
+                et.dispatched_at = sitesFor(sitesByTarget, fqcn, call -> !isRegistration(call));
+                et.handled_by = handlers.getOrDefault(fqcn, List.of());
+                out.events.types.add(et);
+                if (et.cancellable) out.events.cancellable++;
+                if (et.ecs) out.events.ecs++;
+            } else if (ancestors.contains(COMPONENT) || ancestors.contains(RESOURCE)) {
+                boolean resource = ancestors.contains(RESOURCE);
+                ComponentType ct = new ComponentType();
+                ct.fqcn = fqcn;
+                ct.kind = kindOf(fqcn);
+                ct.ecs_type = typeArgument(fqcn, resource ? RESOURCE : COMPONENT, 0);
+                ct.registered_at = sitesFor(sitesByTarget, fqcn,
+                    call -> call.equals(resource ? "registerResource" : "registerComponent"));
+                ct.queried_by = queriedBy.getOrDefault(fqcn, List.of());
+                (resource ? out.ecs.resources : out.ecs.components).add(ct);
+            }
+        }
+        out.events.total = out.events.types.size();
+        return out;
+    }
+
+    /**
+     * The type itself or the nearest supertype that declares getQuery(),
+     * searching every declared supertype level by level.
+     */
+    private TypeFacts queryFacts(String fqcn) {
+        Set<String> seen = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>(List.of(fqcn));
+        while (!queue.isEmpty()) {
+            TypeFacts tf = facts.get(queue.poll());
+            if (tf == null) continue;
+            if (tf.hasQuery) return tf;
+            for (SuperRef ref : tf.supers) {
+                if (ref.fqcn != null && seen.add(ref.fqcn)) queue.add(ref.fqcn);
+            }
+        }
+        return null;
+    }
+
+    private String kindOf(String fqcn) {
+        ClassIndexer.ClassEntry entry = types.get(fqcn);
+        if (entry.modifiers != null && entry.modifiers.contains("abstract") && "class".equals(entry.kind)) {
+            return "abstract_class";
+        }
+        return entry.kind;
+    }
+
+    private static List<DataField> dataFields(ClassIndexer.ClassEntry entry) {
+        List<DataField> fields = new ArrayList<>();
+        if (entry.fields == null) return fields;
+        for (ClassIndexer.FieldEntry f : entry.fields) {
+            if (f.modifiers != null && f.modifiers.contains("static")) continue;
+            DataField df = new DataField();
+            df.name = f.name;
+            df.type = f.type;
+            String suffix = Character.toUpperCase(f.name.charAt(0)) + f.name.substring(1);
+            if (entry.methods != null) {
+                for (ClassIndexer.MethodEntry m : entry.methods) {
+                    boolean noArgs = m.parameters == null || m.parameters.isEmpty();
+                    if (!noArgs) continue;
+                    if (m.name.equals("get" + suffix) || m.name.equals("is" + suffix)) df.accessor = m.name + "()";
+                }
+            }
+            fields.add(df);
+        }
+        return fields;
+    }
+
+    private static List<SiteRef> sitesFor(Map<String, List<Site>> byTarget, String fqcn,
+                                          Predicate<String> call) {
+        List<SiteRef> refs = new ArrayList<>();
+        for (Site site : byTarget.getOrDefault(fqcn, List.of())) {
+            if (!call.test(site.call)) continue;
+            SiteRef ref = new SiteRef();
+            ref.class_ = site.owner;
+            ref.method = site.method;
+            ref.line = site.line;
+            ref.call = site.call;
+            refs.add(ref);
+        }
+        refs.sort(Comparator.comparing((SiteRef r) -> r.class_).thenComparingInt(r -> r.line)
+            .thenComparing(r -> r.call));
+        return refs;
+    }
+
+    // --- Cross references ---
+
+    private List<Relationship> relate(MappedSystems systems) {
+        Map<String, String> roles = new HashMap<>();
+        systems.events.types.forEach(e -> roles.put(e.fqcn, "event"));
+        systems.ecs.components.forEach(c -> roles.put(c.fqcn, "component"));
+        systems.ecs.resources.forEach(c -> roles.put(c.fqcn, "resource"));
+        systems.ecs.systems.forEach(s -> roles.put(s.fqcn, "system"));
+
+        // (source, relationship, target) -> contexts; sorted for stable output
+        Map<List<String>, List<String>> edges = new TreeMap<>(Comparator.comparing((List<String> k) -> k.get(0))
+            .thenComparing(k -> k.get(1)).thenComparing(k -> k.get(2)));
+        for (EventType e : systems.events.types) {
+            for (SiteRef s : e.registered_at) addEdge(edges, s.class_, "listens", e.fqcn, siteText(s));
+            for (SiteRef s : e.dispatched_at) addEdge(edges, s.class_, "dispatches", e.fqcn, siteText(s));
+        }
+        for (ComponentType c : systems.ecs.components) {
+            for (SiteRef s : c.registered_at) addEdge(edges, s.class_, "registers", c.fqcn, siteText(s));
+        }
+        for (ComponentType c : systems.ecs.resources) {
+            for (SiteRef s : c.registered_at) addEdge(edges, s.class_, "registers", c.fqcn, siteText(s));
+        }
+        for (SystemType st : systems.ecs.systems) {
+            for (SiteRef s : st.registered_at) addEdge(edges, s.class_, "registers", st.fqcn, siteText(s));
+            if (st.event_type != null && roles.containsKey(st.event_type)) {
+                addEdge(edges, st.fqcn, "handles", st.event_type, "event type argument of " + TypeNameResolver.simpleName(st.base));
+            }
+            if (st.query != null) {
+                for (String component : st.query) addEdge(edges, st.fqcn, "queries", component, "getQuery()");
+            }
+        }
+
+        List<Relationship> out = new ArrayList<>();
+        for (Map.Entry<List<String>, List<String>> e : edges.entrySet()) {
+            Relationship r = new Relationship();
+            r.source = endpoint(e.getKey().get(0), roles);
+            r.relationship = e.getKey().get(1);
+            r.target = endpoint(e.getKey().get(2), roles);
+            List<String> contexts = e.getValue();
+            r.context = contexts.size() == 1 ? contexts.get(0)
+                : contexts.get(0) + " (+" + (contexts.size() - 1) + " more)";
+            r.confidence = "high";
+            out.add(r);
+        }
+        return out;
+    }
+
+    private static void addEdge(Map<List<String>, List<String>> edges, String source, String relationship,
+                                String target, String context) {
+        edges.computeIfAbsent(List.of(source, relationship, target), k -> new ArrayList<>()).add(context);
+    }
+
+    private static String siteText(SiteRef s) {
+        return TypeNameResolver.simpleName(s.class_) + (s.method != null ? "." + s.method : "")
+            + " line " + s.line + " via " + s.call;
+    }
+
+    private Endpoint endpoint(String fqcn, Map<String, String> roles) {
+        Endpoint e = new Endpoint();
+        e.fqcn = fqcn;
+        e.kind = roles.getOrDefault(fqcn, categories.getOrDefault(fqcn, "internal"));
+        return e;
+    }
+
+    // --- Scan results ---
+
+    private static class FileFacts {
+        final List<TypeFacts> types = new ArrayList<>();
+        final List<Site> sites = new ArrayList<>();
+    }
+
+    private static class TypeFacts {
+        String fqcn;
+        final List<SuperRef> supers = new ArrayList<>();
+        boolean hasQuery;
+        String queryExpression;
+        List<String> queryRefs = List.of();
+    }
+
+    /** A supertype as declared; args are resolved FQCNs or the text as written. */
+    private static class SuperRef {
+        String fqcn;
+        List<String> args;
+    }
+
+    private static class Site {
+        String target;
+        String call;
+        String owner;
+        String method;
+        int line;
+    }
+
+    // --- JSON output model classes ---
+
+    static class MappedSystems {
+        String version;
+        String generated_at;
+        String jar_hash;
+        EventsSection events;
+        EcsSection ecs;
+    }
+
+    static class EventsSection {
+        int total;
+        int cancellable;
+        int ecs;
+        List<EventType> types;
+    }
+
+    static class EventType {
+        String fqcn;
+        String kind;
+        boolean seeded;
+        boolean ecs;
+        boolean cancellable;
+        boolean async;
+        boolean deprecated;
+        String key_type;
+        List<DataField> data_fields;
+        List<SiteRef> registered_at;
+        List<SiteRef> dispatched_at;
+        List<String> handled_by;
+    }
+
+    static class DataField {
+        String name;
+        String type;
+        String accessor;
+    }
+
+    static class EcsSection {
+        List<ComponentType> components;
+        List<ComponentType> resources;
+        List<SystemType> systems;
+    }
+
+    static class ComponentType {
+        String fqcn;
+        String kind;
+        String ecs_type;
+        List<SiteRef> registered_at;
+        List<String> queried_by;
+    }
+
+    static class SystemType {
+        String fqcn;
+        String kind;
+        String base;
+        String ecs_type;
+        String event_type;
+        List<String> query;
+        String query_expression;
+        List<SiteRef> registered_at;
+    }
+
+    static class SiteRef {
+        @SerializedName("class")
+        String class_;
+        String method;
+        int line;
+        String call;
+    }
+
+    static class CrossRefs {
+        String version;
+        String generated_at;
+        List<Relationship> relationships;
+    }
+
+    static class Relationship {
+        Endpoint source;
+        Endpoint target;
+        String relationship;
+        String context;
+        String confidence;
+    }
+
+    static class Endpoint {
+        String fqcn;
+        String kind;
+    }
+}
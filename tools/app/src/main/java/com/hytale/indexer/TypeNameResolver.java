@@ -0,0 +1,111 @@
+package com.hytale.indexer;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves type names as written in a decompiled source file to FQCNs in
+ * class-index.json, the way javac would for the common cases: nested types of
+ * the declaring type and its enclosing types, single-type imports, the same
+ * package, on-demand imports, then a simple name that is unique in the index.
+ * Generic arguments, array brackets and varargs are ignored. Names outside the
+ * index resolve to null.
+ */
+final class TypeNameResolver {
+
+    /** Where a name is written: package, imports and the declaring type. */
+    record Scope(String pkg, Set<String> imports, Set<String> wildcards, String owner) {
+
+        static Scope of(CompilationUnit cu, String owner) {
+            String pkg = cu.getPackageDeclaration().map(pd -> pd.getNameAsString()).orElse("");
+            Set<String> imports = new HashSet<>();
+            Set<String> wildcards = new HashSet<>();
+            for (ImportDeclaration imp : cu.getImports()) {
+                if (imp.isStatic()) continue;
+                (imp.isAsterisk() ? wildcards : imports).add(imp.getNameAsString());
+            }
+            return new Scope(pkg, imports, wildcards, owner);
+        }
+
+        /** The same file, inside another declared type. */
+        Scope in(String owner) {
+            return new Scope(pkg, imports, wildcards, owner);
+        }
+    }
+
+    private final Set<String> types = new HashSet<>();
+    private final Map<String, List<String>> simpleNames = new HashMap<>();
+
+    TypeNameResolver(Iterable<ClassIndexer.ClassEntry> entries) {
+        for (ClassIndexer.ClassEntry entry : entries) {
+            types.add(entry.fqcn);
+            simpleNames.computeIfAbsent(entry.name, k -> new ArrayList<>()).add(entry.fqcn);
+        }
+    }
+
+    boolean contains(String fqcn) {
+        return types.contains(fqcn);
+    }
+
+    /** FQCN of a type name written in the given scope, or null if it is not in the index. */
+    String resolve(String written, Scope scope) {
+        String name = erasure(written);
+        if (types.contains(name)) return name;
+        if (scope == null) return uniqueSimpleName(name);
+        int dot = name.indexOf('.');
+        if (dot > 0) {
+            String outer = resolve(name.substring(0, dot), scope);
+            String nested = outer == null ? null : outer + name.substring(dot);
+            return nested != null && types.contains(nested) ? nested : null;
+        }
+        // Nested in the declaring type or one enclosing it
+        for (String owner = scope.owner(); owner != null; owner = enclosing(owner)) {
+            if (types.contains(owner + "." + name)) return owner + "." + name;
+            if (simpleName(owner).equals(name)) return owner;
+        }
+        for (String imp : scope.imports()) {
+            if (imp.endsWith("." + name) && types.contains(imp)) return imp;
+        }
+        String samePackage = scope.pkg().isEmpty() ? name : scope.pkg() + "." + name;
+        if (types.contains(samePackage)) return samePackage;
+        for (String wildcard : scope.wildcards()) {
+            if (types.contains(wildcard + "." + name)) return wildcard + "." + name;
+        }
+        return uniqueSimpleName(name);
+    }
+
+    /** The type enclosing a nested type, or null for a top-level type. */
+    String enclosing(String fqcn) {
+        int dot = fqcn.lastIndexOf('.');
+        if (dot < 0) return null;
+        String outer = fqcn.substring(0, dot);
+        return types.contains(outer) ? outer : null;
+    }
+
+    private String uniqueSimpleName(String name) {
+        List<String> candidates = simpleNames.get(name);
+        return candidates != null && candidates.size() == 1 ? candidates.get(0) : null;
+    }
+
+    /** Type name without type arguments, array brackets or varargs. */
+    static String erasure(String type) {
+        String name = type.trim();
+        int generic = name.indexOf('<');
+        if (generic >= 0) name = name.substring(0, generic);
+        int array = name.indexOf('[');
+        if (array >= 0) name = name.substring(0, array);
+        if (name.endsWith("...")) name = name.substring(0, name.length() - 3);
+        return name.trim();
+    }
+
+    static String simpleName(String fqcn) {
+        return fqcn.substring(fqcn.lastIndexOf('.') + 1);
+    }
+}
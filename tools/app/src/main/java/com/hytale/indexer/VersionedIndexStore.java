@@ -0,0 +1,545 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Class indexes and decompiled sources of many Hytale builds in one store,
+ * with every type entry and source file kept once per distinct content.
+ *
+ * Usage: version-store [--store dir] <command>
+ *   add <version> [artifacts-dir]   Add a pipeline run (default: artifacts/)
+ *   list                            Versions with their size and sharing
+ *   since <type> [member]           Versions containing a type or its members
+ *   checkout <version> <out-dir>    Rebuild class-index.json and decompiled.pack
+ *
+ * Layout of the store directory (default: versions/):
+ *   types/, sources/   {@link PackedSourceStore} packs keyed by SHA-256 of the
+ *                      type entry's JSON or of the source text
+ *   manifests/<v>.json FQCN to content hash, per version
+ *   history.json       per type: versions present, content revisions, and
+ *                      versions present per member (methods by name and
+ *                      parameter types, fields by name, private ones included)
+ *   store.json         versions in the order they were added
+ *
+ * Versions are ordered by when they were added, so add builds oldest first.
+ * "since" reads history.json only. Version sets are written as ranges of
+ * version positions ("0-3,5"), which stay short because a type or member
+ * usually exists in one unbroken run of builds.
+ */
+public class VersionedIndexStore {
+
+    static final String STORE_FILE = "store.json";
+    static final String HISTORY_FILE = "history.json";
+
+    private final Path storeDir;
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+    private final Gson compact = new GsonBuilder().disableHtmlEscaping().create();
+    private StoreFile store;
+    private History history;
+
+    public static void main(String[] args) {
+        Path storeDir = Path.of("versions");
+        List<String> rest = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--store") && i + 1 < args.length) {
+                storeDir = Path.of(args[++i]);
+            } else {
+                rest.add(args[i]);
+            }
+        }
+        String command = rest.isEmpty() ? "" : rest.get(0);
+        boolean valid = switch (command) {
+            case "add" -> rest.size() == 2 || rest.size() == 3;
+            case "list" -> rest.size() == 1;
+            case "since" -> rest.size() == 2 || rest.size() == 3;
+            case "checkout" -> rest.size() == 3;
+            default -> false;
+        };
+        if (!valid) {
+            System.err.println("Usage: version-store [--store dir] <add <version> [artifacts-dir] | list"
+                + " | since <type> [member] | checkout <version> <out-dir>>");
+            System.exit(1);
+        }
+
+        try {
+            VersionedIndexStore versions = new VersionedIndexStore(storeDir.toAbsolutePath());
+            switch (command) {
+                case "add" -> versions.add(rest.get(1),
+                    Path.of(rest.size() > 2 ? rest.get(2) : "artifacts").toAbsolutePath());
+                case "list" -> versions.printList();
+                case "since" -> versions.printSince(rest.get(1), rest.size() > 2 ? rest.get(2) : null);
+                default -> versions.checkout(rest.get(1), Path.of(rest.get(2)).toAbsolutePath());
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("FATAL: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    public VersionedIndexStore(Path storeDir) throws IOException {
+        this.storeDir = storeDir;
+        Path storeFile = storeDir.resolve(STORE_FILE);
+        if (Files.isRegularFile(storeFile)) {
+            try (Reader reader = Files.newBufferedReader(storeFile)) {
+                store = gson.fromJson(reader, StoreFile.class);
+            }
+        } else {
+            store = new StoreFile();
+            store.versions = new ArrayList<>();
+        }
+    }
+
+    // --- add ---
+
+    /** Add one pipeline run as the newest version. */
+    public void add(String name, Path artifactsDir) throws IOException {
+        if (!name.matches("[A-Za-z0-9._+-]+")) {
+            throw new IllegalArgumentException("Version names may only contain letters, digits and ._+-: " + name);
+        }
+        if (findVersion(name) >= 0) {
+            throw new IllegalArgumentException("Version already in store: " + name);
+        }
+        Path indexPath = ArtifactIO.find(artifactsDir.resolve("class-index.json"));
+        if (!Files.isRegularFile(indexPath)) {
+            throw new IllegalArgumentException("File not found: " + indexPath);
+        }
+
+        System.out.println("=== Adding " + name + " to " + storeDir + " ===");
+        ClassIndexer.ClassIndex index;
+        try (Reader reader = ArtifactIO.newReader(indexPath)) {
+            index = gson.fromJson(reader, ClassIndexer.ClassIndex.class);
+        }
+        loadHistory();
+        int position = store.versions.size();
+
+        Manifest manifest = new Manifest();
+        manifest.version = "1.0.0";
+        manifest.name = name;
+        manifest.jar_hash = index.jar_hash;
+        manifest.jars = index.jars;
+        manifest.types = new LinkedHashMap<>();
+        manifest.sources = new LinkedHashMap<>();
+
+        VersionInfo info = new VersionInfo();
+        info.name = name;
+        info.jar_hash = index.jar_hash;
+        info.added_at = now();
+
+        // Type entries
+        Path typesDir = storeDir.resolve("types");
+        Set<String> knownTypes = keys(typesDir);
+        try (PackedSourceStore.Writer writer = new PackedSourceStore.Writer(typesDir, false)) {
+            for (ClassIndexer.ClassEntry entry : index.classes) {
+                String json = compact.toJson(entry);
+                String hash = sha256(json);
+                manifest.types.put(entry.fqcn, hash);
+                info.types++;
+                info.type_bytes += json.getBytes(StandardCharsets.UTF_8).length;
+                if (knownTypes.add(hash)) {
+                    writer.append(hash, json);
+                    info.new_types++;
+                }
+            }
+        }
+
+        // Decompiled sources, loose or packed
+        Path sourcesDir = storeDir.resolve("sources");
+        Set<String> knownSources = keys(sourcesDir);
+        try (PackedSourceStore.Writer writer = new PackedSourceStore.Writer(sourcesDir, false)) {
+            Map<String, String> sources = new TreeMap<>();
+            readSources(artifactsDir, sources);
+            for (Map.Entry<String, String> e : sources.entrySet()) {
+                String hash = sha256(e.getValue());
+                manifest.sources.put(e.getKey(), hash);
+                info.sources++;
+                info.source_bytes += e.getValue().getBytes(StandardCharsets.UTF_8).length;
+                if (knownSources.add(hash)) {
+                    writer.append(hash, e.getValue());
+                    info.new_sources++;
+                }
+            }
+        }
+
+        // History: the new version extends the runs of everything it contains
+        for (ClassIndexer.ClassEntry entry : index.classes) {
+            TypeHistory th = history.types.computeIfAbsent(entry.fqcn, k -> new TypeHistory());
+            th.present = Ranges.add(th.present, position);
+            String hash = manifest.types.get(entry.fqcn);
+            Revision last = th.revisions.isEmpty() ? null : th.revisions.get(th.revisions.size() - 1);
+            if (last == null || !last.entry.equals(hash)) {
+                Revision revision = new Revision();
+                revision.version = name;
+                revision.entry = hash;
+                th.revisions.add(revision);
+            }
+            for (String member : memberKeys(entry)) {
+                th.members.put(member, Ranges.add(th.members.get(member), position));
+            }
+        }
+        history.versions.add(name);
+        history.generated_at = info.added_at;
+
+        // store.json is written last and commits the version: after a crash
+        // before it, loadHistory() drops the version from history.json again
+        Path manifestPath = storeDir.resolve("manifests").resolve(name + ".json");
+        Files.createDirectories(manifestPath.getParent());
+        ArtifactIO.writeAtomically(manifestPath, gson.toJson(manifest));
+        ArtifactIO.writeAtomically(storeDir.resolve(HISTORY_FILE), gson.toJson(history));
+        store.version = "1.0.0";
+        store.generated_at = info.added_at;
+        store.versions.add(info);
+        ArtifactIO.writeAtomically(storeDir.resolve(STORE_FILE), gson.toJson(store));
+
+        System.out.printf("Types:   %d (%d new, %d shared with earlier versions)%n",
+            info.types, info.new_types, info.types - info.new_types);
+        System.out.printf("Sources: %d (%d new, %d shared with earlier versions)%n",
+            info.sources, info.new_sources, info.sources - info.new_sources);
+        printTotals();
+    }
+
+    private static Set<String> keys(Path packDir) throws IOException {
+        if (!PackedSourceStore.exists(packDir)) return new HashSet<>();
+        try (PackedSourceStore pack = PackedSourceStore.open(packDir)) {
+            return new HashSet<>(pack.fqcns());
+        }
+    }
+
+    private static void readSources(Path artifactsDir, Map<String, String> sources) throws IOException {
+        Path decompiledDir = artifactsDir.resolve("decompiled");
+        if (!Files.isDirectory(decompiledDir) && PackedSourceStore.exists(artifactsDir)) {
+            try (PackedSourceStore pack = PackedSourceStore.open(artifactsDir)) {
+                pack.forEach(sources::put);
+            }
+            return;
+        }
+        if (!Files.isDirectory(decompiledDir)) {
+            System.err.println("WARN: No decompiled sources in " + artifactsDir + "; storing the index only");
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(decompiledDir)) {
+            for (Path file : walk.filter(p -> p.toString().endsWith(".java")).toList()) {
+                String relative = decompiledDir.relativize(file).toString().replace('\\', '/');
+                String fqcn = relative.substring(0, relative.length() - ".java".length()).replace('/', '.');
+                sources.put(fqcn, Files.readString(file));
+            }
+        }
+    }
+
+    /** Member identities as used by the diff: "method:" + name and parameter types, "field:" + name. */
+    private static List<String> memberKeys(ClassIndexer.ClassEntry entry) {
+        List<String> keys = new ArrayList<>();
+        if (entry.fields != null) {
+            for (ClassIndexer.FieldEntry f : entry.fields) keys.add("field:" + ApiSignatures.fieldKey(f));
+        }
+        if (entry.methods != null) {
+            for (ClassIndexer.MethodEntry m : entry.methods) keys.add("method:" + ApiSignatures.methodKey(m));
+        }
+        return keys;
+    }
+
+    // --- Queries ---
+
+    private void printList() throws IOException {
+        if (store.versions.isEmpty()) {
+            System.out.println("No versions in " + storeDir);
+            return;
+        }
+        System.out.printf("%-16s %8s %8s %9s %9s  %s%n", "version", "types", "new", "sources", "new", "jar");
+        for (VersionInfo v : store.versions) {
+            System.out.printf("%-16s %8d %8d %9d %9d  %s%n",
+                v.name, v.types, v.new_types, v.sources, v.new_sources, v.jar_hash);
+        }
+        printTotals();
+    }
+
+    private void printTotals() throws IOException {
+        long full = 0;
+        for (VersionInfo v : store.versions) full += v.type_bytes + v.source_bytes;
+        long stored = 0;
+        for (String dir : List.of("types", "sources")) {
+            Path data = storeDir.resolve(dir).resolve(PackedSourceStore.DATA_FILE);
+            if (Files.isRegularFile(data)) stored += Files.size(data);
+        }
+        System.out.printf("Store: %d versions, %.1f MB of blobs for %.1f MB of indexes and sources (%.1fx)%n",
+            store.versions.size(), stored / (1024.0 * 1024.0), full / (1024.0 * 1024.0),
+            stored == 0 ? 0.0 : (double) full / stored);
+    }
+
+    private void printSince(String typeName, String member) throws IOException {
+        loadHistory();
+        String fqcn = lookup(typeName);
+        TypeHistory th = history.types.get(fqcn);
+        System.out.println(fqcn);
+        System.out.println("  present:   " + describe(th.present));
+        List<String> revisions = new ArrayList<>();
+        for (Revision r : th.revisions) revisions.add(r.version);
+        System.out.println("  changed:   " + String.join(", ", revisions));
+
+        int matched = 0;
+        for (Map.Entry<String, String> e : th.members.entrySet()) {
+            String key = e.getKey().substring(e.getKey().indexOf(':') + 1);
+            int paren = key.indexOf('(');
+            String memberName = paren < 0 ? key : key.substring(0, paren);
+            if (member != null && !key.equals(member) && !memberName.equals(member)) continue;
+            if (matched++ == 0) System.out.println("  members:");
+            int first = Ranges.first(e.getValue());
+            System.out.printf("    %-40s since %-10s %s%n", key, history.versions.get(first), describe(e.getValue()));
+        }
+        if (member != null && matched == 0) {
+            throw new IllegalArgumentException("No member " + member + " in any version of " + fqcn);
+        }
+    }
+
+    /** "1.0 - 1.3, 1.5 (removed)" for a range string over version positions. */
+    private String describe(String ranges) {
+        List<String> parts = new ArrayList<>();
+        for (int[] r : Ranges.parse(ranges)) {
+            String from = history.versions.get(r[0]);
+            parts.add(r[0] == r[1] ? from : from + " - " + history.versions.get(r[1]));
+        }
+        boolean current = Ranges.contains(ranges, history.versions.size() - 1);
+        return String.join(", ", parts) + (current ? "" : " (not in latest)");
+    }
+
+    private String lookup(String name) {
+        if (history.types.containsKey(name)) return name;
+        List<String> matches = history.types.keySet().stream()
+            .filter(f -> f.endsWith("." + name))
+            .sorted()
+            .toList();
+        if (matches.size() == 1) return matches.get(0);
+        throw new IllegalArgumentException(matches.isEmpty()
+            ? "Not found in any version: " + name
+            : "Ambiguous name " + name + ": " + String.join(", ", matches));
+    }
+
+    // --- checkout ---
+
+    /** Rebuild one version's class-index.json and decompiled.pack in the given directory. */
+    public void checkout(String name, Path outDir) throws IOException {
+        if (findVersion(name) < 0) {
+            throw new IllegalArgumentException("No such version: " + name);
+        }
+        Manifest manifest;
+        try (Reader reader = Files.newBufferedReader(storeDir.resolve("manifests").resolve(name + ".json"))) {
+            manifest = gson.fromJson(reader, Manifest.class);
+        }
+        Files.createDirectories(outDir);
+
+        int typeCount;
+        try (PackedSourceStore types = PackedSourceStore.open(storeDir.resolve("types"));
+             ClassIndexWriter writer = new ClassIndexWriter(outDir.resolve("class-index.json"),
+                 manifest.jar_hash, manifest.jars)) {
+            for (String hash : manifest.types.values()) {
+                writer.write(compact.fromJson(types.read(hash), ClassIndexer.ClassEntry.class));
+            }
+            typeCount = writer.count();
+        }
+
+        if (!manifest.sources.isEmpty()) {
+            try (PackedSourceStore sources = PackedSourceStore.open(storeDir.resolve("sources"));
+                 PackedSourceStore.Writer writer = new PackedSourceStore.Writer(outDir, true)) {
+                for (Map.Entry<String, String> e : manifest.sources.entrySet()) {
+                    writer.append(e.getKey(), sources.read(e.getValue()));
+                }
+            }
+        }
+        System.out.println("Checked out " + name + ": " + typeCount + " types, "
+            + manifest.sources.size() + " sources to " + outDir);
+    }
+
+    // --- Helpers ---
+
+    private int findVersion(String name) {
+        for (int i = 0; i < store.versions.size(); i++) {
+            if (store.versions.get(i).name.equals(name)) return i;
+        }
+        return -1;
+    }
+
+    private void loadHistory() throws IOException {
+        if (history != null) return;
+        Path path = storeDir.resolve(HISTORY_FILE);
+        if (Files.isRegularFile(path)) {
+            try (Reader reader = Files.newBufferedReader(path)) {
+                history = gson.fromJson(reader, History.class);
+            }
+            if (history.versions.size() > store.versions.size()) {
+                dropUncommittedVersions();
+            }
+        } else {
+            history = new History();
+            history.version = "1.0.0";
+            history.versions = new ArrayList<>();
+            history.types = new TreeMap<>();
+        }
+    }
+
+    /**
+     * Remove versions that history.json lists but store.json does not: an
+     * add that crashed after writing history.json. Versions are only ever
+     * appended, so they are the trailing positions.
+     */
+    private void dropUncommittedVersions() {
+        int committed = store.versions.size();
+        List<String> dropped = history.versions.subList(committed, history.versions.size());
+        System.err.println("WARN: Dropping versions not committed to " + STORE_FILE + ": " + dropped);
+        Set<String> droppedNames = new HashSet<>(dropped);
+        dropped.clear();
+        history.types.values().removeIf(th -> {
+            th.present = Ranges.truncate(th.present, committed);
+            th.revisions.removeIf(r -> droppedNames.contains(r.version));
+            th.members.replaceAll((member, ranges) -> Ranges.truncate(ranges, committed));
+            th.members.values().removeIf(String::isEmpty);
+            return th.present.isEmpty();
+        });
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String now() {
+        return DateTimeFormatter.ISO_INSTANT.format(Instant.now().atOffset(ZoneOffset.UTC));
+    }
+
+    /** Sorted sets of version positions written as "0-3,5". */
+    static final class Ranges {
+
+        private Ranges() {}
+
+        static List<int[]> parse(String ranges) {
+            List<int[]> result = new ArrayList<>();
+            if (ranges == null || ranges.isEmpty()) return result;
+            for (String part : ranges.split(",")) {
+                int dash = part.indexOf('-');
+                int from = Integer.parseInt(dash < 0 ? part : part.substring(0, dash));
+                int to = dash < 0 ? from : Integer.parseInt(part.substring(dash + 1));
+                result.add(new int[] {from, to});
+            }
+            return result;
+        }
+
+        /** Add a position at or after the end of the set. */
+        static String add(String ranges, int position) {
+            List<int[]> parsed = parse(ranges);
+            int[] last = parsed.isEmpty() ? null : parsed.get(parsed.size() - 1);
+            if (last != null && last[1] >= position) return ranges;
+            if (last != null && last[1] == position - 1) {
+                last[1] = position;
+            } else {
+                parsed.add(new int[] {position, position});
+            }
+            return format(parsed);
+        }
+
+        /** The positions below {@code size}; empty if there are none. */
+        static String truncate(String ranges, int size) {
+            List<int[]> kept = new ArrayList<>();
+            for (int[] r : parse(ranges)) {
+                if (r[0] >= size) break;
+                kept.add(new int[] {r[0], Math.min(r[1], size - 1)});
+            }
+            return format(kept);
+        }
+
+        private static String format(List<int[]> ranges) {
+            StringBuilder sb = new StringBuilder();
+            for (int[] r : ranges) {
+                if (sb.length() > 0) sb.append(',');
+                sb.append(r[0]);
+                if (r[1] != r[0]) sb.append('-').append(r[1]);
+            }
+            return sb.toString();
+        }
+
+        static int first(String ranges) {
+            return parse(ranges).get(0)[0];
+        }
+
+        static boolean contains(String ranges, int position) {
+            for (int[] r : parse(ranges)) {
+                if (position >= r[0] && position <= r[1]) return true;
+            }
+            return false;
+        }
+    }
+
+    // --- JSON model classes ---
+
+    static class StoreFile {
+        String version;
+        String generated_at;
+        List<VersionInfo> versions;
+    }
+
+    static class VersionInfo {
+        String name;
+        String jar_hash;
+        String added_at;
+        int types;
+        int new_types;
+        int sources;
+        int new_sources;
+        long type_bytes;
+        long source_bytes;
+    }
+
+    static class Manifest {
+        String version;
+        String name;
+        String jar_hash;
+        // Only when several JARs were indexed together
+        List<ClassIndexer.SourceJar> jars;
+        Map<String, String> types;   // fqcn -> type entry hash, in index order
+        Map<String, String> sources; // top-level fqcn -> source hash
+    }
+
+    static class History {
+        String version;
+        String generated_at;
+        List<String> versions;
+        TreeMap<String, TypeHistory> types;
+    }
+
+    static class TypeHistory {
+        String present;
+        List<Revision> revisions = new ArrayList<>();
+        TreeMap<String, String> members = new TreeMap<>();
+    }
+
+    static class Revision {
+        String version;
+        String entry;
+    }
+}
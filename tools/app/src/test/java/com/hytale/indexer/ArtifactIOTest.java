@@ -0,0 +1,78 @@
+package com.hytale.indexer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArtifactIOTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void findPrefersTheNewerVariantWhenBothExist() throws IOException {
+        Path plain = dir.resolve("class-index.json");
+        Path gz = dir.resolve("class-index.json.gz");
+        Files.writeString(plain, "{}");
+        Files.writeString(gz, "{}");
+
+        Files.setLastModifiedTime(plain, FileTime.fromMillis(1_000_000));
+        Files.setLastModifiedTime(gz, FileTime.fromMillis(2_000_000));
+        assertEquals(gz, ArtifactIO.find(plain));
+        assertEquals(gz, ArtifactIO.find(gz));
+
+        Files.setLastModifiedTime(plain, FileTime.fromMillis(3_000_000));
+        assertEquals(plain, ArtifactIO.find(plain));
+        assertEquals(plain, ArtifactIO.find(gz));
+    }
+
+    @Test
+    void findFallsBackToWhicheverVariantExists() throws IOException {
+        Path plain = dir.resolve("surface.json");
+        Path gz = dir.resolve("surface.json.gz");
+
+        assertEquals(plain, ArtifactIO.find(plain));
+        assertEquals(gz, ArtifactIO.find(gz));
+        assertFalse(ArtifactIO.exists(plain));
+
+        Files.writeString(gz, "{}");
+        assertEquals(gz, ArtifactIO.find(plain));
+
+        Files.delete(gz);
+        Files.writeString(plain, "{}");
+        assertEquals(plain, ArtifactIO.find(gz));
+        assertTrue(ArtifactIO.exists(gz));
+    }
+
+    @Test
+    void writingOneVariantDeletesTheOther() throws IOException {
+        Path plain = dir.resolve("internal-index.json");
+        Path gz = dir.resolve("internal-index.json.gz");
+        Files.writeString(plain, "stale");
+
+        try (Writer writer = ArtifactIO.newWriter(gz)) {
+            writer.write("{\"types\": []}\n");
+        }
+        assertFalse(Files.exists(plain));
+        assertEquals(gz, ArtifactIO.find(plain));
+        try (BufferedReader reader = ArtifactIO.newReader(ArtifactIO.find(plain))) {
+            assertEquals("{\"types\": []}", reader.readLine());
+        }
+
+        try (Writer writer = ArtifactIO.newWriter(plain)) {
+            writer.write("plain");
+        }
+        assertFalse(Files.exists(gz));
+        assertEquals("plain", Files.readString(ArtifactIO.find(gz)));
+    }
+}
@@ -0,0 +1,108 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MethodBodyStripperTest {
+
+    @Test
+    void emptiesMethodConstructorAndInitializerBodies() {
+        String source = """
+            public class Foo {
+                private int x = 1;
+                public Foo(int x) { this.x = x; }
+                public int get() { if (x > 0) { return x; } return 0; }
+                static { System.out.println("init"); }
+            }
+            """;
+        assertEquals("""
+            public class Foo {
+                private int x = 1;
+                public Foo(int x) {}
+                public int get() {}
+                static {}
+            }
+            """, MethodBodyStripper.strip(source));
+    }
+
+    @Test
+    void ignoresBracesInLiteralsAndComments() {
+        String source = """
+            class Quotes {
+                String s() { return "}{"; }
+                char c() { return '{'; }
+                // a stray } in a comment
+                /* and { here */
+                String t() { return \"""
+                    } text block {
+                    \"""; }
+                int[] values = {1, 2, 3};
+                Runnable r = new Runnable() { public void run() {} };
+            }
+            """;
+        assertEquals("""
+            class Quotes {
+                String s() {}
+                char c() {}
+                // a stray } in a comment
+                /* and { here */
+                String t() {}
+                int[] values = {};
+                Runnable r = new Runnable() {};
+            }
+            """, MethodBodyStripper.strip(source));
+    }
+
+    @Test
+    void strippedSourceIndexesToTheSameEntries() {
+        String source = """
+            package com.example;
+
+            import java.util.List;
+            import java.util.function.Supplier;
+
+            @Deprecated
+            public abstract class Outer<T extends Comparable<T>> implements Supplier<T> {
+                public static final String NAME = "outer { }";
+                protected List<T> items;
+
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                public <R> R map(java.util.function.Function<T, R> f) throws Exception {
+                    class Local { int y; }
+                    return f.apply(get());
+                }
+
+                public enum Mode {
+                    FAST { @Override int cost() { return 1; } },
+                    SLOW { @Override int cost() { return 9; } };
+                    abstract int cost();
+                }
+
+                public record Point(int x, int y) {
+                    public Point { if (x < 0) throw new IllegalArgumentException(); }
+                    public double length() { return Math.sqrt(x * x + y * y); }
+                }
+
+                public interface Listener {
+                    default void on(String event) { System.out.println(event); }
+                    void off();
+                }
+
+                public static class Inner {
+                    private final Runnable task = () -> { int z = 0; };
+                    public Inner() { super(); }
+                }
+            }
+            """;
+        String sourceFile = "decompiled/com/example/Outer.java";
+        Gson gson = new Gson();
+        String full = gson.toJson(new ClassIndexer(false).parseSource(source, sourceFile));
+        String stripped = gson.toJson(new ClassIndexer(true).parseSource(source, sourceFile));
+
+        assertTrue(full.contains("com.example.Outer.Point"), full);
+        assertEquals(full, stripped);
+    }
+}
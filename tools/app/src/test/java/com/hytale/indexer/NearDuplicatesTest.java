@@ -0,0 +1,113 @@
+package com.hytale.indexer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class NearDuplicatesTest {
+
+    @Test
+    void featuresFoldAccessorsAndIgnoreNamingStyle() {
+        String source = """
+            package com.example;
+
+            public class BlockType {
+                public static final int LIMIT = 64;
+                private int max_stack;
+                private java.util.List<com.example.Tag> tags;
+                public int getMaxStack() { return max_stack; }
+                public boolean isSolid() { return true; }
+                public void tick(float delta) {}
+                private void helper() {}
+                public static BlockType of(String id) { return null; }
+            }
+            """;
+        ClassIndexer.ClassEntry entry = new ClassIndexer(false)
+            .parseSource(source, "decompiled/com/example/BlockType.java").get(0);
+        assertEquals(List.of("f:maxstack:int", "f:tags:List<Tag>", "m:tick/1", "n:maxstack", "n:solid", "n:tags"),
+            NearDuplicates.features(entry));
+
+        String enumSource = """
+            package com.example;
+
+            public enum Mode {
+                FAST, SLOW_MOTION;
+                public static final Mode DEFAULT = FAST;
+            }
+            """;
+        ClassIndexer.ClassEntry mode = new ClassIndexer(false)
+            .parseSource(enumSource, "decompiled/com/example/Mode.java").get(0);
+        // Constants are not in the index; a static field of the enum's type is
+        assertEquals(List.of("c:default"), NearDuplicates.features(mode));
+    }
+
+    @Test
+    void findsBestMatchAtOrAboveThreshold() {
+        Map<String, List<String>> protocol = new LinkedHashMap<>();
+        protocol.put("p.BlockDto", List.of("n:a", "f:a:int", "n:b", "f:b:String", "n:c", "m:run/0"));
+        protocol.put("p.Unrelated", List.of("n:q", "n:r", "n:s", "m:go/2"));
+        protocol.put("p.Tiny", List.of("n:a", "f:a:int"));
+        Map<String, List<String>> server = new LinkedHashMap<>();
+        server.put("s.Block", List.of("n:a", "f:a:int", "n:b", "f:b:String", "n:c", "m:stop/0"));
+        server.put("s.BlockCopy", List.of("n:a", "f:a:int", "n:b", "f:b:String", "n:c", "m:stop/0"));
+        server.put("s.Other", List.of("n:x", "n:y", "n:z", "m:go/2"));
+
+        NearDuplicates.Result result = NearDuplicates.find(protocol, server, 0.4);
+
+        // Tiny is below MIN_FEATURES; the tie between Block and BlockCopy goes to the smaller name
+        assertEquals(Map.of("p.BlockDto", new NearDuplicates.Match("p.BlockDto", "s.Block", 5.0 / 7)), result.best());
+        assertEquals(2L * 3, result.totalPairs());
+        assertEquals(1.0 / 7, NearDuplicates.similarity(protocol.get("p.Unrelated"), server.get("s.Other"),
+            Set.of(), Set.of()), 1e-12);
+        assertEquals(0.0, NearDuplicates.similarity(protocol.get("p.Tiny"), server.get("s.Block"),
+            Set.of(), Set.of()), 1e-12);
+    }
+
+    @Test
+    void commonFeaturesOnlyCountInLargeGroups() {
+        // "x" on 6 of 20 types is above the quarter share, "y" on 5 is not
+        Map<String, List<String>> group = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            List<String> features = new ArrayList<>(List.of("n:own" + i));
+            if (i < 6) features.add("x");
+            if (i < 5) features.add("y");
+            group.put("t.T" + i, features);
+        }
+        assertEquals(Set.of("x"), NearDuplicates.commonFeatures(group));
+        assertEquals(2, NearDuplicates.featureCount(group.get("t.T0"), Set.of("x")));
+
+        group.remove("t.T19");
+        assertEquals(Set.of(), NearDuplicates.commonFeatures(group));
+    }
+
+    @Test
+    void commonFeaturesDoNotMakeTypesMatch() {
+        // Every DTO serializes and clones and has an id; only a type with the same own fields matches
+        Map<String, List<String>> protocol = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            protocol.put("p.Dto" + i, List.of("n:id", "m:serialize/1", "m:clone/0",
+                "n:u" + i + "a", "n:u" + i + "b", "n:u" + i + "c"));
+        }
+        Map<String, List<String>> server = new LinkedHashMap<>();
+        server.put("s.Generic", List.of("n:id", "m:serialize/1", "m:clone/0", "n:zz"));
+        server.put("s.Own0", List.of("n:u0a", "n:u0b", "n:u0c", "n:extra"));
+
+        Set<String> common = NearDuplicates.commonFeatures(protocol);
+        assertEquals(Set.of("n:id", "m:serialize/1", "m:clone/0"), common);
+        assertEquals(3.0 / 7, NearDuplicates.similarity(protocol.get("p.Dto1"), server.get("s.Generic"),
+            Set.of(), Set.of()), 1e-12);
+        assertEquals(0.0, NearDuplicates.similarity(protocol.get("p.Dto1"), server.get("s.Generic"),
+            common, Set.of()), 1e-12);
+
+        NearDuplicates.Result result = NearDuplicates.find(protocol, server, 0.4);
+        assertEquals(Map.of("p.Dto0", new NearDuplicates.Match("p.Dto0", "s.Own0", 0.75)), result.best());
+        assertFalse(result.best().containsKey("p.Dto1"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.hytale.indexer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PackageRuleTrieTest {
+
+    @Test
+    void matchesLinearRulesForDefaultConfig() {
+        assertMatchesLinearRules(ClassifierConfig.defaults());
+    }
+
+    @Test
+    void matchesLinearRulesForOverlappingPrefixes() {
+        ClassifierConfig config = ClassifierConfig.defaults();
+        config.excluded_packages = List.of("com.hypixel.hytale.math", "com.hypixel.hytale.server.core.ui.");
+        config.external_prefixes = List.of("java.", "com.google");
+        config.excluded_tags.put("com.hypixel.hytale.math", "math");
+        config.excluded_tags.put("com.hypixel.hytale.math.vector.", "vector");
+        // A more specific rule after a broader one never wins: first match decides
+        config.category_rules.add(0, new ClassifierConfig.CategoryRule("com.hypixel.hytale.server", "server"));
+        config.category_rules.add(new ClassifierConfig.CategoryRule("com.hypixel.hytale.server.core.Plug", "late"));
+        config.category_rules.add(new ClassifierConfig.CategoryRule("Top", "default-package"));
+        assertMatchesLinearRules(config);
+    }
+
+    private static void assertMatchesLinearRules(ClassifierConfig config) {
+        PackageRuleTrie trie = PackageRuleTrie.compile(config);
+        for (String fqcn : names(config)) {
+            PackageRuleTrie.Match expected = new PackageRuleTrie.Match(
+                startsWithAny(fqcn, config.external_prefixes),
+                startsWithAny(fqcn, config.excluded_packages),
+                linearTag(fqcn, config),
+                linearCategory(fqcn, config));
+            assertEquals(expected, trie.match(fqcn), fqcn);
+        }
+    }
+
+    /** Names at, inside, next to and around every rule prefix, including nested types. */
+    private static Set<String> names(ClassifierConfig config) {
+        List<String> prefixes = new ArrayList<>();
+        prefixes.addAll(config.external_prefixes);
+        prefixes.addAll(config.excluded_packages);
+        prefixes.addAll(config.excluded_tags.keySet());
+        prefixes.add(SurfaceClassifier.PROTOCOL_PREFIX);
+        for (ClassifierConfig.CategoryRule rule : config.category_rules) prefixes.add(rule.prefix);
+
+        Set<String> names = new LinkedHashSet<>(List.of("Top", "Top.Inner", "Other", "org.example.Thing"));
+        for (String prefix : prefixes) {
+            String base = prefix.endsWith(".") ? prefix.substring(0, prefix.length() - 1) : prefix;
+            names.add(base);
+            names.add(base + ".Type");
+            names.add(base + ".Type.Nested");
+            names.add(base + ".sub.Type");
+            names.add(base + "x.Type");
+            names.add(base + "X");
+            int dot = base.lastIndexOf('.');
+            if (dot > 0) {
+                names.add(base.substring(0, dot) + ".Type");
+                names.add(base.substring(0, dot + 2) + ".Type");
+            }
+        }
+        return names;
+    }
+
+    private static boolean startsWithAny(String fqcn, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (fqcn.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    private static String linearTag(String fqcn, ClassifierConfig config) {
+        for (Map.Entry<String, String> entry : config.excluded_tags.entrySet()) {
+            if (fqcn.startsWith(entry.getKey())) return entry.getValue();
+        }
+        if (fqcn.startsWith(SurfaceClassifier.PROTOCOL_PREFIX)) return "protocol";
+        return "internal";
+    }
+
+    private static String linearCategory(String fqcn, ClassifierConfig config) {
+        for (ClassifierConfig.CategoryRule rule : config.category_rules) {
+            if (fqcn.startsWith(rule.prefix)) return rule.category;
+        }
+        return config.default_category;
+    }
+}
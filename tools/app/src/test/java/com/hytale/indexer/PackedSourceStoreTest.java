@@ -0,0 +1,89 @@
+package com.hytale.indexer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PackedSourceStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendAfterCrashTrimsRecordWithoutIndexEntry() throws IOException {
+        writeRecords(false);
+        long complete = Files.size(dir.resolve(PackedSourceStore.DATA_FILE));
+        // Data flushed, index entry never written
+        append(dir.resolve(PackedSourceStore.DATA_FILE), "class Lost {}".getBytes(StandardCharsets.UTF_8));
+
+        resumeAndAppend(false);
+
+        assertRecords();
+        long third = "class Third { void run() {} }".getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(complete + third, Files.size(dir.resolve(PackedSourceStore.DATA_FILE)));
+    }
+
+    @Test
+    void appendAfterCrashTrimsHalfWrittenIndexEntry() throws IOException {
+        writeRecords(false);
+        // Index entry cut off inside the name
+        append(dir.resolve(PackedSourceStore.INDEX_FILE), new byte[] {0, 10, 'a', '.', 'T'});
+
+        resumeAndAppend(false);
+
+        assertRecords();
+    }
+
+    @Test
+    void appendAfterCrashDropsIndexEntryPastEndOfData() throws IOException {
+        writeRecords(true);
+        // Index entry flushed, its data never written
+        ByteArrayOutputStream entry = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(entry)) {
+            out.writeUTF("a.Torn");
+            out.writeLong(Files.size(dir.resolve(PackedSourceStore.DATA_FILE)));
+            out.writeInt(100);
+        }
+        append(dir.resolve(PackedSourceStore.INDEX_FILE), entry.toByteArray());
+
+        resumeAndAppend(true);
+
+        assertRecords();
+    }
+
+    private void writeRecords(boolean compress) throws IOException {
+        try (PackedSourceStore.Writer writer = new PackedSourceStore.Writer(dir, true, compress)) {
+            writer.append("a.First", "class First {}");
+            writer.append("a.Second", "class Second { int x; }");
+        }
+    }
+
+    private void resumeAndAppend(boolean compress) throws IOException {
+        try (PackedSourceStore.Writer writer = new PackedSourceStore.Writer(dir, false, compress)) {
+            writer.append("a.Third", "class Third { void run() {} }");
+        }
+    }
+
+    private void assertRecords() throws IOException {
+        try (PackedSourceStore store = PackedSourceStore.open(dir)) {
+            assertEquals(Set.of("a.First", "a.Second", "a.Third"), store.fqcns());
+            assertEquals("class First {}", store.read("a.First"));
+            assertEquals("class Second { int x; }", store.read("a.Second"));
+            assertEquals("class Third { void run() {} }", store.read("a.Third"));
+        }
+    }
+
+    private static void append(Path file, byte[] bytes) throws IOException {
+        Files.write(file, bytes, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,61 @@
+package com.hytale.indexer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RagIndexTest {
+
+    private static final int PAGES = 300;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Chunk ids 150 apart and a term frequency of 200 both need multi-byte
+     * varints; decoding them wrongly shifts every later posting.
+     */
+    @Test
+    void multiBytePostingsDecodeToExactBm25Scores() throws IOException {
+        Map<Integer, Integer> zebras = Map.of(0, 1, 150, 200, 299, 3);
+        Path docs = dir.resolve("docs");
+        Files.createDirectories(docs);
+        Map<Integer, Integer> lengths = new HashMap<>();
+        long totalLength = 0;
+        for (int page = 0; page < PAGES; page++) {
+            String body = "filler words alpha " + "zebra ".repeat(zebras.getOrDefault(page, 0));
+            Files.writeString(docs.resolve(String.format("p%03d.md", page)), body.strip() + "\n");
+            lengths.put(page, RagIndex.tokenize(body).size());
+            totalLength += lengths.get(page);
+        }
+
+        Path indexDir = dir.resolve("rag");
+        RagIndex.build(docs, indexDir, 300);
+
+        double avgLength = (double) totalLength / PAGES;
+        double idf = Math.log(1 + (PAGES - zebras.size() + 0.5) / (zebras.size() + 0.5));
+        try (RagIndex index = RagIndex.open(indexDir)) {
+            List<RagIndex.Hit> hits = index.search("zebra", 10);
+            assertEquals(List.of("p150.md", "p299.md", "p000.md"),
+                hits.stream().map(h -> index.location(h.chunk())).toList());
+            for (RagIndex.Hit hit : hits) {
+                int tf = zebras.get(hit.chunk());
+                double norm = K1 * (1 - B + B * lengths.get(hit.chunk()) / avgLength);
+                assertEquals(idf * tf * (K1 + 1) / (tf + norm), hit.score(), 1e-9, index.location(hit.chunk()));
+            }
+
+            // A term in every chunk: all postings decode, none is skipped or duplicated
+            assertEquals(PAGES, index.search("filler", PAGES + 1).size());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StubGeneratorTest {
+
+    /** Declarations are written one per line, the way the stub writes them. */
+    private static final String SOURCE = """
+        package com.example;
+
+        import java.io.IOException;
+        import java.io.Serializable;
+        import java.util.List;
+        import java.util.Map;
+        import java.util.function.Supplier;
+
+        public abstract class Pool<K extends Comparable<? super K>, V extends Serializable & Cloneable> {
+            public static final int LIMIT = 64;
+            protected transient volatile Map<K, List<? extends V>> entries;
+            private long[][] stamps;
+
+            protected Pool(Map<K, List<? extends V>> entries) {
+            }
+
+            public abstract V get(K key) throws IOException;
+
+            public final synchronized <T extends Number & Comparable<T>> T max(List<T> all, double f, String... tags) {
+                return null;
+            }
+
+            static <E extends Enum<E>> E first(Class<E> type, Supplier<? super E> fallback) {
+                return null;
+            }
+
+            public interface Listener<V> {
+                void added(V value, long at);
+
+                default boolean accepts(Object value) {
+                    return true;
+                }
+
+                static <V> Pool.Listener<V> none() {
+                    return null;
+                }
+            }
+
+            public static final class Entry<V> implements Supplier<V>, Comparable<Pool.Entry<V>> {
+                public Entry(V value) {
+                }
+
+                public V get() {
+                    return null;
+                }
+
+                public int compareTo(Pool.Entry<V> other) {
+                    return 0;
+                }
+            }
+
+            public class Handle {
+                public Handle(int slot) {
+                }
+
+                public Pool<K, V> owner() {
+                    return null;
+                }
+            }
+        }
+        """;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void stubDeclaresWhatTheClassWasCompiledFrom() throws IOException {
+        String stub = StubGenerator.generate("com/example/Pool", compile(true), "test");
+
+        assertEquals(declarations(SOURCE), declarations(stub));
+        assertEquals(index(SOURCE), index(stub));
+    }
+
+    @Test
+    void parametersWithoutNamesFollowVineflowerSlots() throws IOException {
+        String stub = StubGenerator.generate("com/example/Pool", compile(false), "test");
+
+        assertTrue(stub.contains("T max(List<T> var1, double var2, String... var4) {"), stub);
+        assertTrue(stub.contains("E first(Class<E> var0, Supplier<? super E> var1) {"), stub);
+        assertTrue(stub.contains("public Handle(int var1) {"), stub);
+    }
+
+    /** Class bytes of the fixture, keyed by internal name. */
+    private Map<String, byte[]> compile(boolean parameterNames) throws IOException {
+        Path source = dir.resolve("src/com/example/Pool.java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, SOURCE);
+        Path classes = dir.resolve(parameterNames ? "classes-named" : "classes");
+        Files.createDirectories(classes);
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        List<String> args = parameterNames
+            ? List.of("-parameters", "-d", classes.toString(), source.toString())
+            : List.of("-d", classes.toString(), source.toString());
+        assertEquals(0, javac.run(null, null, null, args.toArray(String[]::new)));
+
+        Map<String, byte[]> unit = new TreeMap<>();
+        try (Stream<Path> files = Files.list(classes.resolve("com/example"))) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                String internalName = "com/example/" + name.substring(0, name.length() - ".class".length());
+                unit.put(internalName, Files.readAllBytes(file));
+            }
+        }
+        return unit;
+    }
+
+    /** Type and member declaration lines, sorted; constant values are left out, as in a stub. */
+    private static List<String> declarations(String source) {
+        return source.lines()
+            .map(String::strip)
+            .filter(line -> line.endsWith("{") || line.endsWith(";"))
+            .filter(line -> !line.startsWith("return ") && !line.startsWith("package ") && !line.startsWith("import "))
+            .map(line -> line.replaceFirst(" = .*;$", ";"))
+            .sorted()
+            .toList();
+    }
+
+    /** Index entries by FQCN, as JSON without the source file; javac does not keep member type order. */
+    private static Map<String, String> index(String source) {
+        Map<String, String> entries = new TreeMap<>();
+        for (ClassIndexer.ClassEntry entry : new ClassIndexer(false).parseSource(source, "Pool.java")) {
+            entry.source_file = null;
+            entry.inner_classes = entry.inner_classes.stream().sorted().toList();
+            entries.put(entry.fqcn, new Gson().toJson(entry));
+        }
+        return entries;
+    }
+}
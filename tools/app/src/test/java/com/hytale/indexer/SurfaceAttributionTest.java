@@ -0,0 +1,66 @@
+package com.hytale.indexer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SurfaceAttributionTest {
+
+    private static final String PLUGIN = "com.hypixel.hytale.server.core.plugin.JavaPlugin";
+    private static final String CONFIG = "com.hypixel.hytale.server.core.config.Config";
+    private static final String PLAYER = "com.hypixel.hytale.server.core.entity.Player";
+    private static final String JOIN_EVENT = "com.hypixel.hytale.event.PlayerJoinEvent";
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Config is also reached from JavaPlugin, Player also from the tier 4
+     * PlayerJoinEvent. Config comes first, so JavaPlugin's bit only reaches
+     * Value if Config is propagated again.
+     */
+    @Test
+    void reachedWithoutMatchesClassifyingWithoutTheSeeds() throws IOException {
+        Path full = dir.resolve("full");
+        new SurfaceClassifier(config(Set.of())).run(SurfaceClassifierTest.writeFixture(full), full);
+        SurfaceAttribution attribution = SurfaceAttribution.load(full.resolve(SurfaceAttribution.ATTRIBUTION_FILE));
+        assertEquals(List.of(CONFIG, PLUGIN, PLAYER, JOIN_EVENT), attribution.seeds());
+        assertEquals(List.of(CONFIG, PLUGIN), attribution.seedsReaching("com.hypixel.hytale.server.core.config.Value"));
+
+        List<Set<String>> removals = List.of(Set.of(PLUGIN), Set.of(CONFIG), Set.of(PLAYER), Set.of(JOIN_EVENT),
+            Set.of(PLAYER, JOIN_EVENT));
+        for (Set<String> removed : removals) {
+            Path without = dir.resolve("without-" + removals.indexOf(removed));
+            new SurfaceClassifier(config(removed)).run(SurfaceClassifierTest.writeFixture(without), without);
+            Set<String> expected = surface(without);
+
+            assertEquals(expected, attribution.reachedWithout(removed), removed.toString());
+            assertEquals(expected, attribution.surfaceWithout(removed), removed.toString());
+        }
+    }
+
+    private static ClassifierConfig config(Set<String> removed) {
+        ClassifierConfig config = SurfaceClassifierTest.config(
+            List.of(CONFIG, PLUGIN).stream().filter(s -> !removed.contains(s)).toList(),
+            List.of(PLAYER).stream().filter(s -> !removed.contains(s)).toList());
+        // PlayerJoinEvent is the only type in its tier 4 package
+        if (removed.contains(JOIN_EVENT)) config.tier4_packages = List.of();
+        return config;
+    }
+
+    private static Set<String> surface(Path root) throws IOException {
+        Set<String> fqcns = new HashSet<>();
+        for (SurfaceClassifier.SurfaceType type
+                : SurfaceClassifierTest.read(root, "surface.json", SurfaceClassifier.SurfaceOutput.class).types) {
+            fqcns.add(type.fqcn);
+        }
+        return fqcns;
+    }
+}
@@ -0,0 +1,430 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class SurfaceClassifierTest {
+
+    private static final Map<String, String> SOURCES = Map.ofEntries(
+        Map.entry("com/hypixel/hytale/server/core/plugin/JavaPlugin.java", """
+            package com.hypixel.hytale.server.core.plugin;
+
+            import com.hypixel.hytale.server.core.config.Config;
+            import com.hypixel.hytale.protocol.packets.Packet;
+            import java.util.List;
+            import java.util.Optional;
+
+            public class JavaPlugin extends PluginBase {
+                public Config getConfig() { return null; }
+                public Packet lastPacket() { return null; }
+                public List<Command> commands() { return null; }
+                public Registry.Entry entry() { return null; }
+                public Function<String, String> mapper() { return null; }
+                protected Optional<String> name() { return null; }
+                private Secret secret() { return null; }
+            }
+            """),
+        Map.entry("com/hypixel/hytale/server/core/plugin/PluginBase.java", """
+            package com.hypixel.hytale.server.core.plugin;
+
+            public abstract class PluginBase {
+                public abstract void setup();
+            }
+            """),
+        Map.entry("com/hypixel/hytale/server/core/plugin/Secret.java", """
+            package com.hypixel.hytale.server.core.plugin;
+
+            public class Secret {
+            }
+            """),
+        Map.entry("com/hypixel/hytale/server/core/config/Config.java", """
+            package com.hypixel.hytale.server.core.config;
+
+            public class Config {
+                public Value get(String key) { return null; }
+            }
+            """),
+        Map.entry("com/hypixel/hytale/server/core/config/Value.java", """
+            package com.hypixel.hytale.server.core.config;
+
+            public class Value {
+            }
+            """),
+        Map.entry("com/hypixel/hytale/server/npc/Config.java", """
+            package com.hypixel.hytale.server.npc;
+
+            public class Config {
+            }
+            """),
+        Map.entry("com/hypixel/hytale/protocol/packets/Packet.java", """
+            package com.hypixel.hytale.protocol.packets;
+
+            public class Packet {
+                public Payload payload() { return null; }
+            }
+            """),
+        Map.entry("com/hypixel/hytale/protocol/packets/Payload.java", """
+            package com.hypixel.hytale.protocol.packets;
+
+            public class Payload {
+            }
+            """),
+        Map.entry("com/hypixel/hytale/server/core/command/system/Command.java", """
+            package com.hypixel.hytale.server.core.command.system;
+
+            public interface Command {
+                void execute(CommandContext context);
+            }
+            """),
+        Map.entry("com/hypixel/hytale/server/core/command/system/CommandContext.java", """
+            package com.hypixel.hytale.server.core.command.system;
+
+            public class CommandContext {
+            }
+            """),
+        Map.entry("com/hypixel/hytale/registry/Registry.java", """
+            package com.hypixel.hytale.registry;
+
+            public class Registry {
+                public static class Entry {
+                }
+            }
+            """),
+        Map.entry("com/hypixel/hytale/function/Scope.java", """
+            package com.hypixel.hytale.function;
+
+            public class Scope {
+                public static class Function {
+                }
+            }
+            """),
+        Map.entry("java/util/Optional.java", """
+            package java.util;
+
+            public final class Optional<T> {
+                public T get() { return null; }
+            }
+            """),
+        Map.entry("com/hypixel/hytale/event/PlayerJoinEvent.java", """
+            package com.hypixel.hytale.event;
+
+            import com.hypixel.hytale.server.core.entity.Player;
+
+            public class PlayerJoinEvent {
+                public Player getPlayer() { return null; }
+            }
+            """),
+        Map.entry("com/hypixel/hytale/server/core/entity/Player.java", """
+            package com.hypixel.hytale.server.core.entity;
+
+            public class Player {
+            }
+            """),
+        Map.entry("com/hypixel/hytale/server/core/util/Unused.java", """
+            package com.hypixel.hytale.server.core.util;
+
+            public class Unused {
+            }
+            """)
+    );
+
+    /** Protocol root types next to the server types they may duplicate, all reached from Api. */
+    private static final Map<String, String> DEDUP_SOURCES = Map.ofEntries(
+        Map.entry("com/hypixel/hytale/server/core/plugin/Api.java", """
+            package com.hypixel.hytale.server.core.plugin;
+
+            public class Api {
+                public com.hypixel.hytale.server.core.asset.BlockType block() { return null; }
+                public com.hypixel.hytale.protocol.BlockType blockPacket() { return null; }
+                public com.hypixel.hytale.server.core.asset.Item item() { return null; }
+                public com.hypixel.hytale.protocol.ItemStackDto itemPacket() { return null; }
+                public com.hypixel.hytale.server.core.asset.SoundConfig soundConfig() { return null; }
+                public com.hypixel.hytale.protocol.SoundEvent soundPacket() { return null; }
+                public com.hypixel.hytale.server.core.asset.Sound sound() { return null; }
+                public com.hypixel.hytale.protocol.Sound wireSound() { return null; }
+            }
+            """),
+        Map.entry("com/hypixel/hytale/server/core/asset/BlockType.java", """
+            package com.hypixel.hytale.server.core.asset;
+
+            public class BlockType {
+                public int maxStack;
+                public boolean solid;
+                public String name;
+                public float hardness;
+            }
+            """),
+        Map.entry("com/hypixel/hytale/protocol/BlockType.java", """
+            package com.hypixel.hytale.protocol;
+
+            public class BlockType {
+                public int max_stack;
+                public boolean solid;
+                public String name;
+                public int light;
+                public int tint;
+                public int sway;
+            }
+            """),
+        Map.entry("com/hypixel/hytale/server/core/asset/Item.java", """
+            package com.hypixel.hytale.server.core.asset;
+
+            public class Item {
+                public String id;
+                public int count;
+                public int durability;
+                public String icon;
+            }
+            """),
+        Map.entry("com/hypixel/hytale/protocol/ItemStackDto.java", """
+            package com.hypixel.hytale.protocol;
+
+            public class ItemStackDto {
+                public String id;
+                public int count;
+                public int durability;
+                public String getIcon() { return null; }
+                public String icon;
+            }
+            """),
+        Map.entry("com/hypixel/hytale/server/core/asset/SoundConfig.java", """
+            package com.hypixel.hytale.server.core.asset;
+
+            public class SoundConfig {
+                public float volume;
+                public float pitch;
+                public int range;
+                public boolean loop;
+            }
+            """),
+        Map.entry("com/hypixel/hytale/protocol/SoundEvent.java", """
+            package com.hypixel.hytale.protocol;
+
+            public class SoundEvent {
+                public float volume;
+                public float pitch;
+                public int range;
+                public String id;
+                public int channel;
+            }
+            """),
+        Map.entry("com/hypixel/hytale/server/core/asset/Sound.java", """
+            package com.hypixel.hytale.server.core.asset;
+
+            public class Sound {
+                public String file;
+                public float length;
+                public boolean stream;
+            }
+            """),
+        Map.entry("com/hypixel/hytale/protocol/Sound.java", """
+            package com.hypixel.hytale.protocol;
+
+            public class Sound {
+                public int x;
+                public int y;
+                public int z;
+            }
+            """)
+    );
+
+    @TempDir
+    Path dir;
+
+    /** Expected output is that of the classifier before types were numbered densely. */
+    @Test
+    void classifiesLikeTheFqcnKeyedClassifier() throws IOException {
+        Path index = writeFixture(dir);
+
+        new SurfaceClassifier(config(List.of("com.hypixel.hytale.server.core.plugin.JavaPlugin"), List.of()))
+            .run(index, dir);
+
+        SurfaceClassifier.SurfaceOutput surface = read(dir, "surface.json", SurfaceClassifier.SurfaceOutput.class);
+        List<String> surfaceTypes = new ArrayList<>();
+        for (SurfaceClassifier.SurfaceType type : surface.types) {
+            surfaceTypes.add(type.fqcn + " " + type.category + " " + type.inclusion_reason);
+        }
+        // npc.Config is ruled out by JavaPlugin's import; Scope.Function by its bare name;
+        // Secret is referenced only privately; Optional is external, Packet excluded
+        assertEquals(List.of(
+            "com.hypixel.hytale.server.core.plugin.JavaPlugin plugin seed:tier1",
+            "com.hypixel.hytale.event.PlayerJoinEvent event seed:tier4",
+            "com.hypixel.hytale.server.core.plugin.PluginBase plugin expansion",
+            "com.hypixel.hytale.server.core.config.Config core expansion",
+            "com.hypixel.hytale.server.core.command.system.Command command expansion",
+            "com.hypixel.hytale.registry.Registry.Entry registry expansion",
+            "com.hypixel.hytale.registry.Registry registry expansion",
+            "com.hypixel.hytale.server.core.entity.Player entity expansion",
+            "com.hypixel.hytale.server.core.config.Value core expansion"
+        ), surfaceTypes);
+
+        SurfaceClassifier.InternalOutput internal =
+            read(dir, "internal-index.json", SurfaceClassifier.InternalOutput.class);
+        List<String> internalTypes = new ArrayList<>();
+        for (SurfaceClassifier.InternalType type : internal.types) {
+            internalTypes.add(type.fqcn + " " + type.tag);
+        }
+        assertEquals(List.of(
+            "com.hypixel.hytale.function.Scope.Function internal",
+            "com.hypixel.hytale.function.Scope internal",
+            "com.hypixel.hytale.protocol.packets.Packet protocol",
+            "com.hypixel.hytale.protocol.packets.Payload protocol",
+            "com.hypixel.hytale.server.core.command.system.CommandContext internal",
+            "com.hypixel.hytale.server.core.plugin.Secret internal",
+            "com.hypixel.hytale.server.core.util.Unused internal",
+            "com.hypixel.hytale.server.npc.Config internal",
+            "java.util.Optional internal"
+        ), internalTypes);
+    }
+
+    /**
+     * A protocol type goes if a same-named server type is 0.3 similar or any
+     * server type 0.6 similar; from 0.4 it is only reported for review.
+     */
+    @Test
+    void deduplicatesProtocolTypesByStructure() throws IOException {
+        Path index = writeFixture(dir, DEDUP_SOURCES);
+        ClassifierConfig config = config(List.of("com.hypixel.hytale.server.core.plugin.Api"), List.of());
+        config.tier4_packages = List.of();
+
+        new SurfaceClassifier(config).run(index, dir);
+
+        List<String> surfaceTypes = new ArrayList<>();
+        for (SurfaceClassifier.SurfaceType type
+                : read(dir, "surface.json", SurfaceClassifier.SurfaceOutput.class).types) {
+            surfaceTypes.add(type.fqcn);
+        }
+        // protocol.BlockType: same name, similarity 6/14; ItemStackDto: renamed, similarity 1
+        assertEquals(List.of(
+            "com.hypixel.hytale.server.core.plugin.Api",
+            "com.hypixel.hytale.server.core.asset.BlockType",
+            "com.hypixel.hytale.server.core.asset.Item",
+            "com.hypixel.hytale.server.core.asset.SoundConfig",
+            "com.hypixel.hytale.protocol.SoundEvent",
+            "com.hypixel.hytale.server.core.asset.Sound",
+            "com.hypixel.hytale.protocol.Sound"
+        ), surfaceTypes);
+
+        List<String> reviews = new ArrayList<>();
+        for (SurfaceClassifier.BorderlineCase bc
+                : read(dir, "surface-review.json", SurfaceClassifier.ReviewOutput.class).borderline_cases) {
+            reviews.add(bc.fqcn + ": " + bc.reason + " [" + bc.recommendation + ", " + bc.confidence + "]");
+        }
+        assertEquals(List.of(
+            "com.hypixel.hytale.protocol.ItemStackDto: Structural duplicate of"
+                + " com.hypixel.hytale.server.core.asset.Item (structural similarity 1.00) [exclude, medium]",
+            "com.hypixel.hytale.protocol.SoundEvent: Possible duplicate of"
+                + " com.hypixel.hytale.server.core.asset.SoundConfig (structural similarity 0.50) [review, low]",
+            "com.hypixel.hytale.protocol.Sound: Same simple name as com.hypixel.hytale.server.core.asset.Sound"
+                + " but different members; kept (structural similarity 0.00) [include, medium]"
+        ), reviews);
+    }
+
+    @Test
+    void incrementalSeedChangeMatchesFullRun() throws IOException {
+        String config = "com.hypixel.hytale.server.core.config.Config";
+        String unused = "com.hypixel.hytale.server.core.util.Unused";
+        String plugin = "com.hypixel.hytale.server.core.plugin.JavaPlugin";
+        // Config stays reachable from JavaPlugin, so it and Value need a new parent; Unused is retracted
+        ClassifierConfig before = config(List.of(config, unused), List.of(plugin));
+        ClassifierConfig after = config(List.of(plugin), List.of("com.hypixel.hytale.server.core.plugin.Secret"));
+
+        assertIncrementalMatchesFullRun(before, after, "incremental");
+    }
+
+    @Test
+    void incrementalExclusionChangeMatchesFullRun() throws IOException {
+        String plugin = "com.hypixel.hytale.server.core.plugin.JavaPlugin";
+        ClassifierConfig before = config(List.of(plugin), List.of());
+        ClassifierConfig after = config(List.of(plugin), List.of("com.hypixel.hytale.server.core.util.Unused"));
+        after.excluded_packages = new ArrayList<>(after.excluded_packages);
+        after.excluded_packages.add("com.hypixel.hytale.registry.");
+
+        assertIncrementalMatchesFullRun(before, after, "re-expand");
+    }
+
+    private void assertIncrementalMatchesFullRun(ClassifierConfig before, ClassifierConfig after, String mode)
+            throws IOException {
+        Path incremental = dir.resolve("incremental");
+        Path index = writeFixture(incremental);
+        new SurfaceClassifier(before).run(index, incremental);
+        List<String> previous = outputs(incremental);
+        new SurfaceClassifier(after).runIncremental(index, incremental);
+        assertEquals(mode, read(incremental, SurfaceClassifier.DELTA_FILE, SurfaceClassifier.DeltaOutput.class).mode);
+
+        Path full = dir.resolve("full");
+        new SurfaceClassifier(after).run(writeFixture(full), full);
+
+        List<String> expected = outputs(full);
+        assertFalse(expected.equals(previous), "config change must change the outputs");
+        assertEquals(expected, outputs(incremental));
+    }
+
+    static ClassifierConfig config(List<String> tier1, List<String> tier2) {
+        ClassifierConfig config = ClassifierConfig.defaults();
+        config.tier1_seeds = tier1;
+        config.tier2_seeds = tier2;
+        config.tier3_seeds = List.of();
+        return config;
+    }
+
+    /** Surface types with category, reason and path, internal types with tag, and review cases; sorted. */
+    private static List<String> outputs(Path root) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (SurfaceClassifier.SurfaceType type
+                : read(root, "surface.json", SurfaceClassifier.SurfaceOutput.class).types) {
+            lines.add("surface " + type.fqcn + " " + type.category + " " + type.inclusion_reason
+                + " " + String.join(" > ", type.expansion_path));
+        }
+        for (SurfaceClassifier.InternalType type
+                : read(root, "internal-index.json", SurfaceClassifier.InternalOutput.class).types) {
+            lines.add("internal " + type.fqcn + " " + type.tag);
+        }
+        for (SurfaceClassifier.BorderlineCase bc
+                : read(root, "surface-review.json", SurfaceClassifier.ReviewOutput.class).borderline_cases) {
+            lines.add("review " + bc.fqcn + " " + bc.recommendation);
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    static Path writeFixture(Path root) throws IOException {
+        return writeFixture(root, SOURCES);
+    }
+
+    /** Sources under decompiled/, for the import map, and their class-index.json. */
+    static Path writeFixture(Path root, Map<String, String> sources) throws IOException {
+        ClassIndexer indexer = new ClassIndexer(false);
+        List<ClassIndexer.ClassEntry> entries = new ArrayList<>();
+        for (String path : sources.keySet().stream().sorted().toList()) {
+            Path file = root.resolve("decompiled").resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, sources.get(path));
+            entries.addAll(indexer.parseSource(sources.get(path), "decompiled/" + path));
+        }
+        Path index = root.resolve("class-index.json");
+        try (ClassIndexWriter writer = new ClassIndexWriter(index, "fixture")) {
+            writer.writeAll(entries);
+        }
+        return index;
+    }
+
+    static <T> T read(Path root, String name, Class<T> type) throws IOException {
+        try (Reader reader = Files.newBufferedReader(root.resolve(name))) {
+            return new Gson().fromJson(reader, type);
+        }
+    }
+}
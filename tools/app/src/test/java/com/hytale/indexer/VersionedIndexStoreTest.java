@@ -0,0 +1,128 @@
+package com.hytale.indexer;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VersionedIndexStoreTest {
+
+    private static final Map<String, String> V1 = Map.of(
+        "a.Foo", "package a;\npublic class Foo {\n    public void run() {}\n}\n",
+        "a.Bar", "package a;\npublic class Bar {\n    public int size;\n}\n");
+    private static final Map<String, String> V2 = Map.of(
+        "a.Foo", "package a;\npublic class Foo {\n    public void run() {}\n    public void stop(int code) {}\n}\n",
+        "a.Baz", "package a;\npublic class Baz {\n}\n");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rangesAddParseAndTruncate() {
+        String ranges = null;
+        for (int position : new int[] {0, 1, 2, 5, 6, 9}) {
+            ranges = VersionedIndexStore.Ranges.add(ranges, position);
+        }
+        assertEquals("0-2,5-6,9", ranges);
+        assertEquals(ranges, VersionedIndexStore.Ranges.add(ranges, 9));
+        assertEquals(0, VersionedIndexStore.Ranges.first(ranges));
+        assertTrue(VersionedIndexStore.Ranges.contains(ranges, 6));
+        assertFalse(VersionedIndexStore.Ranges.contains(ranges, 3));
+        assertEquals("0-2,5", VersionedIndexStore.Ranges.truncate(ranges, 6));
+        assertEquals("0-2", VersionedIndexStore.Ranges.truncate(ranges, 5));
+        assertEquals("", VersionedIndexStore.Ranges.truncate("3-4", 3));
+    }
+
+    @Test
+    void checkoutRebuildsEachVersion() throws IOException {
+        Path store = dir.resolve("store");
+        VersionedIndexStore versions = new VersionedIndexStore(store);
+        versions.add("v1", artifacts("a1", V1));
+        versions.add("v2", artifacts("a2", V2));
+
+        for (String version : List.of("v1", "v2")) {
+            Path out = dir.resolve("out-" + version);
+            versions.checkout(version, out);
+            Path original = dir.resolve(version.equals("v1") ? "a1" : "a2");
+            assertEquals(classesJson(original), classesJson(out));
+            Map<String, String> sources = new TreeMap<>();
+            try (PackedSourceStore pack = PackedSourceStore.open(out)) {
+                pack.forEach(sources::put);
+            }
+            assertEquals(new TreeMap<>(version.equals("v1") ? V1 : V2), sources);
+        }
+
+        VersionedIndexStore.History history = history(store);
+        assertEquals(List.of("v1", "v2"), history.versions);
+        VersionedIndexStore.TypeHistory foo = history.types.get("a.Foo");
+        assertEquals("0-1", foo.present);
+        assertEquals(List.of("v1", "v2"), foo.revisions.stream().map(r -> r.version).toList());
+        assertEquals("0-1", foo.members.get("method:run()"));
+        assertEquals("1", foo.members.get("method:stop(int)"));
+        assertEquals("0", history.types.get("a.Bar").present);
+        assertEquals("1", history.types.get("a.Baz").present);
+    }
+
+    /** history.json written, store.json not: the version is dropped and can be added again. */
+    @Test
+    void addAfterCrashBeforeStoreFileDoesNotDuplicateVersion() throws IOException {
+        Path store = dir.resolve("store");
+        new VersionedIndexStore(store).add("v1", artifacts("a1", V1));
+        String committed = Files.readString(store.resolve(VersionedIndexStore.STORE_FILE));
+        new VersionedIndexStore(store).add("v2", artifacts("a2", V2));
+        Files.writeString(store.resolve(VersionedIndexStore.STORE_FILE), committed);
+
+        new VersionedIndexStore(store).add("v2", dir.resolve("a2"));
+
+        VersionedIndexStore.History history = history(store);
+        assertEquals(List.of("v1", "v2"), history.versions);
+        VersionedIndexStore.TypeHistory foo = history.types.get("a.Foo");
+        assertEquals("0-1", foo.present);
+        assertEquals(List.of("v1", "v2"), foo.revisions.stream().map(r -> r.version).toList());
+        assertEquals("1", foo.members.get("method:stop(int)"));
+        assertEquals("1", history.types.get("a.Baz").present);
+    }
+
+    /** An artifacts directory with a loose decompiled tree and its class-index.json. */
+    private Path artifacts(String name, Map<String, String> sources) throws IOException {
+        Path artifacts = dir.resolve(name);
+        ClassIndexer indexer = new ClassIndexer(false);
+        List<ClassIndexer.ClassEntry> entries = new ArrayList<>();
+        for (String fqcn : new TreeMap<>(sources).keySet()) {
+            String relative = fqcn.replace('.', '/') + ".java";
+            Path file = artifacts.resolve("decompiled").resolve(relative);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, sources.get(fqcn));
+            entries.addAll(indexer.parseSource(sources.get(fqcn), "decompiled/" + relative));
+        }
+        try (ClassIndexWriter writer = new ClassIndexWriter(artifacts.resolve("class-index.json"), name)) {
+            writer.writeAll(entries);
+        }
+        return artifacts;
+    }
+
+    private static String classesJson(Path artifacts) throws IOException {
+        try (Reader reader = Files.newBufferedReader(artifacts.resolve("class-index.json"))) {
+            ClassIndexer.ClassIndex index = new Gson().fromJson(reader, ClassIndexer.ClassIndex.class);
+            return index.jar_hash + " " + new Gson().toJson(index.classes);
+        }
+    }
+
+    private static VersionedIndexStore.History history(Path store) throws IOException {
+        try (Reader reader = Files.newBufferedReader(store.resolve(VersionedIndexStore.HISTORY_FILE))) {
+            return new Gson().fromJson(reader, VersionedIndexStore.History.class);
+        }
+    }
+}
@@ -2,29 +2,62 @@
 #
 # Hytale API Surface Classifier — Phase 2 CLI
 #
-# Usage: ./tools/classify.sh [artifacts/class-index.json]
+# Usage: ./tools/classify.sh [--config file.json] [--incremental] [--compress] [artifacts/class-index.json]
 #
 # Reads class-index.json and classifies types into API surface vs internal.
+# Seeds and package rules can be overridden with --config; --incremental
+# re-classifies from the previous run's reference graph. With --compress, or
+# when the index is class-index.json.gz, every output is written gzipped (.json.gz).
 # Produces:
 #   artifacts/surface.json         - API surface types with categories
 #   artifacts/internal-index.json  - Internal types with tags
 #   artifacts/surface-review.json  - Borderline cases for human review
+#   artifacts/surface-attribution.json - Seeds reaching each surface type
+#   artifacts/surface-graph.json   - Reference graph and config, for --incremental
+#   artifacts/surface-delta.json   - Changes against the previous surface.json
 
 set -euo pipefail
 
 SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
 PROJECT_ROOT="$(cd "$SCRIPT_DIR/.." && pwd)"
 
-INDEX_PATH="${1:-$PROJECT_ROOT/artifacts/class-index.json}"
+ARGS=()
+INDEX_PATH=""
+while [ $# -gt 0 ]; do
+    case "$1" in
+        --config)
+            CONFIG_PATH="$2"
+            if [[ ! "$CONFIG_PATH" = /* ]]; then
+                CONFIG_PATH="$(pwd)/$CONFIG_PATH"
+            fi
+            ARGS+=(--config "$CONFIG_PATH")
+            shift 2
+            ;;
+        --incremental|--compress)
+            ARGS+=("$1")
+            shift
+            ;;
+        *)
+            INDEX_PATH="$1"
+            shift
+            ;;
+    esac
+done
+INDEX_PATH="${INDEX_PATH:-$PROJECT_ROOT/artifacts/class-index.json}"
 
 # Resolve to absolute path
 if [[ ! "$INDEX_PATH" = /* ]]; then
     INDEX_PATH="$(pwd)/$INDEX_PATH"
 fi
 
+# Fall back to the compressed index
+if [ ! -f "$INDEX_PATH" ] && [ -f "$INDEX_PATH.gz" ]; then
+    INDEX_PATH="$INDEX_PATH.gz"
+fi
+
 if [ ! -f "$INDEX_PATH" ]; then
     echo "ERROR: File not found: $INDEX_PATH"
-    echo "Usage: $0 [path-to-class-index.json]"
+    echo "Usage: $0 [--config file.json] [--incremental] [--compress] [path-to-class-index.json]"
     exit 1
 fi
 
@@ -39,4 +72,11 @@ echo "Building classifier..."
 
 echo ""
 echo "Running classifier..."
-"$SCRIPT_DIR/gradlew" -p "$SCRIPT_DIR" :app:classify --args="$INDEX_PATH" --quiet
+ARGS+=("$INDEX_PATH")
+
+# Gradle splits --args itself; double quotes keep paths with spaces whole
+GRADLE_ARGS=""
+for arg in "${ARGS[@]}"; do
+    GRADLE_ARGS="$GRADLE_ARGS \"$arg\""
+done
+"$SCRIPT_DIR/gradlew" -p "$SCRIPT_DIR" :app:classify --args="$GRADLE_ARGS" --quiet
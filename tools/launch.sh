@@ -0,0 +1,96 @@
+#!/usr/bin/env bash
+#
+# Hytale indexer tools — direct launcher with a startup cache
+#
+# Usage: ./tools/launch.sh <command> [args...]
+#        ./tools/launch.sh --retrain [<command> [args...]]
+#
+# Runs any indexer tool in a plain JVM instead of through Gradle. Commands are
+# named after the Gradle tasks (index, classify, attribution, diff, rag,
+# versions, ...; run without arguments for the list) and take the same
+# arguments. Relative paths are resolved against the repository root, like
+# the Gradle tasks do.
+#
+# The distribution is (re)built with `gradlew :app:installDist` only when the
+# sources or build files changed. After each rebuild a startup cache is trained
+# once by running a small end-to-end workload (Launcher train) with
+# -XX:AOTCacheOutput, and later launches use it with -XX:AOTCache. They map
+# the cached classes instead of loading and linking Gson, JavaParser,
+# Vineflower and the indexer again.
+#
+# Environment:
+#   JAVA_HOME   JDK to run with (default: java on PATH); must be JDK 25 or
+#               newer, the toolchain the distribution is compiled for
+#   JAVA_OPTS   JVM options (default: -Xmx4g)
+
+set -euo pipefail
+
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+PROJECT_ROOT="$(cd "$SCRIPT_DIR/.." && pwd)"
+DIST="$SCRIPT_DIR/app/build/install/app"
+CACHE_DIR="$SCRIPT_DIR/app/build/startup-cache"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+read -r -a JVM_OPTS <<< "${JAVA_OPTS:--Xmx4g}"
+
+RETRAIN=false
+if [ "${1:-}" = "--retrain" ]; then
+    RETRAIN=true
+    shift
+fi
+
+# Rebuild the distribution when a source or build file is newer than it
+if [ ! -d "$DIST/lib" ] || [ -n "$(find "$SCRIPT_DIR/app/src/main" "$SCRIPT_DIR/app/build.gradle.kts" \
+        "$SCRIPT_DIR/gradle/libs.versions.toml" -newer "$DIST/lib" -print -quit)" ]; then
+    echo "Building indexer distribution..." >&2
+    "$SCRIPT_DIR/gradlew" -p "$SCRIPT_DIR" :app:installDist --quiet
+    touch "$DIST/lib"
+fi
+
+# The cache is only valid for this exact classpath; glob results come sorted,
+# so the order is fixed
+JARS=("$DIST/lib"/*.jar)
+CLASSPATH="$(IFS=:; echo "${JARS[*]}")"
+
+# JDK feature version from its release file; starting a JVM just to ask costs ~70 ms
+JAVA_MAJOR=""
+JAVA_BIN="$(command -v "$JAVA" || true)"
+if [ -n "$JAVA_BIN" ]; then
+    JDK_DIR="$(cd "$(dirname "$(readlink -f "$JAVA_BIN" 2>/dev/null || echo "$JAVA_BIN")")/.." && pwd)"
+    if [ -f "$JDK_DIR/release" ]; then
+        JAVA_MAJOR="$(sed -n 's/^JAVA_VERSION="\([0-9]*\).*/\1/p' "$JDK_DIR/release")"
+    fi
+fi
+if [ -z "$JAVA_MAJOR" ]; then
+    JAVA_MAJOR="$("$JAVA" -XshowSettings:properties -version 2>&1 \
+        | awk -F'= ' '/java.specification.version/ {print $2}')"
+fi
+# The distribution is compiled for Java 25; an older JVM cannot load it at all
+if [ -z "$JAVA_MAJOR" ] || [ "${JAVA_MAJOR%%.*}" -lt 25 ]; then
+    echo "ERROR: JDK 25 or newer required, found ${JAVA_MAJOR:-none} ($JAVA); set JAVA_HOME" >&2
+    exit 1
+fi
+CACHE="$CACHE_DIR/hytale-tools.aot"
+TRAIN_FLAG="-XX:AOTCacheOutput=$CACHE"
+USE_FLAG="-XX:AOTCache=$CACHE"
+
+if $RETRAIN || [ ! -f "$CACHE" ] || [ "$DIST/lib" -nt "$CACHE" ]; then
+    mkdir -p "$CACHE_DIR"
+    rm -f "$CACHE"
+    echo "Training startup cache (JDK $JAVA_MAJOR): $CACHE" >&2
+    if ! (cd "$PROJECT_ROOT" && "$JAVA" "${JVM_OPTS[@]}" "$TRAIN_FLAG" -cp "$CLASSPATH" \
+            com.hytale.indexer.Launcher train > "$CACHE_DIR/train.log" 2>&1); then
+        echo "WARN: Training failed (see $CACHE_DIR/train.log); running without a cache" >&2
+        rm -f "$CACHE"
+    fi
+fi
+if [ $# -eq 0 ] && $RETRAIN; then
+    exit 0
+fi
+
+CACHE_OPTS=()
+if [ -f "$CACHE" ]; then
+    CACHE_OPTS=("$USE_FLAG")
+fi
+
+cd "$PROJECT_ROOT"
+exec "$JAVA" "${JVM_OPTS[@]}" ${CACHE_OPTS[@]+"${CACHE_OPTS[@]}"} -cp "$CLASSPATH" com.hytale.indexer.Launcher "$@"
@@ -2,37 +2,69 @@
 #
 # Hytale JAR Indexer — Phase 1 CLI
 #
-# Usage: ./tools/run.sh input/HytaleServer.jar
+# Usage: ./tools/run.sh [options] input/HytaleServer.jar [input/Plugin.jar[=com.example] ...]
 #
 # Decompiles the given JAR using Vineflower and produces:
 #   artifacts/decompiled/   - Full decompiled source tree
 #   artifacts/class-index.json - Structured class index
+#
+# Options are passed through to the indexer:
+#   --packed     Write decompiled source to artifacts/decompiled.pack instead of
+#                one file per class
+#   --pipelined  Overlap decompiling, parsing and index writing
+#   --fast-parse Signature-only parsing (method bodies skipped, same index)
+#   --isolated   Decompile largest-first in worker JVMs with time/memory budgets;
+#                classes that exceed them are stubbed from bytecode
+#   --resume     Checkpoint progress in artifacts/checkpoint/ and continue an
+#                interrupted run of the same JAR
+#   --compress   Write artifacts/class-index.json.gz and, with --packed, deflate
+#                every class in the pack; all tools read either form
+#   --lazy       Skip decompiling: index signature stubs generated from bytecode
+#                and decompile classes later with the lazyDecompile task
+#
+# Further JARs (companion or plugin JARs) are indexed into the same class
+# index, each type tagged with its JAR. Append =<packages> to a JAR to limit
+# what is indexed from it (default: com.hypixel.hytale for the first JAR,
+# everything for the others).
 
 set -euo pipefail
 
 SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
 
+OPTIONS=()
+while [[ $# -gt 0 && "$1" == --* ]]; do
+    OPTIONS+=("$1")
+    shift
+done
+
 if [ $# -lt 1 ]; then
-    echo "Usage: $0 <path-to-jar>"
+    echo "Usage: $0 [options] <path-to-jar>[=<packages>] [<path-to-jar>[=<packages>] ...]"
     echo "  Example: $0 input/HytaleServer.jar"
     exit 1
 fi
 
-JAR_PATH="$1"
+JARS=()
+for JAR_ARG in "$@"; do
+    JAR_PATH="${JAR_ARG%%=*}"
+    FILTER="${JAR_ARG#"$JAR_PATH"}"
 
-# Resolve to absolute path
-if [[ ! "$JAR_PATH" = /* ]]; then
-    JAR_PATH="$(pwd)/$JAR_PATH"
-fi
+    # Resolve to absolute path
+    if [[ ! "$JAR_PATH" = /* ]]; then
+        JAR_PATH="$(pwd)/$JAR_PATH"
+    fi
 
-if [ ! -f "$JAR_PATH" ]; then
-    echo "ERROR: File not found: $JAR_PATH"
-    exit 1
-fi
+    if [ ! -f "$JAR_PATH" ]; then
+        echo "ERROR: File not found: $JAR_PATH"
+        exit 1
+    fi
+    JARS+=("$JAR_PATH$FILTER")
+done
 
 echo "Hytale JAR Indexer — Phase 1"
 echo "============================"
-echo "JAR: $JAR_PATH"
+for JAR in "${JARS[@]}"; do
+    echo "JAR: $JAR"
+done
 echo ""
 
 # Build if needed (Gradle's up-to-date checks handle incremental builds)
@@ -41,4 +73,4 @@ echo "Building indexer..."
 
 echo ""
 echo "Running indexer..."
-"$SCRIPT_DIR/gradlew" -p "$SCRIPT_DIR" :app:run --args="$JAR_PATH" --quiet
+"$SCRIPT_DIR/gradlew" -p "$SCRIPT_DIR" :app:run --args="${OPTIONS[*]:-} ${JARS[*]}" --quiet